@@ -0,0 +1,100 @@
+#!/usr/bin/env bash
+#
+# Measures time-to-first-successful-request and resident memory of the application,
+# first as a plain executable jar and then extracted with AOT + a CDS archive.
+#
+# Usage:
+#   ./mvnw -Paot clean package -DskipTests
+#   DB_URL=... DB_USERNAME=... DB_PASSWORD=... scripts/startup-benchmark.sh [runs]
+#
+# Environment:
+#   JAVA             java executable (default: java)
+#   PORT             port the application listens on during the benchmark (default: 8085)
+#   PROBE_PATH       request that must answer 200 (default: /fruits)
+#   EXTRA_JAVA_OPTS  additional JVM/system properties for every run
+#
+set -euo pipefail
+
+RUNS=${1:-5}
+JAVA=${JAVA:-java}
+PORT=${PORT:-8085}
+PROBE_PATH=${PROBE_PATH:-/fruits}
+EXTRA_JAVA_OPTS=${EXTRA_JAVA_OPTS:-}
+WORK_DIR=target/startup-benchmark
+REPORT=$WORK_DIR/report.json
+COMMON_OPTS="-Dspring.profiles.active=prod -Dserver.port=$PORT $EXTRA_JAVA_OPTS"
+
+JAR=$(ls target/*.jar 2>/dev/null | head -n 1)
+if [[ -z "$JAR" ]]; then
+  echo "No jar in target/, build it first with: ./mvnw -Paot clean package -DskipTests" >&2
+  exit 1
+fi
+
+prepare_cds() {
+  rm -rf "$WORK_DIR/extracted"
+  mkdir -p "$WORK_DIR"
+  "$JAVA" -Djarmode=tools -jar "$JAR" extract --destination "$WORK_DIR/extracted" --application-filename application.jar
+  (cd "$WORK_DIR/extracted" && "$JAVA" -XX:ArchiveClassesAtExit=application.jsa -Xlog:cds=off -Xlog:cds+dynamic=off \
+      -Dspring.context.exit=onRefresh -Dspring.aot.enabled=true $COMMON_OPTS -jar application.jar > /dev/null)
+}
+
+# Starts the application, waits for the probe to answer 200 and prints "<millis> <rss-kb>".
+measure_once() {
+  local dir=$1
+  shift
+  local start end pid rss
+  start=$(date +%s%N)
+  (cd "$dir" && exec "$JAVA" "$@" > /dev/null 2>&1) &
+  pid=$!
+  until curl -fs -o /dev/null "http://localhost:$PORT$PROBE_PATH"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "Application exited before answering $PROBE_PATH" >&2
+      exit 1
+    fi
+    if (( ($(date +%s%N) - start) / 1000000 > 120000 )); then
+      echo "Timed out waiting for $PROBE_PATH" >&2
+      kill "$pid"
+      exit 1
+    fi
+    sleep 0.02
+  done
+  end=$(date +%s%N)
+  rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  echo "$(( (end - start) / 1000000 )) $rss"
+}
+
+# Runs a mode $RUNS times and prints "<median-millis> <median-rss-kb>".
+measure() {
+  local dir=$1
+  shift
+  local times=() rsses=() result
+  for ((i = 0; i < RUNS; i++)); do
+    result=$(measure_once "$dir" "$@")
+    times+=("${result% *}")
+    rsses+=("${result#* }")
+  done
+  echo "$(printf '%s\n' "${times[@]}" | sort -n | sed -n "$(( (RUNS + 1) / 2 ))p")" \
+       "$(printf '%s\n' "${rsses[@]}" | sort -n | sed -n "$(( (RUNS + 1) / 2 ))p")"
+}
+
+prepare_cds
+
+read -r baseline_ms baseline_rss <<< "$(measure . $COMMON_OPTS -jar "$JAR")"
+read -r optimized_ms optimized_rss <<< "$(measure "$WORK_DIR/extracted" -XX:SharedArchiveFile=application.jsa -Xlog:cds=off \
+    -Dspring.aot.enabled=true $COMMON_OPTS -jar application.jar)"
+
+cat > "$REPORT" <<JSON
+{
+  "runs": $RUNS,
+  "probe": "$PROBE_PATH",
+  "baseline": { "timeToFirstResponseMs": $baseline_ms, "rssKb": $baseline_rss },
+  "aotCds": { "timeToFirstResponseMs": $optimized_ms, "rssKb": $optimized_rss }
+}
+JSON
+
+printf '%-10s %28s %12s\n' "mode" "time-to-first-response (ms)" "RSS (MB)"
+printf '%-10s %28s %12s\n' "jar" "$baseline_ms" "$(( baseline_rss / 1024 ))"
+printf '%-10s %28s %12s\n' "aot+cds" "$optimized_ms" "$(( optimized_rss / 1024 ))"
+echo "Report written to $REPORT"
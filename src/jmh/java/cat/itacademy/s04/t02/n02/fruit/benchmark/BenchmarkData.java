@@ -0,0 +1,34 @@
+package cat.itacademy.s04.t02.n02.fruit.benchmark;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkData {
+
+    private static final String[] FRUIT_NAMES = {"Apple", "Banana", "Cherry", "Grape", "Mango", "Orange", "Pear", "Plum"};
+    private static final String[] COUNTRIES = {"Spain", "France", "Italy", "Portugal", "Morocco"};
+
+    private BenchmarkData() {
+    }
+
+    static List<ProviderResponseDTO> providerResponses(int count) {
+        List<ProviderResponseDTO> providers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            providers.add(new ProviderResponseDTO((long) i + 1, "Provider " + (i + 1), COUNTRIES[i % COUNTRIES.length]));
+        }
+        return providers;
+    }
+
+    static List<FruitResponseDTO> fruitResponses(int count, int providerCount) {
+        List<ProviderResponseDTO> providers = providerResponses(providerCount);
+        List<FruitResponseDTO> fruits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            fruits.add(new FruitResponseDTO((long) i + 1, FRUIT_NAMES[i % FRUIT_NAMES.length],
+                    1 + i % 50, providers.get(i % providerCount)));
+        }
+        return fruits;
+    }
+}
@@ -0,0 +1,75 @@
+package cat.itacademy.s04.t02.n02.fruit.benchmark;
+
+import cat.itacademy.s04.t02.n02.fruit.persistence.ConnectionPoolProperties;
+import cat.itacademy.s04.t02.n02.fruit.persistence.ConnectionPoolSizing;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup throughput from 32 threads sharing a Hikari pool of the derived size, compared with a
+ * minimal pool and one connection per thread. Each operation checks a connection out, runs a
+ * lookup against H2 over TCP and returns it, as a request would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+
+    private static final int TABLE_ROWS = 10_000;
+
+    @Param({"2", "auto", "32"})
+    private String poolSize;
+
+    private H2Server server;
+    private HikariDataSource dataSource;
+
+    @Setup
+    public void setUp() throws SQLException, IOException {
+        server = H2Server.start("connection-pool");
+        server.insertFruits(TABLE_ROWS);
+
+        int size = "auto".equals(poolSize)
+                ? ConnectionPoolSizing.maximumPoolSize(new ConnectionPoolProperties(true, 2, 1, 151, 10, 1),
+                        Runtime.getRuntime().availableProcessors())
+                : Integer.parseInt(poolSize);
+        System.out.printf("%npool size %s: %d connections%n", poolSize, size);
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(server.url());
+        config.setUsername("sa");
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(size);
+        dataSource = new HikariDataSource(config);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+        server.close();
+    }
+
+    @Benchmark
+    public String lookup() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT name FROM fruits WHERE id = ?")) {
+            statement.setLong(1, ThreadLocalRandom.current().nextLong(1, TABLE_ROWS + 1));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+}
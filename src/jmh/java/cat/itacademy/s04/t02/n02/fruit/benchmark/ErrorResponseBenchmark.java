@@ -0,0 +1,30 @@
+package cat.itacademy.s04.t02.n02.fruit.benchmark;
+
+import cat.itacademy.s04.t02.n02.fruit.exception.ErrorResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+    private final Map<String, String> validationErrors = Map.of(
+            "name", "Name cannot be blank",
+            "weightInKilos", "Weight must be positive");
+
+    @Benchmark
+    public ErrorResponse notFound() {
+        return new ErrorResponse(404, "Not Found", "Fruit with id 999 not found", "/fruits/999");
+    }
+
+    @Benchmark
+    public ErrorResponse validationFailure() {
+        return new ErrorResponse(400, "Bad Request", "Validation failed for 2 field(s)", "/fruits", validationErrors);
+    }
+}
@@ -0,0 +1,109 @@
+package cat.itacademy.s04.t02.n02.fruit.benchmark;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitBatchRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.WeightUpdate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applying a day's weigh-ins against H2 over TCP: one {@code PUT /fruits/{id}} per fruit (load the fruit,
+ * load its provider, update every column, each in its own transaction) compared with {@code PATCH /fruits}
+ * through {@link FruitBatchRepository#updateWeights} (lock the rows, then one JDBC batch, one transaction).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FruitWeightUpdateBenchmark {
+
+    private static final int TABLE_ROWS = 100_000;
+
+    @Param({"100", "10000"})
+    private int updates;
+
+    private H2Server server;
+    private Connection connection;
+    private SingleConnectionDataSource dataSource;
+    private FruitBatchRepository batchRepository;
+    private TransactionTemplate transactionTemplate;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() throws SQLException, IOException {
+        server = H2Server.start("fruit-weight-update");
+        server.insertFruits(TABLE_ROWS);
+        connection = server.connect();
+        dataSource = new SingleConnectionDataSource(server.connect(), true);
+        batchRepository = new FruitBatchRepository(new JdbcTemplate(dataSource));
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        dataSource.destroy();
+        server.close();
+    }
+
+    @Benchmark
+    public int putLoop() throws SQLException {
+        int updated = 0;
+        try (PreparedStatement findFruit = connection.prepareStatement(
+                     "SELECT id, name, weight_in_kilos, provider_id, version FROM fruits WHERE id = ?");
+             PreparedStatement findProvider = connection.prepareStatement(
+                     "SELECT id, name, country, version FROM providers WHERE id = ?");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE fruits SET name = ?, weight_in_kilos = ?, provider_id = ?, version = ? WHERE id = ? AND version = ?")) {
+            for (FruitWeightDTO weight : weights()) {
+                findFruit.setLong(1, weight.id());
+                try (ResultSet fruit = findFruit.executeQuery()) {
+                    if (!fruit.next()) {
+                        continue;
+                    }
+                    findProvider.setLong(1, fruit.getLong(4));
+                    try (ResultSet provider = findProvider.executeQuery()) {
+                        provider.next();
+                    }
+                    update.setString(1, fruit.getString(2));
+                    update.setInt(2, weight.weightInKilos());
+                    update.setLong(3, fruit.getLong(4));
+                    update.setLong(4, fruit.getLong(5) + 1);
+                    update.setLong(5, weight.id());
+                    update.setLong(6, fruit.getLong(5));
+                    updated += update.executeUpdate();
+                }
+            }
+        }
+        return updated;
+    }
+
+    @Benchmark
+    public WeightUpdate patch() {
+        List<FruitWeightDTO> weights = weights();
+        return transactionTemplate.execute(status -> batchRepository.updateWeights(weights));
+    }
+
+    private List<FruitWeightDTO> weights() {
+        List<FruitWeightDTO> weights = new ArrayList<>(updates);
+        for (int i = 0; i < updates; i++) {
+            weights.add(new FruitWeightDTO(random.nextLong(1, TABLE_ROWS + 1), random.nextInt(1, 100)));
+        }
+        return weights;
+    }
+}
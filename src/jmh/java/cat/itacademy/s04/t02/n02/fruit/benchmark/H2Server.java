@@ -0,0 +1,63 @@
+package cat.itacademy.s04.t02.n02.fruit.benchmark;
+
+import org.h2.tools.Server;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * An H2 database served over TCP on localhost, so every statement pays a client/server round trip
+ * as it would against MySQL. Created with the application's fruits schema.
+ */
+final class H2Server implements AutoCloseable {
+
+    private final Server server;
+    private final String url;
+
+    private H2Server(Server server, String url) {
+        this.server = server;
+        this.url = url;
+    }
+
+    static H2Server start(String database) throws SQLException, IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Server server = Server.createTcpServer("-tcpPort", String.valueOf(port), "-ifNotExists").start();
+        H2Server h2 = new H2Server(server, "jdbc:h2:tcp://localhost:" + port + "/mem:" + database + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = h2.connect(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE providers (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                    + "country VARCHAR(255) NOT NULL, version BIGINT NOT NULL)");
+            statement.execute("CREATE TABLE fruits (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                    + "weight_in_kilos INT NOT NULL, provider_id BIGINT NOT NULL REFERENCES providers(id), "
+                    + "version BIGINT NOT NULL)");
+            statement.execute("INSERT INTO providers (name, country, version) VALUES ('Provider 1', 'Spain', 0)");
+        }
+        return h2;
+    }
+
+    String url() {
+        return url;
+    }
+
+    Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, "sa", "");
+    }
+
+    void insertFruits(int count) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO fruits (name, weight_in_kilos, provider_id, version) "
+                    + "SELECT 'Fruit ' || X, 1 + MOD(X, 50), 1, 0 FROM SYSTEM_RANGE(1, " + count + ")");
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+}
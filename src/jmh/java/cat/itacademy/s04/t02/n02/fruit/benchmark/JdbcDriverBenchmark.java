@@ -0,0 +1,149 @@
+package cat.itacademy.s04.t02.n02.fruit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The mechanisms behind the production connector-j settings, measured against H2 over TCP:
+ * <ul>
+ *   <li>{@code cachePrepStmts}/{@code useServerPrepStmts}: preparing a lookup every time vs reusing it</li>
+ *   <li>{@code rewriteBatchedStatements}: row-by-row inserts vs a JDBC batch vs one multi-row insert</li>
+ *   <li>{@code useCursorFetch} with a fetch size: scanning the table with small and large fetch sizes</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JdbcDriverBenchmark {
+
+    private static final int TABLE_ROWS = 10_000;
+    private static final int INSERT_ROWS = 50;
+    private static final String LOOKUP = "SELECT name, weight_in_kilos FROM fruits WHERE id = ?";
+    private static final int SMALL_FETCH_SIZE = 10;
+    private static final int LARGE_FETCH_SIZE = 1_000;
+    private static final String INSERT = "INSERT INTO fruits (name, weight_in_kilos, provider_id, version) VALUES (?, ?, 1, 0)";
+
+    private H2Server server;
+    private Connection connection;
+    private PreparedStatement cachedLookup;
+    private String multiRowInsert;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() throws SQLException, IOException {
+        server = H2Server.start("jdbc-driver");
+        server.insertFruits(TABLE_ROWS);
+        connection = server.connect();
+        cachedLookup = connection.prepareStatement(LOOKUP);
+        StringBuilder sql = new StringBuilder("INSERT INTO fruits (name, weight_in_kilos, provider_id, version) VALUES ");
+        for (int i = 0; i < INSERT_ROWS; i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, 1, 0)");
+        }
+        multiRowInsert = sql.toString();
+    }
+
+    @TearDown(Level.Iteration)
+    public void trimInsertedRows() throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM fruits WHERE id > ?")) {
+            delete.setLong(1, TABLE_ROWS);
+            delete.executeUpdate();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        server.close();
+    }
+
+    @Benchmark
+    public String lookupPreparingEachTime() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(LOOKUP)) {
+            return lookup(statement);
+        }
+    }
+
+    @Benchmark
+    public String lookupWithCachedStatement() throws SQLException {
+        return lookup(cachedLookup);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSERT_ROWS)
+    public void insertRowByRow() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            for (int i = 0; i < INSERT_ROWS; i++) {
+                bindRow(statement, 0, i);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSERT_ROWS)
+    public int[] insertBatched() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            for (int i = 0; i < INSERT_ROWS; i++) {
+                bindRow(statement, 0, i);
+                statement.addBatch();
+            }
+            return statement.executeBatch();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSERT_ROWS)
+    public int insertMultiRow() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(multiRowInsert)) {
+            for (int i = 0; i < INSERT_ROWS; i++) {
+                bindRow(statement, i * 2, i);
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public void scanWithSmallFetchSize(Blackhole blackhole) throws SQLException {
+        scan(SMALL_FETCH_SIZE, blackhole);
+    }
+
+    @Benchmark
+    public void scanWithLargeFetchSize(Blackhole blackhole) throws SQLException {
+        scan(LARGE_FETCH_SIZE, blackhole);
+    }
+
+    private void scan(int fetchSize, Blackhole blackhole) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT id, name, weight_in_kilos FROM fruits")) {
+            statement.setFetchSize(fetchSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    blackhole.consume(resultSet.getLong(1));
+                    blackhole.consume(resultSet.getString(2));
+                }
+            }
+        }
+    }
+
+    private String lookup(PreparedStatement statement) throws SQLException {
+        statement.setLong(1, random.nextLong(1, TABLE_ROWS + 1));
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    private static void bindRow(PreparedStatement statement, int offset, int row) throws SQLException {
+        statement.setString(offset + 1, "Fruit " + row);
+        statement.setInt(offset + 2, 1 + row % 50);
+    }
+}
@@ -0,0 +1,43 @@
+package cat.itacademy.s04.t02.n02.fruit.benchmark;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.mapper.FruitMapper;
+import cat.itacademy.s04.t02.n02.fruit.mapper.ProviderMapper;
+import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private ProviderMapper providerMapper;
+    private FruitMapper fruitMapper;
+    private Provider provider;
+    private Fruit fruit;
+
+    @Setup
+    public void setUp() {
+        providerMapper = new ProviderMapper();
+        fruitMapper = new FruitMapper(providerMapper);
+        provider = new Provider(1L, "Fruits Inc", "Spain");
+        fruit = new Fruit(1L, "Apple", 10, provider);
+    }
+
+    @Benchmark
+    public ProviderResponseDTO providerToResponseDTO() {
+        return providerMapper.toResponseDTO(provider);
+    }
+
+    @Benchmark
+    public FruitResponseDTO fruitToResponseDTO() {
+        return fruitMapper.toResponseDTO(fruit);
+    }
+}
@@ -0,0 +1,75 @@
+package cat.itacademy.s04.t02.n02.fruit.benchmark;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.CompactFruitListDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a fruit list in every representation {@code GET /fruits} can return, plus the JSON
+ * list in the binary formats to separate the gain of the encoding from that of the schema.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    @Param({"json", "cbor", "smile", "cbor-compact", "smile-compact"})
+    private String format;
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private Object payload;
+    private byte[] encoded;
+    private OutputStream sink;
+
+    @Setup
+    public void setUp(Blackhole blackhole) throws IOException {
+        ObjectMapper objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor", "cbor-compact" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile", "smile-compact" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        List<FruitResponseDTO> fruits = BenchmarkData.fruitResponses(size, Math.max(1, size / 50));
+        JavaType type;
+        if (format.endsWith("-compact")) {
+            payload = CompactFruitListDTO.of(fruits);
+            type = objectMapper.constructType(CompactFruitListDTO.class);
+        } else {
+            payload = fruits;
+            type = objectMapper.getTypeFactory().constructCollectionType(List.class, FruitResponseDTO.class);
+        }
+        writer = objectMapper.writerFor(type);
+        reader = objectMapper.readerFor(type);
+        encoded = writer.writeValueAsBytes(payload);
+        sink = new SerializationBenchmark.BlackholeOutputStream(blackhole);
+        System.out.printf("%n%s, %d fruits: %d bytes%n", format, size, encoded.length);
+    }
+
+    @Benchmark
+    public void encode() throws IOException {
+        writer.writeValue(sink, payload);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+}
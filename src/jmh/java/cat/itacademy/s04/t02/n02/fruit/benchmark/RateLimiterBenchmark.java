@@ -0,0 +1,57 @@
+package cat.itacademy.s04.t02.n02.fruit.benchmark;
+
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Workload;
+import cat.itacademy.s04.t02.n02.fruit.ratelimit.RateLimitProperties;
+import cat.itacademy.s04.t02.n02.fruit.ratelimit.RateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link RateLimiter#tryAcquire} for requests spread uniformly over a population of
+ * clients: one hot client, 100 000 clients that all fit in the table, and a million clients churning
+ * through a table capped at 100 000, so sweeps and the overflow bucket are exercised.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final int MAX_CLIENTS = 100_000;
+
+    @Param({"1", "100000", "1000000"})
+    private int clients;
+
+    private String[] keys;
+    private RateLimiter limiter;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties.Limits limits = new RateLimitProperties.Limits(200, 100);
+        limiter = new RateLimiter(new RateLimitProperties(true, "X-Api-Key", MAX_CLIENTS, limits, limits, limits));
+        keys = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            keys[i] = "ip:10." + (i >> 16 & 0xFF) + "." + (i >> 8 & 0xFF) + "." + (i & 0xFF);
+            limiter.tryAcquire(keys[i], Workload.READ);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        int next(int clients) {
+            return random.nextInt(clients);
+        }
+    }
+
+    @Benchmark
+    public RateLimiter.Decision tryAcquire(Client client) {
+        return limiter.tryAcquire(keys[client.next(clients)], Workload.READ);
+    }
+}
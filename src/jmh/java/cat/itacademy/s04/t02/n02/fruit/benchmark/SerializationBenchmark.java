@@ -0,0 +1,71 @@
+package cat.itacademy.s04.t02.n02.fruit.benchmark;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes fruit lists the way {@code GET /fruits} does, writing into a discarding stream
+ * so only encoding cost (and its allocations, with {@code -prof gc}) is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private ObjectWriter writer;
+    private List<FruitResponseDTO> fruits;
+    private OutputStream sink;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, FruitResponseDTO.class));
+        fruits = BenchmarkData.fruitResponses(size, Math.max(1, size / 50));
+        sink = new BlackholeOutputStream(blackhole);
+    }
+
+    @Benchmark
+    public void serializeFruitList() throws IOException {
+        writer.writeValue(sink, fruits);
+    }
+
+    static final class BlackholeOutputStream extends OutputStream {
+
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+            blackhole.consume(len);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package cat.itacademy.s04.t02.n02.fruit.bulkhead;
+
+import cat.itacademy.s04.t02.n02.fruit.exception.ServiceOverloadedException;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit with a bounded, time-limited queue in front of it. Callers that find the queue
+ * full, or wait longer than {@code maxWait}, are rejected with {@link ServiceOverloadedException}.
+ */
+public class Bulkhead {
+
+    @Getter
+    private final Workload workload;
+    @Getter
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final Duration retryAfter;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public Bulkhead(Workload workload, int maxConcurrent, int maxQueue, Duration maxWait, Duration retryAfter) {
+        this.workload = workload;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.retryAfter = retryAfter;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Takes a slot, waiting in the queue if needed. The returned permit must be closed exactly once.
+     *
+     * @throws ServiceOverloadedException when the queue is full or the wait times out
+     */
+    public Permit acquire() {
+        if (permits.tryAcquire()) {
+            return new Permit();
+        }
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            throw overloaded();
+        }
+        try {
+            if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                throw overloaded();
+            }
+            return new Permit();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    public int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    private ServiceOverloadedException overloaded() {
+        return new ServiceOverloadedException(
+                "Too many concurrent " + workload.name().toLowerCase() + " requests, retry later", retryAfter);
+    }
+
+    public final class Permit implements AutoCloseable {
+
+        private boolean released;
+
+        private Permit() {
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                permits.release();
+            }
+        }
+    }
+}
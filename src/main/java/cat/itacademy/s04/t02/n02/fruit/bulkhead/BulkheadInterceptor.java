@@ -0,0 +1,54 @@
+package cat.itacademy.s04.t02.n02.fruit.bulkhead;
+
+import cat.itacademy.s04.t02.n02.fruit.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Holds a slot of the handler's {@link Workload} bulkhead for the whole request, including serialization.
+ */
+public class BulkheadInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".permit";
+
+    private final Bulkheads bulkheads;
+    private final MeterRegistry meterRegistry;
+
+    public BulkheadInterceptor(Bulkheads bulkheads, MeterRegistry meterRegistry) {
+        this.bulkheads = bulkheads;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        Workload workload = Workload.of(handlerMethod, request);
+        try {
+            request.setAttribute(PERMIT_ATTRIBUTE, bulkheads.get(workload).acquire());
+        } catch (ServiceOverloadedException ex) {
+            if (meterRegistry != null) {
+                Counter.builder("bulkhead.rejected")
+                        .description("Requests rejected by a saturated bulkhead")
+                        .tag("workload", workload.name().toLowerCase())
+                        .register(meterRegistry)
+                        .increment();
+            }
+            throw ex;
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Bulkhead.Permit permit) {
+            permit.close();
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package cat.itacademy.s04.t02.n02.fruit.bulkhead;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param retryAfter value of the {@code Retry-After} header sent with rejections
+ */
+@ConfigurationProperties(prefix = "fruit.bulkhead")
+public record BulkheadProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1s") Duration retryAfter,
+        @DefaultValue Limits read,
+        @DefaultValue Limits mutation,
+        @DefaultValue Limits bulk
+) {
+
+    /**
+     * @param maxConcurrent   operations running at once
+     * @param maxQueue        operations allowed to wait for a slot; further ones are rejected immediately
+     * @param maxWait         how long a queued operation waits before it is rejected
+     * @param connectionShare fraction of the connection pool the class may use, which further caps
+     *                        {@code maxConcurrent}; zero leaves it uncapped
+     */
+    public record Limits(
+            @DefaultValue("32") int maxConcurrent,
+            @DefaultValue("32") int maxQueue,
+            @DefaultValue("1s") Duration maxWait,
+            @DefaultValue("0") double connectionShare
+    ) {}
+
+    public Limits limits(Workload workload) {
+        return switch (workload) {
+            case READ -> read;
+            case MUTATION -> mutation;
+            case BULK -> bulk;
+        };
+    }
+}
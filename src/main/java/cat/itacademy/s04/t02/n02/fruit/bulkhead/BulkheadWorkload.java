@@ -0,0 +1,15 @@
+package cat.itacademy.s04.t02.n02.fruit.bulkhead;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Assigns a controller method to a {@link Workload} other than the one its HTTP method implies.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BulkheadWorkload {
+    Workload value();
+}
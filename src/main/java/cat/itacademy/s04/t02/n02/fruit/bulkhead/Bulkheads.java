@@ -0,0 +1,88 @@
+package cat.itacademy.s04.t02.n02.fruit.bulkhead;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One {@link Bulkhead} per {@link Workload}. Queued operations hold a request thread too, so queues are
+ * shrunk to fit the bulkheads into the server's thread pool.
+ */
+@Slf4j
+public class Bulkheads {
+
+    private final Map<Workload, Bulkhead> bulkheads = new EnumMap<>(Workload.class);
+
+    /**
+     * @param maxThreads request threads of the server, such as {@code server.tomcat.threads.max}
+     */
+    public Bulkheads(BulkheadProperties properties, int connectionPoolSize, int maxThreads) {
+        Map<Workload, Size> sizes = sizes(properties, connectionPoolSize, maxThreads);
+        for (Workload workload : Workload.values()) {
+            BulkheadProperties.Limits limits = properties.limits(workload);
+            Size size = sizes.get(workload);
+            bulkheads.put(workload, new Bulkhead(workload, size.maxConcurrent(), size.maxQueue(), limits.maxWait(),
+                    properties.retryAfter()));
+            log.info("{} bulkhead: {} concurrent, {} queued, {} ms wait", workload, size.maxConcurrent(),
+                    size.maxQueue(), limits.maxWait().toMillis());
+        }
+    }
+
+    static int maxConcurrent(BulkheadProperties.Limits limits, int connectionPoolSize) {
+        if (limits.connectionShare() <= 0) {
+            return limits.maxConcurrent();
+        }
+        int connections = Math.max(1, (int) Math.ceil(connectionPoolSize * limits.connectionShare()));
+        return Math.min(limits.maxConcurrent(), connections);
+    }
+
+    static Map<Workload, Size> sizes(BulkheadProperties properties, int connectionPoolSize, int maxThreads) {
+        Map<Workload, Size> sizes = new EnumMap<>(Workload.class);
+        int concurrent = 0;
+        int queued = 0;
+        for (Workload workload : Workload.values()) {
+            BulkheadProperties.Limits limits = properties.limits(workload);
+            Size size = new Size(maxConcurrent(limits, connectionPoolSize), limits.maxQueue());
+            sizes.put(workload, size);
+            concurrent += size.maxConcurrent();
+            queued += size.maxQueue();
+        }
+        if (concurrent + queued <= maxThreads) {
+            return sizes;
+        }
+        log.warn("Bulkheads admit {} running and {} queued requests, more than the {} request threads; "
+                + "shrinking them to fit", concurrent, queued, maxThreads);
+        double queueScale = concurrent < maxThreads ? (double) (maxThreads - concurrent) / queued : 0;
+        double concurrencyScale = Math.min(1, (double) maxThreads / concurrent);
+        for (Map.Entry<Workload, Size> entry : sizes.entrySet()) {
+            Size size = entry.getValue();
+            entry.setValue(new Size(Math.max(1, (int) (size.maxConcurrent() * concurrencyScale)),
+                    (int) (size.maxQueue() * queueScale)));
+        }
+        return sizes;
+    }
+
+    public Bulkhead get(Workload workload) {
+        return bulkheads.get(workload);
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            String workload = bulkhead.getWorkload().name().toLowerCase();
+            Gauge.builder("bulkhead.active", bulkhead, Bulkhead::active)
+                    .description("Operations holding a bulkhead slot")
+                    .tag("workload", workload)
+                    .register(registry);
+            Gauge.builder("bulkhead.queued", bulkhead, Bulkhead::queued)
+                    .description("Operations waiting for a bulkhead slot")
+                    .tag("workload", workload)
+                    .register(registry);
+        }
+    }
+
+    record Size(int maxConcurrent, int maxQueue) {
+    }
+}
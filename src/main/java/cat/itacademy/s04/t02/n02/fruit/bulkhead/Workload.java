@@ -0,0 +1,25 @@
+package cat.itacademy.s04.t02.n02.fruit.bulkhead;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * Classes of traffic that get their own {@link Bulkhead} and rate limits.
+ */
+public enum Workload {
+    /** Single-entity and bounded list reads. */
+    READ,
+    /** Creates, updates and deletes. */
+    MUTATION,
+    /** Batch, streaming and other long-running operations. */
+    BULK;
+
+    public static Workload of(HandlerMethod handler, HttpServletRequest request) {
+        BulkheadWorkload annotation = handler.getMethodAnnotation(BulkheadWorkload.class);
+        if (annotation != null) {
+            return annotation.value();
+        }
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) ? READ : MUTATION;
+    }
+}
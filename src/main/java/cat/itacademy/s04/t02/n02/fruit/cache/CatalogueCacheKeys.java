@@ -0,0 +1,71 @@
+package cat.itacademy.s04.t02.n02.fruit.cache;
+
+import cat.itacademy.s04.t02.n02.fruit.controller.Representations;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.util.Map;
+
+/**
+ * Cache keys of the cacheable list endpoints: a list key followed by the representation negotiated from
+ * {@code Accept}.
+ */
+public final class CatalogueCacheKeys {
+
+    public static final String PROVIDERS = "/providers";
+    public static final String FRUITS = "/fruits";
+
+    private static final String PROVIDER_ID_PARAM = "providerId";
+    private static final String VARIANT_SEPARATOR = "#";
+
+    private CatalogueCacheKeys() {
+    }
+
+    public static String fruitsOfProvider(long providerId) {
+        return FRUITS + "?" + PROVIDER_ID_PARAM + "=" + providerId;
+    }
+
+    /**
+     * @return the prefix shared by all variants of a list key
+     */
+    public static String variantsOf(String listKey) {
+        return listKey + VARIANT_SEPARATOR;
+    }
+
+    /**
+     * @return the key of a cacheable request, or {@code null} for any other path or parameter combination
+     * and for requests that accept none of the representations
+     */
+    public static String of(HttpServletRequest request) {
+        String listKey = listKey(request);
+        if (listKey == null) {
+            return null;
+        }
+        MediaType representation = Representations.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        return representation != null ? variantsOf(listKey) + representation : null;
+    }
+
+    private static String listKey(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Map<String, String[]> parameters = request.getParameterMap();
+        if (PROVIDERS.equals(path)) {
+            return parameters.isEmpty() ? PROVIDERS : null;
+        }
+        if (!FRUITS.equals(path)) {
+            return null;
+        }
+        if (parameters.isEmpty()) {
+            return FRUITS;
+        }
+        String[] providerId = parameters.get(PROVIDER_ID_PARAM);
+        if (parameters.size() != 1 || providerId == null || providerId.length != 1) {
+            return null;
+        }
+        try {
+            return fruitsOfProvider(Long.parseLong(providerId[0]));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
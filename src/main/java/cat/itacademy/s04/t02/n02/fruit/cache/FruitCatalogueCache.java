@@ -0,0 +1,152 @@
+package cat.itacademy.s04.t02.n02.fruit.cache;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * The whole fruit catalogue in {@link FruitColumns}, handed out only while the catalogue is still at the
+ * version it was read at.
+ */
+@Slf4j
+public class FruitCatalogueCache implements AutoCloseable {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FruitCatalogueCacheProperties properties;
+    private final boolean enabled;
+    private final AtomicBoolean reloadScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService loader;
+    private volatile Loaded loaded;
+    private volatile boolean closed;
+
+    /**
+     * @param transactionTemplate read-only, at least repeatable-read, so the version and the rows agree
+     * @param enabled             false never loads the catalogue, and {@code jdbcTemplate} may be null
+     */
+    public FruitCatalogueCache(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                               FruitCatalogueCacheProperties properties, boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.enabled = enabled;
+        this.loader = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("catalogue-cache-loader").daemon().factory());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            loader.execute(this::loadQuietly);
+        }
+    }
+
+    /**
+     * @param currentVersion reads the catalogue version; only called when the cache is enabled
+     * @return the catalogue, or null when the cache does not hold it at the current version
+     */
+    public FruitColumns columnsAt(Supplier<CatalogueVersion> currentVersion) {
+        if (!enabled) {
+            return null;
+        }
+        CatalogueVersion version = currentVersion.get();
+        Loaded current = loaded;
+        if (current != null && current.version().equals(version)) {
+            return current.columns();
+        }
+        if (!closed && reloadScheduled.compareAndSet(false, true)) {
+            loader.schedule(() -> {
+                reloadScheduled.set(false);
+                loadQuietly();
+            }, properties.reloadDelay().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return null;
+    }
+
+    public synchronized void load() {
+        long start = System.nanoTime();
+        Loaded next = transactionTemplate.execute(status -> read());
+        loaded = next;
+        if (next.columns() != null) {
+            log.info("Cached {} fruits of {} providers in columns ({} KB) in {} ms", next.columns().fruitCount(),
+                    next.columns().providerCount(), next.columns().memoryBytes() >> 10,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    public long memoryBytes() {
+        Loaded current = loaded;
+        return current == null || current.columns() == null ? 0 : current.columns().memoryBytes();
+    }
+
+    public int fruits() {
+        Loaded current = loaded;
+        return current == null || current.columns() == null ? 0 : current.columns().fruitCount();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        loader.shutdownNow();
+    }
+
+    private void loadQuietly() {
+        try {
+            load();
+        } catch (RuntimeException ex) {
+            log.warn("Loading the fruit catalogue cache failed; fruit listings use the database until the next miss", ex);
+        }
+    }
+
+    private Loaded read() {
+        long[] versions = new long[2];
+        jdbcTemplate.query("SELECT table_name, version FROM table_versions", rs -> {
+            switch (rs.getString(1)) {
+                case "fruits" -> versions[0] = rs.getLong(2);
+                case "providers" -> versions[1] = rs.getLong(2);
+                default -> { }
+            }
+        });
+        CatalogueVersion version = new CatalogueVersion(versions[0], versions[1]);
+
+        int fruits = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fruits", Integer.class);
+        if (fruits > properties.maxFruits()) {
+            // Remembered as empty at this version, so misses do not reload it again until it changes
+            log.info("Not caching {} fruits, more than fruit.catalogue-cache.max-fruits={}", fruits, properties.maxFruits());
+            return new Loaded(version, null);
+        }
+        int providers = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM providers", Integer.class);
+        FruitColumns.Builder builder = FruitColumns.builder(providers, fruits);
+        jdbcTemplate.query("SELECT id, name, country FROM providers ORDER BY id",
+                rs -> { builder.provider(rs.getLong(1), rs.getString(2), rs.getString(3)); });
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT id, name, weight_in_kilos, provider_id FROM fruits ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            builder.fruit(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getLong(4));
+        });
+        return new Loaded(version, builder.build());
+    }
+
+    /**
+     * @param columns null when the catalogue at {@code version} was too large to cache
+     */
+    private record Loaded(CatalogueVersion version, FruitColumns columns) {
+    }
+}
@@ -0,0 +1,17 @@
+package cat.itacademy.s04.t02.n02.fruit.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param maxFruits   catalogues with more fruits are not cached
+ * @param reloadDelay how long after a miss on a changed catalogue it is read again
+ */
+@ConfigurationProperties(prefix = "fruit.catalogue-cache")
+public record FruitCatalogueCacheProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10000000") int maxFruits,
+        @DefaultValue("1s") Duration reloadDelay
+) {}
@@ -0,0 +1,220 @@
+package cat.itacademy.s04.t02.n02.fruit.cache;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fruits and their providers held column by column in primitive arrays, in id order, with names and
+ * countries dictionary-encoded. Instances never change.
+ */
+public final class FruitColumns {
+
+    private final long[] providerIds;
+    private final int[] providerNames;
+    private final int[] providerCountries;
+    private final int[] providerFruitStarts;
+    private final long[] fruitIds;
+    private final int[] fruitNames;
+    private final int[] fruitWeights;
+    private final int[] fruitProviders;
+    private final int[] providerFruits;
+    private final String[] dictionary;
+
+    private FruitColumns(Builder builder) {
+        int providers = builder.providerCount;
+        int fruits = builder.fruitCount;
+        providerIds = Arrays.copyOf(builder.providerIds, providers);
+        providerNames = Arrays.copyOf(builder.providerNames, providers);
+        providerCountries = Arrays.copyOf(builder.providerCountries, providers);
+        fruitIds = trim(builder.fruitIds, fruits);
+        fruitNames = trim(builder.fruitNames, fruits);
+        fruitWeights = trim(builder.fruitWeights, fruits);
+        fruitProviders = trim(builder.fruitProviders, fruits);
+        dictionary = builder.dictionary.toArray(String[]::new);
+
+        // Counting sort of the fruit indexes by provider; ids stay ascending within each group
+        providerFruitStarts = new int[providers + 1];
+        for (int i = 0; i < fruits; i++) {
+            providerFruitStarts[fruitProviders[i] + 1]++;
+        }
+        for (int p = 0; p < providers; p++) {
+            providerFruitStarts[p + 1] += providerFruitStarts[p];
+        }
+        providerFruits = new int[fruits];
+        int[] cursors = Arrays.copyOf(providerFruitStarts, providers);
+        for (int i = 0; i < fruits; i++) {
+            providerFruits[cursors[fruitProviders[i]]++] = i;
+        }
+    }
+
+    public static Builder builder(int expectedProviders, int expectedFruits) {
+        return new Builder(expectedProviders, expectedFruits);
+    }
+
+    public int providerCount() {
+        return providerIds.length;
+    }
+
+    public int fruitCount() {
+        return fruitIds.length;
+    }
+
+    public List<FruitResponseDTO> fruits() {
+        ProviderResponseDTO[] providers = new ProviderResponseDTO[providerIds.length];
+        List<FruitResponseDTO> fruits = new ArrayList<>(fruitIds.length);
+        for (int i = 0; i < fruitIds.length; i++) {
+            fruits.add(fruit(i, providers));
+        }
+        return fruits;
+    }
+
+    /**
+     * @return the provider's fruits in id order, or {@code null} when there is no such provider
+     */
+    public List<FruitResponseDTO> fruitsOf(long providerId) {
+        int provider = Arrays.binarySearch(providerIds, providerId);
+        if (provider < 0) {
+            return null;
+        }
+        ProviderResponseDTO[] providers = new ProviderResponseDTO[providerIds.length];
+        int start = providerFruitStarts[provider];
+        int end = providerFruitStarts[provider + 1];
+        List<FruitResponseDTO> fruits = new ArrayList<>(end - start);
+        for (int n = start; n < end; n++) {
+            fruits.add(fruit(providerFruits[n], providers));
+        }
+        return fruits;
+    }
+
+    /**
+     * Approximate heap used by the arrays and the dictionary, assuming compressed references.
+     */
+    public long memoryBytes() {
+        long bytes = arrayBytes(8, providerIds.length) + 3 * arrayBytes(4, providerIds.length) + 4
+                + arrayBytes(8, fruitIds.length) + 4 * arrayBytes(4, fruitIds.length)
+                + arrayBytes(4, dictionary.length);
+        for (String value : dictionary) {
+            // String object plus its Latin-1 or UTF-16 byte array
+            bytes += 24 + arrayBytes(1, value.length() * (isLatin1(value) ? 1 : 2));
+        }
+        return bytes;
+    }
+
+    private FruitResponseDTO fruit(int index, ProviderResponseDTO[] providers) {
+        int provider = fruitProviders[index];
+        if (providers[provider] == null) {
+            providers[provider] = new ProviderResponseDTO(providerIds[provider],
+                    dictionary[providerNames[provider]], dictionary[providerCountries[provider]]);
+        }
+        return new FruitResponseDTO(fruitIds[index], dictionary[fruitNames[index]], fruitWeights[index],
+                providers[provider]);
+    }
+
+    private static long arrayBytes(int elementBytes, int length) {
+        return (16 + (long) elementBytes * length + 7) & ~7L;
+    }
+
+    private static boolean isLatin1(String value) {
+        return StandardCharsets.ISO_8859_1.newEncoder().canEncode(value);
+    }
+
+    private static int[] trim(int[] column, int length) {
+        return column.length == length ? column : Arrays.copyOf(column, length);
+    }
+
+    private static long[] trim(long[] column, int length) {
+        return column.length == length ? column : Arrays.copyOf(column, length);
+    }
+
+    /** Takes providers and then fruits, each in ascending id order. */
+    public static final class Builder {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private long[] providerIds;
+        private int[] providerNames;
+        private int[] providerCountries;
+        private int providerCount;
+        private long[] fruitIds;
+        private int[] fruitNames;
+        private int[] fruitWeights;
+        private int[] fruitProviders;
+        private int fruitCount;
+
+        private Builder(int expectedProviders, int expectedFruits) {
+            providerIds = new long[Math.max(expectedProviders, 1)];
+            providerNames = new int[providerIds.length];
+            providerCountries = new int[providerIds.length];
+            fruitIds = new long[Math.max(expectedFruits, 1)];
+            fruitNames = new int[fruitIds.length];
+            fruitWeights = new int[fruitIds.length];
+            fruitProviders = new int[fruitIds.length];
+        }
+
+        public Builder provider(long id, String name, String country) {
+            if (fruitCount > 0) {
+                throw new IllegalStateException("Providers must be added before fruits");
+            }
+            if (providerCount > 0 && id <= providerIds[providerCount - 1]) {
+                throw new IllegalArgumentException("Provider ids must be ascending: " + id);
+            }
+            if (providerCount == providerIds.length) {
+                int capacity = grow(providerCount);
+                providerIds = Arrays.copyOf(providerIds, capacity);
+                providerNames = Arrays.copyOf(providerNames, capacity);
+                providerCountries = Arrays.copyOf(providerCountries, capacity);
+            }
+            providerIds[providerCount] = id;
+            providerNames[providerCount] = encode(name);
+            providerCountries[providerCount] = encode(country);
+            providerCount++;
+            return this;
+        }
+
+        public Builder fruit(long id, String name, int weightInKilos, long providerId) {
+            if (fruitCount > 0 && id <= fruitIds[fruitCount - 1]) {
+                throw new IllegalArgumentException("Fruit ids must be ascending: " + id);
+            }
+            int provider = Arrays.binarySearch(providerIds, 0, providerCount, providerId);
+            if (provider < 0) {
+                throw new IllegalArgumentException("Fruit " + id + " belongs to provider " + providerId
+                        + ", which was not added");
+            }
+            if (fruitCount == fruitIds.length) {
+                int capacity = grow(fruitCount);
+                fruitIds = Arrays.copyOf(fruitIds, capacity);
+                fruitNames = Arrays.copyOf(fruitNames, capacity);
+                fruitWeights = Arrays.copyOf(fruitWeights, capacity);
+                fruitProviders = Arrays.copyOf(fruitProviders, capacity);
+            }
+            fruitIds[fruitCount] = id;
+            fruitNames[fruitCount] = encode(name);
+            fruitWeights[fruitCount] = weightInKilos;
+            fruitProviders[fruitCount] = provider;
+            fruitCount++;
+            return this;
+        }
+
+        public FruitColumns build() {
+            return new FruitColumns(this);
+        }
+
+        private int encode(String value) {
+            return codes.computeIfAbsent(value, key -> {
+                dictionary.add(key);
+                return dictionary.size() - 1;
+            });
+        }
+
+        private static int grow(int length) {
+            return Math.toIntExact(Math.max(length + 1L, Math.min(length + (length >> 1), Integer.MAX_VALUE - 8)));
+        }
+    }
+}
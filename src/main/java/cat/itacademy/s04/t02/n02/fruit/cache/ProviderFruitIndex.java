@@ -0,0 +1,472 @@
+package cat.itacademy.s04.t02.n02.fruit.cache;
+
+import cat.itacademy.s04.t02.n02.fruit.collection.IdList;
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import cat.itacademy.s04.t02.n02.fruit.service.CatalogueChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The ids of every provider's fruits, as sorted {@code long[]}s. {@link #fruitIdsOf} answers null whenever
+ * the index cannot vouch for a provider, such as after another instance's write.
+ */
+@Slf4j
+public class ProviderFruitIndex implements AutoCloseable {
+
+    private static final int RANGES_PER_THREAD = 4;
+    private static final int RELOAD_CHUNK_SIZE = 1000;
+    private static final int SCAN_FETCH_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ProviderFruitIndexProperties properties;
+    private final boolean enabled;
+    private final Map<Long, IdList> entries = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private final List<List<Change>> recorders = new ArrayList<>();
+    private final Set<Long> staleProviders = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reloadScheduled = new AtomicBoolean();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicLong fruitsWrites = new AtomicLong();
+    private final AtomicLong providersWrites = new AtomicLong();
+    private final ScheduledExecutorService loader;
+    private volatile Baseline baseline;
+    private volatile boolean rebuildRequested;
+    private volatile boolean ready;
+    private volatile boolean closed;
+
+    /**
+     * @param enabled false leaves the index empty, and {@code jdbcTemplate} may be null
+     */
+    public ProviderFruitIndex(NamedParameterJdbcTemplate jdbcTemplate, ProviderFruitIndexProperties properties,
+                              boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.enabled = enabled;
+        this.loader = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("provider-index-loader").daemon().factory());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        loader.execute(this::rebuildQuietly);
+        long interval = properties.refreshInterval().toMillis();
+        if (interval > 0) {
+            loader.scheduleWithFixedDelay(this::rebuildQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @param currentVersion reads the catalogue version; only called when the index knows the provider
+     * @return the ids of the provider's fruits in ascending order, or null when the index cannot tell
+     */
+    public IdList.View fruitIdsOf(Long providerId, Supplier<CatalogueVersion> currentVersion) {
+        Baseline current = baseline;
+        IdList ids = ready && current != null ? entries.get(providerId) : null;
+        if (ids == null) {
+            return null;
+        }
+        CatalogueVersion version = currentVersion.get();
+        if (version.fruits() != current.version().fruits() + fruitsWrites.get() - current.fruitsWrites()
+                || version.providers() != current.version().providers() + providersWrites.get() - current.providersWrites()) {
+            scheduleRebuild();
+            return null;
+        }
+        return ids.view();
+    }
+
+    /**
+     * Counts the write once it commits, after the index has applied it.
+     */
+    @EventListener
+    public void onCatalogueChanged(CatalogueChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        AtomicLong writes = event.isFruitsChange() ? fruitsWrites : event.isProvidersChange() ? providersWrites : null;
+        if (writes == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // afterCompletion runs after every afterCommit, so the change is in the index before it is counted
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        writes.incrementAndGet();
+                    }
+                }
+            });
+        } else {
+            writes.incrementAndGet();
+        }
+    }
+
+    public void fruitAdded(Long providerId, Long fruitId) {
+        afterCommit(() -> apply(new FruitAdded(providerId, fruitId)));
+    }
+
+    public void fruitMoved(Long fruitId, Long fromProviderId, Long toProviderId) {
+        if (!fromProviderId.equals(toProviderId)) {
+            afterCommit(() -> {
+                apply(new FruitRemoved(fromProviderId, fruitId));
+                apply(new FruitAdded(toProviderId, fruitId));
+            });
+        }
+    }
+
+    public void fruitRemoved(Long providerId, Long fruitId) {
+        afterCommit(() -> apply(new FruitRemoved(providerId, fruitId)));
+    }
+
+    public void providerAdded(Long providerId) {
+        afterCommit(() -> apply(new ProviderAdded(providerId)));
+    }
+
+    public void providerRemoved(Long providerId) {
+        afterCommit(() -> apply(new ProviderRemoved(providerId)));
+    }
+
+    /**
+     * Forgets the providers' fruit ids and reloads them after {@code reload-delay}.
+     *
+     * @param providerIds providers whose fruits were written; none to rebuild the whole index
+     */
+    public void invalidate(Long... providerIds) {
+        Set<Long> invalidated = Set.copyOf(Arrays.asList(providerIds));
+        afterCommit(() -> {
+            if (invalidated.isEmpty()) {
+                rebuildRequested = true;
+            } else {
+                staleProviders.addAll(invalidated);
+            }
+            apply(new Invalidated(invalidated));
+            if (!closed && reloadScheduled.compareAndSet(false, true)) {
+                loader.schedule(this::reloadStaleQuietly, properties.reloadDelay().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<Change> recorder = startRecording();
+        try {
+            // Writes counted before the version is read are in it; a write counted in between makes the
+            // next lookups miss, which is safe
+            long fruitsWritesBefore = fruitsWrites.get();
+            long providersWritesBefore = providersWrites.get();
+            CatalogueVersion version = readVersion();
+            Map<Long, IdList> built = scanAll();
+            synchronized (lock) {
+                entries.keySet().retainAll(built.keySet());
+                entries.putAll(built);
+                baseline = new Baseline(version, fruitsWritesBefore, providersWritesBefore);
+                ready = true;
+                recorder.forEach(this::applyLocked);
+            }
+            log.info("Indexed the fruits of {} providers in {} ms ({} KB)", built.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), memoryBytes() / 1024);
+        } finally {
+            stopRecording(recorder);
+        }
+    }
+
+    public void reloadStale() {
+        reloadScheduled.set(false);
+        if (rebuildRequested) {
+            rebuildRequested = false;
+            staleProviders.clear();
+            rebuild();
+            return;
+        }
+        List<Long> providerIds = new ArrayList<>(staleProviders);
+        if (providerIds.isEmpty()) {
+            return;
+        }
+        staleProviders.removeAll(providerIds);
+        List<Change> recorder = startRecording();
+        try {
+            Map<Long, IdList> loaded = new HashMap<>();
+            for (int from = 0; from < providerIds.size(); from += RELOAD_CHUNK_SIZE) {
+                loaded.putAll(load(providerIds.subList(from, Math.min(from + RELOAD_CHUNK_SIZE, providerIds.size()))));
+            }
+            synchronized (lock) {
+                entries.putAll(loaded);
+                recorder.forEach(this::applyLocked);
+            }
+        } catch (RuntimeException ex) {
+            staleProviders.addAll(providerIds);
+            throw ex;
+        } finally {
+            stopRecording(recorder);
+        }
+    }
+
+    /**
+     * @return approximate heap bytes of the index: about 8 per fruit and 100 per provider
+     */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (IdList ids : entries.values()) {
+            // map node and boxed key, plus the list itself
+            bytes += 48 + ids.memoryBytes();
+        }
+        return bytes;
+    }
+
+    public int providers() {
+        return entries.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        loader.shutdownNow();
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException ex) {
+            log.warn("Building the provider fruit index failed; provider listings use the database until the next rebuild", ex);
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (!closed && rebuildScheduled.compareAndSet(false, true)) {
+            loader.schedule(() -> {
+                rebuildScheduled.set(false);
+                rebuildQuietly();
+            }, properties.rebuildDelay().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void reloadStaleQuietly() {
+        try {
+            reloadStale();
+        } catch (RuntimeException ex) {
+            log.warn("Reloading providers of the fruit index failed; retrying with the next invalidation", ex);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void apply(Change change) {
+        synchronized (lock) {
+            for (List<Change> recorder : recorders) {
+                recorder.add(change);
+            }
+            applyLocked(change);
+        }
+    }
+
+    /** Every change is absolute, so applying one the database read already reflects changes nothing. */
+    private void applyLocked(Change change) {
+        switch (change) {
+            case FruitAdded(long providerId, long fruitId) -> {
+                IdList ids = entries.get(providerId);
+                if (ids != null) {
+                    ids.add(fruitId);
+                }
+            }
+            case FruitRemoved(long providerId, long fruitId) -> {
+                IdList ids = entries.get(providerId);
+                if (ids != null) {
+                    ids.remove(fruitId);
+                }
+            }
+            case ProviderAdded(long providerId) -> entries.putIfAbsent(providerId, new IdList());
+            case ProviderRemoved(long providerId) -> entries.remove(providerId);
+            case Invalidated(Set<Long> providerIds) -> {
+                if (providerIds.isEmpty()) {
+                    ready = false;
+                    entries.clear();
+                } else {
+                    entries.keySet().removeAll(providerIds);
+                }
+            }
+        }
+    }
+
+    private List<Change> startRecording() {
+        List<Change> recorder = new ArrayList<>();
+        synchronized (lock) {
+            recorders.add(recorder);
+        }
+        return recorder;
+    }
+
+    private void stopRecording(List<Change> recorder) {
+        synchronized (lock) {
+            recorders.remove(recorder);
+        }
+    }
+
+    private CatalogueVersion readVersion() {
+        long[] versions = new long[2];
+        jdbcTemplate.getJdbcTemplate().query("SELECT table_name, version FROM table_versions", rs -> {
+            switch (rs.getString(1)) {
+                case "fruits" -> versions[0] = rs.getLong(2);
+                case "providers" -> versions[1] = rs.getLong(2);
+                default -> { }
+            }
+        });
+        return new CatalogueVersion(versions[0], versions[1]);
+    }
+
+    private Map<Long, IdList> scanAll() {
+        long[] bounds = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT MIN(id), MAX(id) FROM fruits",
+                (rs, row) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        int threads = properties.buildThreads() > 0 ? properties.buildThreads() : Runtime.getRuntime().availableProcessors();
+        List<Map<Long, IdBuffer>> ranges = new ArrayList<>();
+        if (bounds[1] > 0) {
+            long span = Math.max(1, (bounds[1] - bounds[0] + 1 + threads * RANGES_PER_THREAD - 1) / (threads * RANGES_PER_THREAD));
+            ExecutorService executor = Executors.newFixedThreadPool(threads,
+                    Thread.ofPlatform().name("provider-index-build-", 0).daemon().factory());
+            try {
+                List<Future<Map<Long, IdBuffer>>> scans = new ArrayList<>();
+                for (long from = bounds[0]; from <= bounds[1]; from += span) {
+                    long rangeStart = from;
+                    scans.add(executor.submit(() -> scanRange(rangeStart, rangeStart + span)));
+                }
+                for (Future<Map<Long, IdBuffer>> scan : scans) {
+                    ranges.add(scan.get());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Building the provider fruit index was interrupted", ex);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Building the provider fruit index failed", ex.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        Map<Long, IdList> built = merge(ranges);
+        jdbcTemplate.getJdbcTemplate().query("SELECT id FROM providers",
+                rs -> { built.putIfAbsent(rs.getLong(1), new IdList()); });
+        return built;
+    }
+
+    private Map<Long, IdBuffer> scanRange(long from, long to) {
+        Map<Long, IdBuffer> range = new HashMap<>();
+        jdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT provider_id, id FROM fruits WHERE id >= ? AND id < ? ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setLong(1, from);
+            ps.setLong(2, to);
+            ps.setFetchSize(SCAN_FETCH_SIZE);
+            return ps;
+        }, rs -> { range.computeIfAbsent(rs.getLong(1), id -> new IdBuffer()).add(rs.getLong(2)); });
+        return range;
+    }
+
+    private Map<Long, IdList> load(List<Long> providerIds) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("ids", providerIds);
+        List<Long> existing = jdbcTemplate.queryForList("SELECT id FROM providers WHERE id IN (:ids)",
+                parameters, Long.class);
+        Map<Long, IdBuffer> fruits = new HashMap<>();
+        jdbcTemplate.query("SELECT provider_id, id FROM fruits WHERE provider_id IN (:ids) ORDER BY id", parameters,
+                rs -> { fruits.computeIfAbsent(rs.getLong(1), id -> new IdBuffer()).add(rs.getLong(2)); });
+        Map<Long, IdList> loaded = merge(List.of(fruits));
+        existing.forEach(id -> loaded.putIfAbsent(id, new IdList()));
+        loaded.keySet().retainAll(existing);
+        return loaded;
+    }
+
+    private static Map<Long, IdList> merge(List<Map<Long, IdBuffer>> ranges) {
+        Map<Long, int[]> sizes = new HashMap<>();
+        for (Map<Long, IdBuffer> range : ranges) {
+            range.forEach((providerId, buffer) -> sizes.computeIfAbsent(providerId, id -> new int[1])[0] += buffer.size);
+        }
+        Map<Long, long[]> arrays = new HashMap<>();
+        Map<Long, int[]> filled = new HashMap<>();
+        sizes.forEach((providerId, size) -> {
+            arrays.put(providerId, new long[size[0]]);
+            filled.put(providerId, new int[1]);
+        });
+        for (Map<Long, IdBuffer> range : ranges) {
+            range.forEach((providerId, buffer) -> {
+                int[] offset = filled.get(providerId);
+                System.arraycopy(buffer.ids, 0, arrays.get(providerId), offset[0], buffer.size);
+                offset[0] += buffer.size;
+            });
+        }
+        Map<Long, IdList> merged = new HashMap<>();
+        arrays.forEach((providerId, ids) -> merged.put(providerId, IdList.of(ids)));
+        return merged;
+    }
+
+    private static final class IdBuffer {
+
+        private long[] ids = new long[8];
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    /** The catalogue version a build read, and the writes this instance had counted before reading it. */
+    private record Baseline(CatalogueVersion version, long fruitsWrites, long providersWrites) {}
+
+    private sealed interface Change {}
+
+    private record FruitAdded(long providerId, long fruitId) implements Change {}
+
+    private record FruitRemoved(long providerId, long fruitId) implements Change {}
+
+    private record ProviderAdded(long providerId) implements Change {}
+
+    private record ProviderRemoved(long providerId) implements Change {}
+
+    /** Empty for the whole index. */
+    private record Invalidated(Set<Long> providerIds) implements Change {}
+}
@@ -0,0 +1,21 @@
+package cat.itacademy.s04.t02.n02.fruit.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param buildThreads    threads scanning the fruits table; 0 uses one per processor
+ * @param refreshInterval how often the whole index is rebuilt; zero never rebuilds it
+ * @param reloadDelay     how long invalidated providers are collected before they are reloaded
+ * @param rebuildDelay    how long after noticing another instance's write the index is rebuilt
+ */
+@ConfigurationProperties(prefix = "fruit.provider-index")
+public record ProviderFruitIndexProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0") int buildThreads,
+        @DefaultValue("10m") Duration refreshInterval,
+        @DefaultValue("200ms") Duration reloadDelay,
+        @DefaultValue("5s") Duration rebuildDelay
+) {}
@@ -0,0 +1,164 @@
+package cat.itacademy.s04.t02.n02.fruit.cache;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Serialized response bodies keyed by a canonical request key such as {@code /fruits?providerId=7}.
+ * A miss {@link #reserve reserves} its key and may only {@link #store} the body while the reservation
+ * holds, so a body read before a write cannot be stored after its invalidation.
+ */
+public class ResponseCache {
+
+    private final ConcurrentMap<String, Object> slots = new ConcurrentHashMap<>();
+    /** Guarded by itself; may still hold entries that were invalidated or expired on read. */
+    private final ArrayDeque<Cached> stored = new ArrayDeque<>();
+    private final int maxEntries;
+    private final long timeToLiveNanos;
+    private final LongSupplier clock;
+    private long lastSweepNanos;
+
+    public ResponseCache(int maxEntries, long timeToLiveNanos) {
+        this(maxEntries, timeToLiveNanos, System::nanoTime);
+    }
+
+    ResponseCache(int maxEntries, long timeToLiveNanos, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = timeToLiveNanos;
+        this.clock = clock;
+        this.lastSweepNanos = clock.getAsLong();
+    }
+
+    public Entry get(String key) {
+        if (slots.get(key) instanceof Cached cached && cached.entry != null) {
+            if (!expired(cached, clock.getAsLong())) {
+                cached.referenced = true;
+                return cached.entry;
+            }
+            slots.remove(key, cached);
+        }
+        return null;
+    }
+
+    /**
+     * @return a reservation to pass to {@link #store}, or {@code null} when the key is already being
+     * filled by another request, or its body was found too large to cache
+     */
+    public Reservation reserve(String key) {
+        long now = clock.getAsLong();
+        evict(now);
+        Reservation reservation = new Reservation();
+        Object current = slots.putIfAbsent(key, reservation);
+        if (current == null) {
+            return reservation;
+        }
+        if (current instanceof Cached cached && expired(cached, now) && slots.replace(key, cached, reservation)) {
+            return reservation;
+        }
+        return null;
+    }
+
+    public boolean store(String key, Reservation reservation, Entry entry) {
+        return put(key, reservation, entry);
+    }
+
+    /** Remembers that the key's bodies are too large to cache, until it is invalidated or expires. */
+    public void markUncacheable(String key, Reservation reservation) {
+        put(key, reservation, null);
+    }
+
+    public void release(String key, Reservation reservation) {
+        slots.remove(key, reservation);
+    }
+
+    public void invalidatePrefix(String keyPrefix) {
+        slots.keySet().removeIf(key -> key.startsWith(keyPrefix));
+        synchronized (stored) {
+            stored.removeIf(cached -> cached.key.startsWith(keyPrefix));
+        }
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    private boolean put(String key, Reservation reservation, Entry entry) {
+        long now = clock.getAsLong();
+        Cached cached = new Cached(key, entry, now);
+        if (!slots.replace(key, reservation, cached)) {
+            return false;
+        }
+        synchronized (stored) {
+            stored.addLast(cached);
+        }
+        evict(now);
+        return true;
+    }
+
+    private void evict(long now) {
+        synchronized (stored) {
+            if (timeToLiveNanos > 0 && now - lastSweepNanos >= timeToLiveNanos) {
+                lastSweepNanos = now;
+                stored.removeIf(cached -> !isCurrent(cached) || expired(cached, now) && drop(cached));
+            }
+            Cached oldest;
+            while ((oldest = stored.peekFirst()) != null) {
+                boolean current = isCurrent(oldest);
+                boolean live = current && !expired(oldest, now);
+                if (live && stored.size() <= maxEntries) {
+                    return;
+                }
+                stored.removeFirst();
+                if (live && oldest.referenced) {
+                    oldest.referenced = false;
+                    stored.addLast(oldest);
+                } else if (current) {
+                    drop(oldest);
+                }
+            }
+        }
+    }
+
+    private boolean isCurrent(Cached cached) {
+        return slots.get(cached.key) == cached;
+    }
+
+    private boolean drop(Cached cached) {
+        return slots.remove(cached.key, cached);
+    }
+
+    private boolean expired(Cached cached, long now) {
+        return timeToLiveNanos > 0 && now - cached.storedAtNanos >= timeToLiveNanos;
+    }
+
+    public static final class Reservation {
+
+        private Reservation() {
+        }
+    }
+
+    /**
+     * @param gzippedBody {@code body} compressed once at store time, or {@code null} when not worth it
+     */
+    public record Entry(byte[] body, byte[] gzippedBody, String contentType, String eTag) {
+    }
+
+    /**
+     * @param entry null marks a key whose bodies are too large to cache
+     */
+    private static final class Cached {
+
+        private final String key;
+        private final Entry entry;
+        private final long storedAtNanos;
+        private volatile boolean referenced;
+
+        private Cached(String key, Entry entry, long storedAtNanos) {
+            this.key = key;
+            this.entry = entry;
+            this.storedAtNanos = storedAtNanos;
+        }
+    }
+}
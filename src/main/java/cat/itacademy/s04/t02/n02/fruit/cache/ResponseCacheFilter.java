@@ -0,0 +1,137 @@
+package cat.itacademy.s04.t02.n02.fruit.cache;
+
+import cat.itacademy.s04.t02.n02.fruit.controller.ContentCodings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves the list endpoints from {@link ResponseCache} and captures the body of a miss.
+ */
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    public static final String CACHE_HEADER = "X-Response-Cache";
+
+    private final ResponseCache responseCache;
+    private final ResponseCacheProperties properties;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ResponseCacheFilter(ResponseCache responseCache, ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.responseCache = responseCache;
+        this.properties = properties;
+        this.hits = meterRegistry != null ? counter(meterRegistry, "hit") : null;
+        this.misses = meterRegistry != null ? counter(meterRegistry, "miss") : null;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled() || !"GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = CatalogueCacheKeys.of(request);
+        if (key == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (properties.gzipEnabled()) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        ResponseCache.Entry entry = responseCache.get(key);
+        if (entry != null) {
+            increment(hits);
+            response.setHeader(CACHE_HEADER, "HIT");
+            write(entry, request, response);
+            return;
+        }
+        increment(misses);
+        response.setHeader(CACHE_HEADER, "MISS");
+
+        ResponseCache.Reservation reservation = responseCache.reserve(key);
+        if (reservation == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ContentCachingResponseWrapper capturingResponse = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, capturingResponse);
+            store(key, reservation, capturingResponse);
+        } finally {
+            responseCache.release(key, reservation);
+        }
+        capturingResponse.copyBodyToResponse();
+    }
+
+    private void store(String key, ResponseCache.Reservation reservation, ContentCachingResponseWrapper response) {
+        if (response.getStatus() != HttpStatus.OK.value()) {
+            return;
+        }
+        byte[] body = response.getContentAsByteArray();
+        if (body.length > properties.maxBodySize().toBytes()) {
+            responseCache.markUncacheable(key, reservation);
+            return;
+        }
+        byte[] gzippedBody = properties.gzipEnabled() && body.length >= properties.gzipMinSize().toBytes()
+                ? gzip(body)
+                : null;
+        responseCache.store(key, reservation, new ResponseCache.Entry(body, gzippedBody, response.getContentType(),
+                response.getHeader(HttpHeaders.ETAG)));
+    }
+
+    private static void write(ResponseCache.Entry entry, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (entry.eTag() != null && new ServletWebRequest(request, response).checkNotModified(entry.eTag())) {
+            return;
+        }
+        byte[] body = entry.body();
+        if (entry.gzippedBody() != null
+                && ContentCodings.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, ContentCodings.GZIP);
+            body = entry.gzippedBody();
+        }
+        response.setContentType(entry.contentType());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("response.cache.requests")
+                .description("Requests to cacheable list endpoints by cache outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package cat.itacademy.s04.t02.n02.fruit.cache;
+
+import cat.itacademy.s04.t02.n02.fruit.service.CatalogueChangedEvent;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Drops the cached lists a write can affect once it commits. Fruit lists embed their provider, so provider
+ * writes drop them too.
+ */
+public class ResponseCacheInvalidator {
+
+    private final ResponseCache responseCache;
+
+    public ResponseCacheInvalidator(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogueChanged(CatalogueChangedEvent event) {
+        if (event.providerIds().isEmpty()) {
+            responseCache.invalidatePrefix(CatalogueCacheKeys.FRUITS);
+        } else {
+            responseCache.invalidatePrefix(CatalogueCacheKeys.variantsOf(CatalogueCacheKeys.FRUITS));
+            event.providerIds().forEach(id ->
+                    responseCache.invalidatePrefix(CatalogueCacheKeys.variantsOf(CatalogueCacheKeys.fruitsOfProvider(id))));
+        }
+        if (event.isProvidersChange()) {
+            responseCache.invalidatePrefix(CatalogueCacheKeys.variantsOf(CatalogueCacheKeys.PROVIDERS));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package cat.itacademy.s04.t02.n02.fruit.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @param timeToLive bounds staleness for writes this instance does not see; zero keeps entries until invalidated
+ */
+@ConfigurationProperties(prefix = "fruit.response-cache")
+public record ResponseCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1000") int maxEntries,
+        @DefaultValue("1MB") DataSize maxBodySize,
+        @DefaultValue("60s") Duration timeToLive,
+        @DefaultValue("true") boolean gzipEnabled,
+        @DefaultValue("1KB") DataSize gzipMinSize
+) {}
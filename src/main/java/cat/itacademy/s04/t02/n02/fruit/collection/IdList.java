@@ -0,0 +1,89 @@
+package cat.itacademy.s04.t02.n02.fruit.collection;
+
+import java.util.Arrays;
+
+/**
+ * Ascending set of ids, read without locking while a single writer at a time changes it. Readers take
+ * the current {@link View}, which never changes.
+ */
+public final class IdList {
+
+    private static final long[] EMPTY = new long[0];
+
+    public record View(long[] ids, int size) {
+
+        public long get(int index) {
+            return ids[index];
+        }
+    }
+
+    private volatile View view;
+
+    public IdList() {
+        this.view = new View(EMPTY, 0);
+    }
+
+    private IdList(long[] ids) {
+        this.view = new View(ids, ids.length);
+    }
+
+    /**
+     * @param ascendingIds distinct ids in ascending order; the list takes ownership of the array
+     */
+    public static IdList of(long[] ascendingIds) {
+        return new IdList(ascendingIds);
+    }
+
+    public View view() {
+        return view;
+    }
+
+    public boolean isEmpty() {
+        return view.size() == 0;
+    }
+
+    /**
+     * @return approximate heap bytes of the list, its current view and array, with compressed references
+     */
+    public long memoryBytes() {
+        return 16 + 24 + 16 + 8L * view.ids().length;
+    }
+
+    public void add(long id) {
+        View current = view;
+        long[] ids = current.ids();
+        int size = current.size();
+        if (size == 0 || ids[size - 1] < id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(4, size * 2));
+            }
+            ids[size] = id;
+            view = new View(ids, size + 1);
+            return;
+        }
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            return;
+        }
+        int insertAt = -index - 1;
+        long[] copy = new long[Math.max(ids.length, size + 1)];
+        System.arraycopy(ids, 0, copy, 0, insertAt);
+        copy[insertAt] = id;
+        System.arraycopy(ids, insertAt, copy, insertAt + 1, size - insertAt);
+        view = new View(copy, size + 1);
+    }
+
+    public boolean remove(long id) {
+        View current = view;
+        int size = current.size();
+        int index = Arrays.binarySearch(current.ids(), 0, size, id);
+        if (index < 0) {
+            return false;
+        }
+        long[] copy = new long[current.ids().length];
+        System.arraycopy(current.ids(), 0, copy, 0, index);
+        System.arraycopy(current.ids(), index + 1, copy, index, size - index - 1);
+        view = new View(copy, size - 1);
+        return true;
+    }
+}
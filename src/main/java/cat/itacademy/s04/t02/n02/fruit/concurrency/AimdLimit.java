@@ -0,0 +1,64 @@
+package cat.itacademy.s04.t02.n02.fruit.concurrency;
+
+import java.time.Duration;
+
+/**
+ * Additive-increase/multiplicative-decrease concurrency limit driven by request latency. Only requests
+ * admitted after the last decrease may shrink it again.
+ */
+public class AimdLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+
+    private double estimatedLimit;
+    private boolean decreased;
+    private long lastDecreaseNanos;
+    private volatile int limit;
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, Duration targetLatency, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    public static AimdLimit of(ConcurrencyLimitProperties properties) {
+        return new AimdLimit(properties.initialLimit(), properties.minLimit(), properties.maxLimit(),
+                properties.targetLatency(), properties.backoffRatio());
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @param startNanos {@link System#nanoTime()} when the request was admitted
+     * @param rttNanos   time the request took
+     * @param inflight   requests in flight when it was admitted, itself included
+     * @param dropped    whether the request failed in a way that suggests overload
+     */
+    public synchronized void onSample(long startNanos, long rttNanos, int inflight, boolean dropped) {
+        if (dropped || rttNanos > targetLatencyNanos) {
+            if (!decreased || startNanos - lastDecreaseNanos >= 0) {
+                decreased = true;
+                lastDecreaseNanos = startNanos + rttNanos;
+                estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+            }
+        } else if (inflight * 2 >= estimatedLimit) {
+            // Only grow while the limit is actually being used; an idle server says nothing about capacity
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1 / estimatedLimit);
+        }
+        limit = (int) estimatedLimit;
+    }
+}
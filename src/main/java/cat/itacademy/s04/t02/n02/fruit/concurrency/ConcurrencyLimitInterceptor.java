@@ -0,0 +1,80 @@
+package cat.itacademy.s04.t02.n02.fruit.concurrency;
+
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Workload;
+import cat.itacademy.s04.t02.n02.fruit.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs each controller request through the {@link ConcurrencyLimiter}. Timeouts count as dropped;
+ * deliberate rejections and {@link Workload#BULK} handlers are not fed to the limit.
+ */
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private static final String LISTENER_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".listener";
+
+    private final ConcurrencyLimiter limiter;
+    private final Counter rejected;
+
+    public ConcurrencyLimitInterceptor(ConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.rejected = meterRegistry == null ? null : Counter.builder("concurrency.rejected")
+                .description("Requests rejected by the adaptive concurrency limit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod) || Workload.of(handlerMethod, request) == Workload.BULK) {
+            return true;
+        }
+        try {
+            request.setAttribute(LISTENER_ATTRIBUTE, limiter.acquire());
+        } catch (ServiceOverloadedException ex) {
+            if (rejected != null) {
+                rejected.increment();
+            }
+            throw ex;
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(LISTENER_ATTRIBUTE) instanceof ConcurrencyLimiter.Listener listener) {
+            request.removeAttribute(LISTENER_ATTRIBUTE);
+            Throwable failure = ex != null ? ex : (Throwable) request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE);
+            if (isTimeout(failure)) {
+                listener.onDropped();
+            } else if (failure != null || response.getStatus() >= 500) {
+                listener.onIgnored();
+            } else {
+                listener.onSuccess();
+            }
+        }
+    }
+
+    static boolean isTimeout(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException
+                    || cause instanceof SQLTimeoutException
+                    || cause instanceof SQLTransientConnectionException
+                    || cause instanceof QueryTimeoutException
+                    || cause instanceof TransactionTimedOutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
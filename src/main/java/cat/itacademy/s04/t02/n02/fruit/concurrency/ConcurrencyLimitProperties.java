@@ -0,0 +1,25 @@
+package cat.itacademy.s04.t02.n02.fruit.concurrency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param initialLimit  concurrency limit at startup
+ * @param minLimit      the limit never drops below this
+ * @param maxLimit      the limit never grows above this
+ * @param targetLatency requests slower than this shrink the limit
+ * @param backoffRatio  factor applied to the limit on a slow or timed-out request
+ * @param retryAfter    value of the {@code Retry-After} header sent with rejections
+ */
+@ConfigurationProperties(prefix = "fruit.concurrency-limit")
+public record ConcurrencyLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int initialLimit,
+        @DefaultValue("2") int minLimit,
+        @DefaultValue("200") int maxLimit,
+        @DefaultValue("500ms") Duration targetLatency,
+        @DefaultValue("0.9") double backoffRatio,
+        @DefaultValue("1s") Duration retryAfter
+) {}
@@ -0,0 +1,91 @@
+package cat.itacademy.s04.t02.n02.fruit.concurrency;
+
+import cat.itacademy.s04.t02.n02.fruit.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits requests while fewer than {@link AimdLimit#getLimit()} are in flight and rejects the rest at once.
+ */
+public class ConcurrencyLimiter {
+
+    private final AimdLimit limit;
+    private final Duration retryAfter;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    public ConcurrencyLimiter(AimdLimit limit, Duration retryAfter) {
+        this.limit = limit;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @throws ServiceOverloadedException when the limit is reached
+     */
+    public Listener acquire() {
+        int current = inflight.incrementAndGet();
+        if (current > limit.getLimit()) {
+            inflight.decrementAndGet();
+            throw new ServiceOverloadedException(
+                    "Concurrency limit of " + limit.getLimit() + " requests reached, retry later", retryAfter);
+        }
+        return new Listener(current);
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int inflight() {
+        return inflight.get();
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("concurrency.limit", this, ConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(registry);
+        Gauge.builder("concurrency.inflight", this, ConcurrencyLimiter::inflight)
+                .description("Requests admitted by the concurrency limiter and still running")
+                .register(registry);
+    }
+
+    /**
+     * Completion callback for an admitted request; only the first call counts.
+     */
+    public final class Listener {
+
+        private final long startNanos = System.nanoTime();
+        private final int inflightAtStart;
+        private boolean completed;
+
+        private Listener(int inflightAtStart) {
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        public void onSuccess() {
+            complete(false);
+        }
+
+        public void onDropped() {
+            complete(true);
+        }
+
+        /** Releases the request without feeding its latency to the limit. */
+        public void onIgnored() {
+            if (!completed) {
+                completed = true;
+                inflight.decrementAndGet();
+            }
+        }
+
+        private void complete(boolean dropped) {
+            if (!completed) {
+                completed = true;
+                inflight.decrementAndGet();
+                limit.onSample(startNanos, System.nanoTime() - startNanos, inflightAtStart, dropped);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.BulkheadInterceptor;
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.BulkheadProperties;
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Bulkheads;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Configuration
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadConfig {
+
+    /**
+     * Without a data source, as with the embedded storage engine, there are no connections to share.
+     */
+    @Bean
+    public Bulkheads bulkheads(BulkheadProperties properties, ObjectProvider<DataSource> dataSource,
+                               ServerProperties serverProperties,
+                               ObjectProvider<MeterRegistry> meterRegistry) throws SQLException {
+        DataSource pool = dataSource.getIfAvailable();
+        int connectionPoolSize = pool != null ? pool.unwrap(HikariDataSource.class).getMaximumPoolSize() : Integer.MAX_VALUE;
+        Bulkheads bulkheads = new Bulkheads(properties, connectionPoolSize, serverProperties.getTomcat().getThreads().getMax());
+        meterRegistry.ifAvailable(bulkheads::bindTo);
+        return bulkheads;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "fruit.bulkhead", name = "enabled", matchIfMissing = true)
+    public BulkheadInterceptor bulkheadInterceptor(Bulkheads bulkheads, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BulkheadInterceptor(bulkheads, meterRegistry.getIfAvailable());
+    }
+}
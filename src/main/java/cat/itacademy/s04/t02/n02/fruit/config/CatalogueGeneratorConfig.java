@@ -0,0 +1,10 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.generator.CatalogueGeneratorProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CatalogueGeneratorProperties.class)
+public class CatalogueGeneratorConfig {
+}
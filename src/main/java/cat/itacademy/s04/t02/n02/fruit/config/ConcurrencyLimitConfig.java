@@ -0,0 +1,32 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.concurrency.AimdLimit;
+import cat.itacademy.s04.t02.n02.fruit.concurrency.ConcurrencyLimitInterceptor;
+import cat.itacademy.s04.t02.n02.fruit.concurrency.ConcurrencyLimitProperties;
+import cat.itacademy.s04.t02.n02.fruit.concurrency.ConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+@ConditionalOnProperty(prefix = "fruit.concurrency-limit", name = "enabled", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public ConcurrencyLimiter concurrencyLimiter(ConcurrencyLimitProperties properties,
+                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(AimdLimit.of(properties), properties.retryAfter());
+        meterRegistry.ifAvailable(limiter::bindTo);
+        return limiter;
+    }
+
+    @Bean
+    public ConcurrencyLimitInterceptor concurrencyLimitInterceptor(ConcurrencyLimiter limiter,
+                                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ConcurrencyLimitInterceptor(limiter, meterRegistry.getIfAvailable());
+    }
+}
@@ -0,0 +1,44 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.FruitCatalogueCache;
+import cat.itacademy.s04.t02.n02.fruit.cache.FruitCatalogueCacheProperties;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.StorageEngine;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.StorageProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+@EnableConfigurationProperties(FruitCatalogueCacheProperties.class)
+public class FruitCatalogueCacheConfig {
+
+    @Bean
+    public FruitCatalogueCache fruitCatalogueCache(ObjectProvider<JdbcTemplate> jdbcTemplate,
+                                                   PlatformTransactionManager transactionManager,
+                                                   FruitCatalogueCacheProperties properties,
+                                                   StorageProperties storageProperties,
+                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        TransactionTemplate loadTransactions = new TransactionTemplate(transactionManager);
+        loadTransactions.setReadOnly(true);
+        loadTransactions.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        boolean enabled = properties.enabled() && storageProperties.engine() == StorageEngine.JPA;
+        FruitCatalogueCache cache = new FruitCatalogueCache(jdbcTemplate.getIfAvailable(), loadTransactions, properties, enabled);
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("catalogue.cache.bytes", cache, FruitCatalogueCache::memoryBytes)
+                    .description("Approximate heap used by the columnar fruit catalogue cache")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("catalogue.cache.fruits", cache, FruitCatalogueCache::fruits)
+                    .description("Fruits in the columnar fruit catalogue cache")
+                    .register(registry);
+        });
+        return cache;
+    }
+}
@@ -0,0 +1,44 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.idempotency.IdempotencyFilter;
+import cat.itacademy.s04.t02.n02.fruit.idempotency.IdempotencyProperties;
+import cat.itacademy.s04.t02.n02.fruit.idempotency.IdempotencyStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+@Configuration
+@EnableConfigurationProperties(IdempotencyProperties.class)
+@ConditionalOnProperty(prefix = "fruit.idempotency", name = "enabled", matchIfMissing = true)
+public class IdempotencyConfig {
+
+    @Bean
+    public IdempotencyStore idempotencyStore(IdempotencyProperties properties,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        IdempotencyStore store = new IdempotencyStore(properties.maxEntries(), properties.timeToLive().toNanos());
+        meterRegistry.ifAvailable(registry -> Gauge.builder("idempotency.keys", store, IdempotencyStore::size)
+                .description("Idempotency keys held, including requests still running")
+                .register(registry));
+        return store;
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            IdempotencyStore store,
+            IdempotencyProperties properties,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+                new IdempotencyFilter(store, properties, exceptionResolver, meterRegistry.getIfAvailable()));
+        registration.addUrlPatterns("/fruits/*", "/providers/*", "/jobs/*");
+        registration.setOrder(SqlStatisticsConfig.FILTER_ORDER + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,36 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Bulkheads;
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Workload;
+import cat.itacademy.s04.t02.n02.fruit.job.JobOperation;
+import cat.itacademy.s04.t02.n02.fruit.job.JobProperties;
+import cat.itacademy.s04.t02.n02.fruit.job.JobRunner;
+import cat.itacademy.s04.t02.n02.fruit.repository.JobRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(JobProperties.class)
+public class JobConfig {
+
+    @Bean
+    @ConditionalOnDatabase
+    public JobRunner jobRunner(JobRepository jobRepository, List<JobOperation> operations, Bulkheads bulkheads,
+                               TransactionTemplate transactionTemplate, JobProperties properties,
+                               ObjectProvider<MeterRegistry> meterRegistry) {
+        JobRunner runner = new JobRunner(jobRepository, operations, bulkheads.get(Workload.BULK),
+                transactionTemplate, properties);
+        meterRegistry.ifAvailable(registry -> Gauge.builder("jobs.active", runner, JobRunner::active)
+                .description("Jobs running or waiting for a worker")
+                .register(registry));
+        return runner;
+    }
+}
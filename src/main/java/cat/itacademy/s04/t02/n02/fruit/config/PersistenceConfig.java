@@ -0,0 +1,32 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.persistence.ConnectionPoolMetrics;
+import cat.itacademy.s04.t02.n02.fruit.persistence.ConnectionPoolProperties;
+import cat.itacademy.s04.t02.n02.fruit.persistence.ConnectionPoolSizer;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Configuration
+@EnableConfigurationProperties(ConnectionPoolProperties.class)
+public class PersistenceConfig {
+
+    @Bean
+    public static ConnectionPoolSizer connectionPoolSizer(ObjectProvider<ConnectionPoolProperties> properties,
+                                                          Environment environment) {
+        return new ConnectionPoolSizer(properties, environment);
+    }
+
+    @Bean
+    @ConditionalOnDatabase
+    public ConnectionPoolMetrics connectionPoolMetrics(DataSource dataSource) throws SQLException {
+        return new ConnectionPoolMetrics(dataSource.unwrap(HikariDataSource.class));
+    }
+}
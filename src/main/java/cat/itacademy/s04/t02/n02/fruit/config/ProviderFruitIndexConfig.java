@@ -0,0 +1,37 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndex;
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndexProperties;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.StorageEngine;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.StorageProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+@Configuration
+@EnableConfigurationProperties(ProviderFruitIndexProperties.class)
+public class ProviderFruitIndexConfig {
+
+    @Bean
+    public ProviderFruitIndex providerFruitIndex(ObjectProvider<NamedParameterJdbcTemplate> jdbcTemplate,
+                                                 ProviderFruitIndexProperties properties,
+                                                 StorageProperties storageProperties,
+                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        boolean enabled = properties.enabled() && storageProperties.engine() == StorageEngine.JPA;
+        ProviderFruitIndex index = new ProviderFruitIndex(jdbcTemplate.getIfAvailable(), properties, enabled);
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("provider.index.bytes", index, ProviderFruitIndex::memoryBytes)
+                    .description("Approximate heap used by the provider fruit index")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("provider.index.providers", index, ProviderFruitIndex::providers)
+                    .description("Providers in the provider fruit index")
+                    .register(registry);
+        });
+        return index;
+    }
+}
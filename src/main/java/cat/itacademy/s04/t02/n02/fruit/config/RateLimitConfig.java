@@ -0,0 +1,47 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.ratelimit.RateLimitFilter;
+import cat.itacademy.s04.t02.n02.fruit.ratelimit.RateLimitProperties;
+import cat.itacademy.s04.t02.n02.fruit.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerMapping;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(prefix = "fruit.rate-limit", name = "enabled", matchIfMissing = true)
+public class RateLimitConfig {
+
+    /**
+     * Ahead of the response cache and idempotency filters, which answer some requests themselves.
+     */
+    static final int FILTER_ORDER = SqlStatisticsConfig.FILTER_ORDER + 1;
+
+    @Bean
+    public RateLimiter rateLimiter(RateLimitProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        RateLimiter limiter = new RateLimiter(properties);
+        meterRegistry.ifAvailable(limiter::bindTo);
+        return limiter;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(
+            RateLimiter limiter,
+            RateLimitProperties properties,
+            @Qualifier("requestMappingHandlerMapping") HandlerMapping handlerMapping,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(new RateLimitFilter(
+                limiter, properties.clientHeader(), handlerMapping, exceptionResolver, meterRegistry.getIfAvailable()));
+        registration.addUrlPatterns("/fruits/*", "/providers/*", "/jobs/*");
+        registration.setOrder(FILTER_ORDER);
+        return registration;
+    }
+}
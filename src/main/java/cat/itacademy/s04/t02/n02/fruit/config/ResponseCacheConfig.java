@@ -0,0 +1,44 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.ResponseCache;
+import cat.itacademy.s04.t02.n02.fruit.cache.ResponseCacheFilter;
+import cat.itacademy.s04.t02.n02.fruit.cache.ResponseCacheInvalidator;
+import cat.itacademy.s04.t02.n02.fruit.cache.ResponseCacheProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheConfig {
+
+    @Bean
+    public ResponseCache responseCache(ResponseCacheProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        ResponseCache responseCache = new ResponseCache(properties.maxEntries(), properties.timeToLive().toNanos());
+        meterRegistry.ifAvailable(registry -> Gauge.builder("response.cache.size", responseCache, ResponseCache::size)
+                .description("Cached list responses, including in-flight reservations")
+                .register(registry));
+        return responseCache;
+    }
+
+    @Bean
+    public ResponseCacheInvalidator responseCacheInvalidator(ResponseCache responseCache) {
+        return new ResponseCacheInvalidator(responseCache);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ResponseCacheFilter> responseCacheFilter(
+            ResponseCache responseCache,
+            ResponseCacheProperties properties,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        FilterRegistrationBean<ResponseCacheFilter> registration = new FilterRegistrationBean<>(
+                new ResponseCacheFilter(responseCache, properties, meterRegistry.getIfAvailable()));
+        registration.addUrlPatterns("/fruits", "/providers");
+        registration.setOrder(SqlStatisticsConfig.FILTER_ORDER + 2);
+        return registration;
+    }
+}
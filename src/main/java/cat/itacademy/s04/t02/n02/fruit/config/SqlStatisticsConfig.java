@@ -0,0 +1,36 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.monitoring.SqlStatisticsDataSourcePostProcessor;
+import cat.itacademy.s04.t02.n02.fruit.monitoring.SqlStatisticsFilter;
+import cat.itacademy.s04.t02.n02.fruit.monitoring.SqlStatisticsProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@EnableConfigurationProperties(SqlStatisticsProperties.class)
+public class SqlStatisticsConfig {
+
+    static final int FILTER_ORDER = Ordered.LOWEST_PRECEDENCE - 100;
+
+    @Bean
+    public static SqlStatisticsDataSourcePostProcessor sqlStatisticsDataSourcePostProcessor(
+            ObjectProvider<SqlStatisticsProperties> properties) {
+        return new SqlStatisticsDataSourcePostProcessor(properties);
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatisticsFilter> sqlStatisticsFilter(
+            SqlStatisticsProperties properties,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        FilterRegistrationBean<SqlStatisticsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatisticsFilter(properties, meterRegistry.getIfAvailable()));
+        registration.addUrlPatterns("/fruits/*", "/providers/*", "/jobs/*");
+        registration.setOrder(FILTER_ORDER);
+        return registration;
+    }
+}
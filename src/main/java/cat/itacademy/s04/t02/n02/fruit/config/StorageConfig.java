@@ -0,0 +1,181 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.exception.FeatureUnavailableException;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.TableVersionRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.CatalogueStores;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.FruitStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ProviderStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.StorageEngine;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.StorageProperties;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.TableVersionStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.embedded.EmbeddedCatalogueStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.embedded.EmbeddedTransactionManager;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.snapshot.SnapshotCatalogueStore;
+import cat.itacademy.s04.t02.n02.fruit.service.FruitExportService;
+import cat.itacademy.s04.t02.n02.fruit.service.FruitImportService;
+import cat.itacademy.s04.t02.n02.fruit.service.FruitWriteBehindService;
+import cat.itacademy.s04.t02.n02.fruit.service.JobService;
+import cat.itacademy.s04.t02.n02.fruit.service.WeightIncrementService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+
+/**
+ * Picks the stores of the configured {@link StorageEngine}. Without a data source, the features that run
+ * SQL directly answer {@code 503 Service Unavailable}.
+ */
+@Configuration
+@EnableConfigurationProperties(StorageProperties.class)
+public class StorageConfig {
+
+    /**
+     * Fails before any bean is created when the engine and the build disagree about the data source.
+     */
+    @Bean
+    public static BeanFactoryPostProcessor storageEngineCheck(Environment environment) {
+        return beanFactory -> {
+            StorageEngine engine = StorageEngine.of(environment);
+            boolean hasDataSource = beanFactory.getBeanNamesForType(DataSource.class, true, false).length > 0;
+            if (engine.usesDatabase() != hasDataSource) {
+                throw new IllegalStateException(hasDataSource
+                        ? "fruit.storage.engine=embedded runs without a database, but this build configures a data "
+                        + "source; it was built ahead of time for an engine that uses one. Build it with the engine it runs"
+                        : "fruit.storage.engine=" + engine.name().toLowerCase() + " needs a database, but this build "
+                        + "has no data source; it was built ahead of time for the embedded engine. Build it with the "
+                        + "engine it runs");
+            }
+        };
+    }
+
+    @Bean
+    public CatalogueStores catalogueStores(StorageProperties properties,
+                                           ObjectProvider<ProviderRepository> providerRepository,
+                                           ObjectProvider<FruitRepository> fruitRepository,
+                                           ObjectProvider<TableVersionRepository> tableVersionRepository,
+                                           ObjectProvider<EntityManagerFactory> entityManagerFactory,
+                                           ObjectProvider<JdbcTemplate> jdbcTemplate,
+                                           PlatformTransactionManager transactionManager,
+                                           ObjectProvider<MeterRegistry> meterRegistry) throws IOException {
+        return switch (properties.engine()) {
+            case JPA -> new CatalogueStores(providerRepository.getObject(), fruitRepository.getObject(),
+                    tableVersionRepository.getObject(), null);
+            case EMBEDDED -> {
+                EmbeddedCatalogueStore store = new EmbeddedCatalogueStore(properties.directory(),
+                        properties.snapshotEvery(), properties.syncWrites());
+                yield new CatalogueStores(store.providerStore(), store.fruitStore(), store.tableVersionStore(), store);
+            }
+            case SNAPSHOT -> {
+                // The first snapshot is published on construction, so the schema must exist by then
+                entityManagerFactory.getObject();
+                SnapshotCatalogueStore store = snapshotCatalogueStore(properties, jdbcTemplate.getObject(),
+                        transactionManager, meterRegistry);
+                yield new CatalogueStores(store.providerStore(), store.fruitStore(), store.tableVersionStore(), store);
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public ProviderStore providerStore(CatalogueStores stores) {
+        return stores.providerStore();
+    }
+
+    @Bean
+    @Primary
+    public FruitStore fruitStore(CatalogueStores stores) {
+        return stores.fruitStore();
+    }
+
+    @Bean
+    @Primary
+    public TableVersionStore tableVersionStore(CatalogueStores stores) {
+        return stores.tableVersionStore();
+    }
+
+    private static SnapshotCatalogueStore snapshotCatalogueStore(StorageProperties properties, JdbcTemplate jdbcTemplate,
+                                                                 PlatformTransactionManager transactionManager,
+                                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        TransactionTemplate snapshotTransactions = new TransactionTemplate(transactionManager);
+        snapshotTransactions.setReadOnly(true);
+        snapshotTransactions.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        SnapshotCatalogueStore store = new SnapshotCatalogueStore(properties.directory(), properties.publish(),
+                properties.refreshInterval(), jdbcTemplate, snapshotTransactions);
+        meterRegistry.ifAvailable(registry -> Gauge.builder("catalogue.snapshot.bytes", store,
+                        SnapshotCatalogueStore::mappedBytes)
+                .description("Size of the memory-mapped catalogue snapshot being served")
+                .baseUnit("bytes")
+                .register(registry));
+        return store;
+    }
+
+    @Configuration
+    @ConditionalOnDatabase(false)
+    static class NoDatabaseConfig {
+
+        @Bean
+        public PlatformTransactionManager transactionManager() {
+            return new EmbeddedTransactionManager();
+        }
+
+        @Bean
+        public FruitImportService unavailableFruitImportService() {
+            return unavailable(FruitImportService.class, "CSV import");
+        }
+
+        @Bean
+        public FruitExportService unavailableFruitExportService() {
+            return unavailable(FruitExportService.class, "CSV export");
+        }
+
+        @Bean
+        public WeightIncrementService unavailableWeightIncrementService() {
+            return unavailable(WeightIncrementService.class, "Weight increments");
+        }
+
+        @Bean
+        public FruitWriteBehindService unavailableFruitWriteBehindService() {
+            return unavailable(FruitWriteBehindService.class, "Asynchronous fruit creation");
+        }
+
+        @Bean
+        public JobService unavailableJobService() {
+            return unavailable(JobService.class, "Jobs");
+        }
+
+        /**
+         * @return an implementation whose every method throws {@link FeatureUnavailableException}
+         */
+        private static <T> T unavailable(Class<T> service, String feature) {
+            String message = feature + ": not available with the embedded storage engine, which runs without a database";
+            return service.cast(Proxy.newProxyInstance(service.getClassLoader(), new Class<?>[]{service},
+                    (proxy, method, args) -> {
+                        if (method.getDeclaringClass() != Object.class) {
+                            throw new FeatureUnavailableException(message);
+                        }
+                        return switch (method.getName()) {
+                            case "equals" -> proxy == args[0];
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            default -> "Unavailable " + service.getSimpleName();
+                        };
+                    }));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.StorageEngine;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Leaves the data source and JPA out when the storage engine does not use the database.
+ */
+public class StorageEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    private static final String EXCLUDE = "spring.autoconfigure.exclude";
+    private static final List<Class<?>> DATABASE_AUTO_CONFIGURATIONS = List.of(DataSourceAutoConfiguration.class,
+            DataSourceTransactionManagerAutoConfiguration.class, HibernateJpaAutoConfiguration.class);
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (StorageEngine.of(environment).usesDatabase()) {
+            return;
+        }
+        Binder binder = Binder.get(environment);
+        if (binder.bind("fruit.generator.enabled", Boolean.class).orElse(false)) {
+            throw new IllegalStateException(
+                    "The catalogue generator writes to the database; it cannot run with fruit.storage.engine=embedded");
+        }
+        Set<String> excluded = new LinkedHashSet<>(binder.bind(EXCLUDE, Bindable.listOf(String.class)).orElse(List.of()));
+        DATABASE_AUTO_CONFIGURATIONS.forEach(type -> excluded.add(type.getName()));
+        environment.getPropertySources()
+                .addFirst(new MapPropertySource("fruitStorage", Map.of(EXCLUDE, String.join(",", excluded))));
+    }
+}
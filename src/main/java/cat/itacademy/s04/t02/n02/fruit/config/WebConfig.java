@@ -0,0 +1,28 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.BulkheadInterceptor;
+import cat.itacademy.s04.t02.n02.fruit.concurrency.ConcurrencyLimitInterceptor;
+import cat.itacademy.s04.t02.n02.fruit.monitoring.SqlStatisticsHandlerInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<ConcurrencyLimitInterceptor> concurrencyLimitInterceptor;
+    private final ObjectProvider<BulkheadInterceptor> bulkheadInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlStatisticsHandlerInterceptor())
+                .addPathPatterns("/fruits/**", "/providers/**", "/jobs/**");
+        concurrencyLimitInterceptor.ifAvailable(interceptor -> registry.addInterceptor(interceptor)
+                .addPathPatterns("/fruits/**", "/providers/**", "/jobs/**"));
+        bulkheadInterceptor.ifAvailable(interceptor -> registry.addInterceptor(interceptor)
+                .addPathPatterns("/fruits/**", "/providers/**", "/jobs/**"));
+    }
+}
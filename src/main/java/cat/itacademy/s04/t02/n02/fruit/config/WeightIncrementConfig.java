@@ -0,0 +1,38 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.mapper.FruitMapper;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitBatchRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import cat.itacademy.s04.t02.n02.fruit.service.CatalogueChangeTracker;
+import cat.itacademy.s04.t02.n02.fruit.service.WeightIncrementProperties;
+import cat.itacademy.s04.t02.n02.fruit.service.WeightIncrementServiceImpl;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+@EnableConfigurationProperties(WeightIncrementProperties.class)
+public class WeightIncrementConfig {
+
+    @Bean
+    @ConditionalOnDatabase
+    public WeightIncrementServiceImpl weightIncrementService(FruitBatchRepository fruitBatchRepository,
+                                                             FruitRepository fruitRepository, FruitMapper fruitMapper,
+                                                             CatalogueChangeTracker changeTracker,
+                                                             TransactionTemplate transactionTemplate,
+                                                             WeightIncrementProperties properties,
+                                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        WeightIncrementServiceImpl service = new WeightIncrementServiceImpl(fruitBatchRepository, fruitRepository,
+                fruitMapper, changeTracker, transactionTemplate, properties);
+        meterRegistry.ifAvailable(registry -> Gauge.builder("weight.increments.pending", service,
+                        WeightIncrementServiceImpl::pendingFruits)
+                .description("Fruits with weight increments not yet written")
+                .register(registry));
+        return service;
+    }
+}
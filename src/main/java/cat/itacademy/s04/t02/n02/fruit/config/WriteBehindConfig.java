@@ -0,0 +1,39 @@
+package cat.itacademy.s04.t02.n02.fruit.config;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndex;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitBatchRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import cat.itacademy.s04.t02.n02.fruit.service.CatalogueChangeTracker;
+import cat.itacademy.s04.t02.n02.fruit.service.FruitWriteBehindServiceImpl;
+import cat.itacademy.s04.t02.n02.fruit.service.WriteBehindProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+@EnableConfigurationProperties(WriteBehindProperties.class)
+public class WriteBehindConfig {
+
+    @Bean
+    @ConditionalOnDatabase
+    public FruitWriteBehindServiceImpl fruitWriteBehindService(FruitBatchRepository fruitBatchRepository,
+                                                               ProviderRepository providerRepository,
+                                                               CatalogueChangeTracker changeTracker,
+                                                               ProviderFruitIndex providerFruitIndex,
+                                                               TransactionTemplate transactionTemplate,
+                                                               WriteBehindProperties properties,
+                                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        FruitWriteBehindServiceImpl service = new FruitWriteBehindServiceImpl(fruitBatchRepository, providerRepository,
+                changeTracker, providerFruitIndex, transactionTemplate, properties);
+        meterRegistry.ifAvailable(registry -> Gauge.builder("write.behind.pending", service,
+                        FruitWriteBehindServiceImpl::pending)
+                .description("Fruits accepted for asynchronous creation and not yet written")
+                .register(registry));
+        return service;
+    }
+}
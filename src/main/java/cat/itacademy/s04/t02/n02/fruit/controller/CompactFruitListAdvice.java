@@ -0,0 +1,42 @@
+package cat.itacademy.s04.t02.n02.fruit.controller;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.CompactFruitListDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.List;
+
+/**
+ * Rewrites fruit lists into {@link CompactFruitListDTO} when they are written in a binary encoding.
+ */
+@RestControllerAdvice
+public class CompactFruitListAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        ResolvableType type = ResolvableType.forMethodParameter(returnType);
+        if (HttpEntity.class.isAssignableFrom(type.toClass())) {
+            type = type.getGeneric(0);
+        }
+        return List.class.isAssignableFrom(type.toClass()) && type.getGeneric(0).toClass() == FruitResponseDTO.class;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body instanceof List<?> fruits && Representations.isBinary(selectedContentType)) {
+            return CompactFruitListDTO.of((List<FruitResponseDTO>) fruits);
+        }
+        return body;
+    }
+}
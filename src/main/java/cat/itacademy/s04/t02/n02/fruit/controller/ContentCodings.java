@@ -0,0 +1,55 @@
+package cat.itacademy.s04.t02.n02.fruit.controller;
+
+import java.util.Locale;
+
+/**
+ * Reads {@code Accept-Encoding} for the endpoints that compress their bodies, honouring quality values:
+ * {@code gzip;q=0} refuses gzip, and {@code *} accepts it unless gzip is listed on its own.
+ */
+public final class ContentCodings {
+
+    public static final String GZIP = "gzip";
+
+    private ContentCodings() {
+    }
+
+    /**
+     * @param acceptEncoding the request's {@code Accept-Encoding} header, possibly {@code null}
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (GZIP.equals(coding) || "x-gzip".equals(coding)) {
+                gzip = quality(parts);
+            } else if ("*".equals(coding)) {
+                wildcard = quality(parts);
+            }
+        }
+        double quality = gzip != null ? gzip : wildcard != null ? wildcard : 0;
+        return quality > 0;
+    }
+
+    /**
+     * @return the {@code q} parameter, 1 without one, or 0 when it cannot be read
+     */
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 1 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q')
+                    && parameter.substring(1).trim().startsWith("=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(parameter.indexOf('=') + 1).trim());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,58 @@
+package cat.itacademy.s04.t02.n02.fruit.controller;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitFields;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitVersion;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Strong entity tags built from entity and table versions, suffixed with the negotiated encoding and any
+ * sparse fieldset. Handlers compute the tag before loading the body, so a racing write only makes it older.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(FruitVersion version, WebRequest request) {
+        return quote(version.fruit() + "." + version.provider(), request);
+    }
+
+    static String of(FruitVersion version, FruitFields fields, WebRequest request) {
+        return quote(version.fruit() + "." + version.provider() + ";" + fields.canonical(), request);
+    }
+
+    static String ofProvider(long version, WebRequest request) {
+        return quote(Long.toString(version), request);
+    }
+
+    static String ofFruits(CatalogueVersion version, WebRequest request) {
+        return quote(version.fruits() + "." + version.providers(), request);
+    }
+
+    static String ofFruits(CatalogueVersion version, FruitFields fields, WebRequest request) {
+        return quote(version.fruits() + "." + version.providers() + ";" + fields.canonical(), request);
+    }
+
+    /**
+     * Tag of the CSV export, which is never negotiated through {@code Accept} but may be gzipped.
+     */
+    static String ofFruitsCsv(CatalogueVersion version, boolean gzip) {
+        return "\"" + version.fruits() + "." + version.providers() + (gzip ? "-csv-gzip" : "-csv") + "\"";
+    }
+
+    static String ofProviders(CatalogueVersion version, WebRequest request) {
+        return quote(Long.toString(version.providers()), request);
+    }
+
+    private static String quote(String tag, WebRequest request) {
+        MediaType representation = Representations.negotiate(request);
+        if (MediaType.APPLICATION_CBOR.equals(representation)) {
+            tag += "-cbor";
+        } else if (Representations.SMILE.equals(representation)) {
+            tag += "-smile";
+        }
+        return "\"" + tag + "\"";
+    }
+}
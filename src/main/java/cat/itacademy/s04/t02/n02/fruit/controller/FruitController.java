@@ -1,44 +1,160 @@
 package cat.itacademy.s04.t02.n02.fruit.controller;
 
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.BulkheadWorkload;
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Workload;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitFields;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitImportResult;
 import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
 import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightUpdateResult;
+import cat.itacademy.s04.t02.n02.fruit.dto.SparseFruitDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.WeightIncrementDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.WriteBehindStatusDTO;
+import cat.itacademy.s04.t02.n02.fruit.service.FruitExportService;
+import cat.itacademy.s04.t02.n02.fruit.service.FruitImportService;
 import cat.itacademy.s04.t02.n02.fruit.service.FruitService;
+import cat.itacademy.s04.t02.n02.fruit.service.FruitWriteBehindService;
+import cat.itacademy.s04.t02.n02.fruit.service.WeightIncrementService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/fruits")
 @RequiredArgsConstructor
 public class FruitController {
 
+    static final int MAX_WEIGHT_UPDATES = 10_000;
+
     private final FruitService fruitService;
+    private final FruitImportService fruitImportService;
+    private final FruitExportService fruitExportService;
+    private final WeightIncrementService weightIncrementService;
+    private final FruitWriteBehindService fruitWriteBehindService;
 
     @PostMapping
-    public ResponseEntity<FruitResponseDTO> createFruit(@Valid @RequestBody FruitRequestDTO request) {
+    public ResponseEntity<FruitResponseDTO> createFruit(@RequestParam(defaultValue = "false") boolean async,
+                                                        @Valid @RequestBody FruitRequestDTO request) {
+        if (async) {
+            fruitWriteBehindService.enqueue(request);
+            return ResponseEntity.accepted().build();
+        }
         FruitResponseDTO response = fruitService.createFruit(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @GetMapping("/write-behind")
+    public ResponseEntity<WriteBehindStatusDTO> getWriteBehindStatus() {
+        return ResponseEntity.ok(fruitWriteBehindService.getStatus());
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @BulkheadWorkload(Workload.BULK)
+    public ResponseEntity<FruitImportResult> importFruits(InputStream csv) throws IOException {
+        return ResponseEntity.ok(fruitImportService.importFruits(csv));
+    }
+
+    @GetMapping("/export.csv")
+    @BulkheadWorkload(Workload.BULK)
+    public void exportFruits(@RequestParam(required = false) Long providerId, WebRequest webRequest,
+                             HttpServletResponse response) throws IOException {
+        if (providerId != null) {
+            fruitExportService.requireProvider(providerId);
+        }
+        boolean gzip = ContentCodings.acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String eTag = ETags.ofFruitsCsv(fruitService.getCatalogueVersion(), gzip);
+        if (webRequest.checkNotModified(eTag)) {
+            return;
+        }
+
+        fruitExportService.exportFruits(providerId, () -> {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename("fruits.csv").build().toString());
+            OutputStream body = response.getOutputStream();
+            if (!gzip) {
+                return body;
+            }
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, ContentCodings.GZIP);
+            return new GZIPOutputStream(body);
+        });
+    }
+
     @GetMapping
     public ResponseEntity<List<FruitResponseDTO>> getFruits(
-            @RequestParam(required = false) Long providerId) {
+            @RequestParam(required = false) Long providerId, WebRequest webRequest) {
+
+        String eTag = ETags.ofFruits(fruitService.getCatalogueVersion(), webRequest);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
 
         List<FruitResponseDTO> fruits = (providerId != null)
                 ? fruitService.getFruitsByProviderId(providerId)
                 : fruitService.getAllFruits();
 
-        return ResponseEntity.ok(fruits);
+        return ResponseEntity.ok().eTag(eTag).body(fruits);
+    }
+
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<SparseFruitDTO>> getFruitFields(
+            @RequestParam(required = false) Long providerId,
+            @RequestParam String fields,
+            @RequestParam(required = false) String expand,
+            WebRequest webRequest) {
+
+        FruitFields selection = FruitFields.parse(fields, expand);
+        String eTag = ETags.ofFruits(fruitService.getCatalogueVersion(), selection, webRequest);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        List<SparseFruitDTO> fruits = fruitService.getFruitFields(providerId, selection);
+        return ResponseEntity.ok().eTag(eTag).body(fruits);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<FruitResponseDTO> getFruitById(@PathVariable Long id) {
+    public ResponseEntity<FruitResponseDTO> getFruitById(@PathVariable Long id, WebRequest webRequest) {
+        String eTag = ETags.of(fruitService.getFruitVersion(id), webRequest);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
         FruitResponseDTO response = fruitService.getFruitById(id);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(eTag).body(response);
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<SparseFruitDTO> getFruitFieldsById(
+            @PathVariable Long id,
+            @RequestParam String fields,
+            @RequestParam(required = false) String expand,
+            WebRequest webRequest) {
+
+        FruitFields selection = FruitFields.parse(fields, expand);
+        String eTag = ETags.of(fruitService.getFruitVersion(id), selection, webRequest);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        SparseFruitDTO response = fruitService.getFruitFieldsById(id, selection);
+        return ResponseEntity.ok().eTag(eTag).body(response);
     }
 
     @PutMapping("/{id}")
@@ -47,6 +163,25 @@ public class FruitController {
         return ResponseEntity.ok(response);
     }
 
+    @PatchMapping
+    @BulkheadWorkload(Workload.BULK)
+    public ResponseEntity<FruitWeightUpdateResult> updateFruitWeights(
+            @RequestBody @Size(max = MAX_WEIGHT_UPDATES, message = "At most " + MAX_WEIGHT_UPDATES + " weights per request")
+            List<@NotNull(message = "Weight update cannot be null") @Valid FruitWeightDTO> weights) {
+        return ResponseEntity.ok(fruitService.updateFruitWeights(weights));
+    }
+
+    @PostMapping("/{id}/weight:increment")
+    public ResponseEntity<FruitResponseDTO> incrementWeight(@PathVariable Long id,
+                                                            @RequestParam(defaultValue = "false") boolean strict,
+                                                            @Valid @RequestBody WeightIncrementDTO request) {
+        if (strict) {
+            return ResponseEntity.ok(weightIncrementService.incrementNow(id, request.delta()));
+        }
+        weightIncrementService.increment(id, request.delta());
+        return ResponseEntity.accepted().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteFruit(@PathVariable Long id) {
         fruitService.deleteFruit(id);
@@ -0,0 +1,45 @@
+package cat.itacademy.s04.t02.n02.fruit.controller;
+
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.BulkheadWorkload;
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Workload;
+import cat.itacademy.s04.t02.n02.fruit.dto.JobRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.JobResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.service.JobService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final JobService jobService;
+
+    @PostMapping
+    public ResponseEntity<JobResponseDTO> submitJob(@Valid @RequestBody JobRequestDTO request) {
+        return accepted(jobService.submitJob(request));
+    }
+
+    @PostMapping(consumes = "text/csv")
+    @BulkheadWorkload(Workload.BULK)
+    public ResponseEntity<JobResponseDTO> submitImport(InputStream csv) throws IOException {
+        return accepted(jobService.submitImport(csv));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<JobResponseDTO> getJob(@PathVariable Long id) {
+        return ResponseEntity.ok(jobService.getJob(id));
+    }
+
+    private static ResponseEntity<JobResponseDTO> accepted(JobResponseDTO job) {
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.id()).toUri())
+                .body(job);
+    }
+}
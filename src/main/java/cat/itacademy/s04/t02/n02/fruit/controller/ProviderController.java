@@ -8,6 +8,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -26,15 +27,25 @@ public class ProviderController {
     }
 
     @GetMapping
-    public ResponseEntity<List<ProviderResponseDTO>> getAllProviders() {
+    public ResponseEntity<List<ProviderResponseDTO>> getAllProviders(WebRequest webRequest) {
+        String eTag = ETags.ofProviders(providerService.getCatalogueVersion(), webRequest);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
         List<ProviderResponseDTO> providers = providerService.getAllProviders();
-        return ResponseEntity.ok(providers);
+        return ResponseEntity.ok().eTag(eTag).body(providers);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProviderResponseDTO> getProviderById(@PathVariable Long id) {
+    public ResponseEntity<ProviderResponseDTO> getProviderById(@PathVariable Long id, WebRequest webRequest) {
+        String eTag = ETags.ofProvider(providerService.getProviderVersion(id), webRequest);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
         ProviderResponseDTO response = providerService.getProviderById(id);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(eTag).body(response);
     }
 
     @PutMapping("/{id}")
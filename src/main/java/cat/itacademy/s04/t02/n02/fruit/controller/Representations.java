@@ -0,0 +1,58 @@
+package cat.itacademy.s04.t02.n02.fruit.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+
+/**
+ * The encodings the API responds with. JSON is the default; CBOR and Smile are selected through
+ * {@code Accept} and carry fruit lists in the compact schema.
+ */
+public final class Representations {
+
+    static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    private static final List<MediaType> PRODUCIBLE = List.of(MediaType.APPLICATION_JSON, SMILE, MediaType.APPLICATION_CBOR);
+
+    private Representations() {
+    }
+
+    static boolean isBinary(MediaType mediaType) {
+        return SMILE.isCompatibleWith(mediaType) || MediaType.APPLICATION_CBOR.isCompatibleWith(mediaType);
+    }
+
+    static MediaType negotiate(WebRequest request) {
+        MediaType representation = negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        return representation != null ? representation : MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * @param accept the request's {@code Accept} header, possibly {@code null}
+     * @return the representation content negotiation will pick, or {@code null} when the header is
+     * invalid or accepts none of them and the request will be answered with {@code 406}
+     */
+    public static MediaType negotiate(String accept) {
+        if (!StringUtils.hasText(accept)) {
+            return MediaType.APPLICATION_JSON;
+        }
+        try {
+            List<MediaType> requested = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(requested);
+            for (MediaType requestedType : requested) {
+                for (MediaType producible : PRODUCIBLE) {
+                    if (requestedType.isCompatibleWith(producible) && requestedType.getQualityValue() > 0) {
+                        return producible;
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException ex) {
+            // Spring answers these with 406 before any representation is produced
+        }
+        return null;
+    }
+}
@@ -0,0 +1,14 @@
+package cat.itacademy.s04.t02.n02.fruit.csv;
+
+import lombok.Getter;
+
+@Getter
+public class CsvFormatException extends RuntimeException {
+
+    private final long line;
+
+    public CsvFormatException(long line, String message) {
+        super("Line " + line + ": " + message);
+        this.line = line;
+    }
+}
@@ -0,0 +1,117 @@
+package cat.itacademy.s04.t02.n02.fruit.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 reader. Records longer than {@code maxRecordLength} characters are rejected.
+ */
+public class CsvReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final int maxRecordLength;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+
+    public CsvReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * @return the fields of the next record, or {@code null} at the end of the input
+     * @throws CsvFormatException on an unterminated quote or an over-long record
+     */
+    public List<String> next() throws IOException {
+        if (!started) {
+            started = true;
+            if (fill() && buffer[position] == '\uFEFF') {
+                position++;
+            }
+        }
+        if (!fill()) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        int recordLength = 0;
+        field.setLength(0);
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (fill()) {
+            char c = buffer[position++];
+            if (++recordLength > maxRecordLength) {
+                throw new CsvFormatException(recordLine, "Record longer than " + maxRecordLength + " characters");
+            }
+            if (quoted) {
+                if (c == '"') {
+                    if (fill() && buffer[position] == '"') {
+                        position++;
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append(c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && fill() && buffer[position] == '\n') {
+                    position++;
+                }
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append(c);
+                fieldStart = false;
+            }
+        }
+        if (quoted) {
+            throw new CsvFormatException(recordLine, "Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Line on which the record last returned by {@link #next()} started.
+     */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
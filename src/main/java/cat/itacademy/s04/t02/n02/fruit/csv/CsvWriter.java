@@ -0,0 +1,79 @@
+package cat.itacademy.s04.t02.n02.fruit.csv;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streaming RFC 4180 writer, the counterpart of {@link CsvReader}. Wrap the target in a
+ * {@link java.io.BufferedWriter}.
+ */
+public class CsvWriter implements Closeable, Flushable {
+
+    private final Writer writer;
+    private boolean recordStart = true;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public CsvWriter field(String value) throws IOException {
+        separate();
+        if (value != null) {
+            if (needsQuotes(value)) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        return this;
+    }
+
+    public CsvWriter field(long value) throws IOException {
+        separate();
+        writer.write(Long.toString(value));
+        return this;
+    }
+
+    public void record(String... values) throws IOException {
+        for (String value : values) {
+            field(value);
+        }
+        endRecord();
+    }
+
+    public void endRecord() throws IOException {
+        writer.write("\r\n");
+        recordStart = true;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void separate() throws IOException {
+        if (!recordStart) {
+            writer.write(',');
+        }
+        recordStart = false;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
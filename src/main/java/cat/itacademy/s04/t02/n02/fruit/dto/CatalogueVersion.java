@@ -0,0 +1,4 @@
+package cat.itacademy.s04.t02.n02.fruit.dto;
+
+public record CatalogueVersion(long fruits, long providers) {
+}
@@ -0,0 +1,8 @@
+package cat.itacademy.s04.t02.n02.fruit.dto;
+
+public record CompactFruitDTO(
+        Long id,
+        String name,
+        int weightInKilos,
+        Long providerId
+) {}
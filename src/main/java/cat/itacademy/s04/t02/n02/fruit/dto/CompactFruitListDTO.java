@@ -0,0 +1,25 @@
+package cat.itacademy.s04.t02.n02.fruit.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fruit list in which each provider is sent once and referenced from the fruits by id.
+ */
+public record CompactFruitListDTO(
+        List<ProviderResponseDTO> providers,
+        List<CompactFruitDTO> fruits
+) {
+
+    public static CompactFruitListDTO of(List<FruitResponseDTO> fruits) {
+        Map<Long, ProviderResponseDTO> providers = new LinkedHashMap<>();
+        List<CompactFruitDTO> compactFruits = new ArrayList<>(fruits.size());
+        for (FruitResponseDTO fruit : fruits) {
+            providers.putIfAbsent(fruit.provider().id(), fruit.provider());
+            compactFruits.add(new CompactFruitDTO(fruit.id(), fruit.name(), fruit.weightInKilos(), fruit.provider().id()));
+        }
+        return new CompactFruitListDTO(List.copyOf(providers.values()), compactFruits);
+    }
+}
@@ -0,0 +1,74 @@
+package cat.itacademy.s04.t02.n02.fruit.dto;
+
+import cat.itacademy.s04.t02.n02.fruit.exception.InvalidRequestException;
+
+import java.util.StringJoiner;
+
+/**
+ * The fruit fields selected with {@code ?fields=} and {@code ?expand=provider}.
+ */
+public record FruitFields(
+        boolean id,
+        boolean name,
+        boolean weightInKilos,
+        boolean providerId,
+        boolean provider
+) {
+
+    public static final String PROVIDER = "provider";
+
+    public static FruitFields parse(String fields, String expand) {
+        boolean id = false;
+        boolean name = false;
+        boolean weightInKilos = false;
+        boolean providerId = false;
+        boolean provider = false;
+        for (String field : fields.split(",")) {
+            switch (field.strip()) {
+                case "id" -> id = true;
+                case "name" -> name = true;
+                case "weightInKilos" -> weightInKilos = true;
+                case "providerId" -> providerId = true;
+                case PROVIDER -> provider = true;
+                case "" -> { }
+                default -> throw new InvalidRequestException("Unknown fruit field '" + field.strip() + "'");
+            }
+        }
+        if (expand != null) {
+            for (String relation : expand.split(",")) {
+                if (!PROVIDER.equals(relation.strip())) {
+                    throw new InvalidRequestException("Cannot expand '" + relation.strip() + "'");
+                }
+                provider = true;
+            }
+        }
+        FruitFields selection = new FruitFields(id, name, weightInKilos, providerId, provider);
+        if (selection.canonical().isEmpty()) {
+            throw new InvalidRequestException("At least one fruit field must be selected");
+        }
+        return selection;
+    }
+
+    /**
+     * @return the selected fields in a fixed order, so equal selections always render the same
+     */
+    public String canonical() {
+        StringJoiner joiner = new StringJoiner(",");
+        if (id) {
+            joiner.add("id");
+        }
+        if (name) {
+            joiner.add("name");
+        }
+        if (weightInKilos) {
+            joiner.add("weightInKilos");
+        }
+        if (providerId) {
+            joiner.add("providerId");
+        }
+        if (provider) {
+            joiner.add(PROVIDER);
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,6 @@
+package cat.itacademy.s04.t02.n02.fruit.dto;
+
+/**
+ * @param line line of the CSV upload the rejected record starts on (the header is line 1)
+ */
+public record FruitImportError(long line, String message) {}
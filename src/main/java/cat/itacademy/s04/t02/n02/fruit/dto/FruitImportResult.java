@@ -0,0 +1,18 @@
+package cat.itacademy.s04.t02.n02.fruit.dto;
+
+import java.util.List;
+
+/**
+ * @param rowsRead  data records read so far, blank lines excluded
+ * @param rejected  rows that were not imported; {@code errors} lists at most the first ones
+ * @param completed false when the import was cut short by malformed CSV
+ */
+public record FruitImportResult(
+        long rowsRead,
+        long imported,
+        long rejected,
+        boolean completed,
+        long elapsedMillis,
+        double rowsPerSecond,
+        List<FruitImportError> errors
+) {}
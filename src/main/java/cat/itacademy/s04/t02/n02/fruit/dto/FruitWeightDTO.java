@@ -0,0 +1,12 @@
+package cat.itacademy.s04.t02.n02.fruit.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record FruitWeightDTO(
+        @NotNull(message = "Fruit ID cannot be null")
+        Long id,
+
+        @Positive(message = "Weight must be positive")
+        int weightInKilos
+) {}
@@ -0,0 +1,11 @@
+package cat.itacademy.s04.t02.n02.fruit.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk weight update: how many fruits were written, and the requested IDs that do not exist.
+ */
+public record FruitWeightUpdateResult(
+        int updated,
+        List<Long> notFound
+) {}
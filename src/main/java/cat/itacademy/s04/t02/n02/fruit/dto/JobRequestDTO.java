@@ -0,0 +1,21 @@
+package cat.itacademy.s04.t02.n02.fruit.dto;
+
+import cat.itacademy.s04.t02.n02.fruit.model.JobType;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * @param providerId provider whose fruits {@code ADJUST_FRUIT_WEIGHTS} (optional) or {@code DELETE_FRUITS}
+ *                   (required) works on
+ * @param country    country whose providers {@code DELETE_PROVIDERS} deletes
+ * @param percent    weight change applied by {@code ADJUST_FRUIT_WEIGHTS}, e.g. {@code 10} or {@code -5}
+ */
+public record JobRequestDTO(
+        @NotNull(message = "Job type cannot be null")
+        JobType type,
+
+        Long providerId,
+
+        String country,
+
+        Integer percent
+) {}
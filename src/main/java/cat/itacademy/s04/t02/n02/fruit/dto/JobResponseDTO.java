@@ -0,0 +1,25 @@
+package cat.itacademy.s04.t02.n02.fruit.dto;
+
+import cat.itacademy.s04.t02.n02.fruit.model.JobStatus;
+import cat.itacademy.s04.t02.n02.fruit.model.JobType;
+
+import java.time.Instant;
+
+/**
+ * @param total     items the job expects to process, counted when it starts; an estimate for imports
+ * @param processed items processed so far, as of the last committed chunk
+ * @param failed    items that were rejected; {@code lastError} describes the most recent failure
+ */
+public record JobResponseDTO(
+        Long id,
+        JobType type,
+        JobStatus status,
+        Long total,
+        long processed,
+        long succeeded,
+        long failed,
+        String lastError,
+        Instant createdAt,
+        Instant startedAt,
+        Instant finishedAt
+) {}
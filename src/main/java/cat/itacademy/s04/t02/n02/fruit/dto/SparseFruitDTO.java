@@ -0,0 +1,15 @@
+package cat.itacademy.s04.t02.n02.fruit.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A fruit restricted to the fields a client asked for; fields that were not requested are null and omitted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SparseFruitDTO(
+        Long id,
+        String name,
+        Integer weightInKilos,
+        Long providerId,
+        ProviderResponseDTO provider
+) {}
@@ -0,0 +1,12 @@
+package cat.itacademy.s04.t02.n02.fruit.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+
+public record WeightIncrementDTO(
+        @Positive(message = "Delta must be positive")
+        @Max(value = WeightIncrementDTO.MAX_DELTA, message = "Delta must be at most " + WeightIncrementDTO.MAX_DELTA)
+        int delta
+) {
+    public static final int MAX_DELTA = 1_000_000;
+}
@@ -0,0 +1,19 @@
+package cat.itacademy.s04.t02.n02.fruit.dto;
+
+/**
+ * @param pending  fruits accepted and not yet written
+ * @param accepted fruits acknowledged with 202
+ * @param written  fruits inserted
+ * @param rejected fruits dropped because their provider no longer exists
+ * @param failed   fruits dropped because they could not be written
+ * @param refused  creates answered with 503 because the queue was full
+ */
+public record WriteBehindStatusDTO(
+        int pending,
+        int capacity,
+        long accepted,
+        long written,
+        long rejected,
+        long failed,
+        long refused
+) {}
@@ -0,0 +1,237 @@
+package cat.itacademy.s04.t02.n02.fruit.generator;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndex;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import cat.itacademy.s04.t02.n02.fruit.service.CatalogueChangeTracker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes a synthetic catalogue through JDBC with multi-row inserts. Each chunk of fruits draws from its
+ * own random stream, so the rows do not depend on thread scheduling.
+ */
+@Slf4j
+@Component
+@ConditionalOnDatabase
+@RequiredArgsConstructor
+public class CatalogueGenerator {
+
+    private static final String[] ADJECTIVES = {"Green", "Golden", "Sunny", "Fresh", "Royal", "Wild", "Blue", "Red",
+            "Northern", "Southern", "Happy", "Organic", "Valley", "Coastal", "Mountain", "Old"};
+    private static final String[] NOUNS = {"Orchard", "Harvest", "Fields", "Farms", "Grove", "Gardens", "Growers",
+            "Produce", "Acres", "Meadow", "Hills", "Roots"};
+    private static final String[] SUFFIXES = {"Inc", "Ltd", "S.L.", "S.A.", "Co", "Cooperative", "GmbH", "SARL"};
+    private static final String[] COUNTRIES = {"Spain", "France", "Italy", "Portugal", "Morocco", "Netherlands",
+            "Germany", "Chile", "Peru", "Colombia", "Ecuador", "South Africa", "New Zealand"};
+    private static final double[] COUNTRY_WEIGHTS = {25, 12, 12, 8, 8, 7, 6, 5, 5, 4, 3, 3, 2};
+    private static final String[] FRUITS = {"Apple", "Banana", "Cherry", "Grape", "Mango", "Orange", "Pear", "Plum",
+            "Peach", "Apricot", "Kiwi", "Lemon", "Lime", "Melon", "Watermelon", "Pineapple", "Strawberry",
+            "Raspberry", "Blueberry", "Fig", "Pomegranate", "Papaya", "Avocado", "Nectarine", "Mandarin"};
+    private static final String[] VARIETIES = {"Classic", "Gala", "Fuji", "Golden", "Red", "Green", "Baby", "Organic",
+            "Premium", "Extra", "Wild", "Sweet", "Early", "Late", "Giant", "Mini"};
+
+    private static final double WEIGHT_LOG_MEAN = Math.log(20);
+    private static final double WEIGHT_LOG_STDDEV = 0.8;
+    private static final int MAX_WEIGHT = 10_000;
+    private static final double NAME_SKEW = 1.0;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogueChangeTracker changeTracker;
+    private final ProviderFruitIndex providerFruitIndex;
+
+    public GenerationResult generate(GenerationSpec spec) {
+        long start = System.nanoTime();
+
+        long[] providerIds = insertProviders(spec);
+        insertFruits(spec, providerIds);
+        changeTracker.fruitsChanged();
+        changeTracker.providersChanged();
+        providerFruitIndex.invalidate();
+
+        GenerationResult result = new GenerationResult(spec.providers(), spec.fruits(),
+                Duration.ofNanos(System.nanoTime() - start));
+        log.info("Generated {} providers and {} fruits in {} ms ({} rows/s)", result.providers(), result.fruits(),
+                result.elapsed().toMillis(), Math.round(result.rowsPerSecond()));
+        return result;
+    }
+
+    private long[] insertProviders(GenerationSpec spec) {
+        SplittableRandom random = new SplittableRandom(spec.seed());
+        double[] countryCdf = cumulative(COUNTRY_WEIGHTS);
+        List<String> names = new ArrayList<>(spec.providers());
+        List<Object[]> rows = new ArrayList<>(spec.providers());
+        for (int i = 0; i < spec.providers(); i++) {
+            String name = String.format("%s %s %s #%d.%d",
+                    ADJECTIVES[random.nextInt(ADJECTIVES.length)],
+                    NOUNS[random.nextInt(NOUNS.length)],
+                    SUFFIXES[random.nextInt(SUFFIXES.length)],
+                    spec.seed(), i);
+            names.add(name);
+            rows.add(new Object[]{name, COUNTRIES[sample(countryCdf, random)]});
+        }
+
+        Long maxIdBefore = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM providers", Long.class);
+        for (int from = 0; from < rows.size(); from += spec.rowsPerInsert()) {
+            List<Object[]> chunk = rows.subList(from, Math.min(rows.size(), from + spec.rowsPerInsert()));
+            jdbcTemplate.update(multiRowInsert("INSERT INTO providers (name, country, version) VALUES ", "(?, ?, 0)", chunk.size()),
+                    ps -> bind(ps, chunk));
+        }
+
+        Map<String, Long> idsByName = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM providers WHERE id > ?",
+                rs -> {
+                    idsByName.put(rs.getString(2), rs.getLong(1));
+                },
+                maxIdBefore);
+        long[] providerIds = new long[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            providerIds[i] = idsByName.get(names.get(i));
+        }
+        return providerIds;
+    }
+
+    private void insertFruits(GenerationSpec spec, long[] providerIds) {
+        if (spec.fruits() == 0 || providerIds.length == 0) {
+            return;
+        }
+        double[] providerCdf = zipfCumulative(providerIds.length, spec.providerSkew());
+        double[] nameCdf = zipfCumulative(spec.nameCardinality(), NAME_SKEW);
+        long chunks = (spec.fruits() + spec.rowsPerInsert() - 1) / spec.rowsPerInsert();
+        long progressStep = Math.max(1, chunks / 20);
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicLong completedChunks = new AtomicLong();
+        String fullChunkSql = multiRowInsert("INSERT INTO fruits (name, weight_in_kilos, provider_id, version) VALUES ",
+                "(?, ?, ?, 0)", spec.rowsPerInsert());
+
+        ExecutorService executor = Executors.newFixedThreadPool(spec.threads());
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < spec.threads(); t++) {
+                workers.add(executor.submit(() -> {
+                    for (long chunk = nextChunk.getAndIncrement(); chunk < chunks; chunk = nextChunk.getAndIncrement()) {
+                        long first = chunk * spec.rowsPerInsert();
+                        int size = (int) Math.min(spec.rowsPerInsert(), spec.fruits() - first);
+                        List<Object[]> rows = fruitRows(spec, chunk, size, providerIds, providerCdf, nameCdf);
+                        String sql = size == spec.rowsPerInsert() ? fullChunkSql
+                                : multiRowInsert("INSERT INTO fruits (name, weight_in_kilos, provider_id, version) VALUES ", "(?, ?, ?, 0)", size);
+                        jdbcTemplate.update(sql, ps -> bind(ps, rows));
+
+                        long done = completedChunks.incrementAndGet();
+                        if (done % progressStep == 0) {
+                            log.info("Generated {}/{} fruits", Math.min(done * spec.rowsPerInsert(), spec.fruits()), spec.fruits());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Catalogue generation interrupted", ex);
+        } catch (ExecutionException ex) {
+            nextChunk.set(chunks);
+            throw new IllegalStateException("Catalogue generation failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Object[]> fruitRows(GenerationSpec spec, long chunk, int size, long[] providerIds,
+                                            double[] providerCdf, double[] nameCdf) {
+        SplittableRandom random = new SplittableRandom(spec.seed() * 0x9E3779B97F4A7C15L + chunk);
+        List<Object[]> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int weight = (int) Math.round(Math.exp(WEIGHT_LOG_MEAN + WEIGHT_LOG_STDDEV * random.nextGaussian()));
+            rows.add(new Object[]{
+                    fruitName(sample(nameCdf, random)),
+                    Math.max(1, Math.min(MAX_WEIGHT, weight)),
+                    providerIds[sample(providerCdf, random)]
+            });
+        }
+        return rows;
+    }
+
+    static String fruitName(int index) {
+        String name = FRUITS[index % FRUITS.length];
+        int variant = index / FRUITS.length;
+        if (variant == 0) {
+            return name;
+        }
+        name = VARIETIES[(variant - 1) % VARIETIES.length] + " " + name;
+        int series = (variant - 1) / VARIETIES.length;
+        return series == 0 ? name : name + " " + (series + 1);
+    }
+
+    private static String multiRowInsert(String prefix, String rowPlaceholders, int rows) {
+        StringBuilder sql = new StringBuilder(prefix.length() + rows * (rowPlaceholders.length() + 2)).append(prefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(rowPlaceholders);
+        }
+        return sql.toString();
+    }
+
+    private static void bind(PreparedStatement ps, List<Object[]> rows) throws SQLException {
+        int index = 1;
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                ps.setObject(index++, value);
+            }
+        }
+    }
+
+    private static double[] zipfCumulative(int size, double exponent) {
+        double[] weights = new double[size];
+        for (int rank = 0; rank < size; rank++) {
+            weights[rank] = 1.0 / Math.pow(rank + 1, exponent);
+        }
+        return cumulative(weights);
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] cdf = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cdf[i] = total;
+        }
+        for (int i = 0; i < cdf.length; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    private static int sample(double[] cdf, SplittableRandom random) {
+        double value = random.nextDouble();
+        int low = 0;
+        int high = cdf.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cdf[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
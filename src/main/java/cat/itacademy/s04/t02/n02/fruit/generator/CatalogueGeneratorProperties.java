@@ -0,0 +1,23 @@
+package cat.itacademy.s04.t02.n02.fruit.generator;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "fruit.generator")
+public record CatalogueGeneratorProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("true") boolean exitOnCompletion,
+        @DefaultValue("1000") int providers,
+        @DefaultValue("1000000") long fruits,
+        @DefaultValue("42") long seed,
+        @DefaultValue("1.1") double providerSkew,
+        @DefaultValue("5000") int nameCardinality,
+        @DefaultValue("1000") int rowsPerInsert,
+        @DefaultValue("0") int threads
+) {
+
+    public GenerationSpec toSpec() {
+        int workerThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new GenerationSpec(providers, fruits, seed, providerSkew, nameCardinality, rowsPerInsert, workerThreads);
+    }
+}
@@ -0,0 +1,27 @@
+package cat.itacademy.s04.t02.n02.fruit.generator;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "fruit.generator", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class CatalogueGeneratorRunner implements ApplicationRunner {
+
+    private final CatalogueGenerator catalogueGenerator;
+    private final CatalogueGeneratorProperties properties;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        catalogueGenerator.generate(properties.toSpec());
+        if (properties.exitOnCompletion()) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package cat.itacademy.s04.t02.n02.fruit.generator;
+
+import java.time.Duration;
+
+public record GenerationResult(int providers, long fruits, Duration elapsed) {
+
+    public double rowsPerSecond() {
+        return (providers + fruits) / Math.max(elapsed.toNanos() / 1e9, 1e-9);
+    }
+}
@@ -0,0 +1,17 @@
+package cat.itacademy.s04.t02.n02.fruit.generator;
+
+/**
+ * @param providerSkew    Zipf exponent of the fruits-per-provider distribution (0 = uniform)
+ * @param nameCardinality number of distinct fruit names
+ * @param rowsPerInsert   rows per multi-row {@code INSERT} statement
+ * @param threads         parallel insert workers
+ */
+public record GenerationSpec(
+        int providers,
+        long fruits,
+        long seed,
+        double providerSkew,
+        int nameCardinality,
+        int rowsPerInsert,
+        int threads
+) {}
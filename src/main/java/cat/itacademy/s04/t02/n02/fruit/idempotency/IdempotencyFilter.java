@@ -0,0 +1,161 @@
+package cat.itacademy.s04.t02.n02.fruit.idempotency;
+
+import cat.itacademy.s04.t02.n02.fruit.exception.IdempotencyKeyReusedException;
+import cat.itacademy.s04.t02.n02.fruit.exception.InvalidRequestException;
+import cat.itacademy.s04.t02.n02.fruit.exception.ResourceConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Replays the stored response of a {@code POST} or {@code PATCH} retried with the same {@code Idempotency-Key}.
+ * Keys are scoped to the client, method and path, and a retry with a different body is rejected.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int MAX_CLIENT_KEY_LENGTH = 128;
+    private static final String[] REPLAYED_HEADERS = {HttpHeaders.LOCATION, HttpHeaders.ETAG};
+
+    private final IdempotencyStore store;
+    private final IdempotencyProperties properties;
+    private final HandlerExceptionResolver exceptionResolver;
+    private final Counter replays;
+
+    public IdempotencyFilter(IdempotencyStore store, IdempotencyProperties properties,
+                             HandlerExceptionResolver exceptionResolver, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.properties = properties;
+        this.exceptionResolver = exceptionResolver;
+        this.replays = meterRegistry == null ? null : Counter.builder("idempotency.replays")
+                .description("Requests answered with the stored response of an earlier request with the same key")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("POST".equals(method) || "PATCH".equals(method)) || request.getHeader(KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(KEY_HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            reject(request, response, new InvalidRequestException(
+                    KEY_HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters"));
+            return;
+        }
+        String scopedKey = clientOf(request) + " " + request.getMethod() + " " + request.getRequestURI() + " " + key;
+
+        while (true) {
+            IdempotencyStore.Claim claim = store.claim(scopedKey);
+            if (claim.owned()) {
+                execute(claim, request, response, filterChain);
+                return;
+            }
+            IdempotencyStore.StoredResponse stored;
+            try {
+                stored = claim.result().get(properties.maxWait().toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                reject(request, response, new ResourceConflictException(
+                        "A request with this " + KEY_HEADER + " is still being processed"));
+                return;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ServletException("Interrupted while waiting for " + KEY_HEADER + " " + key, ex);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException(ex.getCause());
+            }
+            if (stored != null) {
+                if (!stored.requestHash().equals(HashingRequestWrapper.hash(request.getInputStream()))) {
+                    reject(request, response, new IdempotencyKeyReusedException(
+                            KEY_HEADER + " " + key + " was already used with a different request body"));
+                    return;
+                }
+                replay(stored, response);
+                return;
+            }
+            // The first request failed and released the key; run this one instead
+        }
+    }
+
+    private void execute(IdempotencyStore.Claim claim, HttpServletRequest request, HttpServletResponse response,
+                         FilterChain filterChain) throws ServletException, IOException {
+        HashingRequestWrapper hashingRequest = new HashingRequestWrapper(request);
+        ContentCachingResponseWrapper capturingResponse = new ContentCachingResponseWrapper(response);
+        IdempotencyStore.StoredResponse stored = null;
+        try {
+            filterChain.doFilter(hashingRequest, capturingResponse);
+            stored = capture(hashingRequest, capturingResponse);
+        } finally {
+            if (stored != null) {
+                store.complete(claim, stored);
+            } else {
+                store.abandon(claim);
+            }
+        }
+        capturingResponse.copyBodyToResponse();
+    }
+
+    private IdempotencyStore.StoredResponse capture(HashingRequestWrapper request, ContentCachingResponseWrapper response)
+            throws IOException {
+        int status = response.getStatus();
+        if (status < 200 || status >= 300 || response.getContentSize() > properties.maxBodySize().toBytes()) {
+            return null;
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : REPLAYED_HEADERS) {
+            String value = response.getHeader(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        return new IdempotencyStore.StoredResponse(request.finish(), status, response.getContentType(), headers,
+                response.getContentAsByteArray());
+    }
+
+    private void replay(IdempotencyStore.StoredResponse stored, HttpServletResponse response) throws IOException {
+        if (replays != null) {
+            replays.increment();
+        }
+        response.setStatus(stored.status());
+        stored.headers().forEach(response::setHeader);
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String clientKey = request.getHeader(properties.clientHeader());
+        if (clientKey != null && !clientKey.isBlank() && clientKey.length() <= MAX_CLIENT_KEY_LENGTH) {
+            return "key:" + clientKey;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, RuntimeException ex) {
+        exceptionResolver.resolveException(request, response, null, ex);
+    }
+}
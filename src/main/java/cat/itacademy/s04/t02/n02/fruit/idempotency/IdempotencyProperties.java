@@ -0,0 +1,24 @@
+package cat.itacademy.s04.t02.n02.fruit.idempotency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @param clientHeader request header identifying the client; keys are scoped to it
+ * @param maxEntries   completed responses kept; the oldest are dropped first
+ * @param timeToLive   how long a completed response is replayed for
+ * @param maxWait      how long a duplicate waits for the first request before getting 409
+ * @param maxBodySize  larger responses are not stored
+ */
+@ConfigurationProperties(prefix = "fruit.idempotency")
+public record IdempotencyProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("X-Api-Key") String clientHeader,
+        @DefaultValue("10000") int maxEntries,
+        @DefaultValue("1h") Duration timeToLive,
+        @DefaultValue("10s") Duration maxWait,
+        @DefaultValue("256KB") DataSize maxBodySize
+) {}
@@ -0,0 +1,114 @@
+package cat.itacademy.s04.t02.n02.fruit.idempotency;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * First responses per idempotency key. The first request with a key {@link #claim claims} it and must
+ * {@link #complete} or {@link #abandon} the claim; later ones wait on its result.
+ */
+public class IdempotencyStore {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger completedCount = new AtomicInteger();
+    private final int maxEntries;
+    private final long timeToLiveNanos;
+    private final LongSupplier clock;
+
+    public IdempotencyStore(int maxEntries, long timeToLiveNanos) {
+        this(maxEntries, timeToLiveNanos, System::nanoTime);
+    }
+
+    IdempotencyStore(int maxEntries, long timeToLiveNanos, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = timeToLiveNanos;
+        this.clock = clock;
+    }
+
+    public Claim claim(String key) {
+        long now = clock.getAsLong();
+        evict(now);
+        while (true) {
+            Entry entry = new Entry(key);
+            Entry existing = entries.putIfAbsent(key, entry);
+            if (existing == null) {
+                return new Claim(entry, true);
+            }
+            if (!existing.isExpired(now)) {
+                return new Claim(existing, false);
+            }
+            entries.remove(key, existing);
+        }
+    }
+
+    public void complete(Claim claim, StoredResponse response) {
+        Entry entry = claim.entry();
+        entry.expiresAtNanos = clock.getAsLong() + timeToLiveNanos;
+        completed.add(entry);
+        completedCount.incrementAndGet();
+        entry.result.complete(response);
+        evict(clock.getAsLong());
+    }
+
+    public void abandon(Claim claim) {
+        Entry entry = claim.entry();
+        entries.remove(entry.key, entry);
+        entry.result.complete(null);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = completed.peek()) != null
+                && (completedCount.get() > maxEntries || oldest.isExpired(now))) {
+            if (completed.remove(oldest)) {
+                completedCount.decrementAndGet();
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    /**
+     * @param owned whether the caller created the entry and has to execute the request
+     */
+    public record Claim(Entry entry, boolean owned) {
+
+        /**
+         * The stored response once the owner completes, or {@code null} if it abandoned the claim.
+         */
+        public CompletableFuture<StoredResponse> result() {
+            return entry.result;
+        }
+    }
+
+    public static final class Entry {
+
+        private final String key;
+        private final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+        private volatile long expiresAtNanos;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+
+        private boolean isExpired(long now) {
+            return result.isDone() && now - expiresAtNanos >= 0;
+        }
+    }
+
+    /**
+     * @param requestHash digest of the request body that produced the response
+     * @param headers     the response headers that are replayed, such as {@code Location}
+     */
+    public record StoredResponse(String requestHash, int status, String contentType, Map<String, String> headers,
+                                 byte[] body) {
+    }
+}
@@ -0,0 +1,80 @@
+package cat.itacademy.s04.t02.n02.fruit.job;
+
+import cat.itacademy.s04.t02.n02.fruit.model.Job;
+import cat.itacademy.s04.t02.n02.fruit.model.JobType;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import cat.itacademy.s04.t02.n02.fruit.service.CatalogueChangeTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Scales fruit weights by {@code (100 + percent) / 100}, rounded and never below one kilo.
+ */
+@Component
+@ConditionalOnDatabase
+@RequiredArgsConstructor
+public class AdjustFruitWeightsOperation implements JobOperation {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogueChangeTracker changeTracker;
+    private final JobProperties properties;
+
+    @Override
+    public JobType type() {
+        return JobType.ADJUST_FRUIT_WEIGHTS;
+    }
+
+    @Override
+    public Long countItems(Job job) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fruits" + providerFilter(job, "WHERE"),
+                parameters(job, 0), Long.class);
+    }
+
+    @Override
+    public JobTask open(Job job) {
+        return progress -> transactionTemplate.execute(status -> {
+            List<long[]> fruits = jdbcTemplate.query("SELECT id, weight_in_kilos, provider_id FROM fruits "
+                            + "WHERE id > :after" + providerFilter(job, "AND") + " ORDER BY id LIMIT :limit FOR UPDATE",
+                    parameters(job, progress.getCheckpoint()),
+                    (rs, rowNum) -> new long[]{rs.getLong(1), rs.getInt(2), rs.getLong(3)});
+            if (fruits.isEmpty()) {
+                return false;
+            }
+
+            SqlParameterSource[] updates = fruits.stream()
+                    .map(fruit -> new MapSqlParameterSource()
+                            .addValue("id", fruit[0])
+                            .addValue("weight", adjust((int) fruit[1], job.getPercent())))
+                    .toArray(SqlParameterSource[]::new);
+            jdbcTemplate.batchUpdate(
+                    "UPDATE fruits SET weight_in_kilos = :weight, version = version + 1 WHERE id = :id", updates);
+            changeTracker.fruitsChanged(fruits.stream().map(fruit -> fruit[2]).distinct().toArray(Long[]::new));
+
+            progress.advance(fruits.get(fruits.size() - 1)[0], fruits.size(), fruits.size(), 0, null);
+            return fruits.size() == properties.chunkSize();
+        });
+    }
+
+    static int adjust(int weightInKilos, int percent) {
+        long adjusted = Math.round(weightInKilos * (100.0 + percent) / 100);
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, adjusted));
+    }
+
+    private MapSqlParameterSource parameters(Job job, long after) {
+        return new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("providerId", job.getProviderId())
+                .addValue("limit", properties.chunkSize());
+    }
+
+    private static String providerFilter(Job job, String keyword) {
+        return job.getProviderId() != null ? " " + keyword + " provider_id = :providerId" : "";
+    }
+}
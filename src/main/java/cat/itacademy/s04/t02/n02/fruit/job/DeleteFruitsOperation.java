@@ -0,0 +1,63 @@
+package cat.itacademy.s04.t02.n02.fruit.job;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndex;
+import cat.itacademy.s04.t02.n02.fruit.model.Job;
+import cat.itacademy.s04.t02.n02.fruit.model.JobType;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import cat.itacademy.s04.t02.n02.fruit.service.CatalogueChangeTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Deletes the fruits of one provider in id order, one chunk of ids per transaction.
+ */
+@Component
+@ConditionalOnDatabase
+@RequiredArgsConstructor
+public class DeleteFruitsOperation implements JobOperation {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogueChangeTracker changeTracker;
+    private final ProviderFruitIndex providerFruitIndex;
+    private final JobProperties properties;
+
+    @Override
+    public JobType type() {
+        return JobType.DELETE_FRUITS;
+    }
+
+    @Override
+    public Long countItems(Job job) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fruits WHERE provider_id = :providerId",
+                new MapSqlParameterSource("providerId", job.getProviderId()), Long.class);
+    }
+
+    @Override
+    public JobTask open(Job job) {
+        return progress -> transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM fruits WHERE provider_id = :providerId AND id > :after ORDER BY id LIMIT :limit",
+                    new MapSqlParameterSource()
+                            .addValue("providerId", job.getProviderId())
+                            .addValue("after", progress.getCheckpoint())
+                            .addValue("limit", properties.chunkSize()),
+                    Long.class);
+            if (ids.isEmpty()) {
+                return false;
+            }
+
+            int deleted = jdbcTemplate.update("DELETE FROM fruits WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids));
+            changeTracker.fruitsChanged(job.getProviderId());
+            providerFruitIndex.invalidate(job.getProviderId());
+
+            progress.advance(ids.get(ids.size() - 1), ids.size(), deleted, ids.size() - deleted, null);
+            return ids.size() == properties.chunkSize();
+        });
+    }
+}
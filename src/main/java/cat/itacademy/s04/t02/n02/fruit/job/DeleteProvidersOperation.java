@@ -0,0 +1,79 @@
+package cat.itacademy.s04.t02.n02.fruit.job;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndex;
+import cat.itacademy.s04.t02.n02.fruit.model.Job;
+import cat.itacademy.s04.t02.n02.fruit.model.JobType;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import cat.itacademy.s04.t02.n02.fruit.service.CatalogueChangeTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Deletes the providers of one country with their fruits, at most a chunk of fruits per transaction.
+ */
+@Component
+@ConditionalOnDatabase
+@RequiredArgsConstructor
+public class DeleteProvidersOperation implements JobOperation {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogueChangeTracker changeTracker;
+    private final ProviderFruitIndex providerFruitIndex;
+    private final JobProperties properties;
+
+    @Override
+    public JobType type() {
+        return JobType.DELETE_PROVIDERS;
+    }
+
+    @Override
+    public Long countItems(Job job) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM providers WHERE country = :country",
+                new MapSqlParameterSource("country", job.getCountry()), Long.class);
+    }
+
+    @Override
+    public JobTask open(Job job) {
+        return progress -> transactionTemplate.execute(status -> {
+            List<Long> providerIds = jdbcTemplate.queryForList(
+                    "SELECT id FROM providers WHERE country = :country AND id > :after ORDER BY id LIMIT :limit",
+                    new MapSqlParameterSource()
+                            .addValue("country", job.getCountry())
+                            .addValue("after", progress.getCheckpoint())
+                            .addValue("limit", properties.chunkSize()),
+                    Long.class);
+            if (providerIds.isEmpty()) {
+                return false;
+            }
+            Long[] providers = providerIds.toArray(Long[]::new);
+
+            List<Long> fruitIds = jdbcTemplate.queryForList(
+                    "SELECT id FROM fruits WHERE provider_id IN (:providerIds) ORDER BY id LIMIT :limit",
+                    new MapSqlParameterSource()
+                            .addValue("providerIds", providerIds)
+                            .addValue("limit", properties.chunkSize()),
+                    Long.class);
+            if (!fruitIds.isEmpty()) {
+                jdbcTemplate.update("DELETE FROM fruits WHERE id IN (:ids)", new MapSqlParameterSource("ids", fruitIds));
+                changeTracker.fruitsChanged(providers);
+                providerFruitIndex.invalidate(providers);
+                return true;
+            }
+
+            int deleted = jdbcTemplate.update("DELETE FROM providers WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", providerIds));
+            changeTracker.providersChanged(providers);
+            providerIds.forEach(providerFruitIndex::providerRemoved);
+
+            progress.advance(providerIds.get(providerIds.size() - 1), providerIds.size(), deleted,
+                    providerIds.size() - deleted, null);
+            return providerIds.size() == properties.chunkSize();
+        });
+    }
+}
@@ -0,0 +1,117 @@
+package cat.itacademy.s04.t02.n02.fruit.job;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitImportError;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitImportResult;
+import cat.itacademy.s04.t02.n02.fruit.model.Job;
+import cat.itacademy.s04.t02.n02.fruit.model.JobType;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import cat.itacademy.s04.t02.n02.fruit.service.FruitImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Imports a spooled CSV upload. The checkpoint is the last CSV line of the last committed chunk.
+ */
+@Slf4j
+@Component
+@ConditionalOnDatabase
+@RequiredArgsConstructor
+public class ImportFruitsOperation implements JobOperation {
+
+    private static final int COUNT_BUFFER_SIZE = 64 * 1024;
+
+    private final FruitImportService fruitImportService;
+
+    @Override
+    public JobType type() {
+        return JobType.IMPORT_FRUITS;
+    }
+
+    /**
+     * Counts the line breaks of the upload, less the header: an estimate, since quoted fields may span lines.
+     */
+    @Override
+    public Long countItems(Job job) throws IOException {
+        long lines = 0;
+        byte[] buffer = new byte[COUNT_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(Path.of(job.getInputFile()))) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+            }
+        }
+        return Math.max(0, lines - 1);
+    }
+
+    @Override
+    public JobTask open(Job job) throws IOException {
+        InputStream csv = Files.newInputStream(Path.of(job.getInputFile()));
+        try {
+            return new ImportTask(csv, fruitImportService.startImport(csv, job.getCheckpoint()));
+        } catch (IOException | RuntimeException ex) {
+            csv.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void finished(Job job) {
+        try {
+            Files.deleteIfExists(Path.of(job.getInputFile()));
+        } catch (IOException ex) {
+            log.warn("Could not delete the upload of job {}: {}", job.getId(), job.getInputFile(), ex);
+        }
+    }
+
+    private static final class ImportTask implements JobTask {
+
+        private final InputStream csv;
+        private final FruitImportService.FruitImport fruitImport;
+        private long[] base;
+
+        private ImportTask(InputStream csv, FruitImportService.FruitImport fruitImport) {
+            this.csv = csv;
+            this.fruitImport = fruitImport;
+        }
+
+        @Override
+        public boolean processNextChunk(JobProgress progress) throws IOException {
+            if (base == null) {
+                base = new long[]{progress.getProcessed(), progress.getSucceeded(), progress.getFailed()};
+            }
+            int knownErrors = fruitImport.result().errors().size();
+            boolean more = fruitImport.importNextChunk((lastLine, totals) -> progress.record(lastLine,
+                    base[0] + totals.rowsRead(), base[1] + totals.imported(), base[2] + totals.rejected(),
+                    newestError(totals.errors(), knownErrors)));
+
+            FruitImportResult result = fruitImport.result();
+            if (!more && !result.completed()) {
+                throw new IllegalStateException(result.errors().get(result.errors().size() - 1).message());
+            }
+            return more;
+        }
+
+        @Override
+        public void close() throws IOException {
+            csv.close();
+        }
+
+        private static String newestError(List<FruitImportError> errors, int known) {
+            if (errors.size() <= known) {
+                return null;
+            }
+            FruitImportError error = errors.get(errors.size() - 1);
+            return "Line " + error.line() + ": " + error.message();
+        }
+    }
+}
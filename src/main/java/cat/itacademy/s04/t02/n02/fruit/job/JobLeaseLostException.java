@@ -0,0 +1,11 @@
+package cat.itacademy.s04.t02.n02.fruit.job;
+
+/**
+ * Thrown when a chunk finds that its job's lease has passed to another instance, rolling the chunk back.
+ */
+class JobLeaseLostException extends RuntimeException {
+
+    JobLeaseLostException(long jobId) {
+        super("Job " + jobId + " is no longer leased by this instance");
+    }
+}
@@ -0,0 +1,30 @@
+package cat.itacademy.s04.t02.n02.fruit.job;
+
+import cat.itacademy.s04.t02.n02.fruit.model.Job;
+import cat.itacademy.s04.t02.n02.fruit.model.JobType;
+
+import java.io.IOException;
+
+/**
+ * One kind of bulk job. Implementations are Spring beans, picked up by {@link JobRunner} by {@link #type()}.
+ */
+public interface JobOperation {
+
+    JobType type();
+
+    /**
+     * @return how many items the job will process, for progress reporting, or {@code null} if unknown
+     */
+    Long countItems(Job job) throws IOException;
+
+    /**
+     * @return a task that resumes the job after its checkpoint
+     */
+    JobTask open(Job job) throws IOException;
+
+    /**
+     * Called once the job has succeeded or failed, to release what it kept between restarts.
+     */
+    default void finished(Job job) {
+    }
+}
@@ -0,0 +1,68 @@
+package cat.itacademy.s04.t02.n02.fruit.job;
+
+import cat.itacademy.s04.t02.n02.fruit.model.Job;
+import cat.itacademy.s04.t02.n02.fruit.repository.JobRepository;
+import lombok.Getter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Checkpoint and counters of a running job. {@link #record} must be called inside the transaction of the
+ * chunk it describes, and fails with {@link JobLeaseLostException} once another instance holds the lease.
+ */
+@Getter
+public class JobProgress {
+
+    private final long jobId;
+    private final JobRepository jobRepository;
+    private final String owner;
+    private final Duration leaseDuration;
+    private long checkpoint;
+    private long processed;
+    private long succeeded;
+    private long failed;
+    private String lastError;
+
+    JobProgress(Job job, JobRepository jobRepository, String owner, Duration leaseDuration) {
+        this.jobId = job.getId();
+        this.jobRepository = jobRepository;
+        this.owner = owner;
+        this.leaseDuration = leaseDuration;
+        this.checkpoint = job.getCheckpoint();
+        this.processed = job.getProcessed();
+        this.succeeded = job.getSucceeded();
+        this.failed = job.getFailed();
+        this.lastError = job.getLastError();
+    }
+
+    /**
+     * @param lastError the latest failure, or {@code null} to keep the previous one
+     */
+    public void record(long checkpoint, long processed, long succeeded, long failed, String lastError) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Job progress must be recorded in the chunk's transaction");
+        }
+        String error = lastError != null ? lastError : this.lastError;
+        if (jobRepository.updateProgress(jobId, this.checkpoint, checkpoint, processed, succeeded, failed, error,
+                owner, Instant.now().plus(leaseDuration)) == 0) {
+            throw new JobLeaseLostException(jobId);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                JobProgress.this.checkpoint = checkpoint;
+                JobProgress.this.processed = processed;
+                JobProgress.this.succeeded = succeeded;
+                JobProgress.this.failed = failed;
+                JobProgress.this.lastError = error;
+            }
+        });
+    }
+
+    public void advance(long checkpoint, long processed, long succeeded, long failed, String lastError) {
+        record(checkpoint, this.processed + processed, this.succeeded + succeeded, this.failed + failed, lastError);
+    }
+}
@@ -0,0 +1,27 @@
+package cat.itacademy.s04.t02.n02.fruit.job;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * @param workers         jobs running at once; further jobs wait in the queue
+ * @param chunkSize       items a job processes per transaction
+ * @param chunkPause      pause between two chunks of a job
+ * @param overloadBackoff wait before retrying when the {@code BULK} bulkhead has no free slot
+ * @param spoolDirectory  where CSV uploads are kept until their import job finishes
+ * @param shutdownTimeout how long shutdown waits for the running chunks to commit
+ * @param leaseDuration   how long a job stays with its instance after its last chunk
+ */
+@ConfigurationProperties(prefix = "fruit.jobs")
+public record JobProperties(
+        @DefaultValue("2") int workers,
+        @DefaultValue("1000") int chunkSize,
+        @DefaultValue("10ms") Duration chunkPause,
+        @DefaultValue("200ms") Duration overloadBackoff,
+        @DefaultValue("data/jobs") Path spoolDirectory,
+        @DefaultValue("10s") Duration shutdownTimeout,
+        @DefaultValue("1m") Duration leaseDuration
+) {}
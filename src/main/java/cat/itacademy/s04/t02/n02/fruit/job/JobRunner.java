@@ -0,0 +1,204 @@
+package cat.itacademy.s04.t02.n02.fruit.job;
+
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Bulkhead;
+import cat.itacademy.s04.t02.n02.fruit.exception.ServiceOverloadedException;
+import cat.itacademy.s04.t02.n02.fruit.model.Job;
+import cat.itacademy.s04.t02.n02.fruit.model.JobStatus;
+import cat.itacademy.s04.t02.n02.fruit.model.JobType;
+import cat.itacademy.s04.t02.n02.fruit.repository.JobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs jobs on a fixed number of virtual threads, one chunk at a time, each chunk in a slot of the
+ * {@code BULK} bulkhead. A job only runs on the instance holding its lease.
+ */
+@Slf4j
+public class JobRunner implements AutoCloseable {
+
+    private static final Set<JobStatus> CLAIMABLE = EnumSet.of(JobStatus.QUEUED, JobStatus.RUNNING);
+
+    private final JobRepository jobRepository;
+    private final Map<JobType, JobOperation> operations = new EnumMap<>(JobType.class);
+    private final Bulkhead bulkhead;
+    private final TransactionTemplate transactionTemplate;
+    private final JobProperties properties;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService leaseScanner;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Set<Long> submitted = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopping;
+
+    public JobRunner(JobRepository jobRepository, List<JobOperation> operations, Bulkhead bulkhead,
+                     TransactionTemplate transactionTemplate, JobProperties properties) {
+        this.jobRepository = jobRepository;
+        operations.forEach(operation -> this.operations.put(operation.type(), operation));
+        this.bulkhead = bulkhead;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.executor = Executors.newFixedThreadPool(properties.workers(), Thread.ofVirtual().name("job-", 0).factory());
+        this.leaseScanner = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("job-lease-scanner").daemon().factory());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJobSubmitted(JobSubmittedEvent event) {
+        submit(event.jobId());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = properties.leaseDuration().toMillis();
+        leaseScanner.scheduleWithFixedDelay(this::resumeJobsQuietly, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void resumeJobs() {
+        List<Job> pending = jobRepository.findClaimable(CLAIMABLE, Instant.now()).stream()
+                .filter(job -> !submitted.contains(job.getId()))
+                .toList();
+        if (!pending.isEmpty()) {
+            log.info("Resuming {} jobs", pending.size());
+        }
+        pending.forEach(job -> submit(job.getId()));
+    }
+
+    public int active() {
+        return submitted.size();
+    }
+
+    void submit(long jobId) {
+        if (!stopping && submitted.add(jobId)) {
+            executor.execute(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    submitted.remove(jobId);
+                }
+            });
+        }
+    }
+
+    private void run(long jobId) {
+        if (!claim(jobId)) {
+            return;
+        }
+        // Read after claiming, so the checkpoint is the last one the previous owner committed
+        Job job = jobRepository.findById(jobId).orElseThrow();
+        JobOperation operation = operations.get(job.getType());
+        try {
+            if (job.getTotal() == null) {
+                Long total = operation.countItems(job);
+                transactionTemplate.executeWithoutResult(status -> jobRepository.updateTotal(jobId, total, instanceId));
+            }
+            log.info("Job {} ({}) running from checkpoint {}", jobId, job.getType(), job.getCheckpoint());
+
+            JobProgress progress = new JobProgress(job, jobRepository, instanceId, properties.leaseDuration());
+            try (JobTask task = operation.open(job)) {
+                boolean more = true;
+                while (more) {
+                    if (stopping) {
+                        log.info("Job {} stopped at checkpoint {}; it resumes on the next instance to claim it",
+                                jobId, progress.getCheckpoint());
+                        releaseLease(jobId);
+                        return;
+                    }
+                    try (Bulkhead.Permit permit = acquire()) {
+                        more = task.processNextChunk(progress);
+                    }
+                    if (more) {
+                        Thread.sleep(properties.chunkPause().toMillis());
+                    }
+                }
+            }
+            finish(job, operation, JobStatus.SUCCEEDED, null);
+            log.info("Job {} succeeded: {} processed, {} failed", jobId, progress.getProcessed(), progress.getFailed());
+        } catch (JobLeaseLostException ex) {
+            log.warn("Job {} was taken over by another instance; stopping here", jobId);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.info("Job {} interrupted; it resumes from its checkpoint once its lease expires", jobId);
+        } catch (Exception ex) {
+            if (stopping) {
+                log.info("Job {} interrupted; it resumes from its checkpoint once its lease expires", jobId, ex);
+                return;
+            }
+            log.warn("Job {} failed", jobId, ex);
+            finish(job, operation, JobStatus.FAILED, ex.getMessage() != null ? ex.getMessage() : ex.toString());
+        }
+    }
+
+    private boolean claim(long jobId) {
+        Instant now = Instant.now();
+        Integer claimed = transactionTemplate.execute(status -> jobRepository.claim(jobId, JobStatus.RUNNING,
+                CLAIMABLE, instanceId, now.plus(properties.leaseDuration()), now));
+        return claimed != null && claimed == 1;
+    }
+
+    private void releaseLease(long jobId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jobRepository.releaseLease(jobId, instanceId));
+        } catch (RuntimeException ex) {
+            log.warn("Releasing the lease of job {} failed; it expires in {}", jobId, properties.leaseDuration(), ex);
+        }
+    }
+
+    private void resumeJobsQuietly() {
+        try {
+            resumeJobs();
+        } catch (RuntimeException ex) {
+            log.warn("Looking for jobs to resume failed", ex);
+        }
+    }
+
+    private Bulkhead.Permit acquire() throws InterruptedException {
+        while (true) {
+            try {
+                return bulkhead.acquire();
+            } catch (ServiceOverloadedException ex) {
+                Thread.sleep(properties.overloadBackoff().toMillis());
+            }
+        }
+    }
+
+    private void finish(Job job, JobOperation operation, JobStatus status, String error) {
+        String lastError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        Integer updated = transactionTemplate.execute(tx ->
+                jobRepository.markFinished(job.getId(), status, lastError, instanceId, Instant.now()));
+        if (updated == null || updated == 0) {
+            log.warn("Job {} was taken over by another instance before it finished here", job.getId());
+            return;
+        }
+        operation.finished(job);
+    }
+
+    /**
+     * Lets running jobs finish their current chunk, then interrupts whatever is still running after
+     * {@code shutdown-timeout}.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        stopping = true;
+        leaseScanner.shutdownNow();
+        executor.shutdown();
+        if (!executor.awaitTermination(properties.shutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Jobs still running after {} ms, interrupting them", properties.shutdownTimeout().toMillis());
+            executor.shutdownNow();
+        }
+    }
+}
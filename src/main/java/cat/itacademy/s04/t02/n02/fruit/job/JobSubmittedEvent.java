@@ -0,0 +1,6 @@
+package cat.itacademy.s04.t02.n02.fruit.job;
+
+/**
+ * Published when a job is stored; {@link JobRunner} starts it once the storing transaction commits.
+ */
+public record JobSubmittedEvent(long jobId) {}
@@ -0,0 +1,18 @@
+package cat.itacademy.s04.t02.n02.fruit.job;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface JobTask extends AutoCloseable {
+
+    /**
+     * Processes the next chunk in one transaction, recording it through {@link JobProgress#record}.
+     *
+     * @return whether items remain
+     */
+    boolean processNextChunk(JobProgress progress) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
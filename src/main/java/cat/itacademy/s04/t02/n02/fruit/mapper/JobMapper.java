@@ -0,0 +1,15 @@
+package cat.itacademy.s04.t02.n02.fruit.mapper;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.JobResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.model.Job;
+import org.springframework.stereotype.Component;
+
+@Component
+public class JobMapper {
+
+    public JobResponseDTO toResponseDTO(Job entity) {
+        return new JobResponseDTO(entity.getId(), entity.getType(), entity.getStatus(), entity.getTotal(),
+                entity.getProcessed(), entity.getSucceeded(), entity.getFailed(), entity.getLastError(),
+                entity.getCreatedAt(), entity.getStartedAt(), entity.getFinishedAt());
+    }
+}
@@ -26,6 +26,9 @@ public class Fruit {
     @JoinColumn(name = "provider_id", nullable = false)
     private Provider provider;
 
+    @Version
+    private long version;
+
     public Fruit(String name, int weightInKilos, Provider provider) {
         this.name = name;
         this.weightInKilos = weightInKilos;
@@ -0,0 +1,70 @@
+package cat.itacademy.s04.t02.n02.fruit.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A bulk job, its checkpoint and the lease of the instance running it.
+ */
+@Entity
+@Table(name = "jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+public class Job {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private JobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private JobStatus status;
+
+    private Long providerId;
+
+    private String country;
+
+    private Integer percent;
+
+    private String inputFile;
+
+    private Long total;
+
+    private long checkpoint;
+
+    private long processed;
+
+    private long succeeded;
+
+    private long failed;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    @Column(length = 64)
+    private String leaseOwner;
+
+    private Instant leaseExpiresAt;
+
+    public Job(JobType type) {
+        this.type = type;
+        this.status = JobStatus.QUEUED;
+        this.createdAt = Instant.now();
+    }
+}
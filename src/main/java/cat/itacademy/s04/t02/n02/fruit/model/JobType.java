@@ -0,0 +1,8 @@
+package cat.itacademy.s04.t02.n02.fruit.model;
+
+public enum JobType {
+    IMPORT_FRUITS,
+    ADJUST_FRUIT_WEIGHTS,
+    DELETE_FRUITS,
+    DELETE_PROVIDERS
+}
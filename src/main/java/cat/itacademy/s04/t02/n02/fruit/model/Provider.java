@@ -23,6 +23,9 @@ public class Provider {
     @Column(nullable = false)
     private String country;
 
+    @Version
+    private long version;
+
     @OneToMany(mappedBy = "provider", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Fruit> fruits = new ArrayList<>();
 
@@ -0,0 +1,32 @@
+package cat.itacademy.s04.t02.n02.fruit.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Modification counter of a whole table, incremented by every transaction that writes to it.
+ */
+@Entity
+@Table(name = "table_versions")
+@Getter
+@Setter
+@NoArgsConstructor
+public class TableVersion {
+
+    @Id
+    @Column(name = "table_name")
+    private String tableName;
+
+    @Column(nullable = false)
+    private long version;
+
+    public TableVersion(String tableName, long version) {
+        this.tableName = tableName;
+        this.version = version;
+    }
+}
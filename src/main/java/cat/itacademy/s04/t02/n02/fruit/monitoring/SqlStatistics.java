@@ -0,0 +1,42 @@
+package cat.itacademy.s04.t02.n02.fruit.monitoring;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * SQL activity issued while serving a single HTTP request, confined to the request thread.
+ */
+@Getter
+public class SqlStatistics {
+
+    private int statementCount;
+    private long jdbcTimeNanos;
+    private long rowsFetched;
+    private int connectionCount;
+    private long connectionHoldNanos;
+
+    @Setter
+    private String handler;
+
+    void recordStatement(long elapsedNanos) {
+        statementCount++;
+        jdbcTimeNanos += elapsedNanos;
+    }
+
+    void recordRow() {
+        rowsFetched++;
+    }
+
+    void recordConnectionHold(long heldNanos) {
+        connectionCount++;
+        connectionHoldNanos += heldNanos;
+    }
+
+    public double getJdbcTimeMillis() {
+        return jdbcTimeNanos / 1_000_000.0;
+    }
+
+    public double getConnectionHoldMillis() {
+        return connectionHoldNanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,23 @@
+package cat.itacademy.s04.t02.n02.fruit.monitoring;
+
+public final class SqlStatisticsContext {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private SqlStatisticsContext() {
+    }
+
+    public static SqlStatistics begin() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+}
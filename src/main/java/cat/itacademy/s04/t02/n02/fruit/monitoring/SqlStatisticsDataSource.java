@@ -0,0 +1,163 @@
+package cat.itacademy.s04.t02.n02.fruit.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Counts and times the statements of the request thread into its {@link SqlStatistics}, and logs those
+ * slower than the threshold with the controller method that issued them.
+ */
+@Slf4j
+public class SqlStatisticsDataSource extends DelegatingDataSource {
+
+    private final long slowQueryThresholdNanos;
+
+    public SqlStatisticsDataSource(DataSource targetDataSource, Duration slowQueryThreshold) {
+        super(targetDataSource);
+        this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(Connection.class, obtainTargetDataSource().getConnection(), new ConnectionHandler());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(Connection.class, obtainTargetDataSource().getConnection(username, password), new ConnectionHandler());
+    }
+
+    private static <T> T wrap(Class<T> type, T target, TargetHandler handler) {
+        handler.target = target;
+        return type.cast(Proxy.newProxyInstance(SqlStatisticsDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private void afterRelease(long heldNanos) {
+        SqlStatistics statistics = SqlStatisticsContext.current();
+        if (statistics != null) {
+            statistics.recordConnectionHold(heldNanos);
+        }
+    }
+
+    private void afterExecute(String sql, long elapsedNanos) {
+        SqlStatistics statistics = SqlStatisticsContext.current();
+        if (statistics != null) {
+            statistics.recordStatement(elapsedNanos);
+        }
+        if (elapsedNanos >= slowQueryThresholdNanos) {
+            String handler = statistics != null && statistics.getHandler() != null ? statistics.getHandler() : "n/a";
+            log.warn("Slow SQL ({} ms) from {}: {}", elapsedNanos / 1_000_000, handler, sql);
+        }
+    }
+
+    private abstract static class TargetHandler implements InvocationHandler {
+
+        Object target;
+
+        @Override
+        public final Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> handle(method, args);
+            };
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object proceed(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        }
+    }
+
+    private class ConnectionHandler extends TargetHandler {
+
+        private final long acquiredAt = System.nanoTime();
+        private boolean closed;
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            if ("close".equals(method.getName()) && !closed) {
+                closed = true;
+                try {
+                    return proceed(method, args);
+                } finally {
+                    afterRelease(System.nanoTime() - acquiredAt);
+                }
+            }
+            Object result = proceed(method, args);
+            return switch (method.getName()) {
+                case "prepareStatement" ->
+                        wrap(PreparedStatement.class, (PreparedStatement) result, new StatementHandler((String) args[0]));
+                case "prepareCall" ->
+                        wrap(CallableStatement.class, (CallableStatement) result, new StatementHandler((String) args[0]));
+                case "createStatement" -> wrap(Statement.class, (Statement) result, new StatementHandler(null));
+                default -> result;
+            };
+        }
+    }
+
+    private class StatementHandler extends TargetHandler {
+
+        private final String preparedSql;
+
+        StatementHandler(String preparedSql) {
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                Object result = proceed(method, args);
+                return "getResultSet".equals(name) && result != null
+                        ? wrap(ResultSet.class, (ResultSet) result, new ResultSetHandler())
+                        : result;
+            }
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = proceed(method, args);
+            } finally {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+                afterExecute(sql, System.nanoTime() - start);
+            }
+            return result instanceof ResultSet resultSet
+                    ? wrap(ResultSet.class, resultSet, new ResultSetHandler())
+                    : result;
+        }
+    }
+
+    private static class ResultSetHandler extends TargetHandler {
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = proceed(method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                SqlStatistics statistics = SqlStatisticsContext.current();
+                if (statistics != null) {
+                    statistics.recordRow();
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package cat.itacademy.s04.t02.n02.fruit.monitoring;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+
+public class SqlStatisticsDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SqlStatisticsProperties> properties;
+
+    public SqlStatisticsDataSourcePostProcessor(ObjectProvider<SqlStatisticsProperties> properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof SqlStatisticsDataSource)) {
+            return new SqlStatisticsDataSource(dataSource, properties.getObject().slowQueryThreshold());
+        }
+        return bean;
+    }
+}
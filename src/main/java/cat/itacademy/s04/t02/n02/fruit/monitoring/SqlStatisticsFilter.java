@@ -0,0 +1,141 @@
+package cat.itacademy.s04.t02.n02.fruit.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a {@link SqlStatistics} scope for each request and publishes it as headers or meters.
+ */
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENT_COUNT_HEADER = "X-Sql-Statement-Count";
+    public static final String TIME_HEADER = "X-Sql-Time-Ms";
+    public static final String ROWS_HEADER = "X-Sql-Rows-Fetched";
+    public static final String CONNECTION_HOLD_HEADER = "X-Sql-Connection-Hold-Ms";
+
+    private static final String UNKNOWN_HANDLER = "unknown";
+
+    private final SqlStatisticsProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public SqlStatisticsFilter(SqlStatisticsProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatisticsContext.begin();
+        HeaderWritingResponse wrappedResponse = new HeaderWritingResponse(response, statistics);
+        try {
+            filterChain.doFilter(request, wrappedResponse);
+        } finally {
+            if (!response.isCommitted()) {
+                wrappedResponse.writeHeaders();
+            }
+            recordMetrics(statistics);
+            SqlStatisticsContext.end();
+        }
+    }
+
+    private void recordMetrics(SqlStatistics statistics) {
+        if (!properties.metricsEnabled() || meterRegistry == null) {
+            return;
+        }
+        String handler = statistics.getHandler() != null ? statistics.getHandler() : UNKNOWN_HANDLER;
+        DistributionSummary.builder("sql.request.statements")
+                .description("JDBC statements executed per request")
+                .tag("handler", handler)
+                .register(meterRegistry)
+                .record(statistics.getStatementCount());
+        Timer.builder("sql.request.time")
+                .description("Total JDBC execution time per request")
+                .tag("handler", handler)
+                .register(meterRegistry)
+                .record(statistics.getJdbcTimeNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("sql.request.rows")
+                .description("Result set rows fetched per request")
+                .tag("handler", handler)
+                .register(meterRegistry)
+                .record(statistics.getRowsFetched());
+        if (statistics.getConnectionCount() > 0) {
+            Timer.builder("sql.request.connection.hold")
+                    .description("Time a request kept JDBC connections checked out")
+                    .tag("handler", handler)
+                    .register(meterRegistry)
+                    .record(statistics.getConnectionHoldNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private class HeaderWritingResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatistics statistics;
+        private boolean headersWritten;
+
+        HeaderWritingResponse(HttpServletResponse response, SqlStatistics statistics) {
+            super(response);
+            this.statistics = statistics;
+        }
+
+        void writeHeaders() {
+            if (headersWritten || !properties.headerEnabled()) {
+                return;
+            }
+            headersWritten = true;
+            setHeader(STATEMENT_COUNT_HEADER, String.valueOf(statistics.getStatementCount()));
+            setHeader(TIME_HEADER, String.format(Locale.ROOT, "%.3f", statistics.getJdbcTimeMillis()));
+            setHeader(ROWS_HEADER, String.valueOf(statistics.getRowsFetched()));
+            setHeader(CONNECTION_HOLD_HEADER, String.format(Locale.ROOT, "%.3f", statistics.getConnectionHoldMillis()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package cat.itacademy.s04.t02.n02.fruit.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Records which controller method is serving the request, for slow query logs and metrics.
+ */
+public class SqlStatisticsHandlerInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlStatistics statistics = SqlStatisticsContext.current();
+        if (statistics != null && handler instanceof HandlerMethod handlerMethod) {
+            statistics.setHandler(handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName());
+        }
+        return true;
+    }
+}
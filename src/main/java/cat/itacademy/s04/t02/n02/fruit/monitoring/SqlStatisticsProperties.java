@@ -0,0 +1,13 @@
+package cat.itacademy.s04.t02.n02.fruit.monitoring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "fruit.sql-statistics")
+public record SqlStatisticsProperties(
+        @DefaultValue("true") boolean headerEnabled,
+        @DefaultValue("false") boolean metricsEnabled,
+        @DefaultValue("500ms") Duration slowQueryThreshold
+) {}
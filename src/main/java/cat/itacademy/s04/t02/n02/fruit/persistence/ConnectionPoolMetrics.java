@@ -0,0 +1,36 @@
+package cat.itacademy.s04.t02.n02.fruit.persistence;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes {@code db.pool.saturation}: connections in use plus threads waiting for one, over the pool size.
+ */
+public class ConnectionPoolMetrics implements MeterBinder {
+
+    private final HikariDataSource dataSource;
+
+    public ConnectionPoolMetrics(HikariDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("db.pool.saturation", this, ConnectionPoolMetrics::saturation)
+                .description("(active + pending connections) / maximum pool size")
+                .tag("pool", String.valueOf(dataSource.getPoolName()))
+                .register(registry);
+    }
+
+    double saturation() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return 0;
+        }
+        return (double) (pool.getActiveConnections() + pool.getThreadsAwaitingConnection())
+                / dataSource.getMaximumPoolSize();
+    }
+}
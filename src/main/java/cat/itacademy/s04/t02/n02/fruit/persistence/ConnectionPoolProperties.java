@@ -0,0 +1,19 @@
+package cat.itacademy.s04.t02.n02.fruit.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param databaseMaxConnections the server's {@code max_connections}
+ * @param reservedConnections    connections left for administration, migrations and monitoring
+ * @param instances              application instances sharing the database
+ */
+@ConfigurationProperties(prefix = "fruit.connection-pool")
+public record ConnectionPoolProperties(
+        @DefaultValue("true") boolean autoSize,
+        @DefaultValue("2") int connectionsPerCore,
+        @DefaultValue("1") int effectiveSpindles,
+        @DefaultValue("151") int databaseMaxConnections,
+        @DefaultValue("10") int reservedConnections,
+        @DefaultValue("1") int instances
+) {}
@@ -0,0 +1,45 @@
+package cat.itacademy.s04.t02.n02.fruit.persistence;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+
+/**
+ * Applies {@link ConnectionPoolSizing} to the Hikari pool unless its size is configured explicitly.
+ */
+@Slf4j
+public class ConnectionPoolSizer implements BeanPostProcessor {
+
+    static final String MAXIMUM_POOL_SIZE = "spring.datasource.hikari.maximum-pool-size";
+    static final String MINIMUM_IDLE = "spring.datasource.hikari.minimum-idle";
+
+    private final ObjectProvider<ConnectionPoolProperties> properties;
+    private final Environment environment;
+
+    public ConnectionPoolSizer(ObjectProvider<ConnectionPoolProperties> properties, Environment environment) {
+        this.properties = properties;
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (!(bean instanceof HikariDataSource dataSource) || environment.containsProperty(MAXIMUM_POOL_SIZE)) {
+            return bean;
+        }
+        ConnectionPoolProperties pool = properties.getObject();
+        if (!pool.autoSize()) {
+            return bean;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        int size = ConnectionPoolSizing.maximumPoolSize(pool, cores);
+        dataSource.setMaximumPoolSize(size);
+        if (!environment.containsProperty(MINIMUM_IDLE)) {
+            dataSource.setMinimumIdle(size);
+        }
+        log.info("Sized connection pool to {} connections ({} core(s), database limit {} for {} instance(s))",
+                size, cores, pool.databaseMaxConnections(), pool.instances());
+        return bean;
+    }
+}
@@ -0,0 +1,20 @@
+package cat.itacademy.s04.t02.n02.fruit.persistence;
+
+/**
+ * Derives the pool size from the available cores, capped by this instance's share of the database's
+ * {@code max_connections}.
+ */
+public final class ConnectionPoolSizing {
+
+    static final int MIN_POOL_SIZE = 2;
+
+    private ConnectionPoolSizing() {
+    }
+
+    public static int maximumPoolSize(ConnectionPoolProperties properties, int availableProcessors) {
+        int byCores = availableProcessors * properties.connectionsPerCore() + properties.effectiveSpindles();
+        int byDatabase = (properties.databaseMaxConnections() - properties.reservedConnections())
+                / Math.max(1, properties.instances());
+        return Math.max(MIN_POOL_SIZE, Math.min(byCores, byDatabase));
+    }
+}
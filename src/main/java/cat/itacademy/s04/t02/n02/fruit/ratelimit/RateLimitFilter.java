@@ -0,0 +1,111 @@
+package cat.itacademy.s04.t02.n02.fruit.ratelimit;
+
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Workload;
+import cat.itacademy.s04.t02.n02.fruit.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.server.RequestPath;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.io.IOException;
+
+/**
+ * Charges each controller request to its client's bucket for the handler's {@link Workload} and adds the
+ * {@code RateLimit-*} headers. Runs ahead of the response cache and idempotency replay, so their answers count.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String LIMIT_HEADER = "RateLimit-Limit";
+    public static final String REMAINING_HEADER = "RateLimit-Remaining";
+    public static final String RESET_HEADER = "RateLimit-Reset";
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final RateLimiter limiter;
+    private final String clientHeader;
+    private final HandlerMapping handlerMapping;
+    private final HandlerExceptionResolver exceptionResolver;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param handlerMapping resolves the controller method a request will reach
+     */
+    public RateLimitFilter(RateLimiter limiter, String clientHeader, HandlerMapping handlerMapping,
+                           HandlerExceptionResolver exceptionResolver, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.clientHeader = clientHeader;
+        this.handlerMapping = handlerMapping;
+        this.exceptionResolver = exceptionResolver;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        HandlerMethod handler = handlerOf(request);
+        if (handler == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Workload workload = Workload.of(handler, request);
+        RateLimiter.Decision decision = limiter.tryAcquire(clientOf(request), workload);
+
+        response.setHeader(LIMIT_HEADER, String.valueOf(decision.limit()));
+        response.setHeader(REMAINING_HEADER, String.valueOf(decision.remaining()));
+        response.setHeader(RESET_HEADER, String.valueOf(ceilSeconds(decision.resetNanos())));
+        if (!decision.allowed()) {
+            if (meterRegistry != null) {
+                Counter.builder("ratelimit.rejected")
+                        .description("Requests rejected by a client's rate limit")
+                        .tag("workload", workload.name().toLowerCase())
+                        .register(meterRegistry)
+                        .increment();
+            }
+            exceptionResolver.resolveException(request, response, null, new RateLimitExceededException(
+                    "Rate limit of " + decision.limit() + " " + workload.name().toLowerCase()
+                            + " requests exceeded, retry later", decision.retryAfter()));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * @return the controller method, or {@code null} when no controller handles the request and the
+     * dispatcher will answer it with an error of its own
+     */
+    private HandlerMethod handlerOf(HttpServletRequest request) {
+        RequestPath previousPath = ServletRequestPathUtils.hasParsedRequestPath(request)
+                ? ServletRequestPathUtils.getParsedRequestPath(request)
+                : null;
+        ServletRequestPathUtils.parseAndCache(request);
+        try {
+            HandlerExecutionChain chain = handlerMapping.getHandler(request);
+            return chain != null && chain.getHandler() instanceof HandlerMethod handler ? handler : null;
+        } catch (Exception ex) {
+            return null;
+        } finally {
+            ServletRequestPathUtils.setParsedRequestPath(previousPath, request);
+        }
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String key = request.getHeader(clientHeader);
+        if (key != null && !key.isBlank() && key.length() <= MAX_KEY_LENGTH) {
+            return "key:" + key;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static long ceilSeconds(long nanos) {
+        return Math.max(0, (nanos + 999_999_999) / 1_000_000_000);
+    }
+}
@@ -0,0 +1,37 @@
+package cat.itacademy.s04.t02.n02.fruit.ratelimit;
+
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Workload;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param clientHeader request header carrying the API key; clients without one are identified by address
+ * @param maxClients   clients tracked individually; beyond this, new clients share one bucket per workload
+ */
+@ConfigurationProperties(prefix = "fruit.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("X-Api-Key") String clientHeader,
+        @DefaultValue("100000") int maxClients,
+        @DefaultValue Limits read,
+        @DefaultValue Limits mutation,
+        @DefaultValue Limits bulk
+) {
+
+    /**
+     * @param capacity        requests a client may burst before being throttled
+     * @param refillPerSecond sustained requests per second
+     */
+    public record Limits(
+            @DefaultValue("100") int capacity,
+            @DefaultValue("50") double refillPerSecond
+    ) {}
+
+    public Limits limits(Workload workload) {
+        return switch (workload) {
+            case READ -> read;
+            case MUTATION -> mutation;
+            case BULK -> bulk;
+        };
+    }
+}
@@ -0,0 +1,127 @@
+package cat.itacademy.s04.t02.n02.fruit.ratelimit;
+
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Workload;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client token buckets, one per {@link Workload}, each kept as the time at which it will be full again
+ * (the generic cell rate algorithm) and moved forward with a compare-and-set.
+ */
+public class RateLimiter {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int[] capacity = new int[Workload.values().length];
+    private final long[] emissionNanos = new long[Workload.values().length];
+    private final long[] burstNanos = new long[Workload.values().length];
+    private final int maxClients;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, AtomicLongArray> clients = new ConcurrentHashMap<>();
+    private final AtomicLongArray overflow = new AtomicLongArray(Workload.values().length);
+    private final AtomicLong nextSweepNanos = new AtomicLong();
+
+    public RateLimiter(RateLimitProperties properties) {
+        this(properties, nanoClock());
+    }
+
+    RateLimiter(RateLimitProperties properties, LongSupplier clock) {
+        for (Workload workload : Workload.values()) {
+            RateLimitProperties.Limits limits = properties.limits(workload);
+            if (limits.capacity() < 1 || limits.refillPerSecond() <= 0) {
+                throw new IllegalArgumentException("Rate limit for " + workload + " must allow at least one request");
+            }
+            int i = workload.ordinal();
+            capacity[i] = limits.capacity();
+            emissionNanos[i] = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / limits.refillPerSecond()));
+            burstNanos[i] = emissionNanos[i] * limits.capacity();
+        }
+        this.maxClients = properties.maxClients();
+        this.clock = clock;
+    }
+
+    /**
+     * Nanoseconds since this limiter was created, so that an untouched timestamp of zero means a full bucket.
+     */
+    private static LongSupplier nanoClock() {
+        long origin = System.nanoTime();
+        return () -> System.nanoTime() - origin;
+    }
+
+    public Decision tryAcquire(String client, Workload workload) {
+        long now = clock.getAsLong();
+        AtomicLongArray buckets = bucketsOf(client, now);
+        int i = workload.ordinal();
+        long emission = emissionNanos[i];
+        long burst = burstNanos[i];
+        while (true) {
+            long full = buckets.get(i);
+            long next = Math.max(full, now) + emission;
+            long debt = next - now;
+            if (debt > burst) {
+                return new Decision(false, capacity[i], 0, full - now, debt - burst);
+            }
+            if (buckets.compareAndSet(i, full, next)) {
+                return new Decision(true, capacity[i], (int) ((burst - debt) / emission), debt, 0);
+            }
+        }
+    }
+
+    private AtomicLongArray bucketsOf(String client, long now) {
+        AtomicLongArray buckets = clients.get(client);
+        if (buckets != null) {
+            return buckets;
+        }
+        sweepIfDue(now);
+        if (clients.size() >= maxClients) {
+            return overflow;
+        }
+        return clients.computeIfAbsent(client, key -> new AtomicLongArray(capacity.length));
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweepNanos.get();
+        if (now - due >= 0 && nextSweepNanos.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+            clients.values().removeIf(buckets -> isFull(buckets, now));
+        }
+    }
+
+    private static boolean isFull(AtomicLongArray buckets, long now) {
+        for (int i = 0; i < buckets.length(); i++) {
+            if (buckets.get(i) - now > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int trackedClients() {
+        return clients.size();
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ratelimit.clients", this, RateLimiter::trackedClients)
+                .description("Clients with rate limit state")
+                .register(registry);
+    }
+
+    /**
+     * @param limit      bucket capacity
+     * @param remaining  requests the client can still send right away
+     * @param resetNanos time until the bucket is full again
+     * @param retryNanos time until the next request would be admitted; zero when this one was
+     */
+    public record Decision(boolean allowed, int limit, int remaining, long resetNanos, long retryNanos) {
+
+        public Duration retryAfter() {
+            return Duration.ofNanos(retryNanos);
+        }
+    }
+}
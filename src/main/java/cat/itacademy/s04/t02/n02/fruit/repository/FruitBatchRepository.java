@@ -0,0 +1,181 @@
+package cat.itacademy.s04.t02.n02.fruit.repository;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.WeightUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Set-based JDBC access for bulk loads, updates and exports, bypassing the persistence context. Callers of the
+ * writes own the transaction and report the write to {@code CatalogueChangeTracker}.
+ */
+@Repository
+@ConditionalOnDatabase
+@RequiredArgsConstructor
+public class FruitBatchRepository {
+
+    private static final String INSERT_PREFIX = "INSERT INTO fruits (name, weight_in_kilos, provider_id, version) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, 0)";
+    private static final String SELECT_WITH_PROVIDER = "SELECT f.id, f.name, f.weight_in_kilos, p.id, p.name, p.country "
+            + "FROM fruits f JOIN providers p ON p.id = f.provider_id";
+
+    private static final String LOCK_PREFIX = "SELECT id, provider_id, weight_in_kilos FROM fruits WHERE id IN (";
+    private static final String UPDATE_WEIGHT = "UPDATE fruits SET weight_in_kilos = ?, version = version + 1 WHERE id = ?";
+    private static final String INCREMENT_WEIGHT =
+            "UPDATE fruits SET weight_in_kilos = weight_in_kilos + ?, version = version + 1 WHERE id = ?";
+    private static final int UPDATE_CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Integer, String> insertSqlBySize = new ConcurrentHashMap<>();
+    private final Map<Integer, String> lockSqlBySize = new ConcurrentHashMap<>();
+
+    /**
+     * Inserts the fruits with one statement; the providers must exist.
+     */
+    public int insertAll(List<FruitRequestDTO> fruits) {
+        if (fruits.isEmpty()) {
+            return 0;
+        }
+        String sql = insertSqlBySize.computeIfAbsent(fruits.size(), FruitBatchRepository::insertSql);
+        return jdbcTemplate.update(sql, ps -> {
+            int index = 1;
+            for (FruitRequestDTO fruit : fruits) {
+                ps.setString(index++, fruit.name());
+                ps.setInt(index++, fruit.weightInKilos());
+                ps.setLong(index++, fruit.providerId());
+            }
+        });
+    }
+
+    /**
+     * Sets the weights of the given fruits, locking each chunk of rows in id order before writing it in one
+     * JDBC batch. When an id is listed more than once, its last weight wins.
+     */
+    public WeightUpdate updateWeights(List<FruitWeightDTO> weights) {
+        TreeMap<Long, Integer> weightById = new TreeMap<>();
+        for (FruitWeightDTO weight : weights) {
+            weightById.put(weight.id(), weight.weightInKilos());
+        }
+        return writeWeights(weightById, UPDATE_WEIGHT, false);
+    }
+
+    /**
+     * Adds each delta to its fruit's weight in the database, locking rows like {@link #updateWeights}. A fruit
+     * whose sum would not fit the {@code INT} column is left unchanged and reported in {@code overflowIds}.
+     */
+    public WeightUpdate incrementWeights(SortedMap<Long, Long> deltaById) {
+        return writeWeights(deltaById, INCREMENT_WEIGHT, true);
+    }
+
+    private WeightUpdate writeWeights(SortedMap<Long, ? extends Number> valueById, String updateSql, boolean increment) {
+        List<Long> ids = new ArrayList<>(valueById.keySet());
+        Set<Long> providerIds = new HashSet<>();
+        List<Long> missingIds = new ArrayList<>();
+        List<Long> overflowIds = new ArrayList<>();
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += UPDATE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + UPDATE_CHUNK_SIZE));
+            Map<Long, long[]> lockedById = new HashMap<>(chunk.size() * 2);
+            jdbcTemplate.query(lockSqlBySize.computeIfAbsent(chunk.size(), FruitBatchRepository::lockSql),
+                    rs -> {
+                        lockedById.put(rs.getLong(1), new long[]{rs.getLong(2), rs.getInt(3)});
+                    },
+                    chunk.toArray());
+
+            List<Object[]> rows = new ArrayList<>(lockedById.size());
+            for (Long id : chunk) {
+                long[] locked = lockedById.get(id);
+                Number value = valueById.get(id);
+                if (locked == null) {
+                    missingIds.add(id);
+                } else if (increment && locked[1] + value.longValue() > Integer.MAX_VALUE) {
+                    overflowIds.add(id);
+                } else {
+                    providerIds.add(locked[0]);
+                    rows.add(new Object[]{value, id});
+                }
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(updateSql, rows);
+                updated += rows.size();
+            }
+        }
+        return new WeightUpdate(updated, providerIds, missingIds, overflowIds);
+    }
+
+
+    /**
+     * Scans the fruits with their provider in id order through a forward-only, read-only cursor.
+     *
+     * @param providerId only fruits of this provider, or all fruits when {@code null}
+     * @return the number of rows read
+     */
+    public long forEachWithProvider(Long providerId, int fetchSize, RowHandler handler) throws IOException {
+        String sql = SELECT_WITH_PROVIDER + (providerId != null ? " WHERE f.provider_id = ?" : "") + " ORDER BY f.id";
+        long[] rows = new long[1];
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                if (providerId != null) {
+                    ps.setLong(1, providerId);
+                }
+                return ps;
+            }, rs -> {
+                try {
+                    handler.row(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getLong(4), rs.getString(5), rs.getString(6));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        return rows[0];
+    }
+
+    @FunctionalInterface
+    public interface RowHandler {
+
+        void row(long id, String name, int weightInKilos, long providerId, String providerName, String providerCountry)
+                throws IOException;
+    }
+
+    private static String lockSql(int ids) {
+        StringBuilder sql = new StringBuilder(LOCK_PREFIX.length() + ids * 3 + 16).append(LOCK_PREFIX);
+        for (int i = 0; i < ids; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(") FOR UPDATE").toString();
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDERS.length() + 2))
+                .append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,16 @@
+package cat.itacademy.s04.t02.n02.fruit.repository;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitFields;
+import cat.itacademy.s04.t02.n02.fruit.dto.SparseFruitDTO;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Projections of fruits onto a {@link FruitFields} selection, selecting only the requested columns.
+ */
+public interface FruitFieldsRepository {
+    List<SparseFruitDTO> findFields(FruitFields fields);
+    List<SparseFruitDTO> findFieldsByProviderId(Long providerId, FruitFields fields);
+    Optional<SparseFruitDTO> findFieldsById(Long id, FruitFields fields);
+}
@@ -0,0 +1,96 @@
+package cat.itacademy.s04.t02.n02.fruit.repository;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitFields;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.SparseFruitDTO;
+import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+/**
+ * Builds a tuple query per selection, joining the providers table only when the provider is expanded.
+ */
+class FruitFieldsRepositoryImpl implements FruitFieldsRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<SparseFruitDTO> findFields(FruitFields fields) {
+        return query(fields, null);
+    }
+
+    @Override
+    public List<SparseFruitDTO> findFieldsByProviderId(Long providerId, FruitFields fields) {
+        return query(fields, (cb, fruit) -> cb.equal(fruit.get("provider").get("id"), providerId));
+    }
+
+    @Override
+    public Optional<SparseFruitDTO> findFieldsById(Long id, FruitFields fields) {
+        return query(fields, (cb, fruit) -> cb.equal(fruit.get("id"), id)).stream().findFirst();
+    }
+
+    private List<SparseFruitDTO> query(FruitFields fields,
+                                       BiFunction<CriteriaBuilder, Root<Fruit>, Predicate> where) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Fruit> fruit = query.from(Fruit.class);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        if (fields.id()) {
+            selections.add(fruit.get("id").alias("id"));
+        }
+        if (fields.name()) {
+            selections.add(fruit.get("name").alias("name"));
+        }
+        if (fields.weightInKilos()) {
+            selections.add(fruit.get("weightInKilos").alias("weightInKilos"));
+        }
+        if (fields.providerId()) {
+            selections.add(fruit.get("provider").get("id").alias("providerId"));
+        }
+        if (fields.provider()) {
+            Join<Fruit, Provider> provider = fruit.join("provider");
+            selections.add(provider.get("id").alias("provider_id"));
+            selections.add(provider.get("name").alias("provider_name"));
+            selections.add(provider.get("country").alias("provider_country"));
+        }
+
+        query.multiselect(selections);
+        if (where != null) {
+            query.where(where.apply(cb, fruit));
+        }
+        return entityManager.createQuery(query)
+                .getResultStream()
+                .map(tuple -> toSparseFruit(tuple, fields))
+                .toList();
+    }
+
+    private static SparseFruitDTO toSparseFruit(Tuple tuple, FruitFields fields) {
+        return new SparseFruitDTO(
+                fields.id() ? tuple.get("id", Long.class) : null,
+                fields.name() ? tuple.get("name", String.class) : null,
+                fields.weightInKilos() ? tuple.get("weightInKilos", Integer.class) : null,
+                fields.providerId() ? tuple.get("providerId", Long.class) : null,
+                fields.provider()
+                        ? new ProviderResponseDTO(
+                                tuple.get("provider_id", Long.class),
+                                tuple.get("provider_name", String.class),
+                                tuple.get("provider_country", String.class))
+                        : null
+        );
+    }
+}
@@ -1,13 +1,47 @@
 package cat.itacademy.s04.t02.n02.fruit.repository;
 
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitVersion;
 import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.FruitStore;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface FruitRepository extends JpaRepository<Fruit, Long> {
+public interface FruitRepository extends JpaRepository<Fruit, Long>, FruitFieldsRepository, FruitWeightsRepository,
+        FruitStore {
+
+    // Redeclared so calls through this interface are not ambiguous between CrudRepository and FruitStore
+    @Override
+    <S extends Fruit> S save(S fruit);
+
+    @Override
+    Optional<Fruit> findById(Long id);
+
+    @Override
+    void delete(Fruit fruit);
+
     boolean existsByProviderId(Long providerId);
+
+    @Override
+    @EntityGraph(attributePaths = "provider")
+    List<Fruit> findAll();
+
+    @EntityGraph(attributePaths = "provider")
     List<Fruit> findByProviderId(Long providerId);
+
+    @EntityGraph(attributePaths = "provider")
+    Optional<Fruit> findWithProviderById(Long id);
+
+    @EntityGraph(attributePaths = "provider")
+    List<Fruit> findWithProviderByIdInOrderByIdAsc(Collection<Long> ids);
+
+    @Query("select new cat.itacademy.s04.t02.n02.fruit.dto.FruitVersion(f.version, p.version) "
+            + "from Fruit f join f.provider p where f.id = :id")
+    Optional<FruitVersion> findVersionById(Long id);
 }
@@ -0,0 +1,18 @@
+package cat.itacademy.s04.t02.n02.fruit.repository;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.WeightUpdate;
+
+import java.util.List;
+
+/**
+ * Bulk weight updates, written without loading the fruits as entities.
+ */
+public interface FruitWeightsRepository {
+
+    /**
+     * Sets the weights of the listed fruits that exist and increments their versions. When an id is
+     * listed more than once, its last weight wins.
+     */
+    WeightUpdate updateWeights(List<FruitWeightDTO> weights);
+}
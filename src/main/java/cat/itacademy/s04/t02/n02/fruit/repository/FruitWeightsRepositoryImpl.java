@@ -0,0 +1,18 @@
+package cat.itacademy.s04.t02.n02.fruit.repository;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.WeightUpdate;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+class FruitWeightsRepositoryImpl implements FruitWeightsRepository {
+
+    private final FruitBatchRepository fruitBatchRepository;
+
+    @Override
+    public WeightUpdate updateWeights(List<FruitWeightDTO> weights) {
+        return fruitBatchRepository.updateWeights(weights);
+    }
+}
@@ -0,0 +1,62 @@
+package cat.itacademy.s04.t02.n02.fruit.repository;
+
+import cat.itacademy.s04.t02.n02.fruit.model.Job;
+import cat.itacademy.s04.t02.n02.fruit.model.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface JobRepository extends JpaRepository<Job, Long> {
+
+    /**
+     * Jobs in one of {@code statuses} that no instance holds a live lease on.
+     */
+    @Query("select j from Job j where j.status in :statuses "
+            + "and (j.leaseOwner is null or j.leaseExpiresAt < :now) order by j.id")
+    List<Job> findClaimable(Collection<JobStatus> statuses, Instant now);
+
+    /**
+     * Takes the lease of a job in one of {@code claimable} statuses unless another owner holds it until
+     * after {@code now}, and marks it {@code status}.
+     *
+     * @return 1 when claimed, 0 when the job is finished or leased by another instance
+     */
+    @Modifying
+    @Query("update Job j set j.status = :status, j.startedAt = coalesce(j.startedAt, :now), "
+            + "j.leaseOwner = :owner, j.leaseExpiresAt = :leaseExpiresAt where j.id = :id and j.status in :claimable "
+            + "and (j.leaseOwner is null or j.leaseOwner = :owner or j.leaseExpiresAt < :now)")
+    int claim(Long id, JobStatus status, Collection<JobStatus> claimable, String owner, Instant leaseExpiresAt,
+              Instant now);
+
+    @Modifying
+    @Query("update Job j set j.total = coalesce(j.total, :total) where j.id = :id and j.leaseOwner = :owner")
+    int updateTotal(Long id, Long total, String owner);
+
+    /**
+     * Moves the checkpoint forward from {@code expectedCheckpoint} and renews the lease, only while
+     * {@code owner} still holds it.
+     *
+     * @return 0 when the lease was lost or another instance moved the checkpoint
+     */
+    @Modifying
+    @Query("update Job j set j.checkpoint = :checkpoint, j.processed = :processed, j.succeeded = :succeeded, "
+            + "j.failed = :failed, j.lastError = :lastError, j.leaseExpiresAt = :leaseExpiresAt "
+            + "where j.id = :id and j.leaseOwner = :owner and j.checkpoint = :expectedCheckpoint")
+    int updateProgress(Long id, long expectedCheckpoint, long checkpoint, long processed, long succeeded, long failed,
+                       String lastError, String owner, Instant leaseExpiresAt);
+
+    @Modifying
+    @Query("update Job j set j.status = :status, j.finishedAt = :now, "
+            + "j.lastError = coalesce(:lastError, j.lastError) where j.id = :id and j.leaseOwner = :owner")
+    int markFinished(Long id, JobStatus status, String lastError, String owner, Instant now);
+
+    @Modifying
+    @Query("update Job j set j.leaseOwner = null, j.leaseExpiresAt = null where j.id = :id and j.leaseOwner = :owner")
+    int releaseLease(Long id, String owner);
+}
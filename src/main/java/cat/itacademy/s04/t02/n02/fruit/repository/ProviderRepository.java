@@ -1,10 +1,43 @@
 package cat.itacademy.s04.t02.n02.fruit.repository;
 
 import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ProviderStore;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
 @Repository
-public interface ProviderRepository extends JpaRepository<Provider, Long> {
+public interface ProviderRepository extends JpaRepository<Provider, Long>, ProviderStore {
+
+    // Redeclared so calls through this interface are not ambiguous between CrudRepository and ProviderStore
+    @Override
+    <S extends Provider> S save(S provider);
+
+    @Override
+    Optional<Provider> findById(Long id);
+
+    @Override
+    boolean existsById(Long id);
+
+    @Override
+    List<Provider> findAll();
+
+    @Override
+    void delete(Provider provider);
+
     boolean existsByName(String name);
+
+    @Query("select p.version from Provider p where p.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    @Query("select p.id from Provider p where p.name = :name")
+    Optional<Long> findIdByName(String name);
+
+    @Query("select p.id from Provider p where p.id in :ids")
+    Set<Long> findExistingIds(Collection<Long> ids);
 }
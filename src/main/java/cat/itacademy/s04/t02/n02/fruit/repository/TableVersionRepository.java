@@ -0,0 +1,30 @@
+package cat.itacademy.s04.t02.n02.fruit.repository;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import cat.itacademy.s04.t02.n02.fruit.model.TableVersion;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.TableVersionStore;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TableVersionRepository extends JpaRepository<TableVersion, String>, TableVersionStore {
+
+    // Redeclared so calls through this interface are not ambiguous between CrudRepository and TableVersionStore
+    @Override
+    boolean existsById(String tableName);
+
+    @Override
+    <S extends TableVersion> S save(S tableVersion);
+
+    @Modifying
+    @Query("update TableVersion t set t.version = t.version + 1 where t.tableName = :tableName")
+    int increment(String tableName);
+
+    @Query("select new cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion("
+            + "coalesce(sum(case when t.tableName = 'fruits' then t.version else 0 end), 0), "
+            + "coalesce(sum(case when t.tableName = 'providers' then t.version else 0 end), 0)) "
+            + "from TableVersion t")
+    CatalogueVersion findCatalogueVersion();
+}
@@ -0,0 +1,18 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage;
+
+/**
+ * The stores of the configured {@link StorageEngine}, chosen when the application starts.
+ *
+ * @param engine the embedded or snapshot store that backs them, closed with them; null for the
+ *               {@code jpa} engine, whose repositories Spring Data closes
+ */
+public record CatalogueStores(ProviderStore providerStore, FruitStore fruitStore,
+                              TableVersionStore tableVersionStore, AutoCloseable engine) implements AutoCloseable {
+
+    @Override
+    public void close() throws Exception {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+}
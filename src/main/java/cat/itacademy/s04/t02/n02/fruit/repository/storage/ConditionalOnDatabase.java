@@ -0,0 +1,25 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage;
+
+import org.springframework.context.annotation.Conditional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers the bean only when the configured {@link StorageEngine} {@link StorageEngine#usesDatabase uses
+ * the database}. Ahead-of-time builds evaluate it at build time.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Conditional(OnDatabaseCondition.class)
+public @interface ConditionalOnDatabase {
+
+    /**
+     * @return false to register the bean only when the engine runs without a database instead
+     */
+    boolean value() default true;
+}
@@ -0,0 +1,26 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitVersion;
+import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitFieldsRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitWeightsRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Fruit operations the catalogue services need from a storage engine, with the signatures and exceptions
+ * of the Spring Data methods.
+ */
+public interface FruitStore extends FruitFieldsRepository, FruitWeightsRepository {
+    <S extends Fruit> S save(S fruit);
+    Optional<Fruit> findById(Long id);
+    Optional<Fruit> findWithProviderById(Long id);
+    List<Fruit> findAll();
+    List<Fruit> findByProviderId(Long providerId);
+    List<Fruit> findWithProviderByIdInOrderByIdAsc(Collection<Long> ids);
+    boolean existsByProviderId(Long providerId);
+    Optional<FruitVersion> findVersionById(Long id);
+    void delete(Fruit fruit);
+}
@@ -0,0 +1,14 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+class OnDatabaseCondition implements Condition {
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        boolean wanted = (boolean) metadata.getAnnotationAttributes(ConditionalOnDatabase.class.getName()).get("value");
+        return StorageEngine.of(context.getEnvironment()).usesDatabase() == wanted;
+    }
+}
@@ -0,0 +1,20 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage;
+
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Provider operations the catalogue services need from a storage engine. Deleting a provider also
+ * deletes its fruits.
+ */
+public interface ProviderStore {
+    <S extends Provider> S save(S provider);
+    Optional<Provider> findById(Long id);
+    boolean existsById(Long id);
+    boolean existsByName(String name);
+    List<Provider> findAll();
+    Optional<Long> findVersionById(Long id);
+    void delete(Provider provider);
+}
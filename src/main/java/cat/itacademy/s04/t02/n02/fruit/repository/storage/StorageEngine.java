@@ -0,0 +1,27 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage;
+
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+public enum StorageEngine {
+    /** The Spring Data repositories on the configured data source. */
+    JPA,
+    /** {@code EmbeddedCatalogueStore}: in-process maps persisted to a local log and snapshot. */
+    EMBEDDED,
+    /** {@code SnapshotCatalogueStore}: read-only, from a memory-mapped snapshot of the database. */
+    SNAPSHOT;
+
+    /**
+     * The engine configured in {@code environment}, for code that runs before {@link StorageProperties} is bound.
+     */
+    public static StorageEngine of(Environment environment) {
+        return Binder.get(environment).bind("fruit.storage.engine", StorageEngine.class).orElse(JPA);
+    }
+
+    /**
+     * @return false for the embedded engine, which runs without a data source
+     */
+    public boolean usesDatabase() {
+        return this != EMBEDDED;
+    }
+}
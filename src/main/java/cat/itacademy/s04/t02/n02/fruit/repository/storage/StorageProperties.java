@@ -0,0 +1,25 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * @param engine          where providers, fruits and the table versions are kept
+ * @param directory       embedded and snapshot engines: directory of the log and snapshot files
+ * @param snapshotEvery   embedded engine only: log records between snapshots
+ * @param syncWrites      embedded engine only: whether each write is forced to disk before it returns
+ * @param publish         snapshot engine only: whether this instance writes the snapshot or only maps it
+ * @param refreshInterval snapshot engine only: how often a new snapshot is published, or looked for
+ */
+@ConfigurationProperties(prefix = "fruit.storage")
+public record StorageProperties(
+        @DefaultValue("jpa") StorageEngine engine,
+        @DefaultValue("data/catalogue") Path directory,
+        @DefaultValue("100000") int snapshotEvery,
+        @DefaultValue("false") boolean syncWrites,
+        @DefaultValue("true") boolean publish,
+        @DefaultValue("30s") Duration refreshInterval
+) {}
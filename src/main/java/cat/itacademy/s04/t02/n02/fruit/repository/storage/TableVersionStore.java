@@ -0,0 +1,19 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import cat.itacademy.s04.t02.n02.fruit.model.TableVersion;
+
+/**
+ * The per-table modification counters kept by {@code CatalogueChangeTracker}.
+ */
+public interface TableVersionStore {
+    boolean existsById(String tableName);
+    <S extends TableVersion> S save(S tableVersion);
+
+    /**
+     * @return the number of counters incremented, 0 when the table has none yet
+     */
+    int increment(String tableName);
+
+    CatalogueVersion findCatalogueVersion();
+}
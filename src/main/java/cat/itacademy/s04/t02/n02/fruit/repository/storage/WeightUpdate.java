@@ -0,0 +1,12 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @param providerIds providers of the updated fruits
+ * @param missingIds  requested ids with no fruit, in ascending order
+ * @param overflowIds fruits left unchanged because the increment would overflow their weight, in ascending order
+ */
+public record WeightUpdate(int updated, Set<Long> providerIds, List<Long> missingIds, List<Long> overflowIds) {
+}
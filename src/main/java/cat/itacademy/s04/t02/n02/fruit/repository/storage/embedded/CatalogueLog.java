@@ -0,0 +1,385 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage.embedded;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * The files of the embedded engine: a snapshot of the whole catalogue and an append-only log of the
+ * changes since. Every change is a complete row or a deletion, so replaying one twice changes nothing.
+ * Not thread-safe.
+ */
+@Slf4j
+final class CatalogueLog implements Closeable {
+
+    static final String SNAPSHOT_FILE = "catalogue.snapshot";
+    static final String LOG_FILE = "catalogue.log";
+    static final String ROTATED_LOG_FILE = "catalogue.log.1";
+
+    private static final int SNAPSHOT_MAGIC = 0x46525354;
+    private static final int SNAPSHOT_FORMAT = 1;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private static final byte END = 0;
+    private static final byte PROVIDER = 1;
+    private static final byte PROVIDER_DELETED = 2;
+    private static final byte FRUIT = 3;
+    private static final byte FRUIT_DELETED = 4;
+    private static final byte TABLE_VERSION = 5;
+    private static final byte SEQUENCES = 6;
+
+    /** Receives the changes read back from the files, and encodes them when writing. */
+    interface Handler {
+        void provider(ProviderRow row);
+        void providerDeleted(long id);
+        void fruit(FruitRow row);
+        void fruitDeleted(long id);
+        void tableVersion(String tableName, long version);
+        void sequences(long nextProviderId, long nextFruitId);
+    }
+
+    private final Path directory;
+    private final boolean syncWrites;
+    private FileChannel channel;
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+    private final Handler encoder = new Encoder(new DataOutputStream(payload));
+    private final CRC32 crc = new CRC32();
+    private int recordsSinceSnapshot;
+
+    private CatalogueLog(Path directory, boolean syncWrites, FileChannel channel, int recordsSinceSnapshot) {
+        this.directory = directory;
+        this.syncWrites = syncWrites;
+        this.channel = channel;
+        this.recordsSinceSnapshot = recordsSinceSnapshot;
+    }
+
+    /**
+     * Reads the snapshot, the log a snapshot left unfinished moved aside, if any, and then the log into
+     * {@code handler}, and opens the log for appending.
+     */
+    static CatalogueLog open(Path directory, boolean syncWrites, Handler handler) throws IOException {
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            readSnapshot(snapshot, handler);
+        }
+        int records = 0;
+        Path rotatedFile = directory.resolve(ROTATED_LOG_FILE);
+        if (Files.exists(rotatedFile)) {
+            try (FileChannel rotated = FileChannel.open(rotatedFile, READ, WRITE)) {
+                records += replay(rotatedFile, rotated, handler);
+            }
+        }
+        Path logFile = directory.resolve(LOG_FILE);
+        FileChannel channel = FileChannel.open(logFile, CREATE, READ, WRITE);
+        try {
+            records += replay(logFile, channel, handler);
+            return new CatalogueLog(directory, syncWrites, channel, records);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    int recordsSinceSnapshot() {
+        return recordsSinceSnapshot;
+    }
+
+    void appendProvider(ProviderRow row) throws IOException {
+        append(() -> encoder.provider(row));
+    }
+
+    void appendProviderDeleted(long id) throws IOException {
+        append(() -> encoder.providerDeleted(id));
+    }
+
+    void appendFruit(FruitRow row) throws IOException {
+        append(() -> encoder.fruit(row));
+    }
+
+    void appendFruitDeleted(long id) throws IOException {
+        append(() -> encoder.fruitDeleted(id));
+    }
+
+    void appendTableVersion(String tableName, long version) throws IOException {
+        append(() -> encoder.tableVersion(tableName, version));
+    }
+
+    /**
+     * Moves the log aside and starts an empty one, so {@link #writeSnapshot} can run while changes are appended.
+     *
+     * @return false when the log moved aside by the previous rotation is still there
+     */
+    boolean rotate() throws IOException {
+        Path logFile = directory.resolve(LOG_FILE);
+        Path rotatedFile = directory.resolve(ROTATED_LOG_FILE);
+        if (Files.exists(rotatedFile)) {
+            return false;
+        }
+        Files.move(logFile, rotatedFile, ATOMIC_MOVE);
+        FileChannel next;
+        try {
+            next = FileChannel.open(logFile, CREATE, READ, WRITE);
+        } catch (IOException ex) {
+            // Appends must keep going to the file named catalogue.log
+            Files.move(rotatedFile, logFile, ATOMIC_MOVE);
+            throw ex;
+        }
+        channel.close();
+        channel = next;
+        syncDirectory();
+        recordsSinceSnapshot = 0;
+        return true;
+    }
+
+    /**
+     * Replaces the snapshot with what {@code contents} writes to the handler it is given, then empties the log.
+     */
+    void snapshot(Consumer<Handler> contents) throws IOException {
+        writeSnapshot(contents);
+        channel.truncate(0);
+        channel.force(true);
+        recordsSinceSnapshot = 0;
+    }
+
+    /**
+     * Replaces the snapshot with what {@code contents} writes to the handler it is given, then deletes the
+     * log moved aside by {@link #rotate}.
+     */
+    void writeSnapshot(Consumer<Handler> contents) throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel file = FileChannel.open(temporary, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(file), 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_FORMAT);
+            try {
+                contents.accept(new Encoder(out));
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            out.writeByte(END);
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            file.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE), ATOMIC_MOVE, REPLACE_EXISTING);
+        syncDirectory();
+        // Replaying it again after a crash is harmless, so its deletion need not be synced
+        Files.deleteIfExists(directory.resolve(ROTATED_LOG_FILE));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void append(Runnable encode) throws IOException {
+        payload.reset();
+        try {
+            encode.run();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        byte[] record = payload.toByteArray();
+        crc.reset();
+        crc.update(record);
+        ByteBuffer frame = ByteBuffer.allocate(8 + record.length)
+                .putInt(record.length)
+                .putInt((int) crc.getValue())
+                .put(record)
+                .flip();
+        long start = channel.size();
+        try {
+            long position = start;
+            while (frame.hasRemaining()) {
+                position += channel.write(frame, position);
+            }
+            if (syncWrites) {
+                channel.force(false);
+            }
+        } catch (IOException ex) {
+            // Cut a partial frame off, or the records appended after it would be dropped on the next open
+            channel.truncate(start);
+            throw ex;
+        }
+        recordsSinceSnapshot++;
+    }
+
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, READ)) {
+            dir.force(true);
+        } catch (IOException ex) {
+            // Not every platform can open a directory; the rename is still atomic, only its durability is weaker
+            log.debug("Could not sync {}: {}", directory, ex.getMessage());
+        }
+    }
+
+    private static void readSnapshot(Path snapshot, Handler handler) throws IOException {
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16), new CRC32())) {
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_FORMAT) {
+                throw new IOException(snapshot + " is not a catalogue snapshot");
+            }
+            while (decode(in, handler)) {
+                // each call applies one record
+            }
+            long computed = checked.getChecksum().getValue();
+            if (in.readLong() != computed) {
+                throw new IOException(snapshot + " is corrupt: checksum mismatch");
+            }
+        }
+    }
+
+    private static int replay(Path logFile, FileChannel channel, Handler handler) throws IOException {
+        long size = channel.size();
+        long valid = 0;
+        int records = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        CRC32 crc = new CRC32();
+        while (valid + 8 <= size) {
+            int length = in.readInt();
+            int expected = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES || valid + 8 + length > size) {
+                break;
+            }
+            byte[] record = new byte[length];
+            in.readFully(record);
+            crc.reset();
+            crc.update(record);
+            if ((int) crc.getValue() != expected) {
+                break;
+            }
+            decode(new DataInputStream(new ByteArrayInputStream(record)), handler);
+            valid += 8 + length;
+            records++;
+        }
+        if (valid < size) {
+            log.warn("Dropping {} bytes of incomplete or corrupt records at the end of {}", size - valid, logFile);
+            channel.truncate(valid);
+            channel.force(true);
+        }
+        return records;
+    }
+
+    /**
+     * @return false at the end marker of a snapshot
+     */
+    private static boolean decode(DataInput in, Handler handler) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case END -> {
+                return false;
+            }
+            case PROVIDER -> handler.provider(new ProviderRow(in.readLong(), in.readUTF(), in.readUTF(), in.readLong()));
+            case PROVIDER_DELETED -> handler.providerDeleted(in.readLong());
+            case FRUIT -> handler.fruit(new FruitRow(in.readLong(), in.readUTF(), in.readInt(), in.readLong(), in.readLong()));
+            case FRUIT_DELETED -> handler.fruitDeleted(in.readLong());
+            case TABLE_VERSION -> handler.tableVersion(in.readUTF(), in.readLong());
+            case SEQUENCES -> handler.sequences(in.readLong(), in.readLong());
+            default -> throw new IOException("Unknown catalogue record type " + type);
+        }
+        return true;
+    }
+
+    private record Encoder(DataOutput out) implements Handler {
+
+        @Override
+        public void provider(ProviderRow row) {
+            write(() -> {
+                out.writeByte(PROVIDER);
+                out.writeLong(row.id());
+                out.writeUTF(row.name());
+                out.writeUTF(row.country());
+                out.writeLong(row.version());
+            });
+        }
+
+        @Override
+        public void providerDeleted(long id) {
+            write(() -> {
+                out.writeByte(PROVIDER_DELETED);
+                out.writeLong(id);
+            });
+        }
+
+        @Override
+        public void fruit(FruitRow row) {
+            write(() -> {
+                out.writeByte(FRUIT);
+                out.writeLong(row.id());
+                out.writeUTF(row.name());
+                out.writeInt(row.weightInKilos());
+                out.writeLong(row.providerId());
+                out.writeLong(row.version());
+            });
+        }
+
+        @Override
+        public void fruitDeleted(long id) {
+            write(() -> {
+                out.writeByte(FRUIT_DELETED);
+                out.writeLong(id);
+            });
+        }
+
+        @Override
+        public void tableVersion(String tableName, long version) {
+            write(() -> {
+                out.writeByte(TABLE_VERSION);
+                out.writeUTF(tableName);
+                out.writeLong(version);
+            });
+        }
+
+        @Override
+        public void sequences(long nextProviderId, long nextFruitId) {
+            write(() -> {
+                out.writeByte(SEQUENCES);
+                out.writeLong(nextProviderId);
+                out.writeLong(nextFruitId);
+            });
+        }
+
+        private static void write(IoAction action) {
+            try {
+                action.run();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+}
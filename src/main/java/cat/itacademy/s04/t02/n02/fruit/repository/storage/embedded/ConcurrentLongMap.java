@@ -0,0 +1,267 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage.embedded;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Map from positive {@code long} keys to values, without boxing the keys. Reads are optimistic and
+ * writes lock one segment.
+ */
+final class ConcurrentLongMap<V> {
+
+    private static final int SEGMENTS = 64;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    @SuppressWarnings("unchecked")
+    private final Segment<V>[] segments = new Segment[SEGMENTS];
+
+    ConcurrentLongMap() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    V get(long key) {
+        checkKey(key);
+        long hash = mix(key);
+        return segments[segmentIndex(hash)].get(key, hash);
+    }
+
+    V put(long key, V value) {
+        checkKey(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Values cannot be null");
+        }
+        long hash = mix(key);
+        return segments[segmentIndex(hash)].put(key, hash, value);
+    }
+
+    V remove(long key) {
+        checkKey(key);
+        long hash = mix(key);
+        return segments[segmentIndex(hash)].remove(key, hash);
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Visits every value. Each segment is copied under its read lock and visited afterwards, so the
+     * action may write to the map; values written during the visit may or may not be seen.
+     */
+    void forEachValue(Consumer<? super V> action) {
+        for (Segment<V> segment : segments) {
+            segment.values().forEach(action);
+        }
+    }
+
+    void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private static void checkKey(long key) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Keys must be positive: " + key);
+        }
+    }
+
+    /** Murmur3 finalizer; ids are sequential, so their low bits alone would cluster. */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static int segmentIndex(long hash) {
+        return (int) (hash >>> 58);
+    }
+
+    /** The arrays of one table; replaced, never resized, so a reader always sees a matching pair. */
+    private record Table(long[] keys, Object[] values) {
+
+        Table(int capacity) {
+            this(new long[capacity], new Object[capacity]);
+        }
+
+        int mask() {
+            return keys.length - 1;
+        }
+    }
+
+    private static final class Segment<V> {
+
+        private final StampedLock lock = new StampedLock();
+        private Table table = new Table(INITIAL_SEGMENT_CAPACITY);
+        private int size;
+
+        V get(long key, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                V value = find(table, key, hash);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return find(table, key, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /** Probes at most once around the table, so a torn optimistic read cannot loop forever. */
+        @SuppressWarnings("unchecked")
+        private static <V> V find(Table table, long key, long hash) {
+            long[] keys = table.keys();
+            int mask = table.mask();
+            int index = (int) hash & mask;
+            for (int probes = 0; probes < keys.length; probes++) {
+                long candidate = keys[index];
+                if (candidate == key) {
+                    return (V) table.values()[index];
+                }
+                if (candidate == 0) {
+                    return null;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        V put(long key, long hash, V value) {
+            long stamp = lock.writeLock();
+            try {
+                if ((size + 1) * 4 > table.keys().length * 3) {
+                    table = rehash(table, table.keys().length * 2);
+                }
+                long[] keys = table.keys();
+                int mask = table.mask();
+                int index = (int) hash & mask;
+                while (keys[index] != 0) {
+                    if (keys[index] == key) {
+                        Object previous = table.values()[index];
+                        table.values()[index] = value;
+                        return (V) previous;
+                    }
+                    index = (index + 1) & mask;
+                }
+                table.values()[index] = value;
+                keys[index] = key;
+                size++;
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V remove(long key, long hash) {
+            long stamp = lock.writeLock();
+            try {
+                long[] keys = table.keys();
+                Object[] values = table.values();
+                int mask = table.mask();
+                int hole = (int) hash & mask;
+                while (keys[hole] != key) {
+                    if (keys[hole] == 0) {
+                        return null;
+                    }
+                    hole = (hole + 1) & mask;
+                }
+                V removed = (V) values[hole];
+
+                // Shift back every following entry of the run that may no longer be reachable past the hole
+                int next = hole;
+                while (true) {
+                    next = (next + 1) & mask;
+                    long candidate = keys[next];
+                    if (candidate == 0) {
+                        break;
+                    }
+                    int home = (int) mix(candidate) & mask;
+                    boolean reachable = hole <= next
+                            ? hole < home && home <= next
+                            : hole < home || home <= next;
+                    if (!reachable) {
+                        keys[hole] = candidate;
+                        values[hole] = values[next];
+                        hole = next;
+                    }
+                }
+                keys[hole] = 0;
+                values[hole] = null;
+                size--;
+                return removed;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<V> values() {
+            long stamp = lock.readLock();
+            try {
+                List<V> values = new ArrayList<>(size);
+                Object[] slots = table.values();
+                for (Object value : slots) {
+                    if (value != null) {
+                        values.add((V) value);
+                    }
+                }
+                return values;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                table = new Table(INITIAL_SEGMENT_CAPACITY);
+                size = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private static Table rehash(Table table, int capacity) {
+            Table resized = new Table(capacity);
+            long[] keys = table.keys();
+            int mask = resized.mask();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    int index = (int) mix(keys[i]) & mask;
+                    while (resized.keys()[index] != 0) {
+                        index = (index + 1) & mask;
+                    }
+                    resized.keys()[index] = keys[i];
+                    resized.values()[index] = table.values()[i];
+                }
+            }
+            return resized;
+        }
+    }
+}
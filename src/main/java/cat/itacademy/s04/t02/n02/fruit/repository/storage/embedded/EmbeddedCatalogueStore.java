@@ -0,0 +1,618 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage.embedded;
+
+import cat.itacademy.s04.t02.n02.fruit.collection.IdList;
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitFields;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.SparseFruitDTO;
+import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import cat.itacademy.s04.t02.n02.fruit.model.TableVersion;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.FruitStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ProviderStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.TableVersionStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.WeightUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Storage engine that keeps the whole catalogue in process memory and persists it to a local
+ * {@link CatalogueLog}. Writes are logged before they are applied, but there are no transactions: a
+ * service transaction that fails after writing here does not undo the write.
+ */
+@Slf4j
+public class EmbeddedCatalogueStore implements AutoCloseable {
+
+    private static final Comparator<FruitRow> BY_FRUIT_ID = Comparator.comparingLong(FruitRow::id);
+
+    private final ConcurrentLongMap<ProviderRow> providers = new ConcurrentLongMap<>();
+    private final ConcurrentLongMap<FruitRow> fruits = new ConcurrentLongMap<>();
+    private final Map<String, Long> providerIdsByName = new ConcurrentHashMap<>();
+    private final ConcurrentLongMap<IdList> fruitIdsByProvider = new ConcurrentLongMap<>();
+    private final Map<String, Long> tableVersions = new ConcurrentHashMap<>();
+
+    private final ProviderStore providerStore = new Providers();
+    private final FruitStore fruitStore = new Fruits();
+    private final TableVersionStore tableVersionStore = new TableVersions();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final int snapshotEvery;
+    private final CatalogueLog catalogueLog;
+    private final ExecutorService snapshotter = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("catalogue-snapshot").daemon().factory());
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    private long nextProviderId = 1;
+    private long nextFruitId = 1;
+    private boolean closed;
+
+    /**
+     * Loads the catalogue from the snapshot and log in {@code directory}, creating them when missing.
+     */
+    public EmbeddedCatalogueStore(Path directory, int snapshotEvery, boolean syncWrites) throws IOException {
+        this.snapshotEvery = snapshotEvery;
+        long start = System.nanoTime();
+        this.catalogueLog = CatalogueLog.open(directory, syncWrites, new Loader());
+        log.info("Loaded {} providers and {} fruits from {} in {} ms", providers.size(), fruits.size(), directory,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public ProviderStore providerStore() {
+        return providerStore;
+    }
+
+    public FruitStore fruitStore() {
+        return fruitStore;
+    }
+
+    public TableVersionStore tableVersionStore() {
+        return tableVersionStore;
+    }
+
+    /** Snapshots the catalogue, so the next start does not replay the log, and closes the files. */
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (!closed) {
+                closed = true;
+                snapshotter.close();
+                try {
+                    catalogueLog.snapshot(contents(nextProviderId, nextFruitId));
+                } finally {
+                    catalogueLog.close();
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void awaitSnapshot() throws InterruptedException, ExecutionException {
+        snapshotter.submit(() -> { }).get();
+    }
+
+    // Reads
+
+    private List<FruitRow> allFruits() {
+        List<FruitRow> rows = new ArrayList<>(fruits.size());
+        fruits.forEachValue(rows::add);
+        rows.sort(BY_FRUIT_ID);
+        return rows;
+    }
+
+    private List<FruitRow> fruitsOf(Long providerId) {
+        IdList ids = fruitIdsByProvider.get(providerId);
+        if (ids == null) {
+            return List.of();
+        }
+        IdList.View view = ids.view();
+        List<FruitRow> rows = new ArrayList<>(view.size());
+        for (int i = 0; i < view.size(); i++) {
+            FruitRow row = fruits.get(view.get(i));
+            // Skip a fruit that moved to another provider after the view was taken
+            if (row != null && row.providerId() == providerId) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private List<Fruit> toFruits(List<FruitRow> rows) {
+        Map<Long, Provider> providerCache = new HashMap<>();
+        List<Fruit> result = new ArrayList<>(rows.size());
+        for (FruitRow row : rows) {
+            Fruit fruit = toFruit(row, providerCache);
+            if (fruit != null) {
+                result.add(fruit);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return null when the provider was deleted since the row was read
+     */
+    private Fruit toFruit(FruitRow row, Map<Long, Provider> providerCache) {
+        Provider provider = providerCache.computeIfAbsent(row.providerId(), id -> {
+            ProviderRow providerRow = providers.get(id);
+            return providerRow != null ? toProvider(providerRow) : null;
+        });
+        if (provider == null) {
+            return null;
+        }
+        Fruit fruit = new Fruit(row.id(), row.name(), row.weightInKilos(), provider);
+        fruit.setVersion(row.version());
+        return fruit;
+    }
+
+    private SparseFruitDTO toSparseFruit(FruitRow row, FruitFields fields) {
+        ProviderResponseDTO provider = null;
+        if (fields.provider()) {
+            ProviderRow providerRow = providers.get(row.providerId());
+            if (providerRow == null) {
+                return null;
+            }
+            provider = new ProviderResponseDTO(providerRow.id(), providerRow.name(), providerRow.country());
+        }
+        return new SparseFruitDTO(
+                fields.id() ? row.id() : null,
+                fields.name() ? row.name() : null,
+                fields.weightInKilos() ? row.weightInKilos() : null,
+                fields.providerId() ? row.providerId() : null,
+                provider
+        );
+    }
+
+    private static Provider toProvider(ProviderRow row) {
+        Provider provider = new Provider(row.id(), row.name(), row.country());
+        provider.setVersion(row.version());
+        return provider;
+    }
+
+    // Writes, called with the write lock held
+
+    private void checkOpen() {
+        if (closed) {
+            throw new DataAccessResourceFailureException("The embedded catalogue store is closed");
+        }
+    }
+
+    /**
+     * @return the stored row the entity was read from, or null for a new entity
+     */
+    private static <R> R current(ConcurrentLongMap<R> rows, ToLongFunction<R> versionOf, Class<?> type,
+                                 Long id, long version) {
+        if (id == null) {
+            return null;
+        }
+        R row = rows.get(id);
+        if (row == null || versionOf.applyAsLong(row) != version) {
+            throw new ObjectOptimisticLockingFailureException(type, id);
+        }
+        return row;
+    }
+
+    private void write(LogAction action) {
+        try {
+            action.run();
+        } catch (IOException ex) {
+            throw new DataAccessResourceFailureException("Could not write the catalogue log", ex);
+        }
+    }
+
+    /** Rotates the log and leaves the snapshot to the background thread. */
+    private void snapshotIfDue() {
+        if (catalogueLog.recordsSinceSnapshot() < snapshotEvery || !snapshotting.compareAndSet(false, true)) {
+            return;
+        }
+        long providerSequence = nextProviderId;
+        long fruitSequence = nextFruitId;
+        try {
+            catalogueLog.rotate();
+            snapshotter.execute(() -> snapshotInBackground(providerSequence, fruitSequence));
+        } catch (IOException | RejectedExecutionException ex) {
+            snapshotting.set(false);
+            log.warn("Could not start a catalogue snapshot; the log grows until the next attempt", ex);
+        }
+    }
+
+    private void snapshotInBackground(long providerSequence, long fruitSequence) {
+        long start = System.nanoTime();
+        try {
+            catalogueLog.writeSnapshot(contents(providerSequence, fruitSequence));
+            log.debug("Snapshotted {} providers and {} fruits in {} ms", providers.size(), fruits.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Writing the catalogue snapshot failed; it is retried after {} more writes", snapshotEvery, ex);
+        } finally {
+            snapshotting.set(false);
+        }
+    }
+
+    private Consumer<CatalogueLog.Handler> contents(long providerSequence, long fruitSequence) {
+        return out -> {
+            providers.forEachValue(out::provider);
+            fruits.forEachValue(out::fruit);
+            tableVersions.forEach(out::tableVersion);
+            out.sequences(providerSequence, fruitSequence);
+        };
+    }
+
+    private void applyProvider(ProviderRow row) {
+        ProviderRow previous = providers.put(row.id(), row);
+        if (previous != null && !previous.name().equals(row.name())) {
+            providerIdsByName.remove(previous.name(), row.id());
+        }
+        providerIdsByName.put(row.name(), row.id());
+        nextProviderId = Math.max(nextProviderId, row.id() + 1);
+    }
+
+    /** Deletes the provider's fruits too, as the cascade of the JPA mapping does. */
+    private void applyProviderDeleted(long id) {
+        ProviderRow removed = providers.remove(id);
+        if (removed != null) {
+            providerIdsByName.remove(removed.name(), id);
+        }
+        IdList ids = fruitIdsByProvider.remove(id);
+        if (ids != null) {
+            IdList.View view = ids.view();
+            for (int i = 0; i < view.size(); i++) {
+                fruits.remove(view.get(i));
+            }
+        }
+    }
+
+    private void applyFruit(FruitRow row) {
+        FruitRow previous = fruits.put(row.id(), row);
+        if (previous != null && previous.providerId() != row.providerId()) {
+            IdList ids = fruitIdsByProvider.get(previous.providerId());
+            if (ids != null) {
+                ids.remove(row.id());
+            }
+        }
+        IdList ids = fruitIdsByProvider.get(row.providerId());
+        if (ids == null) {
+            ids = new IdList();
+            fruitIdsByProvider.put(row.providerId(), ids);
+        }
+        ids.add(row.id());
+        nextFruitId = Math.max(nextFruitId, row.id() + 1);
+    }
+
+    private void applyFruitDeleted(long id) {
+        FruitRow removed = fruits.remove(id);
+        if (removed != null) {
+            IdList ids = fruitIdsByProvider.get(removed.providerId());
+            if (ids != null) {
+                ids.remove(id);
+            }
+        }
+    }
+
+    private class Providers implements ProviderStore {
+
+        @Override
+        public <S extends Provider> S save(S provider) {
+            writeLock.lock();
+            try {
+                checkOpen();
+                ProviderRow existing = current(providers, ProviderRow::version, Provider.class, provider.getId(),
+                        provider.getVersion());
+                Long owner = providerIdsByName.get(provider.getName());
+                if (owner != null && !owner.equals(provider.getId())) {
+                    throw new DataIntegrityViolationException("Provider name '" + provider.getName() + "' is already used");
+                }
+                if (existing != null && existing.name().equals(provider.getName())
+                        && existing.country().equals(provider.getCountry())) {
+                    return provider;
+                }
+                ProviderRow row = existing == null
+                        ? new ProviderRow(nextProviderId, provider.getName(), provider.getCountry(), 0)
+                        : new ProviderRow(existing.id(), provider.getName(), provider.getCountry(), existing.version() + 1);
+                write(() -> catalogueLog.appendProvider(row));
+                applyProvider(row);
+                provider.setId(row.id());
+                provider.setVersion(row.version());
+                snapshotIfDue();
+                return provider;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public void delete(Provider provider) {
+            writeLock.lock();
+            try {
+                checkOpen();
+                if (provider.getId() != null && providers.get(provider.getId()) != null) {
+                    write(() -> catalogueLog.appendProviderDeleted(provider.getId()));
+                    applyProviderDeleted(provider.getId());
+                    snapshotIfDue();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public Optional<Provider> findById(Long id) {
+            return Optional.ofNullable(providers.get(id)).map(EmbeddedCatalogueStore::toProvider);
+        }
+
+        @Override
+        public boolean existsById(Long id) {
+            return providers.get(id) != null;
+        }
+
+        @Override
+        public boolean existsByName(String name) {
+            return providerIdsByName.containsKey(name);
+        }
+
+        @Override
+        public List<Provider> findAll() {
+            List<ProviderRow> rows = new ArrayList<>(providers.size());
+            providers.forEachValue(rows::add);
+            rows.sort(Comparator.comparingLong(ProviderRow::id));
+            return rows.stream().map(EmbeddedCatalogueStore::toProvider).toList();
+        }
+
+        @Override
+        public Optional<Long> findVersionById(Long id) {
+            return Optional.ofNullable(providers.get(id)).map(ProviderRow::version);
+        }
+    }
+
+    private class Fruits implements FruitStore {
+
+        @Override
+        public <S extends Fruit> S save(S fruit) {
+            writeLock.lock();
+            try {
+                checkOpen();
+                FruitRow existing = current(fruits, FruitRow::version, Fruit.class, fruit.getId(), fruit.getVersion());
+                Long providerId = fruit.getProvider() != null ? fruit.getProvider().getId() : null;
+                if (providerId == null || providers.get(providerId) == null) {
+                    throw new DataIntegrityViolationException("Provider " + providerId + " of the fruit does not exist");
+                }
+                if (existing != null && existing.name().equals(fruit.getName())
+                        && existing.weightInKilos() == fruit.getWeightInKilos() && existing.providerId() == providerId) {
+                    return fruit;
+                }
+                FruitRow row = existing == null
+                        ? new FruitRow(nextFruitId, fruit.getName(), fruit.getWeightInKilos(), providerId, 0)
+                        : new FruitRow(existing.id(), fruit.getName(), fruit.getWeightInKilos(), providerId,
+                                existing.version() + 1);
+                write(() -> catalogueLog.appendFruit(row));
+                applyFruit(row);
+                fruit.setId(row.id());
+                fruit.setVersion(row.version());
+                snapshotIfDue();
+                return fruit;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public void delete(Fruit fruit) {
+            writeLock.lock();
+            try {
+                checkOpen();
+                if (fruit.getId() != null && fruits.get(fruit.getId()) != null) {
+                    write(() -> catalogueLog.appendFruitDeleted(fruit.getId()));
+                    applyFruitDeleted(fruit.getId());
+                    snapshotIfDue();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public WeightUpdate updateWeights(List<FruitWeightDTO> weights) {
+            TreeMap<Long, Integer> weightById = new TreeMap<>();
+            for (FruitWeightDTO weight : weights) {
+                weightById.put(weight.id(), weight.weightInKilos());
+            }
+            Set<Long> providerIds = new HashSet<>();
+            List<Long> missingIds = new ArrayList<>();
+            writeLock.lock();
+            try {
+                checkOpen();
+                for (Map.Entry<Long, Integer> weight : weightById.entrySet()) {
+                    FruitRow existing = weight.getKey() > 0 ? fruits.get(weight.getKey()) : null;
+                    if (existing == null) {
+                        missingIds.add(weight.getKey());
+                        continue;
+                    }
+                    FruitRow row = new FruitRow(existing.id(), existing.name(), weight.getValue(),
+                            existing.providerId(), existing.version() + 1);
+                    write(() -> catalogueLog.appendFruit(row));
+                    applyFruit(row);
+                    providerIds.add(row.providerId());
+                }
+                snapshotIfDue();
+            } finally {
+                writeLock.unlock();
+            }
+            return new WeightUpdate(weightById.size() - missingIds.size(), providerIds,
+                    missingIds, List.of());
+        }
+
+        @Override
+        public Optional<Fruit> findById(Long id) {
+            return findWithProviderById(id);
+        }
+
+        @Override
+        public Optional<Fruit> findWithProviderById(Long id) {
+            return Optional.ofNullable(fruits.get(id)).map(row -> toFruit(row, new HashMap<>()));
+        }
+
+        @Override
+        public List<Fruit> findAll() {
+            return toFruits(allFruits());
+        }
+
+        @Override
+        public List<Fruit> findByProviderId(Long providerId) {
+            return toFruits(fruitsOf(providerId));
+        }
+
+        @Override
+        public List<Fruit> findWithProviderByIdInOrderByIdAsc(Collection<Long> ids) {
+            List<FruitRow> rows = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                FruitRow row = fruits.get(id);
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+            rows.sort(BY_FRUIT_ID);
+            return toFruits(rows);
+        }
+
+        @Override
+        public boolean existsByProviderId(Long providerId) {
+            IdList ids = fruitIdsByProvider.get(providerId);
+            return ids != null && !ids.isEmpty();
+        }
+
+        @Override
+        public Optional<FruitVersion> findVersionById(Long id) {
+            FruitRow fruit = fruits.get(id);
+            ProviderRow provider = fruit != null ? providers.get(fruit.providerId()) : null;
+            return provider == null ? Optional.empty() : Optional.of(new FruitVersion(fruit.version(), provider.version()));
+        }
+
+        @Override
+        public List<SparseFruitDTO> findFields(FruitFields fields) {
+            return allFruits().stream().map(row -> toSparseFruit(row, fields)).filter(Objects::nonNull).toList();
+        }
+
+        @Override
+        public List<SparseFruitDTO> findFieldsByProviderId(Long providerId, FruitFields fields) {
+            return fruitsOf(providerId).stream().map(row -> toSparseFruit(row, fields)).filter(Objects::nonNull).toList();
+        }
+
+        @Override
+        public Optional<SparseFruitDTO> findFieldsById(Long id, FruitFields fields) {
+            return Optional.ofNullable(fruits.get(id)).map(row -> toSparseFruit(row, fields));
+        }
+    }
+
+    private class TableVersions implements TableVersionStore {
+
+        @Override
+        public boolean existsById(String tableName) {
+            return tableVersions.containsKey(tableName);
+        }
+
+        @Override
+        public <S extends TableVersion> S save(S tableVersion) {
+            writeLock.lock();
+            try {
+                checkOpen();
+                write(() -> catalogueLog.appendTableVersion(tableVersion.getTableName(), tableVersion.getVersion()));
+                tableVersions.put(tableVersion.getTableName(), tableVersion.getVersion());
+                snapshotIfDue();
+                return tableVersion;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public int increment(String tableName) {
+            writeLock.lock();
+            try {
+                checkOpen();
+                Long version = tableVersions.get(tableName);
+                if (version == null) {
+                    return 0;
+                }
+                write(() -> catalogueLog.appendTableVersion(tableName, version + 1));
+                tableVersions.put(tableName, version + 1);
+                snapshotIfDue();
+                return 1;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public CatalogueVersion findCatalogueVersion() {
+            return new CatalogueVersion(tableVersions.getOrDefault("fruits", 0L),
+                    tableVersions.getOrDefault("providers", 0L));
+        }
+    }
+
+    @FunctionalInterface
+    private interface LogAction {
+        void run() throws IOException;
+    }
+
+    /** Applies what the log reads back; runs in the constructor, before the store is shared. */
+    private class Loader implements CatalogueLog.Handler {
+
+        @Override
+        public void provider(ProviderRow row) {
+            applyProvider(row);
+        }
+
+        @Override
+        public void providerDeleted(long id) {
+            applyProviderDeleted(id);
+        }
+
+        @Override
+        public void fruit(FruitRow row) {
+            applyFruit(row);
+        }
+
+        @Override
+        public void fruitDeleted(long id) {
+            applyFruitDeleted(id);
+        }
+
+        @Override
+        public void tableVersion(String tableName, long version) {
+            tableVersions.put(tableName, version);
+        }
+
+        @Override
+        public void sequences(long nextProviderId, long nextFruitId) {
+            EmbeddedCatalogueStore.this.nextProviderId = Math.max(EmbeddedCatalogueStore.this.nextProviderId, nextProviderId);
+            EmbeddedCatalogueStore.this.nextFruitId = Math.max(EmbeddedCatalogueStore.this.nextFruitId, nextFruitId);
+        }
+    }
+}
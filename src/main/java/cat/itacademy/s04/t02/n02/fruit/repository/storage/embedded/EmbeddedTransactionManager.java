@@ -0,0 +1,32 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage.embedded;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * Lets {@code @Transactional} services run with the embedded engine and fires their synchronizations;
+ * there is nothing to commit or roll back.
+ */
+public class EmbeddedTransactionManager extends AbstractPlatformTransactionManager {
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Object();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        // Nothing to begin
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        // Every write is already applied
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        // Writes made by the store are not undone
+    }
+}
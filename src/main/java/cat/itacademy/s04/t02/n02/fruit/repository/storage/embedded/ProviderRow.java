@@ -0,0 +1,4 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage.embedded;
+
+record ProviderRow(long id, String name, String country, long version) {
+}
@@ -0,0 +1,228 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * A published catalogue snapshot, mapped read-only. Accessors read straight from the mapped pages; the
+ * file layout is described in the README.
+ */
+final class CatalogueSnapshot {
+
+    static final String SNAPSHOT_FILE = "catalogue.snap";
+
+    static final int MAGIC = 0x46525350;
+    static final int FORMAT = 1;
+    static final int HEADER_BYTES = 64;
+    static final int PROVIDER_RECORD_BYTES = 32;
+    static final int FRUIT_RECORD_BYTES = 24;
+
+    // Header fields
+    static final int FRUITS_VERSION = 8;
+    static final int PROVIDERS_VERSION = 16;
+    static final int PROVIDER_COUNT = 24;
+    static final int FRUIT_COUNT = 28;
+    static final int STRINGS_LENGTH = 32;
+    static final int CHECKSUM = 40;
+
+    // Provider record fields
+    static final int PROVIDER_VERSION = 0;
+    static final int PROVIDER_NAME = 8;
+    static final int PROVIDER_COUNTRY = 16;
+    static final int PROVIDER_FRUITS_START = 24;
+    static final int PROVIDER_FRUITS_COUNT = 28;
+
+    // Fruit record fields
+    static final int FRUIT_VERSION = 0;
+    static final int FRUIT_PROVIDER = 8;
+    static final int FRUIT_WEIGHT = 12;
+    static final int FRUIT_NAME = 16;
+
+    private final ByteBuffer buffer;
+    private final Layout layout;
+    private final long fruitsVersion;
+    private final long providersVersion;
+
+    private CatalogueSnapshot(ByteBuffer buffer, Layout layout) {
+        this.buffer = buffer;
+        this.layout = layout;
+        this.fruitsVersion = buffer.getLong(FRUITS_VERSION);
+        this.providersVersion = buffer.getLong(PROVIDERS_VERSION);
+    }
+
+    /**
+     * Offsets of the sections of a file holding {@code providers} and {@code fruits}.
+     */
+    record Layout(int providers, int fruits, long providerIds, long providerRecords, long fruitIds,
+                  long fruitRecords, long providerFruits, long strings) {
+
+        static Layout of(int providers, int fruits) {
+            long providerIds = HEADER_BYTES;
+            long providerRecords = providerIds + 8L * providers;
+            long fruitIds = providerRecords + (long) PROVIDER_RECORD_BYTES * providers;
+            long fruitRecords = fruitIds + 8L * fruits;
+            long providerFruits = fruitRecords + (long) FRUIT_RECORD_BYTES * fruits;
+            long strings = providerFruits + 4L * fruits;
+            return new Layout(providers, fruits, providerIds, providerRecords, fruitIds, fruitRecords,
+                    providerFruits, strings);
+        }
+    }
+
+    /**
+     * Maps {@code file} and checks its header and checksum.
+     */
+    static CatalogueSnapshot open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a catalogue snapshot: unexpected size " + size);
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+            throw new IOException(file + " is not a catalogue snapshot");
+        }
+        Layout layout = Layout.of(buffer.getInt(PROVIDER_COUNT), buffer.getInt(FRUIT_COUNT));
+        if (layout.providers() < 0 || layout.fruits() < 0
+                || layout.strings() + buffer.getLong(STRINGS_LENGTH) != buffer.capacity()) {
+            throw new IOException(file + " is corrupt: sections do not match its size");
+        }
+        if (checksum(buffer) != buffer.getLong(CHECKSUM)) {
+            throw new IOException(file + " is corrupt: checksum mismatch");
+        }
+        return new CatalogueSnapshot(buffer, layout);
+    }
+
+    static long checksum(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(HEADER_BYTES, buffer.capacity() - HEADER_BYTES));
+        return crc.getValue();
+    }
+
+    long fruitsVersion() {
+        return fruitsVersion;
+    }
+
+    long providersVersion() {
+        return providersVersion;
+    }
+
+    long sizeInBytes() {
+        return buffer.capacity();
+    }
+
+    // Providers, by index in id order
+
+    int providerCount() {
+        return layout.providers();
+    }
+
+    /**
+     * @return the provider's index, or -1 when the snapshot does not hold it
+     */
+    int providerIndexOf(long id) {
+        return search(layout.providerIds(), layout.providers(), id);
+    }
+
+    long providerId(int index) {
+        return buffer.getLong((int) layout.providerIds() + 8 * index);
+    }
+
+    long providerVersion(int index) {
+        return buffer.getLong(providerRecord(index) + PROVIDER_VERSION);
+    }
+
+    String providerName(int index) {
+        return string(providerRecord(index) + PROVIDER_NAME);
+    }
+
+    String providerCountry(int index) {
+        return string(providerRecord(index) + PROVIDER_COUNTRY);
+    }
+
+    int providerFruitCount(int index) {
+        return buffer.getInt(providerRecord(index) + PROVIDER_FRUITS_COUNT);
+    }
+
+    /**
+     * @return the index of the provider's {@code n}th fruit, in id order
+     */
+    int providerFruit(int index, int n) {
+        int start = buffer.getInt(providerRecord(index) + PROVIDER_FRUITS_START);
+        return buffer.getInt((int) layout.providerFruits() + 4 * (start + n));
+    }
+
+    // Fruits, by index in id order
+
+    int fruitCount() {
+        return layout.fruits();
+    }
+
+    /**
+     * @return the fruit's index, or -1 when the snapshot does not hold it
+     */
+    int fruitIndexOf(long id) {
+        return search(layout.fruitIds(), layout.fruits(), id);
+    }
+
+    long fruitId(int index) {
+        return buffer.getLong((int) layout.fruitIds() + 8 * index);
+    }
+
+    long fruitVersion(int index) {
+        return buffer.getLong(fruitRecord(index) + FRUIT_VERSION);
+    }
+
+    int fruitProvider(int index) {
+        return buffer.getInt(fruitRecord(index) + FRUIT_PROVIDER);
+    }
+
+    int fruitWeight(int index) {
+        return buffer.getInt(fruitRecord(index) + FRUIT_WEIGHT);
+    }
+
+    String fruitName(int index) {
+        return string(fruitRecord(index) + FRUIT_NAME);
+    }
+
+    private int providerRecord(int index) {
+        return (int) layout.providerRecords() + PROVIDER_RECORD_BYTES * index;
+    }
+
+    private int fruitRecord(int index) {
+        return (int) layout.fruitRecords() + FRUIT_RECORD_BYTES * index;
+    }
+
+    /** Decodes the string whose offset and length are stored at {@code position}. */
+    private String string(int position) {
+        byte[] bytes = new byte[buffer.getInt(position + 4)];
+        buffer.get((int) layout.strings() + buffer.getInt(position), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int search(long section, int count, long id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long candidate = buffer.getLong((int) section + 8 * middle);
+            if (candidate < id) {
+                low = middle + 1;
+            } else if (candidate > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
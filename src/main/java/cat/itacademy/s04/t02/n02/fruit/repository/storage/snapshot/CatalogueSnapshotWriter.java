@@ -0,0 +1,261 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage.snapshot;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import static cat.itacademy.s04.t02.n02.fruit.repository.storage.snapshot.CatalogueSnapshot.*;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Writes a {@link CatalogueSnapshot} of the database under a temporary name and renames it over the
+ * published one. Must run in a single read-only, repeatable-read transaction.
+ */
+@Slf4j
+final class CatalogueSnapshotWriter {
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int MAX_SHARED_STRINGS = 100_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    CatalogueSnapshotWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    CatalogueVersion readVersion() {
+        long[] versions = new long[2];
+        jdbcTemplate.query("SELECT table_name, version FROM table_versions", rs -> {
+            switch (rs.getString(1)) {
+                case "fruits" -> versions[0] = rs.getLong(2);
+                case "providers" -> versions[1] = rs.getLong(2);
+                default -> { }
+            }
+        });
+        return new CatalogueVersion(versions[0], versions[1]);
+    }
+
+    Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        CatalogueVersion version = readVersion();
+        Providers providers = readProviders();
+        long fruitTotal = 0;
+        for (int count : providers.fruitCounts) {
+            fruitTotal += count;
+        }
+        Layout layout = Layout.of(providers.ids.length, Math.toIntExact(fruitTotal));
+        if (layout.strings() > Integer.MAX_VALUE) {
+            throw new IOException("The catalogue is too large for a snapshot: " + layout.strings() + " bytes");
+        }
+
+        Path temporary = Files.createTempFile(directory, "catalogue", ".snap.tmp");
+        try (FileChannel channel = FileChannel.open(temporary, READ, WRITE)) {
+            MappedByteBuffer fixed = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.strings());
+            channel.position(layout.strings());
+            StringTable strings = new StringTable(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+
+            writeProviders(fixed, layout, providers, strings);
+            int fruits;
+            try {
+                fruits = writeFruits(fixed, layout, providers, strings);
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            if (fruits != layout.fruits()) {
+                throw new IllegalStateException("Read " + fruits + " fruits but counted " + layout.fruits()
+                        + "; the snapshot must be written in a repeatable-read transaction");
+            }
+            strings.out.flush();
+            fixed.force();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The catalogue is too large for a snapshot: " + channel.size() + " bytes");
+            }
+
+            fixed.putInt(0, MAGIC)
+                    .putInt(4, FORMAT)
+                    .putLong(FRUITS_VERSION, version.fruits())
+                    .putLong(PROVIDERS_VERSION, version.providers())
+                    .putInt(PROVIDER_COUNT, layout.providers())
+                    .putInt(FRUIT_COUNT, layout.fruits())
+                    .putLong(STRINGS_LENGTH, strings.length)
+                    .putLong(CHECKSUM, checksumOf(channel));
+            fixed.force();
+            channel.force(true);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temporary);
+            throw ex;
+        }
+        Path published = directory.resolve(SNAPSHOT_FILE);
+        Files.move(temporary, published, ATOMIC_MOVE, REPLACE_EXISTING);
+        syncDirectory(directory);
+        return published;
+    }
+
+    private Providers readProviders() {
+        List<Object[]> rows = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, name, country, version FROM providers ORDER BY id",
+                rs -> { rows.add(new Object[]{rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4)}); });
+        Providers providers = new Providers(rows);
+        jdbcTemplate.query("SELECT provider_id, COUNT(*) FROM fruits GROUP BY provider_id", rs -> {
+            providers.fruitCounts[providers.indexOf(rs.getLong(1))] = rs.getInt(2);
+        });
+        return providers;
+    }
+
+    private static void writeProviders(MappedByteBuffer fixed, Layout layout, Providers providers, StringTable strings)
+            throws IOException {
+        int fruitsStart = 0;
+        for (int i = 0; i < providers.ids.length; i++) {
+            int record = (int) layout.providerRecords() + PROVIDER_RECORD_BYTES * i;
+            fixed.putLong((int) layout.providerIds() + 8 * i, providers.ids[i]);
+            fixed.putLong(record + PROVIDER_VERSION, providers.versions[i]);
+            strings.put(fixed, record + PROVIDER_NAME, providers.names[i]);
+            strings.put(fixed, record + PROVIDER_COUNTRY, providers.countries[i]);
+            fixed.putInt(record + PROVIDER_FRUITS_START, fruitsStart);
+            fixed.putInt(record + PROVIDER_FRUITS_COUNT, providers.fruitCounts[i]);
+            providers.cursors[i] = fruitsStart;
+            fruitsStart += providers.fruitCounts[i];
+        }
+    }
+
+    private int writeFruits(MappedByteBuffer fixed, Layout layout, Providers providers, StringTable strings) {
+        int[] written = new int[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT id, name, weight_in_kilos, provider_id, version FROM fruits ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            int index = written[0]++;
+            if (index >= layout.fruits()) {
+                return;
+            }
+            int provider = providers.indexOf(rs.getLong(4));
+            int record = (int) layout.fruitRecords() + FRUIT_RECORD_BYTES * index;
+            fixed.putLong((int) layout.fruitIds() + 8 * index, rs.getLong(1));
+            fixed.putLong(record + FRUIT_VERSION, rs.getLong(5));
+            fixed.putInt(record + FRUIT_PROVIDER, provider);
+            fixed.putInt(record + FRUIT_WEIGHT, rs.getInt(3));
+            try {
+                strings.put(fixed, record + FRUIT_NAME, rs.getString(2));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            fixed.putInt((int) layout.providerFruits() + 4 * providers.cursors[provider]++, index);
+        });
+        return written[0];
+    }
+
+    /**
+     * Reads the file rather than mapping it again; a mapping is only released when it is garbage collected.
+     */
+    private static long checksumOf(FileChannel channel) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer chunk = ByteBuffer.allocate(1 << 16);
+        long position = HEADER_BYTES;
+        int read;
+        while ((read = channel.read(chunk.clear(), position)) > 0) {
+            crc.update(chunk.flip());
+            position += read;
+        }
+        return crc.getValue();
+    }
+
+    private static void syncDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, READ)) {
+            dir.force(true);
+        } catch (IOException ex) {
+            // Not every platform can open a directory; the rename is still atomic, only its durability is weaker
+            log.debug("Could not sync {}: {}", directory, ex.getMessage());
+        }
+    }
+
+    private static final class Providers {
+
+        private final long[] ids;
+        private final long[] versions;
+        private final String[] names;
+        private final String[] countries;
+        private final int[] fruitCounts;
+        private final int[] cursors;
+
+        Providers(List<Object[]> rows) {
+            int count = rows.size();
+            ids = new long[count];
+            versions = new long[count];
+            names = new String[count];
+            countries = new String[count];
+            fruitCounts = new int[count];
+            cursors = new int[count];
+            for (int i = 0; i < count; i++) {
+                Object[] row = rows.get(i);
+                ids[i] = (Long) row[0];
+                names[i] = (String) row[1];
+                countries[i] = (String) row[2];
+                versions[i] = (Long) row[3];
+            }
+        }
+
+        int indexOf(long id) {
+            int index = Arrays.binarySearch(ids, id);
+            if (index < 0) {
+                throw new IllegalStateException("Fruit of provider " + id + ", which was not read");
+            }
+            return index;
+        }
+    }
+
+    /** Stores repeated values once, up to {@value #MAX_SHARED_STRINGS} distinct values. */
+    private static final class StringTable {
+
+        private final OutputStream out;
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private long length;
+
+        StringTable(OutputStream out) {
+            this.out = out;
+        }
+
+        void put(MappedByteBuffer fixed, int position, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            Integer offset = offsets.get(value);
+            if (offset == null) {
+                if (length + bytes.length > Integer.MAX_VALUE) {
+                    throw new IOException("The string table of the snapshot exceeds 2 GB");
+                }
+                offset = (int) length;
+                out.write(bytes);
+                length += bytes.length;
+                if (offsets.size() < MAX_SHARED_STRINGS) {
+                    offsets.put(value, offset);
+                }
+            }
+            fixed.putInt(position, offset);
+            fixed.putInt(position + 4, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage.snapshot;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitFields;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.SparseFruitDTO;
+import cat.itacademy.s04.t02.n02.fruit.exception.ReadOnlyCatalogueException;
+import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import cat.itacademy.s04.t02.n02.fruit.model.TableVersion;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.FruitStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ProviderStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.TableVersionStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.WeightUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-only storage engine serving the catalogue from a memory-mapped {@link CatalogueSnapshot}. Writes
+ * through its stores throw {@link ReadOnlyCatalogueException}.
+ */
+@Slf4j
+public class SnapshotCatalogueStore implements AutoCloseable {
+
+    private static final String READ_ONLY_MESSAGE =
+            "This instance serves a read-only catalogue snapshot; send writes to an instance using the jpa storage engine";
+
+    private final Path directory;
+    private final boolean publish;
+    private final CatalogueSnapshotWriter writer;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService refresher;
+
+    private final ProviderStore providerStore = new Providers();
+    private final FruitStore fruitStore = new Fruits();
+    private final TableVersionStore tableVersionStore = new TableVersions();
+
+    private volatile CatalogueSnapshot snapshot;
+    private FileTime mappedFileTime;
+
+    /**
+     * Maps the snapshot found in {@code directory}, if any, and publishes a new one when {@code publish} is set.
+     */
+    public SnapshotCatalogueStore(Path directory, boolean publish, Duration refreshInterval, JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate) {
+        this.directory = directory;
+        this.publish = publish;
+        this.writer = new CatalogueSnapshotWriter(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        try {
+            reload();
+        } catch (IOException ex) {
+            log.warn("Ignoring the catalogue snapshot in {}", directory, ex);
+        }
+        if (publish) {
+            try {
+                publish();
+            } catch (IOException | RuntimeException ex) {
+                if (snapshot == null) {
+                    throw new IllegalStateException("Could not publish a catalogue snapshot to " + directory, ex);
+                }
+                log.warn("Publishing a catalogue snapshot failed; serving the previous one", ex);
+            }
+        }
+        this.refresher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("catalogue-snapshot-refresher").daemon().factory());
+        long interval = refreshInterval.toMillis();
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public ProviderStore providerStore() {
+        return providerStore;
+    }
+
+    public FruitStore fruitStore() {
+        return fruitStore;
+    }
+
+    public TableVersionStore tableVersionStore() {
+        return tableVersionStore;
+    }
+
+    public synchronized void publish() throws IOException {
+        Path file;
+        try {
+            file = transactionTemplate.execute(status -> {
+                try {
+                    return writer.write(directory);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        swap(CatalogueSnapshot.open(file), Files.getLastModifiedTime(file));
+    }
+
+    /**
+     * Publishes a new snapshot if the catalogue changed since the current one; without {@code publish},
+     * maps the snapshot file again if it has been replaced.
+     */
+    public synchronized void refresh() throws IOException {
+        if (!publish) {
+            reload();
+            return;
+        }
+        CatalogueSnapshot current = snapshot;
+        CatalogueVersion version = transactionTemplate.execute(status -> writer.readVersion());
+        if (current == null || current.fruitsVersion() != version.fruits()
+                || current.providersVersion() != version.providers()) {
+            publish();
+        }
+    }
+
+    /**
+     * @return bytes of the snapshot being served, 0 when there is none
+     */
+    public long mappedBytes() {
+        CatalogueSnapshot current = snapshot;
+        return current == null ? 0 : current.sizeInBytes();
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Refreshing the catalogue snapshot failed; serving the previous one", ex);
+        }
+    }
+
+    private synchronized void reload() throws IOException {
+        Path file = directory.resolve(CatalogueSnapshot.SNAPSHOT_FILE);
+        FileTime modified;
+        try {
+            modified = Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime();
+        } catch (NoSuchFileException ex) {
+            return;
+        }
+        if (!modified.equals(mappedFileTime)) {
+            swap(CatalogueSnapshot.open(file), modified);
+        }
+    }
+
+    private void swap(CatalogueSnapshot next, FileTime modified) {
+        snapshot = next;
+        mappedFileTime = modified;
+        log.info("Serving the catalogue snapshot of {} providers and {} fruits at version {}/{} ({} KB mapped)",
+                next.providerCount(), next.fruitCount(), next.fruitsVersion(), next.providersVersion(),
+                next.sizeInBytes() / 1024);
+    }
+
+    private CatalogueSnapshot current() {
+        CatalogueSnapshot current = snapshot;
+        if (current == null) {
+            throw new DataAccessResourceFailureException("No catalogue snapshot has been published to " + directory);
+        }
+        return current;
+    }
+
+    private static Provider toProvider(CatalogueSnapshot snapshot, int index) {
+        Provider provider = new Provider(snapshot.providerId(index), snapshot.providerName(index),
+                snapshot.providerCountry(index));
+        provider.setVersion(snapshot.providerVersion(index));
+        return provider;
+    }
+
+    /**
+     * @param providers providers already built for this response, by index; the fruit's is added when missing
+     */
+    private static Fruit toFruit(CatalogueSnapshot snapshot, int index, Provider[] providers) {
+        int providerIndex = snapshot.fruitProvider(index);
+        Provider provider = providers[providerIndex];
+        if (provider == null) {
+            provider = toProvider(snapshot, providerIndex);
+            providers[providerIndex] = provider;
+        }
+        return toFruit(snapshot, index, provider);
+    }
+
+    private static Fruit toFruit(CatalogueSnapshot snapshot, int index, Provider provider) {
+        Fruit fruit = new Fruit(snapshot.fruitId(index), snapshot.fruitName(index), snapshot.fruitWeight(index), provider);
+        fruit.setVersion(snapshot.fruitVersion(index));
+        return fruit;
+    }
+
+    private static SparseFruitDTO toSparseFruit(CatalogueSnapshot snapshot, int index, FruitFields fields) {
+        int providerIndex = snapshot.fruitProvider(index);
+        ProviderResponseDTO provider = fields.provider()
+                ? new ProviderResponseDTO(snapshot.providerId(providerIndex), snapshot.providerName(providerIndex),
+                        snapshot.providerCountry(providerIndex))
+                : null;
+        return new SparseFruitDTO(
+                fields.id() ? snapshot.fruitId(index) : null,
+                fields.name() ? snapshot.fruitName(index) : null,
+                fields.weightInKilos() ? snapshot.fruitWeight(index) : null,
+                fields.providerId() ? snapshot.providerId(providerIndex) : null,
+                provider
+        );
+    }
+
+    private class Providers implements ProviderStore {
+
+        @Override
+        public <S extends Provider> S save(S provider) {
+            throw new ReadOnlyCatalogueException(READ_ONLY_MESSAGE);
+        }
+
+        @Override
+        public void delete(Provider provider) {
+            throw new ReadOnlyCatalogueException(READ_ONLY_MESSAGE);
+        }
+
+        @Override
+        public Optional<Provider> findById(Long id) {
+            CatalogueSnapshot current = current();
+            int index = current.providerIndexOf(id);
+            return index < 0 ? Optional.empty() : Optional.of(toProvider(current, index));
+        }
+
+        @Override
+        public boolean existsById(Long id) {
+            return current().providerIndexOf(id) >= 0;
+        }
+
+        @Override
+        public boolean existsByName(String name) {
+            CatalogueSnapshot current = current();
+            for (int i = 0; i < current.providerCount(); i++) {
+                if (current.providerName(i).equals(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public List<Provider> findAll() {
+            CatalogueSnapshot current = current();
+            List<Provider> providers = new ArrayList<>(current.providerCount());
+            for (int i = 0; i < current.providerCount(); i++) {
+                providers.add(toProvider(current, i));
+            }
+            return providers;
+        }
+
+        @Override
+        public Optional<Long> findVersionById(Long id) {
+            CatalogueSnapshot current = current();
+            int index = current.providerIndexOf(id);
+            return index < 0 ? Optional.empty() : Optional.of(current.providerVersion(index));
+        }
+    }
+
+    private class Fruits implements FruitStore {
+
+        @Override
+        public <S extends Fruit> S save(S fruit) {
+            throw new ReadOnlyCatalogueException(READ_ONLY_MESSAGE);
+        }
+
+        @Override
+        public void delete(Fruit fruit) {
+            throw new ReadOnlyCatalogueException(READ_ONLY_MESSAGE);
+        }
+
+        @Override
+        public WeightUpdate updateWeights(List<FruitWeightDTO> weights) {
+            throw new ReadOnlyCatalogueException(READ_ONLY_MESSAGE);
+        }
+
+        @Override
+        public Optional<Fruit> findById(Long id) {
+            return findWithProviderById(id);
+        }
+
+        @Override
+        public Optional<Fruit> findWithProviderById(Long id) {
+            CatalogueSnapshot current = current();
+            int index = current.fruitIndexOf(id);
+            return index < 0 ? Optional.empty()
+                    : Optional.of(toFruit(current, index, toProvider(current, current.fruitProvider(index))));
+        }
+
+        @Override
+        public List<Fruit> findAll() {
+            CatalogueSnapshot current = current();
+            Provider[] providers = new Provider[current.providerCount()];
+            List<Fruit> fruits = new ArrayList<>(current.fruitCount());
+            for (int i = 0; i < current.fruitCount(); i++) {
+                fruits.add(toFruit(current, i, providers));
+            }
+            return fruits;
+        }
+
+        @Override
+        public List<Fruit> findByProviderId(Long providerId) {
+            CatalogueSnapshot current = current();
+            int provider = current.providerIndexOf(providerId);
+            if (provider < 0) {
+                return List.of();
+            }
+            Provider[] providers = new Provider[current.providerCount()];
+            int count = current.providerFruitCount(provider);
+            List<Fruit> fruits = new ArrayList<>(count);
+            for (int n = 0; n < count; n++) {
+                fruits.add(toFruit(current, current.providerFruit(provider, n), providers));
+            }
+            return fruits;
+        }
+
+        @Override
+        public List<Fruit> findWithProviderByIdInOrderByIdAsc(Collection<Long> ids) {
+            CatalogueSnapshot current = current();
+            Provider[] providers = new Provider[current.providerCount()];
+            List<Fruit> fruits = new ArrayList<>(ids.size());
+            ids.stream().sorted().forEach(id -> {
+                int index = current.fruitIndexOf(id);
+                if (index >= 0) {
+                    fruits.add(toFruit(current, index, providers));
+                }
+            });
+            return fruits;
+        }
+
+        @Override
+        public boolean existsByProviderId(Long providerId) {
+            CatalogueSnapshot current = current();
+            int provider = current.providerIndexOf(providerId);
+            return provider >= 0 && current.providerFruitCount(provider) > 0;
+        }
+
+        @Override
+        public Optional<FruitVersion> findVersionById(Long id) {
+            CatalogueSnapshot current = current();
+            int index = current.fruitIndexOf(id);
+            return index < 0 ? Optional.empty() : Optional.of(new FruitVersion(current.fruitVersion(index),
+                    current.providerVersion(current.fruitProvider(index))));
+        }
+
+        @Override
+        public List<SparseFruitDTO> findFields(FruitFields fields) {
+            CatalogueSnapshot current = current();
+            List<SparseFruitDTO> fruits = new ArrayList<>(current.fruitCount());
+            for (int i = 0; i < current.fruitCount(); i++) {
+                fruits.add(toSparseFruit(current, i, fields));
+            }
+            return fruits;
+        }
+
+        @Override
+        public List<SparseFruitDTO> findFieldsByProviderId(Long providerId, FruitFields fields) {
+            CatalogueSnapshot current = current();
+            int provider = current.providerIndexOf(providerId);
+            if (provider < 0) {
+                return List.of();
+            }
+            int count = current.providerFruitCount(provider);
+            List<SparseFruitDTO> fruits = new ArrayList<>(count);
+            for (int n = 0; n < count; n++) {
+                fruits.add(toSparseFruit(current, current.providerFruit(provider, n), fields));
+            }
+            return fruits;
+        }
+
+        @Override
+        public Optional<SparseFruitDTO> findFieldsById(Long id, FruitFields fields) {
+            CatalogueSnapshot current = current();
+            int index = current.fruitIndexOf(id);
+            return index < 0 ? Optional.empty() : Optional.of(toSparseFruit(current, index, fields));
+        }
+    }
+
+    private class TableVersions implements TableVersionStore {
+
+        /** The snapshot carries the counters of both tables. */
+        @Override
+        public boolean existsById(String tableName) {
+            return true;
+        }
+
+        @Override
+        public <S extends TableVersion> S save(S tableVersion) {
+            throw new ReadOnlyCatalogueException(READ_ONLY_MESSAGE);
+        }
+
+        @Override
+        public int increment(String tableName) {
+            throw new ReadOnlyCatalogueException(READ_ONLY_MESSAGE);
+        }
+
+        @Override
+        public CatalogueVersion findCatalogueVersion() {
+            CatalogueSnapshot current = current();
+            return new CatalogueVersion(current.fruitsVersion(), current.providersVersion());
+        }
+    }
+}
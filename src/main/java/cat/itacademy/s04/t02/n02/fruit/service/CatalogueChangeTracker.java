@@ -0,0 +1,84 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import cat.itacademy.s04.t02.n02.fruit.model.TableVersion;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.TableVersionStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Keeps the per-table modification counters used to validate cached list responses. Every transaction
+ * that writes fruits or providers must report it here.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogueChangeTracker {
+
+    static final String FRUITS = "fruits";
+    static final String PROVIDERS = "providers";
+
+    private final TableVersionStore tableVersionStore;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        for (String table : new String[]{FRUITS, PROVIDERS}) {
+            if (!tableVersionStore.existsById(table)) {
+                tableVersionStore.save(new TableVersion(table, 0));
+            }
+        }
+    }
+
+    /**
+     * @param providerIds providers whose fruits were written; none when any provider may be involved
+     */
+    @Transactional
+    public void fruitsChanged(Long... providerIds) {
+        incrementBeforeCommit(FRUITS);
+        eventPublisher.publishEvent(new CatalogueChangedEvent(FRUITS, Set.copyOf(Arrays.asList(providerIds))));
+    }
+
+    /**
+     * @param providerIds providers that were written; none when any provider may be involved
+     */
+    @Transactional
+    public void providersChanged(Long... providerIds) {
+        incrementBeforeCommit(PROVIDERS);
+        eventPublisher.publishEvent(new CatalogueChangedEvent(PROVIDERS, Set.copyOf(Arrays.asList(providerIds))));
+    }
+
+    @Transactional(readOnly = true)
+    public CatalogueVersion currentVersion() {
+        return tableVersionStore.findCatalogueVersion();
+    }
+
+    private void incrementBeforeCommit(String table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment(table);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // A failure here rolls the write back with it
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                increment(table);
+            }
+        });
+    }
+
+    private void increment(String table) {
+        if (tableVersionStore.increment(table) == 0) {
+            tableVersionStore.save(new TableVersion(table, 1));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import java.util.Set;
+
+/**
+ * Published by {@link CatalogueChangeTracker} for every reported write, inside the writing transaction.
+ * An empty provider set means the change may involve any provider.
+ */
+public record CatalogueChangedEvent(String table, Set<Long> providerIds) {
+
+    public boolean isFruitsChange() {
+        return CatalogueChangeTracker.FRUITS.equals(table);
+    }
+
+    public boolean isProvidersChange() {
+        return CatalogueChangeTracker.PROVIDERS.equals(table);
+    }
+}
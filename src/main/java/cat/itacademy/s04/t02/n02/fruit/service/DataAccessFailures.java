@@ -0,0 +1,24 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * Tells the background writers which failures are worth retrying.
+ */
+final class DataAccessFailures {
+
+    private DataAccessFailures() {
+    }
+
+    /**
+     * @return true for failures that may succeed on a later attempt with the same data: lock and query
+     * timeouts, deadlocks, and lost or unavailable connections
+     */
+    static boolean isTransient(RuntimeException ex) {
+        return ex instanceof TransientDataAccessException
+                || ex instanceof RecoverableDataAccessException
+                || ex instanceof CannotCreateTransactionException;
+    }
+}
@@ -0,0 +1,14 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param fetchSize  rows fetched from the database per round trip
+ * @param bufferSize characters buffered before they are written to the response
+ */
+@ConfigurationProperties(prefix = "fruit.export")
+public record FruitExportProperties(
+        @DefaultValue("1000") int fetchSize,
+        @DefaultValue("65536") int bufferSize
+) {}
@@ -0,0 +1,29 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface FruitExportService {
+
+    /**
+     * Checks that the provider of a filtered export exists, so callers can answer {@code 404} before
+     * evaluating conditional request headers or opening the response.
+     *
+     * @throws cat.itacademy.s04.t02.n02.fruit.exception.ResourceNotFoundException when it does not
+     */
+    void requireProvider(Long providerId);
+
+    /**
+     * Writes the fruits, with their provider's name and country, as CSV.
+     *
+     * @param providerId only fruits of this provider, or all fruits when {@code null}
+     * @return the number of fruits written
+     */
+    long exportFruits(Long providerId, Target target) throws IOException;
+
+    @FunctionalInterface
+    interface Target {
+
+        OutputStream open() throws IOException;
+    }
+}
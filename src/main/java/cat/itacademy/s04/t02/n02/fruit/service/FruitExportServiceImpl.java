@@ -0,0 +1,57 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import cat.itacademy.s04.t02.n02.fruit.csv.CsvWriter;
+import cat.itacademy.s04.t02.n02.fruit.exception.ResourceNotFoundException;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitBatchRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams fruit rows from a database cursor straight into the CSV writer, without building entities.
+ */
+@Slf4j
+@Service
+@ConditionalOnDatabase
+@RequiredArgsConstructor
+public class FruitExportServiceImpl implements FruitExportService {
+
+    private static final String PROVIDER_NOT_FOUND_MESSAGE = "Provider with id %d not found";
+    private static final String[] HEADER = {"id", "name", "weightInKilos", "providerId", "providerName", "providerCountry"};
+
+    private final FruitBatchRepository fruitBatchRepository;
+    private final ProviderRepository providerRepository;
+    private final FruitExportProperties properties;
+
+    @Override
+    public void requireProvider(Long providerId) {
+        if (!providerRepository.existsById(providerId)) {
+            throw new ResourceNotFoundException(String.format(PROVIDER_NOT_FOUND_MESSAGE, providerId));
+        }
+    }
+
+    @Override
+    public long exportFruits(Long providerId, Target target) throws IOException {
+        long start = System.nanoTime();
+        long rows;
+        try (CsvWriter writer = new CsvWriter(new BufferedWriter(
+                new OutputStreamWriter(target.open(), StandardCharsets.UTF_8), properties.bufferSize()))) {
+            writer.record(HEADER);
+            rows = fruitBatchRepository.forEachWithProvider(providerId, properties.fetchSize(),
+                    (id, name, weightInKilos, fruitProviderId, providerName, providerCountry) -> {
+                        writer.field(id).field(name).field(weightInKilos).field(fruitProviderId)
+                                .field(providerName).field(providerCountry).endRecord();
+                    });
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Exported {} fruits in {} ms", rows, elapsedMillis);
+        return rows;
+    }
+}
@@ -0,0 +1,20 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param batchSize         records per chunk, written in one insert statement and transaction
+ * @param maxReportedErrors errors listed in the result; further ones are only counted
+ * @param maxRecordLength   longest CSV record accepted, in characters
+ * @param progressInterval  rows between progress reports
+ * @param providerCacheSize provider lookups remembered during an import
+ */
+@ConfigurationProperties(prefix = "fruit.import")
+public record FruitImportProperties(
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("1000") int maxReportedErrors,
+        @DefaultValue("65536") int maxRecordLength,
+        @DefaultValue("100000") int progressInterval,
+        @DefaultValue("10000") int providerCacheSize
+) {}
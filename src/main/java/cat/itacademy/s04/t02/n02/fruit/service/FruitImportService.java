@@ -0,0 +1,55 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface FruitImportService {
+
+    default FruitImportResult importFruits(InputStream csv) throws IOException {
+        FruitImport fruitImport = startImport(csv, 0);
+        while (fruitImport.importNextChunk(ChunkListener.NONE)) {
+            // each call writes one chunk in its own transaction
+        }
+        return fruitImport.result();
+    }
+
+    /**
+     * Reads the header and returns an import that writes the rest of the CSV one chunk at a time.
+     *
+     * @param resumeAfterLine records starting on this line or earlier are skipped, which resumes an import
+     *                        from the last line a {@link ChunkListener} saw committed
+     */
+    FruitImport startImport(InputStream csv, long resumeAfterLine) throws IOException;
+
+    interface FruitImport {
+
+        /**
+         * Reads up to {@code fruit.import.batch-size} records and inserts the valid ones in one transaction.
+         *
+         * @return whether records remain
+         */
+        boolean importNextChunk(ChunkListener listener) throws IOException;
+
+        /**
+         * @return the counters of the records read by this import, excluding skipped ones
+         */
+        FruitImportResult result();
+    }
+
+    @FunctionalInterface
+    interface ChunkListener {
+
+        ChunkListener NONE = (lastLine, totals) -> {
+        };
+
+        /**
+         * Runs inside the chunk's transaction, so whatever it writes commits or rolls back with the chunk.
+         *
+         * @param lastLine last line read by the chunk
+         * @param totals   counters of the import so far, including this chunk
+         */
+        void chunkWritten(long lastLine, FruitImportResult totals);
+    }
+}
@@ -0,0 +1,309 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndex;
+import cat.itacademy.s04.t02.n02.fruit.csv.CsvFormatException;
+import cat.itacademy.s04.t02.n02.fruit.csv.CsvReader;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitImportError;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitImportResult;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.exception.InvalidRequestException;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitBatchRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads a fruit CSV as a stream and inserts it in chunks of up to {@code batchSize} records, each in its
+ * own transaction. Rejected rows are reported with their line and skipped.
+ */
+@Slf4j
+@Service
+@ConditionalOnDatabase
+@RequiredArgsConstructor
+public class FruitImportServiceImpl implements FruitImportService {
+
+    private static final String PROVIDER_ID_NOT_FOUND_MESSAGE = "Provider with id %d not found";
+    private static final String PROVIDER_NAME_NOT_FOUND_MESSAGE = "Provider with name %s not found";
+
+    private final FruitBatchRepository fruitBatchRepository;
+    private final ProviderRepository providerRepository;
+    private final CatalogueChangeTracker changeTracker;
+    private final ProviderFruitIndex providerFruitIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final FruitImportProperties properties;
+
+    @Override
+    public FruitImport startImport(InputStream csv, long resumeAfterLine) throws IOException {
+        CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8), properties.maxRecordLength());
+        return new ChunkedImport(reader, Columns.of(reader.next()), resumeAfterLine);
+    }
+
+    private FruitRequestDTO toRequest(List<String> record, Columns columns, ProviderLookup providers) {
+        String name = columns.name(record);
+        int weightInKilos;
+        try {
+            weightInKilos = Integer.parseInt(columns.weightInKilos(record).trim());
+        } catch (NumberFormatException ex) {
+            throw new RowException("Weight must be an integer");
+        }
+
+        Long providerId = null;
+        String providerIdValue = columns.providerId(record);
+        String providerName = columns.providerName(record);
+        if (!providerIdValue.isBlank()) {
+            try {
+                providerId = Long.parseLong(providerIdValue.trim());
+            } catch (NumberFormatException ex) {
+                throw new RowException("Provider ID must be a number");
+            }
+        } else if (!providerName.isBlank()) {
+            providerId = providers.idByName(providerName)
+                    .orElseThrow(() -> new RowException(String.format(PROVIDER_NAME_NOT_FOUND_MESSAGE, providerName)));
+        }
+
+        FruitRequestDTO request = new FruitRequestDTO(name, weightInKilos, providerId);
+        Set<ConstraintViolation<FruitRequestDTO>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new RowException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        if (!providers.exists(providerId)) {
+            throw new RowException(String.format(PROVIDER_ID_NOT_FOUND_MESSAGE, providerId));
+        }
+        return request;
+    }
+
+    private record Columns(int name, int weightInKilos, int providerId, int providerName) {
+
+        static Columns of(List<String> header) {
+            if (header == null) {
+                throw new InvalidRequestException("CSV upload is empty");
+            }
+            List<String> names = header.stream().map(String::trim).toList();
+            Columns columns = new Columns(names.indexOf("name"), names.indexOf("weightInKilos"),
+                    names.indexOf("providerId"), names.indexOf("providerName"));
+            if (columns.name < 0 || columns.weightInKilos < 0 || (columns.providerId < 0 && columns.providerName < 0)) {
+                throw new InvalidRequestException(
+                        "CSV header must include name, weightInKilos and providerId or providerName");
+            }
+            return columns;
+        }
+
+        String name(List<String> record) {
+            return value(record, name);
+        }
+
+        String weightInKilos(List<String> record) {
+            return value(record, weightInKilos);
+        }
+
+        String providerId(List<String> record) {
+            return value(record, providerId);
+        }
+
+        String providerName(List<String> record) {
+            return value(record, providerName);
+        }
+
+        private static String value(List<String> record, int index) {
+            return index >= 0 && index < record.size() ? record.get(index) : "";
+        }
+    }
+
+    private class ChunkedImport implements FruitImport {
+
+        private final CsvReader reader;
+        private final Columns columns;
+        private final long resumeAfterLine;
+        private final Run run = new Run();
+        private final ProviderLookup providers = new ProviderLookup();
+        private final List<FruitRequestDTO> chunk = new ArrayList<>(properties.batchSize());
+        private long chunkFirstLine;
+        private boolean finished;
+
+        ChunkedImport(CsvReader reader, Columns columns, long resumeAfterLine) {
+            this.reader = reader;
+            this.columns = columns;
+            this.resumeAfterLine = resumeAfterLine;
+        }
+
+        @Override
+        public boolean importNextChunk(ChunkListener listener) throws IOException {
+            if (finished) {
+                return false;
+            }
+            int records = 0;
+            long lastLine = reader.recordLine();
+            try {
+                while (records < properties.batchSize()) {
+                    List<String> record = reader.next();
+                    if (record == null) {
+                        finished = true;
+                        break;
+                    }
+                    lastLine = reader.recordLine();
+                    if (lastLine <= resumeAfterLine || (record.size() == 1 && record.get(0).isBlank())) {
+                        continue;
+                    }
+                    records++;
+                    read(record, lastLine);
+                }
+            } catch (CsvFormatException ex) {
+                write(ex.getLine(), listener);
+                run.report(ex.getLine(), ex.getMessage());
+                run.malformed = true;
+                finished = true;
+                finish();
+                return false;
+            }
+            write(lastLine, listener);
+            if (finished) {
+                finish();
+            }
+            return !finished;
+        }
+
+        @Override
+        public FruitImportResult result() {
+            return run.result(finished && !run.malformed);
+        }
+
+        private void read(List<String> record, long line) {
+            run.rowsRead++;
+            try {
+                FruitRequestDTO request = toRequest(record, columns, providers);
+                if (chunk.isEmpty()) {
+                    chunkFirstLine = line;
+                }
+                chunk.add(request);
+            } catch (RowException ex) {
+                run.reject(line, 1, ex.getMessage());
+            }
+            if (run.rowsRead % properties.progressInterval() == 0) {
+                FruitImportResult snapshot = run.result(false);
+                log.info("Fruit import: {} rows read, {} imported, {} rejected ({} rows/s)", snapshot.rowsRead(),
+                        snapshot.imported(), snapshot.rejected(), Math.round(snapshot.rowsPerSecond()));
+            }
+        }
+
+        private void write(long lastLine, ChunkListener listener) {
+            if (chunk.isEmpty() && listener == ChunkListener.NONE) {
+                return;
+            }
+            Long[] providerIds = chunk.stream().map(FruitRequestDTO::providerId).distinct().toArray(Long[]::new);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!chunk.isEmpty()) {
+                        fruitBatchRepository.insertAll(chunk);
+                        changeTracker.fruitsChanged(providerIds);
+                        providerFruitIndex.invalidate(providerIds);
+                    }
+                    listener.chunkWritten(lastLine, run.result(false, chunk.size()));
+                });
+                run.imported += chunk.size();
+            } catch (DataIntegrityViolationException ex) {
+                log.warn("Fruit import chunk at lines {}-{} failed", chunkFirstLine, lastLine, ex);
+                run.reject(chunkFirstLine, chunk.size(), String.format(
+                        "Lines %d to %d not imported: the batch violated a database constraint", chunkFirstLine, lastLine));
+            }
+            chunk.clear();
+        }
+
+        private void finish() {
+            FruitImportResult result = result();
+            log.info("Fruit import {}: {} rows read, {} imported, {} rejected in {} ms ({} rows/s)",
+                    result.completed() ? "finished" : "stopped at malformed CSV", result.rowsRead(), result.imported(),
+                    result.rejected(), result.elapsedMillis(), Math.round(result.rowsPerSecond()));
+        }
+    }
+
+    private class ProviderLookup {
+
+        private final Map<Long, Boolean> existsById = new LruMap<>(properties.providerCacheSize());
+        private final Map<String, Optional<Long>> idsByName = new LruMap<>(properties.providerCacheSize());
+
+        boolean exists(Long id) {
+            return existsById.computeIfAbsent(id, providerRepository::existsById);
+        }
+
+        Optional<Long> idByName(String name) {
+            Optional<Long> id = idsByName.computeIfAbsent(name, providerRepository::findIdByName);
+            id.ifPresent(value -> existsById.put(value, true));
+            return id;
+        }
+    }
+
+    private class Run {
+
+        private final long startNanos = System.nanoTime();
+        private final List<FruitImportError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long imported;
+        private long rejected;
+        private boolean malformed;
+
+        void reject(long line, int rows, String message) {
+            rejected += rows;
+            report(line, message);
+        }
+
+        void report(long line, String message) {
+            if (errors.size() < properties.maxReportedErrors()) {
+                errors.add(new FruitImportError(line, message));
+            }
+        }
+
+        FruitImportResult result(boolean completed) {
+            return result(completed, 0);
+        }
+
+        FruitImportResult result(boolean completed, long importing) {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            return new FruitImportResult(rowsRead, imported + importing, rejected, completed, elapsedNanos / 1_000_000,
+                    rowsRead * 1e9 / Math.max(1, elapsedNanos), List.copyOf(errors));
+        }
+    }
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private final int maxEntries;
+
+        LruMap(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    private static class RowException extends RuntimeException {
+
+        RowException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package cat.itacademy.s04.t02.n02.fruit.service;
 
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitFields;
 import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
 import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightUpdateResult;
+import cat.itacademy.s04.t02.n02.fruit.dto.SparseFruitDTO;
 
 import java.util.List;
 
@@ -10,6 +16,11 @@ public interface FruitService {
     List<FruitResponseDTO> getFruitsByProviderId(Long providerId);
     List<FruitResponseDTO> getAllFruits();
     FruitResponseDTO getFruitById(Long id);
+    List<SparseFruitDTO> getFruitFields(Long providerId, FruitFields fields);
+    SparseFruitDTO getFruitFieldsById(Long id, FruitFields fields);
     FruitResponseDTO updateFruit(Long id, FruitRequestDTO request);
+    FruitWeightUpdateResult updateFruitWeights(List<FruitWeightDTO> weights);
     void deleteFruit(Long id);
+    FruitVersion getFruitVersion(Long id);
+    CatalogueVersion getCatalogueVersion();
 }
\ No newline at end of file
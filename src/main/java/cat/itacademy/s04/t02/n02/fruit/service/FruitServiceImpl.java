@@ -1,17 +1,29 @@
 package cat.itacademy.s04.t02.n02.fruit.service;
 
+import cat.itacademy.s04.t02.n02.fruit.cache.FruitCatalogueCache;
+import cat.itacademy.s04.t02.n02.fruit.cache.FruitColumns;
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndex;
+import cat.itacademy.s04.t02.n02.fruit.collection.IdList;
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitFields;
 import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
 import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightUpdateResult;
+import cat.itacademy.s04.t02.n02.fruit.dto.SparseFruitDTO;
 import cat.itacademy.s04.t02.n02.fruit.exception.ResourceNotFoundException;
 import cat.itacademy.s04.t02.n02.fruit.mapper.FruitMapper;
 import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
 import cat.itacademy.s04.t02.n02.fruit.model.Provider;
-import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
-import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.FruitStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ProviderStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.WeightUpdate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -20,43 +32,72 @@ public class FruitServiceImpl implements FruitService {
 
     private static final String PROVIDER_NOT_FOUND_MESSAGE = "Provider with id %d not found";
     private static final String FRUIT_NOT_FOUND_MESSAGE = "Fruit with id %d not found";
+    private static final int FETCH_BY_ID_CHUNK = 1000;
 
-    private final FruitRepository fruitRepository;
-    private final ProviderRepository providerRepository;
+    private final FruitStore fruitStore;
+    private final ProviderStore providerStore;
     private final FruitMapper fruitMapper;
+    private final CatalogueChangeTracker changeTracker;
+    private final ProviderFruitIndex providerFruitIndex;
+    private final FruitCatalogueCache fruitCatalogueCache;
 
     @Override
     @Transactional
     public FruitResponseDTO createFruit(FruitRequestDTO request) {
-        Provider provider = providerRepository.findById(request.providerId())
+        Provider provider = providerStore.findById(request.providerId())
                 .orElseThrow(() -> new ResourceNotFoundException(
                         String.format(PROVIDER_NOT_FOUND_MESSAGE, request.providerId())
                 ));
 
         Fruit fruit = fruitMapper.toEntity(request, provider);
-        Fruit savedFruit = fruitRepository.save(fruit);
+        Fruit savedFruit = fruitStore.save(fruit);
+        changeTracker.fruitsChanged(provider.getId());
+        providerFruitIndex.fruitAdded(provider.getId(), savedFruit.getId());
         return fruitMapper.toResponseDTO(savedFruit);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<FruitResponseDTO> getFruitsByProviderId(Long providerId) {
-        if (!providerRepository.existsById(providerId)) {
-            throw new ResourceNotFoundException(
-                    String.format(PROVIDER_NOT_FOUND_MESSAGE, providerId)
-            );
+        FruitColumns columns = fruitCatalogueCache.columnsAt(changeTracker::currentVersion);
+        if (columns != null) {
+            List<FruitResponseDTO> fruits = columns.fruitsOf(providerId);
+            if (fruits == null) {
+                throw new ResourceNotFoundException(String.format(PROVIDER_NOT_FOUND_MESSAGE, providerId));
+            }
+            return fruits;
         }
 
-        return fruitRepository.findByProviderId(providerId)
-                .stream()
-                .map(fruitMapper::toResponseDTO)
-                .toList();
+        IdList.View fruitIds = providerFruitIndex.fruitIdsOf(providerId, changeTracker::currentVersion);
+        if (fruitIds == null) {
+            requireProvider(providerId);
+            return fruitStore.findByProviderId(providerId)
+                    .stream()
+                    .map(fruitMapper::toResponseDTO)
+                    .toList();
+        }
+
+        List<FruitResponseDTO> fruits = new ArrayList<>(fruitIds.size());
+        List<Long> chunk = new ArrayList<>(Math.min(fruitIds.size(), FETCH_BY_ID_CHUNK));
+        for (int i = 0; i < fruitIds.size(); i++) {
+            chunk.add(fruitIds.get(i));
+            if (chunk.size() == FETCH_BY_ID_CHUNK || i == fruitIds.size() - 1) {
+                fruitStore.findWithProviderByIdInOrderByIdAsc(chunk)
+                        .forEach(fruit -> fruits.add(fruitMapper.toResponseDTO(fruit)));
+                chunk.clear();
+            }
+        }
+        return fruits;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<FruitResponseDTO> getAllFruits() {
-        return fruitRepository.findAll()
+        FruitColumns columns = fruitCatalogueCache.columnsAt(changeTracker::currentVersion);
+        if (columns != null) {
+            return columns.fruits();
+        }
+        return fruitStore.findAll()
                 .stream()
                 .map(fruitMapper::toResponseDTO)
                 .toList();
@@ -65,38 +106,100 @@ public class FruitServiceImpl implements FruitService {
     @Override
     @Transactional(readOnly = true)
     public FruitResponseDTO getFruitById(Long id) {
-        Fruit fruit = fruitRepository.findById(id)
+        Fruit fruit = fruitStore.findWithProviderById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         String.format(FRUIT_NOT_FOUND_MESSAGE, id)
                 ));
         return fruitMapper.toResponseDTO(fruit);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<SparseFruitDTO> getFruitFields(Long providerId, FruitFields fields) {
+        if (providerId == null) {
+            return fruitStore.findFields(fields);
+        }
+        IdList.View fruitIds = providerFruitIndex.fruitIdsOf(providerId, changeTracker::currentVersion);
+        if (fruitIds == null) {
+            requireProvider(providerId);
+        } else if (!fields.name() && !fields.weightInKilos() && !fields.provider()) {
+            List<SparseFruitDTO> fruits = new ArrayList<>(fruitIds.size());
+            for (int i = 0; i < fruitIds.size(); i++) {
+                fruits.add(new SparseFruitDTO(fields.id() ? fruitIds.get(i) : null, null, null,
+                        fields.providerId() ? providerId : null, null));
+            }
+            return fruits;
+        }
+        return fruitStore.findFieldsByProviderId(providerId, fields);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SparseFruitDTO getFruitFieldsById(Long id, FruitFields fields) {
+        return fruitStore.findFieldsById(id, fields)
+                .orElseThrow(() -> new ResourceNotFoundException(String.format(FRUIT_NOT_FOUND_MESSAGE, id)));
+    }
+
     @Override
     @Transactional
     public FruitResponseDTO updateFruit(Long id, FruitRequestDTO request) {
-        Fruit fruit = fruitRepository.findById(id)
+        Fruit fruit = fruitStore.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(String.format(FRUIT_NOT_FOUND_MESSAGE, id)
                 ));
 
-        Provider provider = providerRepository.findById(request.providerId())
+        Provider provider = providerStore.findById(request.providerId())
                 .orElseThrow(() -> new ResourceNotFoundException(String.format(PROVIDER_NOT_FOUND_MESSAGE, request.providerId())
                 ));
 
+        Long previousProviderId = fruit.getProvider().getId();
         fruit.setName(request.name());
         fruit.setWeightInKilos(request.weightInKilos());
         fruit.setProvider(provider);
 
-        Fruit updatedFruit = fruitRepository.save(fruit);
+        Fruit updatedFruit = fruitStore.save(fruit);
+        changeTracker.fruitsChanged(previousProviderId, provider.getId());
+        providerFruitIndex.fruitMoved(id, previousProviderId, provider.getId());
         return fruitMapper.toResponseDTO(updatedFruit);
     }
 
+    @Override
+    @Transactional
+    public FruitWeightUpdateResult updateFruitWeights(List<FruitWeightDTO> weights) {
+        WeightUpdate update = fruitStore.updateWeights(weights);
+        if (update.updated() > 0) {
+            changeTracker.fruitsChanged(update.providerIds().toArray(Long[]::new));
+        }
+        return new FruitWeightUpdateResult(update.updated(), update.missingIds());
+    }
+
     @Override
     @Transactional
     public void deleteFruit(Long id) {
-        Fruit fruit = fruitRepository.findById(id)
+        Fruit fruit = fruitStore.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(String.format(FRUIT_NOT_FOUND_MESSAGE, id)
                 ));
-        fruitRepository.delete(fruit);
+        fruitStore.delete(fruit);
+        changeTracker.fruitsChanged(fruit.getProvider().getId());
+        providerFruitIndex.fruitRemoved(fruit.getProvider().getId(), id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public FruitVersion getFruitVersion(Long id) {
+        return fruitStore.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(String.format(FRUIT_NOT_FOUND_MESSAGE, id)));
+    }
+
+    @Override
+    public CatalogueVersion getCatalogueVersion() {
+        return changeTracker.currentVersion();
+    }
+
+    private void requireProvider(Long providerId) {
+        if (!providerStore.existsById(providerId)) {
+            throw new ResourceNotFoundException(
+                    String.format(PROVIDER_NOT_FOUND_MESSAGE, providerId)
+            );
+        }
     }
 }
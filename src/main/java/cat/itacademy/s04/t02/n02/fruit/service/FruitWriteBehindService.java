@@ -0,0 +1,16 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.WriteBehindStatusDTO;
+
+public interface FruitWriteBehindService {
+
+    /**
+     * Queues the fruit for a batched insert.
+     *
+     * @throws cat.itacademy.s04.t02.n02.fruit.exception.ServiceOverloadedException when the queue is full
+     */
+    void enqueue(FruitRequestDTO request);
+
+    WriteBehindStatusDTO getStatus();
+}
@@ -0,0 +1,157 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndex;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.WriteBehindStatusDTO;
+import cat.itacademy.s04.t02.n02.fruit.exception.ServiceOverloadedException;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitBatchRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind fruit creation: requests are validated, queued and acknowledged, and one writer thread
+ * inserts them in batches. Transiently failing batches are retried; others are written a fruit at a time.
+ */
+@Slf4j
+public class FruitWriteBehindServiceImpl implements FruitWriteBehindService, AutoCloseable {
+
+    private final FruitBatchRepository fruitBatchRepository;
+    private final ProviderRepository providerRepository;
+    private final CatalogueChangeTracker changeTracker;
+    private final ProviderFruitIndex providerFruitIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBehindProperties properties;
+    private final WriteBehindQueue<FruitRequestDTO> queue;
+    private final Thread writer;
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+    private volatile boolean stopping;
+
+    public FruitWriteBehindServiceImpl(FruitBatchRepository fruitBatchRepository, ProviderRepository providerRepository,
+                                       CatalogueChangeTracker changeTracker, ProviderFruitIndex providerFruitIndex,
+                                       TransactionTemplate transactionTemplate, WriteBehindProperties properties) {
+        this.fruitBatchRepository = fruitBatchRepository;
+        this.providerRepository = providerRepository;
+        this.changeTracker = changeTracker;
+        this.providerFruitIndex = providerFruitIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.queue = new WriteBehindQueue<>(properties.capacity());
+        this.writer = Thread.ofPlatform().name("fruit-write-behind").daemon().start(this::writeLoop);
+    }
+
+    @Override
+    public void enqueue(FruitRequestDTO request) {
+        if (stopping || !queue.offer(request)) {
+            refused.incrementAndGet();
+            throw new ServiceOverloadedException("Too many pending asynchronous creates, retry later",
+                    properties.retryAfter());
+        }
+        accepted.incrementAndGet();
+        if (queue.size() >= properties.batchSize()) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    @Override
+    public WriteBehindStatusDTO getStatus() {
+        return new WriteBehindStatusDTO(queue.size(), queue.capacity(), accepted.get(), written.get(),
+                rejected.get(), failed.get(), refused.get());
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    private void writeLoop() {
+        List<FruitRequestDTO> batch = new ArrayList<>(properties.batchSize());
+        long maxDelayNanos = properties.maxDelay().toNanos();
+        while (!stopping || queue.size() > 0) {
+            queue.drainTo(batch, properties.batchSize());
+            if (batch.size() < properties.batchSize() && !stopping) {
+                LockSupport.parkNanos(this, maxDelayNanos);
+                queue.drainTo(batch, properties.batchSize() - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                writeWithRetry(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeWithRetry(List<FruitRequestDTO> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                write(batch);
+                return;
+            } catch (RuntimeException ex) {
+                if (!DataAccessFailures.isTransient(ex)) {
+                    if (batch.size() == 1) {
+                        failed.incrementAndGet();
+                        log.error("Dropping queued fruit '{}' that cannot be written", batch.getFirst().name(), ex);
+                    } else {
+                        log.warn("Writing {} queued fruits failed; writing them one by one", batch.size(), ex);
+                        batch.forEach(fruit -> writeWithRetry(List.of(fruit)));
+                    }
+                    return;
+                }
+                if (stopping || attempt >= properties.maxAttempts()) {
+                    failed.addAndGet(batch.size());
+                    log.error("Dropping {} queued fruits after {} failed attempts", batch.size(), attempt, ex);
+                    return;
+                }
+                log.warn("Writing {} queued fruits failed, retrying in {} ms", batch.size(),
+                        properties.retryBackoff().toMillis(), ex);
+                LockSupport.parkNanos(this, properties.retryBackoff().toNanos());
+            }
+        }
+    }
+
+    private void write(List<FruitRequestDTO> batch) {
+        Integer inserted = transactionTemplate.execute(status -> {
+            Set<Long> existing = providerRepository.findExistingIds(
+                    batch.stream().map(FruitRequestDTO::providerId).distinct().toList());
+            List<FruitRequestDTO> valid = batch.stream().filter(fruit -> existing.contains(fruit.providerId())).toList();
+            if (!valid.isEmpty()) {
+                fruitBatchRepository.insertAll(valid);
+                Long[] providerIds = valid.stream().map(FruitRequestDTO::providerId).distinct().toArray(Long[]::new);
+                changeTracker.fruitsChanged(providerIds);
+                providerFruitIndex.invalidate(providerIds);
+            }
+            return valid.size();
+        });
+        written.addAndGet(inserted);
+        if (inserted < batch.size()) {
+            rejected.addAndGet(batch.size() - inserted);
+            log.warn("Dropped {} queued fruits whose provider no longer exists", batch.size() - inserted);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        stopping = true;
+        LockSupport.unpark(writer);
+        writer.join(properties.shutdownTimeout().toMillis());
+        if (writer.isAlive()) {
+            log.error("{} queued fruits were not written within {} ms of shutdown", queue.size(),
+                    properties.shutdownTimeout().toMillis());
+            return;
+        }
+        // Creates accepted while the writer was finishing its last batch
+        List<FruitRequestDTO> late = new ArrayList<>();
+        while (queue.drainTo(late, properties.batchSize()) > 0) {
+            writeWithRetry(late);
+            late.clear();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.JobRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.JobResponseDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface JobService {
+
+    JobResponseDTO submitJob(JobRequestDTO request);
+
+    /**
+     * Spools the CSV to the job directory and submits an {@code IMPORT_FRUITS} job for it.
+     */
+    JobResponseDTO submitImport(InputStream csv) throws IOException;
+
+    JobResponseDTO getJob(Long id);
+}
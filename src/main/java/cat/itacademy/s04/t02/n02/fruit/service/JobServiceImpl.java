@@ -0,0 +1,107 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.JobRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.JobResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.exception.InvalidRequestException;
+import cat.itacademy.s04.t02.n02.fruit.exception.ResourceNotFoundException;
+import cat.itacademy.s04.t02.n02.fruit.job.JobProperties;
+import cat.itacademy.s04.t02.n02.fruit.job.JobSubmittedEvent;
+import cat.itacademy.s04.t02.n02.fruit.mapper.JobMapper;
+import cat.itacademy.s04.t02.n02.fruit.model.Job;
+import cat.itacademy.s04.t02.n02.fruit.model.JobType;
+import cat.itacademy.s04.t02.n02.fruit.repository.JobRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ConditionalOnDatabase;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+@Service
+@ConditionalOnDatabase
+@RequiredArgsConstructor
+public class JobServiceImpl implements JobService {
+
+    static final int MAX_PERCENT = 1000;
+
+    private static final String JOB_NOT_FOUND_MESSAGE = "Job with id %d not found";
+    private static final String PROVIDER_NOT_FOUND_MESSAGE = "Provider with id %d not found";
+
+    private final JobRepository jobRepository;
+    private final ProviderRepository providerRepository;
+    private final JobMapper jobMapper;
+    private final JobProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public JobResponseDTO submitJob(JobRequestDTO request) {
+        Job job = new Job(request.type());
+        switch (request.type()) {
+            case IMPORT_FRUITS -> throw new InvalidRequestException("Import jobs are submitted as a text/csv upload");
+            case ADJUST_FRUIT_WEIGHTS -> {
+                if (request.percent() == null || request.percent() <= -100 || request.percent() > MAX_PERCENT) {
+                    throw new InvalidRequestException("Percent must be greater than -100 and at most " + MAX_PERCENT);
+                }
+                job.setPercent(request.percent());
+                job.setProviderId(existingProvider(request.providerId(), false));
+            }
+            case DELETE_FRUITS -> job.setProviderId(existingProvider(request.providerId(), true));
+            case DELETE_PROVIDERS -> {
+                if (request.country() == null || request.country().isBlank()) {
+                    throw new InvalidRequestException("Country cannot be blank");
+                }
+                job.setCountry(request.country());
+            }
+        }
+        return submit(job);
+    }
+
+    @Override
+    public JobResponseDTO submitImport(InputStream csv) throws IOException {
+        Files.createDirectories(properties.spoolDirectory());
+        Path file = Files.createTempFile(properties.spoolDirectory(), "import-", ".csv");
+        try {
+            Files.copy(csv, file, StandardCopyOption.REPLACE_EXISTING);
+            Job job = new Job(JobType.IMPORT_FRUITS);
+            job.setInputFile(file.toAbsolutePath().toString());
+            return submit(job);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(file);
+            throw ex;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public JobResponseDTO getJob(Long id) {
+        return jobRepository.findById(id)
+                .map(jobMapper::toResponseDTO)
+                .orElseThrow(() -> new ResourceNotFoundException(String.format(JOB_NOT_FOUND_MESSAGE, id)));
+    }
+
+    private JobResponseDTO submit(Job job) {
+        Job saved = jobRepository.save(job);
+        eventPublisher.publishEvent(new JobSubmittedEvent(saved.getId()));
+        return jobMapper.toResponseDTO(saved);
+    }
+
+    private Long existingProvider(Long providerId, boolean required) {
+        if (providerId == null) {
+            if (required) {
+                throw new InvalidRequestException("Provider ID cannot be null");
+            }
+            return null;
+        }
+        if (!providerRepository.existsById(providerId)) {
+            throw new ResourceNotFoundException(String.format(PROVIDER_NOT_FOUND_MESSAGE, providerId));
+        }
+        return providerId;
+    }
+}
@@ -1,5 +1,6 @@
 package cat.itacademy.s04.t02.n02.fruit.service;
 
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
 import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
 import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
 
@@ -11,4 +12,6 @@ public interface ProviderService {
     ProviderResponseDTO updateProvider(Long id, ProviderRequestDTO request);
     void deleteProvider(Long id);
     ProviderResponseDTO getProviderById(Long id);
+    long getProviderVersion(Long id);
+    CatalogueVersion getCatalogueVersion();
 }
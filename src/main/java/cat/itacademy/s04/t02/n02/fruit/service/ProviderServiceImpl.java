@@ -1,5 +1,7 @@
 package cat.itacademy.s04.t02.n02.fruit.service;
 
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndex;
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
 import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
 import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
 import cat.itacademy.s04.t02.n02.fruit.exception.DuplicateResourceException;
@@ -7,8 +9,8 @@ import cat.itacademy.s04.t02.n02.fruit.exception.ResourceConflictException;
 import cat.itacademy.s04.t02.n02.fruit.exception.ResourceNotFoundException;
 import cat.itacademy.s04.t02.n02.fruit.mapper.ProviderMapper;
 import cat.itacademy.s04.t02.n02.fruit.model.Provider;
-import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
-import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.FruitStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ProviderStore;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,68 +24,89 @@ public class ProviderServiceImpl implements ProviderService {
     private static final String PROVIDER_NOT_FOUND_MESSAGE = "Provider with id %s not found";
     private static final String PROVIDER_HAS_FRUITS_MESSAGE = "Cannot delete provider with id %d because it has associated fruits";
 
-    private final ProviderRepository providerRepository;
+    private final ProviderStore providerStore;
     private final ProviderMapper providerMapper;
-    private final FruitRepository fruitRepository;
+    private final FruitStore fruitStore;
+    private final CatalogueChangeTracker changeTracker;
+    private final ProviderFruitIndex providerFruitIndex;
 
     @Override
     @Transactional
     public ProviderResponseDTO createProvider(ProviderRequestDTO request) {
-        if (providerRepository.existsByName(request.name())) {
+        if (providerStore.existsByName(request.name())) {
             throw new DuplicateResourceException(String.format(DUPLICATED_PROVIDER_MESSAGE, request.name()));
         }
 
         Provider entity = providerMapper.toEntity(request);
-        Provider savedEntity = providerRepository.save(entity);
+        Provider savedEntity = providerStore.save(entity);
+        changeTracker.providersChanged(savedEntity.getId());
+        providerFruitIndex.providerAdded(savedEntity.getId());
         return providerMapper.toResponseDTO(savedEntity);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProviderResponseDTO> getAllProviders() {
-        return providerRepository.findAll().stream().map(providerMapper::toResponseDTO).toList();
+        return providerStore.findAll().stream().map(providerMapper::toResponseDTO).toList();
     }
 
     @Override
     @Transactional
     public ProviderResponseDTO updateProvider(Long id, ProviderRequestDTO request) {
-        Provider provider = providerRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException(String.format(PROVIDER_NOT_FOUND_MESSAGE, id)));
+        Provider provider = providerStore.findById(id).orElseThrow(() -> new ResourceNotFoundException(String.format(PROVIDER_NOT_FOUND_MESSAGE, id)));
 
-        if (!provider.getName().equals(request.name()) && providerRepository.existsByName(request.name())) {
+        if (!provider.getName().equals(request.name()) && providerStore.existsByName(request.name())) {
             throw new DuplicateResourceException(String.format(DUPLICATED_PROVIDER_MESSAGE, request.name()));
         }
 
         provider.setName(request.name());
         provider.setCountry(request.country());
 
-        Provider updatedProvider = providerRepository.save(provider);
+        Provider updatedProvider = providerStore.save(provider);
+        changeTracker.providersChanged(id);
         return providerMapper.toResponseDTO(updatedProvider);
     }
 
     @Override
     @Transactional
     public void deleteProvider(Long id) {
-        Provider provider = providerRepository.findById(id)
+        Provider provider = providerStore.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         String.format(PROVIDER_NOT_FOUND_MESSAGE, id)
                 ));
 
-        if (fruitRepository.existsByProviderId(id)) {
+        if (fruitStore.existsByProviderId(id)) {
             throw new ResourceConflictException(
                     String.format(PROVIDER_HAS_FRUITS_MESSAGE, id)
             );
         }
 
-        providerRepository.delete(provider);
+        providerStore.delete(provider);
+        changeTracker.providersChanged(id);
+        providerFruitIndex.providerRemoved(id);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ProviderResponseDTO getProviderById(Long id) {
-        Provider provider = providerRepository.findById(id)
+        Provider provider = providerStore.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         String.format(PROVIDER_NOT_FOUND_MESSAGE, id)
                 ));
         return providerMapper.toResponseDTO(provider);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getProviderVersion(Long id) {
+        return providerStore.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        String.format(PROVIDER_NOT_FOUND_MESSAGE, id)
+                ));
+    }
+
+    @Override
+    public CatalogueVersion getCatalogueVersion() {
+        return changeTracker.currentVersion();
+    }
 }
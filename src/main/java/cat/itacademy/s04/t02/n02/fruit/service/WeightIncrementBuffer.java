@@ -0,0 +1,72 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Weight deltas waiting to be written, summed per fruit in independently locked stripes.
+ */
+public class WeightIncrementBuffer {
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final AtomicInteger pendingFruits = new AtomicInteger();
+
+    public WeightIncrementBuffer(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes));
+        size = size < stripes ? size << 1 : size;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return fruits with pending deltas, including this one
+     */
+    public int add(long fruitId, long delta) {
+        Stripe stripe = stripes[Long.hashCode(fruitId) & mask];
+        synchronized (stripe) {
+            long[] sum = stripe.deltas.get(fruitId);
+            if (sum == null) {
+                stripe.deltas.put(fruitId, new long[]{delta});
+                return pendingFruits.incrementAndGet();
+            }
+            sum[0] += delta;
+        }
+        return pendingFruits.get();
+    }
+
+    /**
+     * Removes and returns the pending deltas, in fruit id order.
+     */
+    public SortedMap<Long, Long> drain() {
+        SortedMap<Long, Long> drained = new TreeMap<>();
+        for (Stripe stripe : stripes) {
+            Map<Long, long[]> deltas;
+            synchronized (stripe) {
+                if (stripe.deltas.isEmpty()) {
+                    continue;
+                }
+                deltas = stripe.deltas;
+                stripe.deltas = new HashMap<>();
+                pendingFruits.addAndGet(-deltas.size());
+            }
+            deltas.forEach((fruitId, sum) -> drained.put(fruitId, sum[0]));
+        }
+        return drained;
+    }
+
+    public int pendingFruits() {
+        return pendingFruits.get();
+    }
+
+    private static final class Stripe {
+
+        Map<Long, long[]> deltas = new HashMap<>();
+    }
+}
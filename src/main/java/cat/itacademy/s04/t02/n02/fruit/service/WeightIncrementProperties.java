@@ -0,0 +1,18 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param flushInterval  longest time an acknowledged increment waits in memory before it is written
+ * @param flushThreshold fruits with pending increments that trigger a flush before the interval ends
+ * @param stripes        independently locked partitions of the buffer, rounded up to a power of two
+ */
+@ConfigurationProperties(prefix = "fruit.weight-increments")
+public record WeightIncrementProperties(
+        @DefaultValue("100ms") Duration flushInterval,
+        @DefaultValue("10000") int flushThreshold,
+        @DefaultValue("64") int stripes
+) {}
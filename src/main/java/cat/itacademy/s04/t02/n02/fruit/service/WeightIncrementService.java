@@ -0,0 +1,28 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+
+public interface WeightIncrementService {
+
+    /**
+     * Buffers the delta; it is written with the fruit's other pending deltas at the next flush. Deltas for a
+     * fruit that does not exist by then, or whose sum would overflow its weight, are dropped.
+     */
+    void increment(Long fruitId, int delta);
+
+    /**
+     * Writes the delta before returning, and returns the fruit as committed.
+     *
+     * @throws cat.itacademy.s04.t02.n02.fruit.exception.ResourceConflictException when the weight would overflow
+     */
+    FruitResponseDTO incrementNow(Long fruitId, int delta);
+
+    /**
+     * Writes the pending deltas in one transaction, retrying each fruit in its own when that fails.
+     *
+     * @return fruits updated
+     */
+    int flush();
+
+    int pendingFruits();
+}
@@ -0,0 +1,172 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.exception.ResourceConflictException;
+import cat.itacademy.s04.t02.n02.fruit.exception.ResourceNotFoundException;
+import cat.itacademy.s04.t02.n02.fruit.mapper.FruitMapper;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitBatchRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.WeightUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces weight increments in a {@link WeightIncrementBuffer} and writes them from one flusher thread,
+ * as one {@code weight_in_kilos = weight_in_kilos + ?} update per fruit.
+ */
+@Slf4j
+public class WeightIncrementServiceImpl implements WeightIncrementService, AutoCloseable {
+
+    private static final String FRUIT_NOT_FOUND_MESSAGE = "Fruit with id %d not found";
+    private static final String WEIGHT_OVERFLOW_MESSAGE = "Adding %d kg would overflow the weight of fruit with id %d";
+
+    private final FruitBatchRepository fruitBatchRepository;
+    private final FruitRepository fruitRepository;
+    private final FruitMapper fruitMapper;
+    private final CatalogueChangeTracker changeTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final WeightIncrementProperties properties;
+    private final WeightIncrementBuffer buffer;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed;
+
+    public WeightIncrementServiceImpl(FruitBatchRepository fruitBatchRepository, FruitRepository fruitRepository,
+                                      FruitMapper fruitMapper, CatalogueChangeTracker changeTracker,
+                                      TransactionTemplate transactionTemplate, WeightIncrementProperties properties) {
+        this.fruitBatchRepository = fruitBatchRepository;
+        this.fruitRepository = fruitRepository;
+        this.fruitMapper = fruitMapper;
+        this.changeTracker = changeTracker;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.buffer = new WeightIncrementBuffer(properties.stripes());
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("weight-increment-flusher").daemon().factory());
+        long interval = properties.flushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void increment(Long fruitId, int delta) {
+        int pending = buffer.add(fruitId, delta);
+        if (closed) {
+            flushQuietly();
+        } else if (pending >= properties.flushThreshold() && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    @Override
+    public FruitResponseDTO incrementNow(Long fruitId, int delta) {
+        SortedMap<Long, Long> deltas = new TreeMap<>();
+        deltas.put(fruitId, (long) delta);
+        return transactionTemplate.execute(status -> {
+            WeightUpdate update = fruitBatchRepository.incrementWeights(deltas);
+            if (!update.overflowIds().isEmpty()) {
+                throw new ResourceConflictException(String.format(WEIGHT_OVERFLOW_MESSAGE, delta, fruitId));
+            }
+            if (update.updated() == 0) {
+                throw new ResourceNotFoundException(String.format(FRUIT_NOT_FOUND_MESSAGE, fruitId));
+            }
+            changeTracker.fruitsChanged(update.providerIds().toArray(Long[]::new));
+            return fruitRepository.findWithProviderById(fruitId)
+                    .map(fruitMapper::toResponseDTO)
+                    .orElseThrow();
+        });
+    }
+
+    @Override
+    public synchronized int flush() {
+        flushRequested.set(false);
+        SortedMap<Long, Long> deltas = buffer.drain();
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        WeightUpdate update;
+        try {
+            update = write(deltas);
+        } catch (RuntimeException ex) {
+            if (DataAccessFailures.isTransient(ex)) {
+                deltas.forEach(buffer::add);
+                throw ex;
+            }
+            log.warn("Writing weight increments for {} fruits failed; writing them one by one", deltas.size(), ex);
+            return flushEach(deltas);
+        }
+        logDropped(update);
+        return update.updated();
+    }
+
+    /**
+     * Writes each fruit's delta in its own transaction. A transient failure puts the remaining fruits back in
+     * the buffer.
+     */
+    private int flushEach(SortedMap<Long, Long> deltas) {
+        int updated = 0;
+        for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+            SortedMap<Long, Long> single = new TreeMap<>(Map.of(delta.getKey(), delta.getValue()));
+            try {
+                WeightUpdate update = write(single);
+                logDropped(update);
+                updated += update.updated();
+            } catch (RuntimeException ex) {
+                if (DataAccessFailures.isTransient(ex)) {
+                    deltas.tailMap(delta.getKey()).forEach(buffer::add);
+                    throw ex;
+                }
+                log.error("Dropped a weight increment of {} kg for fruit {} that cannot be written",
+                        delta.getValue(), delta.getKey(), ex);
+            }
+        }
+        return updated;
+    }
+
+    private WeightUpdate write(SortedMap<Long, Long> deltas) {
+        return transactionTemplate.execute(status -> {
+            WeightUpdate written = fruitBatchRepository.incrementWeights(deltas);
+            if (written.updated() > 0) {
+                changeTracker.fruitsChanged(written.providerIds().toArray(Long[]::new));
+            }
+            return written;
+        });
+    }
+
+    private static void logDropped(WeightUpdate update) {
+        if (!update.missingIds().isEmpty()) {
+            log.warn("Dropped weight increments for {} fruits that no longer exist", update.missingIds().size());
+        }
+        if (!update.overflowIds().isEmpty()) {
+            log.warn("Dropped weight increments for {} fruits whose weight they would overflow", update.overflowIds().size());
+        }
+    }
+
+    @Override
+    public int pendingFruits() {
+        return buffer.pendingFruits();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            log.warn("Writing weight increments failed; they are retried with the next flush", ex);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        flusher.shutdown();
+        flusher.awaitTermination(properties.flushInterval().toMillis() + 10_000, TimeUnit.MILLISECONDS);
+        flushQuietly();
+    }
+}
@@ -0,0 +1,26 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param capacity        fruits that can wait to be written, rounded up to a power of two
+ * @param batchSize       fruits written per insert statement and transaction
+ * @param maxDelay        longest time the writer waits for a batch to fill
+ * @param retryBackoff    wait before retrying a batch that failed transiently
+ * @param maxAttempts     attempts at a batch before it is dropped
+ * @param retryAfter      {@code Retry-After} sent with the 503 when the queue is full
+ * @param shutdownTimeout how long shutdown waits for the queue to be written
+ */
+@ConfigurationProperties(prefix = "fruit.write-behind")
+public record WriteBehindProperties(
+        @DefaultValue("65536") int capacity,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("200ms") Duration maxDelay,
+        @DefaultValue("1s") Duration retryBackoff,
+        @DefaultValue("10") int maxAttempts,
+        @DefaultValue("1s") Duration retryAfter,
+        @DefaultValue("30s") Duration shutdownTimeout
+) {}
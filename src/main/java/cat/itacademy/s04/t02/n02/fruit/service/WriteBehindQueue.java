@@ -0,0 +1,102 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer, single-consumer queue over a ring of sequenced slots (Vyukov's bounded queue).
+ * {@link #offer} never blocks.
+ */
+public class WriteBehindQueue<T> {
+
+    private final AtomicReferenceArray<T> items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public WriteBehindQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity));
+        size = size < capacity ? size << 1 : size;
+        this.items = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    public boolean offer(T item) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long lag = sequences.get(slot) - position;
+            if (lag == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items.set(slot, item);
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (lag < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Moves up to {@code max} items to {@code target}, oldest first.
+     *
+     * @return items moved
+     */
+    public int drainTo(Collection<? super T> target, int max) {
+        int drained = 0;
+        while (drained < max) {
+            T item = poll();
+            if (item == null) {
+                break;
+            }
+            target.add(item);
+            drained++;
+        }
+        return drained;
+    }
+
+    public T poll() {
+        long position = head.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long lag = sequences.get(slot) - (position + 1);
+            if (lag == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    T item = items.getAndSet(slot, null);
+                    sequences.set(slot, position + mask + 1);
+                    return item;
+                }
+                position = head.get();
+            } else if (lag < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * Items claimed by producers and not yet taken; approximate while producers or the consumer are active.
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(capacity(), tail.get() - head.get()));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
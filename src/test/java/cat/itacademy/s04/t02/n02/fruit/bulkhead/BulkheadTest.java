@@ -0,0 +1,121 @@
+package cat.itacademy.s04.t02.n02.fruit.bulkhead;
+
+import cat.itacademy.s04.t02.n02.fruit.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadTest {
+
+    @Test
+    void acquire_WithFullQueue_RejectsImmediately() {
+        Bulkhead bulkhead = new Bulkhead(Workload.BULK, 1, 0, Duration.ofSeconds(10), Duration.ofSeconds(3));
+
+        try (Bulkhead.Permit ignored = bulkhead.acquire()) {
+            long start = System.nanoTime();
+            assertThatThrownBy(bulkhead::acquire)
+                    .isInstanceOf(ServiceOverloadedException.class)
+                    .hasMessage("Too many concurrent bulk requests, retry later")
+                    .extracting("retryAfter").isEqualTo(Duration.ofSeconds(3));
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        }
+    }
+
+    @Test
+    void acquire_WhenWaitTimesOut_Rejects() {
+        Bulkhead bulkhead = new Bulkhead(Workload.MUTATION, 1, 1, Duration.ofMillis(50), Duration.ofSeconds(1));
+
+        try (Bulkhead.Permit ignored = bulkhead.acquire()) {
+            assertThatThrownBy(bulkhead::acquire).isInstanceOf(ServiceOverloadedException.class);
+            assertThat(bulkhead.queued()).isZero();
+        }
+    }
+
+    @Test
+    void acquire_WhenSlotIsReleased_LetsQueuedCallerIn() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(Workload.READ, 1, 1, Duration.ofSeconds(10), Duration.ofSeconds(1));
+        Bulkhead.Permit first = bulkhead.acquire();
+        CountDownLatch started = new CountDownLatch(1);
+
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> {
+            started.countDown();
+            try (Bulkhead.Permit ignored = bulkhead.acquire()) {
+                return bulkhead.active();
+            }
+        });
+        started.await();
+        first.close();
+
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(bulkhead.active()).isZero();
+    }
+
+    @Test
+    void close_CalledTwice_ReleasesSlotOnce() {
+        Bulkhead bulkhead = new Bulkhead(Workload.READ, 2, 0, Duration.ZERO, Duration.ofSeconds(1));
+        Bulkhead.Permit permit = bulkhead.acquire();
+        bulkhead.acquire();
+
+        permit.close();
+        permit.close();
+
+        assertThat(bulkhead.active()).isEqualTo(1);
+    }
+
+    @Test
+    void maxConcurrent_WithConnectionShare_IsCappedByPoolShare() {
+        BulkheadProperties.Limits limits = new BulkheadProperties.Limits(32, 64, Duration.ofSeconds(1), 0.5);
+
+        assertThat(Bulkheads.maxConcurrent(limits, 10)).isEqualTo(5);
+        assertThat(Bulkheads.maxConcurrent(limits, 3)).isEqualTo(2);
+        assertThat(Bulkheads.maxConcurrent(new BulkheadProperties.Limits(32, 64, Duration.ofSeconds(1), 0), 3))
+                .isEqualTo(32);
+    }
+
+    @Test
+    void sizes_BeyondRequestThreads_ShrinkQueuesFirst() {
+        BulkheadProperties properties = properties(64, 128, 32, 64);
+
+        Map<Workload, Bulkheads.Size> sizes = Bulkheads.sizes(properties, 10, 200);
+
+        assertThat(sizes.get(Workload.READ)).isEqualTo(new Bulkheads.Size(64, 67));
+        assertThat(sizes.get(Workload.MUTATION)).isEqualTo(new Bulkheads.Size(32, 33));
+        assertThat(sizes.values().stream().mapToInt(size -> size.maxConcurrent() + size.maxQueue()).sum())
+                .isLessThanOrEqualTo(200);
+    }
+
+    @Test
+    void sizes_WithConcurrencyBeyondRequestThreads_DropQueuesAndShrinkConcurrency() {
+        BulkheadProperties properties = properties(200, 10, 100, 10);
+
+        Map<Workload, Bulkheads.Size> sizes = Bulkheads.sizes(properties, 10, 100);
+
+        assertThat(sizes.get(Workload.READ)).isEqualTo(new Bulkheads.Size(66, 0));
+        assertThat(sizes.get(Workload.MUTATION)).isEqualTo(new Bulkheads.Size(33, 0));
+        assertThat(sizes.get(Workload.BULK)).isEqualTo(new Bulkheads.Size(1, 0));
+    }
+
+    @Test
+    void sizes_WithinRequestThreads_AreKept() {
+        Map<Workload, Bulkheads.Size> sizes = Bulkheads.sizes(properties(64, 64, 32, 32), 10, 200);
+
+        assertThat(sizes.get(Workload.READ)).isEqualTo(new Bulkheads.Size(64, 64));
+        assertThat(sizes.get(Workload.BULK)).isEqualTo(new Bulkheads.Size(2, 2));
+    }
+
+    private static BulkheadProperties properties(int readConcurrent, int readQueue,
+                                                 int mutationConcurrent, int mutationQueue) {
+        Duration wait = Duration.ofSeconds(1);
+        return new BulkheadProperties(true, wait,
+                new BulkheadProperties.Limits(readConcurrent, readQueue, wait, 0),
+                new BulkheadProperties.Limits(mutationConcurrent, mutationQueue, wait, 0),
+                new BulkheadProperties.Limits(2, 2, wait, 0));
+    }
+}
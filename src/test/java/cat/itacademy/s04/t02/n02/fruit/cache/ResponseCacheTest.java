@@ -0,0 +1,82 @@
+package cat.itacademy.s04.t02.n02.fruit.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final ResponseCache cache = new ResponseCache(2, 100, now::get);
+
+    @Test
+    void reserve_WhenFull_EvictsOldestInsteadOfRefusing() {
+        store("a");
+        store("b");
+
+        assertThat(store("c")).isTrue();
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNotNull();
+        assertThat(cache.get("c")).isNotNull();
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void reserve_WhenFull_GivesEntriesReadSinceStoredASecondChance() {
+        store("a");
+        store("b");
+        cache.get("a");
+
+        store("c");
+
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isNotNull();
+    }
+
+    @Test
+    void reserve_AfterTimeToLive_SweepsExpiredEntriesNeverReadAgain() {
+        store("a");
+        store("b");
+
+        now.addAndGet(100);
+        cache.reserve("c");
+
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void markUncacheable_ExpiresWithTimeToLive() {
+        cache.markUncacheable("a", cache.reserve("a"));
+
+        assertThat(cache.reserve("a")).isNull();
+
+        now.addAndGet(100);
+
+        assertThat(cache.reserve("a")).isNotNull();
+    }
+
+    @Test
+    void invalidatePrefix_DropsEntriesAndReservationsSoLateStoresFail() {
+        ResponseCache.Reservation inFlight = cache.reserve("/fruits?providerId=1");
+        store("/fruits");
+        store("/providers");
+
+        cache.invalidatePrefix("/fruits");
+
+        assertThat(cache.get("/fruits")).isNull();
+        assertThat(cache.store("/fruits?providerId=1", inFlight, entry())).isFalse();
+        assertThat(cache.get("/providers")).isNotNull();
+    }
+
+    private boolean store(String key) {
+        return cache.store(key, cache.reserve(key), entry());
+    }
+
+    private static ResponseCache.Entry entry() {
+        return new ResponseCache.Entry(new byte[]{1}, null, "application/json", null);
+    }
+}
@@ -0,0 +1,99 @@
+package cat.itacademy.s04.t02.n02.fruit.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.IntSummaryStatistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AimdLimitTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    void onSample_WithSlowingDatabase_ConvergesToCapacityAtTargetLatency() {
+        AimdLimit limit = new AimdLimit(20, 1, 500, Duration.ofMillis(100), 0.9);
+        Simulation simulation = new Simulation(limit);
+
+        // 8 parallel queries of 10 ms: latency reaches 100 ms at 80 in flight
+        IntSummaryStatistics healthy = simulation.run(400, 8, 10 * MILLIS);
+        assertThat(healthy.getMin()).isGreaterThanOrEqualTo(70);
+        assertThat(healthy.getMax()).isLessThanOrEqualTo(81);
+
+        // Queries slow down to 25 ms: latency reaches 100 ms at 32 in flight
+        IntSummaryStatistics slow = simulation.run(200, 8, 25 * MILLIS);
+        assertThat(slow.getMin()).isGreaterThanOrEqualTo(28);
+        assertThat(slow.getMax()).isLessThanOrEqualTo(33);
+
+        // The database recovers
+        IntSummaryStatistics recovered = simulation.run(400, 8, 10 * MILLIS);
+        assertThat(recovered.getMin()).isGreaterThanOrEqualTo(70);
+    }
+
+    @Test
+    void onSample_WithSlowRequestsAdmittedTogether_DecreasesOnce() {
+        AimdLimit limit = new AimdLimit(100, 1, 500, Duration.ofMillis(100), 0.9);
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(0, 200 * MILLIS, 100, false);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(90);
+    }
+
+    @Test
+    void onSample_WhenMostlyIdle_DoesNotGrow() {
+        AimdLimit limit = new AimdLimit(20, 1, 500, Duration.ofMillis(100), 0.9);
+
+        for (int i = 0; i < 1_000; i++) {
+            limit.onSample(i * MILLIS, MILLIS, 3, false);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void onSample_WithRepeatedDrops_StopsAtMinimum() {
+        AimdLimit limit = new AimdLimit(50, 10, 500, Duration.ofMillis(100), 0.5);
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(i * 10 * MILLIS, MILLIS, 50, true);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    /**
+     * Closed loop against a database with a fixed number of parallel slots: clients always keep as many
+     * requests in flight as the limit allows, and requests beyond the slots queue, stretching latency.
+     */
+    private static final class Simulation {
+
+        private final AimdLimit limit;
+        private long now;
+
+        Simulation(AimdLimit limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * @return the limit over the second half of the rounds
+         */
+        IntSummaryStatistics run(int rounds, int slots, long serviceNanos) {
+            IntSummaryStatistics settled = new IntSummaryStatistics();
+            for (int round = 0; round < rounds; round++) {
+                int inflight = limit.getLimit();
+                long rtt = (long) (serviceNanos * Math.max(1.0, (double) inflight / slots));
+                for (int i = 0; i < inflight; i++) {
+                    limit.onSample(now, rtt, inflight, false);
+                }
+                now += rtt;
+                if (round >= rounds / 2) {
+                    settled.accept(limit.getLimit());
+                }
+            }
+            return settled;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package cat.itacademy.s04.t02.n02.fruit.concurrency;
+
+import cat.itacademy.s04.t02.n02.fruit.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimiterTest {
+
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter(
+            new AimdLimit(2, 2, 2, Duration.ofMillis(500), 0.9), Duration.ofSeconds(3));
+
+    @Test
+    void acquire_AtLimit_RejectsWithRetryAfter() {
+        limiter.acquire();
+        limiter.acquire();
+
+        assertThatThrownBy(limiter::acquire)
+                .isInstanceOf(ServiceOverloadedException.class)
+                .hasMessage("Concurrency limit of 2 requests reached, retry later")
+                .extracting("retryAfter").isEqualTo(Duration.ofSeconds(3));
+        assertThat(limiter.inflight()).isEqualTo(2);
+    }
+
+    @Test
+    void listener_CompletedTwice_ReleasesOnce() {
+        ConcurrencyLimiter.Listener first = limiter.acquire();
+        limiter.acquire();
+
+        first.onSuccess();
+        first.onDropped();
+
+        assertThat(limiter.inflight()).isEqualTo(1);
+        limiter.acquire();
+    }
+
+    @Test
+    void listener_Ignored_ReleasesWithoutChangingTheLimit() {
+        ConcurrencyLimiter adaptive = new ConcurrencyLimiter(
+                new AimdLimit(10, 1, 10, Duration.ofNanos(1), 0.5), Duration.ofSeconds(1));
+
+        adaptive.acquire().onIgnored();
+
+        assertThat(adaptive.inflight()).isZero();
+        assertThat(adaptive.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void isTimeout_ClassifiesOnlyTimeoutsAsDrops() {
+        assertThat(ConcurrencyLimitInterceptor.isTimeout(new CannotCreateTransactionException("pool",
+                new SQLTransientConnectionException("Connection is not available, request timed out")))).isTrue();
+        assertThat(ConcurrencyLimitInterceptor.isTimeout(new QueryTimeoutException("slow"))).isTrue();
+        assertThat(ConcurrencyLimitInterceptor.isTimeout(
+                new ServiceOverloadedException("Bulkhead full", Duration.ofSeconds(1)))).isFalse();
+        assertThat(ConcurrencyLimitInterceptor.isTimeout(null)).isFalse();
+    }
+}
@@ -1,12 +1,28 @@
 package cat.itacademy.s04.t02.n02.fruit.controller;
 
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitFields;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitImportError;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitImportResult;
 import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
 import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightUpdateResult;
 import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.SparseFruitDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.WeightIncrementDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.WriteBehindStatusDTO;
+import cat.itacademy.s04.t02.n02.fruit.exception.ServiceOverloadedException;
 import cat.itacademy.s04.t02.n02.fruit.exception.ResourceNotFoundException;
 import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.service.FruitExportService;
+import cat.itacademy.s04.t02.n02.fruit.service.FruitImportService;
 import cat.itacademy.s04.t02.n02.fruit.service.FruitService;
+import cat.itacademy.s04.t02.n02.fruit.service.FruitWriteBehindService;
+import cat.itacademy.s04.t02.n02.fruit.service.WeightIncrementService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -14,14 +30,21 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.stream.LongStream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -37,6 +60,61 @@ class FruitControllerTest {
     @MockBean
     private FruitService fruitService;
 
+    @MockBean
+    private FruitImportService fruitImportService;
+
+    @MockBean
+    private FruitExportService fruitExportService;
+
+    @MockBean
+    private WeightIncrementService weightIncrementService;
+
+    @MockBean
+    private FruitWriteBehindService fruitWriteBehindService;
+
+    @BeforeEach
+    void setUp() {
+        when(fruitService.getCatalogueVersion()).thenReturn(new CatalogueVersion(3, 2));
+        when(fruitService.getFruitVersion(anyLong())).thenReturn(new FruitVersion(1, 0));
+    }
+
+    @Test
+    void createFruit_Async_Returns202AcceptedWithoutWriting() throws Exception {
+        FruitRequestDTO request = new FruitRequestDTO("Apple", 10, 1L);
+
+        mockMvc.perform(post("/fruits")
+                .param("async", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted());
+
+        verify(fruitWriteBehindService).enqueue(request);
+        verify(fruitService, never()).createFruit(any());
+    }
+
+    @Test
+    void createFruit_AsyncWithFullQueue_Returns503WithRetryAfter() throws Exception {
+        doThrow(new ServiceOverloadedException("Too many pending asynchronous creates, retry later", Duration.ofSeconds(2)))
+                .when(fruitWriteBehindService).enqueue(any());
+
+        mockMvc.perform(post("/fruits")
+                .param("async", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new FruitRequestDTO("Apple", 10, 1L))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+    }
+
+    @Test
+    void getWriteBehindStatus_ReturnsCounters() throws Exception {
+        when(fruitWriteBehindService.getStatus()).thenReturn(new WriteBehindStatusDTO(3, 65536, 10, 7, 0, 0, 1));
+
+        mockMvc.perform(get("/fruits/write-behind"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pending").value(3))
+                .andExpect(jsonPath("$.written").value(7));
+    }
+
     @Test
     void createFruit_WithValidData_Returns201Created() throws Exception {
         FruitRequestDTO request = new FruitRequestDTO("Apple", 10, 1L);
@@ -101,6 +179,55 @@ class FruitControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void exportFruits_WithProviderId_StreamsCsvWithETag() throws Exception {
+        when(fruitExportService.exportFruits(eq(1L), any(FruitExportService.Target.class))).thenAnswer(invocation -> {
+            FruitExportService.Target target = invocation.getArgument(1);
+            target.open().write("id,name\r\n1,Apple\r\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        mockMvc.perform(get("/fruits/export.csv").param("providerId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("ETag", "\"3.2-csv\""))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"fruits.csv\""))
+                .andExpect(content().string("id,name\r\n1,Apple\r\n"));
+    }
+
+    @Test
+    void exportFruits_WithGzipRefusedByQuality_WritesIdentityBody() throws Exception {
+        when(fruitExportService.exportFruits(eq(null), any(FruitExportService.Target.class))).thenAnswer(invocation -> {
+            FruitExportService.Target target = invocation.getArgument(1);
+            target.open().write("id,name\r\n".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        });
+
+        mockMvc.perform(get("/fruits/export.csv").header("Accept-Encoding", "gzip;q=0, *"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("ETag", "\"3.2-csv\""))
+                .andExpect(content().string("id,name\r\n"));
+    }
+
+    @Test
+    void importFruits_WithCsvBody_ReturnsImportResult() throws Exception {
+        FruitImportResult result = new FruitImportResult(3, 2, 1, true, 12, 250.0,
+                List.of(new FruitImportError(3, "Weight must be positive")));
+        when(fruitImportService.importFruits(any(InputStream.class))).thenReturn(result);
+
+        mockMvc.perform(post("/fruits/import")
+                        .contentType("text/csv")
+                        .content("name,weightInKilos,providerId\nApple,10,1\nPear,-1,1\nPlum,3,1\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3))
+                .andExpect(jsonPath("$.errors[0].message").value("Weight must be positive"));
+
+        verify(fruitImportService).importFruits(any(InputStream.class));
+    }
+
     @Test
     void getFruitsByProviderId_WithExistingProvider_ReturnsListOfFruits() throws Exception {
         Long providerId = 1L;
@@ -197,11 +324,93 @@ class FruitControllerTest {
                 .andExpect(jsonPath("$.provider.name").value("Fruits Inc"));
     }
 
+    @Test
+    void getFruitById_ReturnsETagFromFruitAndProviderVersions() throws Exception {
+        ProviderResponseDTO provider = new ProviderResponseDTO(1L, "Fruits Inc", "Spain");
+        when(fruitService.getFruitById(1L)).thenReturn(new FruitResponseDTO(1L, "Apple", 10, provider));
+
+        mockMvc.perform(get("/fruits/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1.0\""));
+    }
+
+    @Test
+    void getFruitById_WithMatchingETag_Returns304WithoutLoadingFruit() throws Exception {
+        mockMvc.perform(get("/fruits/{id}", 1L).header("If-None-Match", "\"1.0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1.0\""))
+                .andExpect(content().string(""));
+
+        verify(fruitService, never()).getFruitById(anyLong());
+    }
+
+    @Test
+    void getFruits_WithMatchingETag_Returns304WithoutLoadingFruits() throws Exception {
+        mockMvc.perform(get("/fruits").param("providerId", "1").header("If-None-Match", "\"3.2\""))
+                .andExpect(status().isNotModified());
+
+        verify(fruitService, never()).getFruitsByProviderId(anyLong());
+    }
+
+    @Test
+    void getFruits_WithStaleETag_Returns200WithCurrentETag() throws Exception {
+        when(fruitService.getAllFruits()).thenReturn(List.of());
+
+        mockMvc.perform(get("/fruits").header("If-None-Match", "\"2.2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3.2\""));
+    }
+
+    @Test
+    void getFruits_WithFields_ReturnsOnlySelectedFields() throws Exception {
+        FruitFields fields = new FruitFields(true, true, false, false, false);
+        when(fruitService.getFruitFields(null, fields))
+                .thenReturn(List.of(new SparseFruitDTO(1L, "Apple", null, null, null)));
+
+        mockMvc.perform(get("/fruits").param("fields", "name,id"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3.2;id,name\""))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].name").value("Apple"))
+                .andExpect(jsonPath("$[0].weightInKilos").doesNotExist())
+                .andExpect(jsonPath("$[0].provider").doesNotExist());
+
+        verify(fruitService, never()).getAllFruits();
+    }
+
+    @Test
+    void getFruitById_WithFieldsAndExpandProvider_ReturnsProvider() throws Exception {
+        ProviderResponseDTO provider = new ProviderResponseDTO(1L, "Fruits Inc", "Spain");
+        FruitFields fields = new FruitFields(false, true, false, false, true);
+        when(fruitService.getFruitFieldsById(1L, fields))
+                .thenReturn(new SparseFruitDTO(null, "Apple", null, null, provider));
+
+        mockMvc.perform(get("/fruits/{id}", 1L).param("fields", "name").param("expand", "provider"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1.0;name,provider\""))
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.provider.name").value("Fruits Inc"));
+    }
+
+    @Test
+    void getFruits_WithUnknownField_Returns400BadRequest() throws Exception {
+        mockMvc.perform(get("/fruits").param("fields", "id,colour"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown fruit field 'colour'"));
+    }
+
+    @Test
+    void getFruits_WithUnknownExpansion_Returns400BadRequest() throws Exception {
+        mockMvc.perform(get("/fruits").param("fields", "id").param("expand", "supplier"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cannot expand 'supplier'"));
+    }
+
     @Test
     void getFruitById_WithNonExistentId_Returns404NotFound() throws Exception {
                 Long fruitId = 999L;
 
-        when(fruitService.getFruitById(fruitId))
+        when(fruitService.getFruitVersion(fruitId))
                 .thenThrow(new ResourceNotFoundException("Fruit with id 999 not found"));
 
                 mockMvc.perform(get("/fruits/{id}", fruitId))
@@ -266,6 +475,100 @@ class FruitControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void updateFruitWeights_WithValidItems_ReturnsMissingIds() throws Exception {
+        List<FruitWeightDTO> request = List.of(new FruitWeightDTO(1L, 12), new FruitWeightDTO(999L, 5));
+
+        when(fruitService.updateFruitWeights(request)).thenReturn(new FruitWeightUpdateResult(1, List.of(999L)));
+
+        mockMvc.perform(patch("/fruits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.notFound[0]").value(999));
+    }
+
+    @Test
+    void updateFruitWeights_WithNonPositiveWeight_Returns400BadRequest() throws Exception {
+        mockMvc.perform(patch("/fruits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\": 1, \"weightInKilos\": 12}, {\"id\": 2, \"weightInKilos\": 0}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors['[1].weightInKilos']").value("Weight must be positive"));
+
+        verify(fruitService, never()).updateFruitWeights(any());
+    }
+
+    @Test
+    void updateFruitWeights_WithNullItem_Returns400BadRequest() throws Exception {
+        mockMvc.perform(patch("/fruits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\": 1, \"weightInKilos\": 12}, null]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors['[1]']").value("Weight update cannot be null"));
+
+        verify(fruitService, never()).updateFruitWeights(any());
+    }
+
+    @Test
+    void updateFruitWeights_WithTooManyItems_Returns400BadRequest() throws Exception {
+        List<FruitWeightDTO> request = LongStream.rangeClosed(1, FruitController.MAX_WEIGHT_UPDATES + 1)
+                .mapToObj(id -> new FruitWeightDTO(id, 1))
+                .toList();
+
+        mockMvc.perform(patch("/fruits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors.weights").value("At most 10000 weights per request"));
+
+        verify(fruitService, never()).updateFruitWeights(any());
+    }
+
+    @Test
+    void incrementWeight_WithPositiveDelta_Returns202Accepted() throws Exception {
+        mockMvc.perform(post("/fruits/{id}/weight:increment", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new WeightIncrementDTO(4))))
+                .andExpect(status().isAccepted());
+
+        verify(weightIncrementService).increment(1L, 4);
+    }
+
+    @Test
+    void incrementWeight_InStrictMode_Returns200WithFruit() throws Exception {
+        ProviderResponseDTO provider = new ProviderResponseDTO(1L, "Fruits Inc", "Spain");
+        when(weightIncrementService.incrementNow(1L, 4)).thenReturn(new FruitResponseDTO(1L, "Apple", 14, provider));
+
+        mockMvc.perform(post("/fruits/{id}/weight:increment", 1L)
+                .param("strict", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new WeightIncrementDTO(4))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.weightInKilos").value(14));
+
+        verify(weightIncrementService, never()).increment(anyLong(), anyInt());
+    }
+
+    @Test
+    void incrementWeight_WithZeroDelta_Returns400BadRequest() throws Exception {
+        mockMvc.perform(post("/fruits/{id}/weight:increment", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new WeightIncrementDTO(0))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors.delta").value("Delta must be positive"));
+    }
+
+    @Test
+    void incrementWeight_WithDeltaAboveMax_Returns400BadRequest() throws Exception {
+        mockMvc.perform(post("/fruits/{id}/weight:increment", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new WeightIncrementDTO(WeightIncrementDTO.MAX_DELTA + 1))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors.delta").value("Delta must be at most 1000000"));
+    }
+
     @Test
     void deleteFruit_WithValidId_Returns204NoContent() throws Exception {
         Long fruitId = 1L;
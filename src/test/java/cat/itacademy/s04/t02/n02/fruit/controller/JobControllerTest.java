@@ -0,0 +1,87 @@
+package cat.itacademy.s04.t02.n02.fruit.controller;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.JobRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.JobResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.exception.ResourceNotFoundException;
+import cat.itacademy.s04.t02.n02.fruit.model.JobStatus;
+import cat.itacademy.s04.t02.n02.fruit.model.JobType;
+import cat.itacademy.s04.t02.n02.fruit.service.JobService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(JobController.class)
+class JobControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private JobService jobService;
+
+    @Test
+    void submitJob_WithValidRequest_Returns202WithLocation() throws Exception {
+        JobRequestDTO request = new JobRequestDTO(JobType.ADJUST_FRUIT_WEIGHTS, 1L, null, 10);
+        when(jobService.submitJob(request)).thenReturn(queued(7L, JobType.ADJUST_FRUIT_WEIGHTS));
+
+        mockMvc.perform(post("/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/jobs/7"))
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void submitJob_WithoutType_Returns400() throws Exception {
+        mockMvc.perform(post("/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"providerId\": 1}"))
+                .andExpect(status().isBadRequest());
+
+        verify(jobService, never()).submitJob(any());
+    }
+
+    @Test
+    void submitImport_WithCsvBody_Returns202() throws Exception {
+        when(jobService.submitImport(any(InputStream.class))).thenReturn(queued(8L, JobType.IMPORT_FRUITS));
+
+        mockMvc.perform(post("/jobs")
+                        .contentType("text/csv")
+                        .content("name,weightInKilos,providerId\nApple,10,1\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.type").value("IMPORT_FRUITS"));
+    }
+
+    @Test
+    void getJob_WithNonExistentId_Returns404() throws Exception {
+        when(jobService.getJob(99L)).thenThrow(new ResourceNotFoundException("Job with id 99 not found"));
+
+        mockMvc.perform(get("/jobs/{id}", 99L))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Job with id 99 not found"));
+    }
+
+    private static JobResponseDTO queued(Long id, JobType type) {
+        return new JobResponseDTO(id, type, JobStatus.QUEUED, null, 0, 0, 0, null, Instant.now(), null, null);
+    }
+}
@@ -1,5 +1,6 @@
 package cat.itacademy.s04.t02.n02.fruit.controller;
 
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
 import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
 import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
 import cat.itacademy.s04.t02.n02.fruit.exception.ResourceConflictException;
@@ -7,6 +8,7 @@ import cat.itacademy.s04.t02.n02.fruit.service.ProviderService;
 import cat.itacademy.s04.t02.n02.fruit.exception.ResourceNotFoundException;
 import cat.itacademy.s04.t02.n02.fruit.exception.DuplicateResourceException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -17,6 +19,9 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
@@ -39,6 +44,11 @@ class ProviderControllerTest {
     @MockBean
     private ProviderService providerService;
 
+    @BeforeEach
+    void setUp() {
+        when(providerService.getCatalogueVersion()).thenReturn(new CatalogueVersion(3, 2));
+    }
+
     @Test
     void createProvider_WithValidData_Returns201Created() throws Exception {
         ProviderRequestDTO request = new ProviderRequestDTO("Fruits Inc", "Spain");
@@ -107,6 +117,37 @@ class ProviderControllerTest {
                 .andExpect(jsonPath("$[1].country").value("France"));
     }
 
+    @Test
+    void getAllProviders_WithMatchingETag_Returns304WithoutLoadingProviders() throws Exception {
+        mockMvc.perform(get("/providers").header("If-None-Match", "\"2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"2\""));
+
+        verify(providerService, never()).getAllProviders();
+    }
+
+    @Test
+    void getProviderById_WithStaleETag_Returns200WithCurrentETag() throws Exception {
+        when(providerService.getProviderVersion(1L)).thenReturn(4L);
+        when(providerService.getProviderById(1L)).thenReturn(new ProviderResponseDTO(1L, "Fruits Inc", "Spain"));
+
+        mockMvc.perform(get("/providers/{id}", 1L).header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.name").value("Fruits Inc"));
+    }
+
+    @Test
+    void getProviderById_WithNonExistentId_Returns404WithoutLoadingProvider() throws Exception {
+        when(providerService.getProviderVersion(999L))
+                .thenThrow(new ResourceNotFoundException("Provider with id 999 not found"));
+
+        mockMvc.perform(get("/providers/{id}", 999L))
+                .andExpect(status().isNotFound());
+
+        verify(providerService, never()).getProviderById(anyLong());
+    }
+
     @Test
     void updateProvider_WithValidData_Returns200Ok() throws Exception {
         Long providerId = 1L;
@@ -0,0 +1,54 @@
+package cat.itacademy.s04.t02.n02.fruit.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    @Test
+    void next_WithQuotedFields_UnescapesQuotesCommasAndLineBreaks() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(
+                "﻿name,note\r\n\"Apple, \"\"Gala\"\"\",\"two\nlines\"\r\nPear,\n"), 1024);
+
+        assertThat(reader.next()).containsExactly("name", "note");
+        assertThat(reader.next()).containsExactly("Apple, \"Gala\"", "two\nlines");
+        assertThat(reader.recordLine()).isEqualTo(2);
+        assertThat(reader.next()).containsExactly("Pear", "");
+        assertThat(reader.recordLine()).isEqualTo(4);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void next_WithoutTrailingLineBreak_ReturnsLastRecord() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b\nc,d"), 1024);
+
+        assertThat(reader.next()).isEqualTo(List.of("a", "b"));
+        assertThat(reader.next()).isEqualTo(List.of("c", "d"));
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void next_WithUnterminatedQuote_ThrowsWithRecordLine() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a\n\"b\nc"), 1024);
+        reader.next();
+
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(CsvFormatException.class)
+                .hasMessage("Line 2: Unterminated quoted field");
+    }
+
+    @Test
+    void next_WithOverlongRecord_Throws() {
+        CsvReader reader = new CsvReader(new StringReader("x".repeat(100) + "\n"), 10);
+
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(CsvFormatException.class)
+                .hasMessage("Line 1: Record longer than 10 characters");
+    }
+}
@@ -0,0 +1,34 @@
+package cat.itacademy.s04.t02.n02.fruit.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvWriterTest {
+
+    @Test
+    void record_WithSpecialCharacters_QuotesOnlyTheFieldsThatNeedIt() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+
+        writer.record("id", "name");
+        writer.field(7).field("Apple, \"Gala\"").field("two\nlines").field((String) null).endRecord();
+
+        assertThat(out).hasToString("id,name\r\n7,\"Apple, \"\"Gala\"\"\",\"two\nlines\",\r\n");
+    }
+
+    @Test
+    void record_ReadBackWithCsvReader_RoundTrips() throws IOException {
+        StringWriter out = new StringWriter();
+        new CsvWriter(out).record("Pear, \"Conference\"", "", "a\r\nb");
+
+        CsvReader reader = new CsvReader(new StringReader(out.toString()), 1024);
+
+        assertThat(reader.next()).containsExactly("Pear, \"Conference\"", "", "a\r\nb");
+        assertThat(reader.next()).isNull();
+    }
+}
@@ -0,0 +1,79 @@
+package cat.itacademy.s04.t02.n02.fruit.idempotency;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyFilterTest {
+
+    private final IdempotencyProperties properties =
+            new IdempotencyProperties(true, "X-Api-Key", 100, Duration.ofMinutes(1), Duration.ofSeconds(10), DataSize.ofKilobytes(1));
+    private final IdempotencyStore store = new IdempotencyStore(100, Duration.ofMinutes(1).toNanos());
+    private final IdempotencyFilter filter = new IdempotencyFilter(store, properties, null, null);
+
+    @Test
+    void doFilter_WithConcurrentDuplicate_WaitsForFirstExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        FilterChain chain = (request, response) -> {
+            int execution = executions.incrementAndGet();
+            firstStarted.countDown();
+            try {
+                releaseFirst.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            ((HttpServletResponse) response).setStatus(201);
+            response.getWriter().write("{\"id\":" + execution + "}");
+        };
+
+        CompletableFuture<MockHttpServletResponse> first = CompletableFuture.supplyAsync(() -> perform(chain));
+        firstStarted.await(5, TimeUnit.SECONDS);
+        CompletableFuture<MockHttpServletResponse> duplicate = CompletableFuture.supplyAsync(() -> perform(chain));
+        Thread.sleep(100);
+        releaseFirst.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getContentAsString()).isEqualTo("{\"id\":1}");
+        MockHttpServletResponse replayed = duplicate.get(5, TimeUnit.SECONDS);
+        assertThat(replayed.getStatus()).isEqualTo(201);
+        assertThat(replayed.getContentAsString()).isEqualTo("{\"id\":1}");
+        assertThat(replayed.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void doFilter_WhenFirstExecutionFails_RunsRetry() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        FilterChain chain = (request, response) ->
+                ((HttpServletResponse) response).setStatus(executions.incrementAndGet() == 1 ? 500 : 201);
+
+        assertThat(perform(chain).getStatus()).isEqualTo(500);
+        assertThat(perform(chain).getStatus()).isEqualTo(201);
+        assertThat(perform(chain).getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(executions).hasValue(2);
+    }
+
+    private MockHttpServletResponse perform(FilterChain chain) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/fruits");
+        request.addHeader(IdempotencyFilter.KEY_HEADER, "retry-1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, chain);
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,64 @@
+package cat.itacademy.s04.t02.n02.fruit.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyStoreTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final IdempotencyStore store = new IdempotencyStore(2, 100, now::get);
+
+    @Test
+    void claim_WithKeyInFlight_ReturnsSameResultToDuplicate() {
+        IdempotencyStore.Claim first = store.claim("k");
+        IdempotencyStore.Claim duplicate = store.claim("k");
+
+        assertThat(first.owned()).isTrue();
+        assertThat(duplicate.owned()).isFalse();
+        assertThat(duplicate.result()).isNotDone();
+
+        IdempotencyStore.StoredResponse response = response("created");
+        store.complete(first, response);
+
+        assertThat(duplicate.result()).isCompletedWithValue(response);
+        assertThat(store.claim("k").result()).isCompletedWithValue(response);
+    }
+
+    @Test
+    void abandon_ReleasesKeyAndWakesWaitersWithNull() {
+        IdempotencyStore.Claim first = store.claim("k");
+        IdempotencyStore.Claim duplicate = store.claim("k");
+
+        store.abandon(first);
+
+        assertThat(duplicate.result()).isCompletedWithValue(null);
+        assertThat(store.claim("k").owned()).isTrue();
+    }
+
+    @Test
+    void claim_AfterTimeToLive_StartsOver() {
+        store.complete(store.claim("k"), response("created"));
+
+        now.addAndGet(100);
+
+        assertThat(store.claim("k").owned()).isTrue();
+    }
+
+    @Test
+    void complete_BeyondMaxEntries_DropsOldest() {
+        store.complete(store.claim("a"), response("a"));
+        store.complete(store.claim("b"), response("b"));
+        store.complete(store.claim("c"), response("c"));
+
+        assertThat(store.claim("a").owned()).isTrue();
+        assertThat(store.claim("c").owned()).isFalse();
+    }
+
+    private static IdempotencyStore.StoredResponse response(String body) {
+        return new IdempotencyStore.StoredResponse("hash", 201, "application/json", Map.of(), body.getBytes());
+    }
+}
@@ -0,0 +1,126 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.CompactFruitListDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class BinaryRepresentationIntegrationTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private CatalogueFixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new CatalogueFixtures(mockMvc, objectMapper);
+    }
+
+    @Test
+    void getFruits_WithAcceptCbor_ReturnsCompactListWithProviderSentOnce() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        fixtures.createFruit("Apple", providerId);
+        fixtures.createFruit("Banana", providerId);
+
+        byte[] body = mockMvc.perform(get("/fruits").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        CompactFruitListDTO fruits = new CBORMapper().readValue(body, CompactFruitListDTO.class);
+        assertThat(fruits.providers()).containsExactly(new ProviderResponseDTO(providerId, "Fruits Inc", "Spain"));
+        assertThat(fruits.fruits()).hasSize(2).allMatch(fruit -> fruit.providerId() == providerId);
+    }
+
+    @Test
+    void getFruits_WithAcceptSmile_ReturnsCompactList() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        fixtures.createFruit("Apple", providerId);
+
+        byte[] body = mockMvc.perform(get("/fruits").param("providerId", String.valueOf(providerId)).accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        CompactFruitListDTO fruits = new SmileMapper().readValue(body, CompactFruitListDTO.class);
+        assertThat(fruits.fruits()).singleElement().satisfies(fruit -> assertThat(fruit.name()).isEqualTo("Apple"));
+    }
+
+    @Test
+    void getFruits_WithAcceptCbor_IsSmallerThanJson() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        for (int i = 0; i < 20; i++) {
+            fixtures.createFruit("Apple " + i, providerId);
+        }
+
+        int jsonSize = mockMvc.perform(get("/fruits").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray().length;
+        int cborSize = mockMvc.perform(get("/fruits").accept(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray().length;
+
+        assertThat(cborSize).isLessThan(jsonSize / 2);
+    }
+
+    @Test
+    void getProviderById_WithAcceptCbor_ReturnsCborProvider() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+
+        byte[] body = mockMvc.perform(get("/providers/{id}", providerId).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(new CBORMapper().readValue(body, ProviderResponseDTO.class).name()).isEqualTo("Fruits Inc");
+    }
+
+    @Test
+    void getFruitById_WithAcceptCbor_UsesETagOfCborRepresentation() throws Exception {
+        long fruitId = fixtures.createFruit("Apple", fixtures.createProvider("Fruits Inc"));
+
+        String cborETag = mockMvc.perform(get("/fruits/{id}", fruitId).accept(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(cborETag).endsWith("-cbor\"");
+
+        mockMvc.perform(get("/fruits/{id}", fruitId).accept(MediaType.APPLICATION_CBOR).header("If-None-Match", cborETag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/fruits/{id}", fruitId).accept(MediaType.APPLICATION_JSON).header("If-None-Match", cborETag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Apple"));
+    }
+
+    @Test
+    void createProvider_WithCborBody_ReturnsCreated() throws Exception {
+        byte[] body = new CBORMapper().writeValueAsBytes(new ProviderRequestDTO("Fruits Inc", "Spain"));
+
+        mockMvc.perform(post("/providers").contentType(MediaType.APPLICATION_CBOR).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").value("Fruits Inc"));
+    }
+
+}
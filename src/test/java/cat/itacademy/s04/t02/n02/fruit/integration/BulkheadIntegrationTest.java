@@ -0,0 +1,70 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Bulkhead;
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Bulkheads;
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Workload;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "fruit.bulkhead.mutation.max-concurrent=1",
+        "fruit.bulkhead.mutation.max-queue=0",
+        "fruit.bulkhead.retry-after=2s"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class BulkheadIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Bulkheads bulkheads;
+
+    @Test
+    void createProvider_WithSaturatedMutationBulkhead_Returns503WithRetryAfter() throws Exception {
+        try (Bulkhead.Permit ignored = bulkheads.get(Workload.MUTATION).acquire()) {
+            mockMvc.perform(post("/providers")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Inc", "Spain"))))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "2"))
+                    .andExpect(jsonPath("$.message").value("Too many concurrent mutation requests, retry later"));
+        }
+    }
+
+    @Test
+    void getProviders_WithSaturatedMutationBulkhead_IsNotAffected() throws Exception {
+        try (Bulkhead.Permit ignored = bulkheads.get(Workload.MUTATION).acquire()) {
+            mockMvc.perform(get("/providers"))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void createProvider_ReleasesSlotAfterResponse() throws Exception {
+        mockMvc.perform(post("/providers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Inc", "Spain"))))
+                .andExpect(status().isCreated());
+
+        assertThat(bulkheads.get(Workload.MUTATION).active()).isZero();
+    }
+}
@@ -0,0 +1,73 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import cat.itacademy.s04.t02.n02.fruit.service.CatalogueChangeTracker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each write runs in its own committed transaction, as concurrent requests would.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CatalogueChangeTrackerIntegrationTest {
+
+    @Autowired
+    private CatalogueChangeTracker changeTracker;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void fruitsChanged_InOpenTransaction_DoesNotBlockOtherWriters() {
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        CatalogueVersion before = changeTracker.currentVersion();
+
+        transactions.executeWithoutResult(status -> {
+            changeTracker.fruitsChanged(1L);
+            // Another writer reports and commits while this one is still open
+            CompletableFuture.runAsync(() -> transactions.executeWithoutResult(other -> changeTracker.fruitsChanged(2L)))
+                    .orTimeout(5, TimeUnit.SECONDS)
+                    .join();
+            CatalogueVersion meanwhile = CompletableFuture.supplyAsync(changeTracker::currentVersion).join();
+            assertThat(meanwhile.fruits()).isEqualTo(before.fruits() + 1);
+        });
+
+        assertThat(changeTracker.currentVersion())
+                .isEqualTo(new CatalogueVersion(before.fruits() + 2, before.providers()));
+    }
+
+    @Test
+    void fruitsChanged_InOpenTransaction_IncrementsWithTheCommit() {
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        CatalogueVersion before = changeTracker.currentVersion();
+
+        transactions.executeWithoutResult(status -> {
+            changeTracker.fruitsChanged(1L);
+            assertThat(changeTracker.currentVersion()).isEqualTo(before);
+        });
+
+        assertThat(changeTracker.currentVersion().fruits()).isEqualTo(before.fruits() + 1);
+    }
+
+    @Test
+    void fruitsChanged_InRolledBackTransaction_KeepsVersion() {
+        CatalogueVersion before = changeTracker.currentVersion();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            changeTracker.fruitsChanged(1L);
+            status.setRollbackOnly();
+        });
+
+        assertThat(changeTracker.currentVersion()).isEqualTo(before);
+    }
+}
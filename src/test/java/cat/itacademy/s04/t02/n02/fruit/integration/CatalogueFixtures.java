@@ -0,0 +1,49 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Creates providers and fruits through the API, so every write goes through the same path as a client's
+ * and is committed when the request returns.
+ */
+class CatalogueFixtures {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    CatalogueFixtures(MockMvc mockMvc, ObjectMapper objectMapper) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the id of a new provider in Spain
+     */
+    long createProvider(String name) throws Exception {
+        String response = mockMvc.perform(post("/providers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO(name, "Spain"))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    /**
+     * @return the id of a new 10 kg fruit
+     */
+    long createFruit(String name, long providerId) throws Exception {
+        String response = mockMvc.perform(post("/fruits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FruitRequestDTO(name, 10, providerId))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+}
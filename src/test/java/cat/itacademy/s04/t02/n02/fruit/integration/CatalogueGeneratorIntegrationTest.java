@@ -0,0 +1,70 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.generator.CatalogueGenerator;
+import cat.itacademy.s04.t02.n02.fruit.generator.GenerationResult;
+import cat.itacademy.s04.t02.n02.fruit.generator.GenerationSpec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CatalogueGeneratorIntegrationTest {
+
+    private static final String CATALOGUE_DUMP = """
+            SELECT p.name || '|' || p.country || '|' || f.name || '|' || f.weight_in_kilos
+            FROM fruits f JOIN providers p ON p.id = f.provider_id
+            ORDER BY 1""";
+
+    @Autowired
+    private CatalogueGenerator catalogueGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM fruits");
+        jdbcTemplate.update("DELETE FROM providers");
+    }
+
+    @Test
+    void generate_WritesRequestedNumberOfRows() {
+        GenerationResult result = catalogueGenerator.generate(new GenerationSpec(20, 2_500, 1L, 1.1, 100, 300, 4));
+
+        assertThat(result.providers()).isEqualTo(20);
+        assertThat(result.fruits()).isEqualTo(2_500);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM providers", Long.class)).isEqualTo(20);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fruits", Long.class)).isEqualTo(2_500);
+    }
+
+    @Test
+    void generate_WithSameSeed_ProducesSameCatalogue() {
+        GenerationSpec spec = new GenerationSpec(10, 1_000, 7L, 1.1, 50, 64, 4);
+
+        catalogueGenerator.generate(spec);
+        List<String> firstRun = jdbcTemplate.queryForList(CATALOGUE_DUMP, String.class);
+        cleanUp();
+        catalogueGenerator.generate(spec);
+        List<String> secondRun = jdbcTemplate.queryForList(CATALOGUE_DUMP, String.class);
+
+        assertThat(secondRun).hasSize(1_000).isEqualTo(firstRun);
+    }
+
+    @Test
+    void generate_WithSkew_ConcentratesFruitsOnTopProviders() {
+        catalogueGenerator.generate(new GenerationSpec(100, 10_000, 3L, 1.2, 100, 500, 2));
+
+        List<Long> fruitsPerProvider = jdbcTemplate.queryForList(
+                "SELECT COUNT(*) FROM fruits GROUP BY provider_id ORDER BY COUNT(*) DESC", Long.class);
+
+        assertThat(fruitsPerProvider.get(0)).isGreaterThan(10 * fruitsPerProvider.get(fruitsPerProvider.size() / 2));
+    }
+}
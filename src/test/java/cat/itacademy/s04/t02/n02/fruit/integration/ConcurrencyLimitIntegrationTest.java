@@ -0,0 +1,58 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.concurrency.ConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "fruit.concurrency-limit.initial-limit=1",
+        "fruit.concurrency-limit.min-limit=1",
+        "fruit.concurrency-limit.max-limit=1",
+        "fruit.concurrency-limit.retry-after=2s"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class ConcurrencyLimitIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ConcurrencyLimiter limiter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void getAllProviders_AtConcurrencyLimit_Returns503WithRetryAfter() throws Exception {
+        ConcurrencyLimiter.Listener held = limiter.acquire();
+        try {
+            mockMvc.perform(get("/providers"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "2"))
+                    .andExpect(jsonPath("$.message").value("Concurrency limit of 1 requests reached, retry later"));
+        } finally {
+            held.onSuccess();
+        }
+
+        mockMvc.perform(get("/providers"))
+                .andExpect(status().isOk());
+        assertThat(limiter.inflight()).isZero();
+    }
+
+    @Test
+    void limitGauge_ReportsCurrentLimit() {
+        assertThat(meterRegistry.get("concurrency.limit").gauge().value()).isEqualTo(1.0);
+    }
+}
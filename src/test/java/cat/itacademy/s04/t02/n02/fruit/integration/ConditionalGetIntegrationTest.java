@@ -0,0 +1,121 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.monitoring.SqlStatisticsFilter;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Table versions are incremented when a write commits, so fixtures are committed and deleted afterwards.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalGetIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private FruitRepository fruitRepository;
+
+    private CatalogueFixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new CatalogueFixtures(mockMvc, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fruitRepository.deleteAll();
+        providerRepository.deleteAll();
+    }
+
+    @Test
+    void getFruitById_WithCurrentETag_Returns304WithSingleVersionQuery() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        long fruitId = fixtures.createFruit("Apple", providerId);
+        String eTag = eTag(get("/fruits/{id}", fruitId));
+
+        mockMvc.perform(get("/fruits/{id}", fruitId).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENT_COUNT_HEADER, "1"));
+    }
+
+    @Test
+    void getFruitById_AfterProviderUpdate_ChangesETag() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        long fruitId = fixtures.createFruit("Apple", providerId);
+        String eTag = eTag(get("/fruits/{id}", fruitId));
+
+        mockMvc.perform(put("/providers/{id}", providerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Inc", "France"))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/fruits/{id}", fruitId).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.provider.country").value("France"));
+    }
+
+    @Test
+    void getFruits_AfterCreate_ChangesETag() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        fixtures.createFruit("Apple", providerId);
+        String eTag = eTag(get("/fruits"));
+
+        mockMvc.perform(get("/fruits").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENT_COUNT_HEADER, "1"));
+
+        fixtures.createFruit("Banana", providerId);
+
+        mockMvc.perform(get("/fruits").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void getAllProviders_AfterFruitCreate_KeepsETag() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        String eTag = eTag(get("/providers"));
+
+        fixtures.createFruit("Apple", providerId);
+
+        mockMvc.perform(get("/providers").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    private String eTag(RequestBuilder request) throws Exception {
+        String eTag = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(eTag).startsWith("\"").endsWith("\"");
+        return eTag;
+    }
+
+}
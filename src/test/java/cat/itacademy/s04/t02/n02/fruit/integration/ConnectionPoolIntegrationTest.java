@@ -0,0 +1,53 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.persistence.ConnectionPoolProperties;
+import cat.itacademy.s04.t02.n02.fruit.persistence.ConnectionPoolSizing;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ConnectionPoolIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ConnectionPoolProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void dataSource_WithoutExplicitPoolSize_IsSizedFromCores() throws Exception {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        int expected = ConnectionPoolSizing.maximumPoolSize(properties, Runtime.getRuntime().availableProcessors());
+
+        assertThat(hikari.getMaximumPoolSize()).isEqualTo(expected);
+        assertThat(hikari.getMinimumIdle()).isEqualTo(expected);
+    }
+
+    @Test
+    void saturationGauge_WhileConnectionIsCheckedOut_ReportsActiveShare() throws Exception {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+
+        try (var ignored = dataSource.getConnection()) {
+            assertThat(meterRegistry.get("db.pool.saturation").gauge().value())
+                    .isEqualTo(1.0 / hikari.getMaximumPoolSize());
+        }
+        assertThat(meterRegistry.get("db.pool.saturation").gauge().value()).isZero();
+    }
+}
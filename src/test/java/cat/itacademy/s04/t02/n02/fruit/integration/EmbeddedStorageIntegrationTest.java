@@ -0,0 +1,172 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.WeightIncrementDTO;
+import cat.itacademy.s04.t02.n02.fruit.monitoring.SqlStatisticsFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The embedded engine does not take part in database transactions, so nothing here is rolled back;
+ * each test uses provider names of its own.
+ */
+@SpringBootTest(properties = {"fruit.storage.engine=embedded",
+        "fruit.storage.directory=" + EmbeddedStorageIntegrationTest.DIRECTORY})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EmbeddedStorageIntegrationTest {
+
+    static final String DIRECTORY = "target/embedded-catalogue";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private CatalogueFixtures fixtures;
+
+    @BeforeAll
+    static void cleanDirectory() throws IOException {
+        FileSystemUtils.deleteRecursively(Path.of(DIRECTORY));
+    }
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new CatalogueFixtures(mockMvc, objectMapper);
+    }
+
+    @Test
+    void context_HasNoDataSource() {
+        assertThat(applicationContext.getBeanProvider(DataSource.class).getIfAvailable()).isNull();
+    }
+
+    @Test
+    void createAndReadFruits_UseEmbeddedStoreWithoutSql() throws Exception {
+        long providerId = fixtures.createProvider("Embedded Orchards");
+        long fruitId = fixtures.createFruit("Apple", providerId);
+        fixtures.createFruit("Pear", providerId);
+
+        mockMvc.perform(get("/fruits/{id}", fruitId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Apple"))
+                .andExpect(jsonPath("$.provider.name").value("Embedded Orchards"))
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENT_COUNT_HEADER, "0"));
+        mockMvc.perform(get("/fruits").param("providerId", String.valueOf(providerId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name").value(contains("Apple", "Pear")))
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENT_COUNT_HEADER, "0"));
+    }
+
+    @Test
+    void updateFruitWeights_WritesThroughEmbeddedStoreAndChangesETag() throws Exception {
+        long providerId = fixtures.createProvider("Embedded Vineyards");
+        long fruitId = fixtures.createFruit("Grape", providerId);
+        String eTag = mockMvc.perform(get("/fruits"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(patch("/fruits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(new FruitWeightDTO(fruitId, 9)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1));
+
+        mockMvc.perform(get("/fruits/{id}", fruitId))
+                .andExpect(jsonPath("$.weightInKilos").value(9));
+        mockMvc.perform(get("/fruits").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void featuresThatNeedTheDatabase_Return503() throws Exception {
+        long providerId = fixtures.createProvider("Embedded Meadows");
+        long fruitId = fixtures.createFruit("Fig", providerId);
+
+        mockMvc.perform(post("/fruits/{id}/weight:increment", fruitId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new WeightIncrementDTO(1))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message").value(
+                        "Weight increments: not available with the embedded storage engine, which runs without a database"));
+        mockMvc.perform(post("/fruits").param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FruitRequestDTO("Fig", 3, providerId))))
+                .andExpect(status().isServiceUnavailable());
+        mockMvc.perform(get("/fruits/export.csv"))
+                .andExpect(status().isServiceUnavailable());
+        mockMvc.perform(post("/jobs").contentType("text/csv").content("name,weightInKilos,providerId\n"))
+                .andExpect(status().isServiceUnavailable());
+        mockMvc.perform(get("/jobs/{id}", 1))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void getFruits_AfterUpdate_ChangesETag() throws Exception {
+        long providerId = fixtures.createProvider("Embedded Groves");
+        long fruitId = fixtures.createFruit("Cherry", providerId);
+        String eTag = mockMvc.perform(get("/fruits"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/fruits").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/fruits/{id}", fruitId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FruitRequestDTO("Cherry", 7, providerId))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.weightInKilos").value(7));
+
+        mockMvc.perform(get("/fruits").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void deleteProvider_WithFruits_Returns409UntilFruitsAreDeleted() throws Exception {
+        long providerId = fixtures.createProvider("Embedded Farms");
+        long fruitId = fixtures.createFruit("Plum", providerId);
+
+        mockMvc.perform(post("/providers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Embedded Farms", "Italy"))))
+                .andExpect(status().isConflict());
+        mockMvc.perform(delete("/providers/{id}", providerId))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(delete("/fruits/{id}", fruitId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/providers/{id}", providerId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/providers/{id}", providerId))
+                .andExpect(status().isNotFound());
+    }
+
+}
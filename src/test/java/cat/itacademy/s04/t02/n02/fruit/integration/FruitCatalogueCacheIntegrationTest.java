@@ -0,0 +1,105 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.FruitCatalogueCache;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import cat.itacademy.s04.t02.n02.fruit.monitoring.SqlStatisticsFilter;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The cache is loaded explicitly after fixtures are committed; the reload delay is long enough that
+ * misses never reload it during a test. The response cache is off so every request reaches the service.
+ */
+@SpringBootTest(properties = {"fruit.catalogue-cache.enabled=true",
+        "fruit.catalogue-cache.reload-delay=1h",
+        "fruit.response-cache.enabled=false"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FruitCatalogueCacheIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FruitCatalogueCache fruitCatalogueCache;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private FruitRepository fruitRepository;
+
+    private Provider provider;
+
+    @BeforeEach
+    void setUp() {
+        provider = providerRepository.save(new Provider(null, "Columnar Orchards", "Spain"));
+        Provider other = providerRepository.save(new Provider(null, "Columnar Groves", "Italy"));
+        fruitRepository.save(new Fruit("Apple", 10, provider));
+        fruitRepository.save(new Fruit("Lemon", 4, other));
+        fruitRepository.save(new Fruit("Pear", 7, provider));
+        fruitCatalogueCache.load();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fruitRepository.deleteAll();
+        providerRepository.deleteAll();
+    }
+
+    @Test
+    void getFruits_AtCachedVersion_RunOnlyVersionChecks() throws Exception {
+        mockMvc.perform(get("/fruits"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name").value(contains("Apple", "Lemon", "Pear")))
+                .andExpect(jsonPath("$[1].provider.country").value("Italy"))
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENT_COUNT_HEADER, "2"));
+        mockMvc.perform(get("/fruits").param("providerId", String.valueOf(provider.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name").value(contains("Apple", "Pear")))
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENT_COUNT_HEADER, "2"));
+        mockMvc.perform(get("/fruits").param("providerId", "999999"))
+                .andExpect(status().isNotFound());
+        assertThat(fruitCatalogueCache.fruits()).isEqualTo(3);
+        assertThat(fruitCatalogueCache.memoryBytes()).isPositive();
+    }
+
+    @Test
+    void getFruits_AfterWrite_ReadsTheDatabaseUntilReloaded() throws Exception {
+        mockMvc.perform(post("/fruits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FruitRequestDTO("Quince", 6, provider.getId()))))
+                .andExpect(status().isCreated());
+
+        String missCount = mockMvc.perform(get("/fruits").param("providerId", String.valueOf(provider.getId())))
+                .andExpect(jsonPath("$[*].name").value(contains("Apple", "Pear", "Quince")))
+                .andReturn().getResponse().getHeader(SqlStatisticsFilter.STATEMENT_COUNT_HEADER);
+        assertThat(Integer.parseInt(missCount)).isGreaterThan(2);
+
+        fruitCatalogueCache.load();
+        mockMvc.perform(get("/fruits").param("providerId", String.valueOf(provider.getId())))
+                .andExpect(jsonPath("$[*].name").value(contains("Apple", "Pear", "Quince")))
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENT_COUNT_HEADER, "2"));
+    }
+}
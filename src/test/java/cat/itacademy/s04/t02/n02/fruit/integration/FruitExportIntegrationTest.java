@@ -0,0 +1,109 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "fruit.export.fetch-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class FruitExportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private FruitRepository fruitRepository;
+
+    private Provider spanish;
+    private Provider french;
+    private Fruit apple;
+    private Fruit pear;
+    private Fruit plum;
+
+    @BeforeEach
+    void setUp() {
+        spanish = providerRepository.save(new Provider(null, "Fruits Inc", "Spain"));
+        french = providerRepository.save(new Provider(null, "Vergers \"Du Sud\"", "France"));
+        apple = fruitRepository.save(new Fruit(null, "Apple", 10, spanish));
+        pear = fruitRepository.save(new Fruit(null, "Pear, Conference", 3, french));
+        plum = fruitRepository.save(new Fruit(null, "Plum", 5, spanish));
+    }
+
+    @Test
+    void exportFruits_WithoutFilter_WritesEveryFruitWithItsProvider() throws Exception {
+        mockMvc.perform(get("/fruits/export.csv"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string("id,name,weightInKilos,providerId,providerName,providerCountry\r\n"
+                        + apple.getId() + ",Apple,10," + spanish.getId() + ",Fruits Inc,Spain\r\n"
+                        + pear.getId() + ",\"Pear, Conference\",3," + french.getId() + ",\"Vergers \"\"Du Sud\"\"\",France\r\n"
+                        + plum.getId() + ",Plum,5," + spanish.getId() + ",Fruits Inc,Spain\r\n"));
+    }
+
+    @Test
+    void exportFruits_WithProviderIdAndGzip_WritesCompressedRowsOfThatProvider() throws Exception {
+        MvcResult result = mockMvc.perform(get("/fruits/export.csv")
+                        .param("providerId", spanish.getId().toString())
+                        .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))
+                .readAllBytes();
+        assertThat(new String(body, StandardCharsets.UTF_8).split("\r\n"))
+                .hasSize(3)
+                .allSatisfy(line -> assertThat(line).doesNotContain("Pear"));
+    }
+
+    @Test
+    void exportFruits_WithNonExistentProvider_Returns404() throws Exception {
+        mockMvc.perform(get("/fruits/export.csv").param("providerId", "999999"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist("Content-Disposition"))
+                .andExpect(jsonPath("$.message").value("Provider with id 999999 not found"));
+    }
+
+    @Test
+    void exportFruits_WithNonExistentProviderAndCurrentETag_Returns404() throws Exception {
+        String eTag = mockMvc.perform(get("/fruits/export.csv"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/fruits/export.csv").param("providerId", "999999").header("If-None-Match", eTag))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void exportFruits_WithCurrentETag_Returns304() throws Exception {
+        String eTag = mockMvc.perform(get("/fruits/export.csv"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/fruits/export.csv").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+}
@@ -0,0 +1,156 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"fruit.import.batch-size=2", "fruit.import.max-reported-errors=4",
+        "fruit.import.provider-cache-size=1"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class FruitImportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private FruitRepository fruitRepository;
+
+    private Provider provider;
+
+    @BeforeEach
+    void setUp() {
+        provider = providerRepository.save(new Provider(null, "Fruits Inc", "Spain"));
+    }
+
+    @Test
+    void importFruits_WithProviderIds_InsertsValidRowsAndReportsInvalidOnes() throws Exception {
+        String csv = """
+                name,weightInKilos,providerId
+                Apple,10,%1$d
+                ,5,%1$d
+                Pear,-3,%1$d
+                Plum,heavy,%1$d
+                Kiwi,2,999999
+
+                Mango,7,%1$d
+                Fig,1,%1$d
+                """.formatted(provider.getId());
+
+        mockMvc.perform(post("/fruits/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsRead").value(7))
+                .andExpect(jsonPath("$.imported").value(3))
+                .andExpect(jsonPath("$.rejected").value(4))
+                .andExpect(jsonPath("$.completed").value(true))
+                .andExpect(jsonPath("$.errors[0].line").value(3))
+                .andExpect(jsonPath("$.errors[0].message").value("Name cannot be blank"))
+                .andExpect(jsonPath("$.errors[1].message").value("Weight must be positive"))
+                .andExpect(jsonPath("$.errors[2].message").value("Weight must be an integer"))
+                .andExpect(jsonPath("$.errors[3].line").value(6))
+                .andExpect(jsonPath("$.errors[3].message").value("Provider with id 999999 not found"));
+
+        assertThat(fruitRepository.findByProviderId(provider.getId()))
+                .extracting("name")
+                .containsExactlyInAnyOrder("Apple", "Mango", "Fig");
+    }
+
+    @Test
+    void importFruits_WithProviderNames_ResolvesProviders() throws Exception {
+        String csv = """
+                name,weightInKilos,providerName
+                Apple,10,Fruits Inc
+                "Pear, Conference",3,"Fruits Inc"
+                Plum,3,Unknown Ltd
+                """;
+
+        mockMvc.perform(post("/fruits/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value("Provider with name Unknown Ltd not found"));
+
+        mockMvc.perform(get("/fruits").param("providerId", provider.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].name").value("Pear, Conference"));
+    }
+
+    @Test
+    void importFruits_WithMalformedCsv_KeepsRowsBeforeIt() throws Exception {
+        String csv = """
+                name,weightInKilos,providerId
+                Apple,10,%1$d
+                "Pear,3,%1$d
+                """.formatted(provider.getId());
+
+        mockMvc.perform(post("/fruits/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.completed").value(false))
+                .andExpect(jsonPath("$.errors[0].message").value("Line 3: Unterminated quoted field"));
+    }
+
+    @Test
+    void importFruits_WithMoreProvidersThanCached_ResolvesEachRow() throws Exception {
+        Provider other = providerRepository.save(new Provider(null, "Green Farm", "France"));
+        String csv = """
+                name,weightInKilos,providerName
+                Apple,10,Fruits Inc
+                Pear,3,Green Farm
+                Plum,3,Unknown Ltd
+                Fig,1,Fruits Inc
+                Kiwi,2,Green Farm
+                """;
+
+        mockMvc.perform(post("/fruits/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(4))
+                .andExpect(jsonPath("$.rejected").value(1));
+
+        assertThat(fruitRepository.findByProviderId(other.getId()))
+                .extracting("name")
+                .containsExactlyInAnyOrder("Pear", "Kiwi");
+    }
+
+    @Test
+    void importFruits_WithMalformedCsvAfterMaxErrors_DoesNotReportIt() throws Exception {
+        String csv = """
+                name,weightInKilos,providerId
+                ,1,%1$d
+                ,2,%1$d
+                ,3,%1$d
+                ,4,%1$d
+                "Pear,3,%1$d
+                """.formatted(provider.getId());
+
+        mockMvc.perform(post("/fruits/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rejected").value(4))
+                .andExpect(jsonPath("$.completed").value(false))
+                .andExpect(jsonPath("$.errors.length()").value(4));
+    }
+
+    @Test
+    void importFruits_WithoutRequiredColumns_Returns400() throws Exception {
+        mockMvc.perform(post("/fruits/import").contentType("text/csv").content("name,weight\nApple,10\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message")
+                        .value("CSV header must include name, weightInKilos and providerId or providerName"));
+    }
+}
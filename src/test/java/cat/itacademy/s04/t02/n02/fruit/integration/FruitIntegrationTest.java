@@ -1,6 +1,7 @@
 package cat.itacademy.s04.t02.n02.fruit.integration;
 
 import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
 import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
 import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -9,13 +10,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -31,6 +37,9 @@ class FruitIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void createFruit_WithValidProvider_ReturnsCreatedFruit() throws Exception {
         ProviderRequestDTO providerRequest = new ProviderRequestDTO("Fruits Inc", "Spain");
@@ -462,4 +471,40 @@ class FruitIntegrationTest {
                 .andExpect(jsonPath("$.name").value("Fruits Inc"));
     }
 
+    @Test
+    void updateFruitWeights_WithExistingAndMissingIds_UpdatesExistingAndReportsMissing() throws Exception {
+        String providerResponse = mockMvc.perform(post("/providers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Inc", "Spain"))))
+                .andReturn().getResponse().getContentAsString();
+        Long providerId = objectMapper.readTree(providerResponse).get("id").asLong();
+
+        String apple = mockMvc.perform(post("/fruits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FruitRequestDTO("Apple", 10, providerId))))
+                .andReturn().getResponse().getContentAsString();
+        String pear = mockMvc.perform(post("/fruits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FruitRequestDTO("Pear", 20, providerId))))
+                .andReturn().getResponse().getContentAsString();
+        Long appleId = objectMapper.readTree(apple).get("id").asLong();
+        Long pearId = objectMapper.readTree(pear).get("id").asLong();
+
+        List<FruitWeightDTO> weights = List.of(
+                new FruitWeightDTO(pearId, 25),
+                new FruitWeightDTO(999_999L, 5),
+                new FruitWeightDTO(appleId, 12));
+
+        mockMvc.perform(patch("/fruits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(weights)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2))
+                .andExpect(jsonPath("$.notFound.length()").value(1))
+                .andExpect(jsonPath("$.notFound[0]").value(999_999));
+
+        // The update bypasses the persistence context this test's transaction has already filled
+        assertThat(jdbcTemplate.queryForList("SELECT weight_in_kilos FROM fruits WHERE id IN (?, ?) ORDER BY id",
+                Integer.class, appleId, pearId)).containsExactly(12, 25);
+    }
 }
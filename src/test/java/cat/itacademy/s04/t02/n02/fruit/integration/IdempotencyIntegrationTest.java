@@ -0,0 +1,135 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.idempotency.IdempotencyFilter;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class IdempotencyIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Test
+    void createProvider_RetriedWithSameKey_ReplaysFirstResponse() throws Exception {
+        String body = objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Inc", "Spain"));
+
+        MvcResult first = mockMvc.perform(post("/providers")
+                        .header(IdempotencyFilter.KEY_HEADER, "create-fruits-inc")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andReturn();
+
+        mockMvc.perform(post("/providers")
+                        .header(IdempotencyFilter.KEY_HEADER, "create-fruits-inc")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(content().json(first.getResponse().getContentAsString()));
+
+        assertThat(providerRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void createProvider_RetriedWithSameKeyAndOtherBody_Returns422() throws Exception {
+        mockMvc.perform(post("/providers")
+                        .header(IdempotencyFilter.KEY_HEADER, "create-then-change")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Inc", "Spain"))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/providers")
+                        .header(IdempotencyFilter.KEY_HEADER, "create-then-change")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Ltd", "Spain"))))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message")
+                        .value("Idempotency-Key create-then-change was already used with a different request body"));
+
+        assertThat(providerRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void createProvider_WithSameKeyFromOtherClient_IsNotReplayed() throws Exception {
+        mockMvc.perform(post("/providers")
+                        .header(IdempotencyFilter.KEY_HEADER, "shared-key")
+                        .header("X-Api-Key", "partner-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Inc", "Spain"))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/providers")
+                        .header(IdempotencyFilter.KEY_HEADER, "shared-key")
+                        .header("X-Api-Key", "partner-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Ltd", "Spain"))))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+
+        assertThat(providerRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void createProvider_WithoutKey_IsNotDeduplicated() throws Exception {
+        String body = objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Inc", "Spain"));
+        mockMvc.perform(post("/providers").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/providers").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void createProvider_AfterFailedAttempt_ExecutesRetryWithSameKey() throws Exception {
+        mockMvc.perform(post("/providers")
+                        .header(IdempotencyFilter.KEY_HEADER, "create-after-failure")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO("", "Spain"))))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/providers")
+                        .header(IdempotencyFilter.KEY_HEADER, "create-after-failure")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Inc", "Spain"))))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void createProvider_WithBlankKey_Returns400() throws Exception {
+        mockMvc.perform(post("/providers")
+                        .header(IdempotencyFilter.KEY_HEADER, " ")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Inc", "Spain"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Idempotency-Key must be between 1 and 255 characters"));
+
+        assertThat(providerRepository.count()).isZero();
+    }
+}
@@ -0,0 +1,262 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.JobRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.job.JobRunner;
+import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
+import cat.itacademy.s04.t02.n02.fruit.model.Job;
+import cat.itacademy.s04.t02.n02.fruit.model.JobStatus;
+import cat.itacademy.s04.t02.n02.fruit.model.JobType;
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.JobRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Jobs run on their own threads and only see committed data, so this test commits its fixtures and
+ * deletes them afterwards instead of rolling back.
+ */
+@SpringBootTest(properties = {"fruit.jobs.chunk-size=2", "fruit.import.batch-size=2"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JobIntegrationTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private FruitRepository fruitRepository;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private JobRunner jobRunner;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Provider spanish;
+    private Provider french;
+    private final List<Fruit> spanishFruits = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        spanish = providerRepository.save(new Provider(null, "Fruits Inc", "Spain"));
+        french = providerRepository.save(new Provider(null, "Vergers du Sud", "France"));
+        for (int weight = 10; weight <= 50; weight += 10) {
+            spanishFruits.add(fruitRepository.save(new Fruit(null, "Apple " + weight, weight, spanish)));
+        }
+        fruitRepository.save(new Fruit(null, "Pear", 7, french));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobRepository.deleteAll();
+        fruitRepository.deleteAll();
+        providerRepository.deleteAll();
+    }
+
+    @Test
+    void adjustFruitWeights_ForOneProvider_ScalesOnlyItsFruits() throws Exception {
+        JsonNode job = awaitFinished(submit(new JobRequestDTO(JobType.ADJUST_FRUIT_WEIGHTS, spanish.getId(), null, 10)));
+
+        assertThat(job.get("status").asText()).isEqualTo("SUCCEEDED");
+        assertThat(job.get("total").asLong()).isEqualTo(5);
+        assertThat(job.get("processed").asLong()).isEqualTo(5);
+        assertThat(fruitRepository.findByProviderId(spanish.getId()))
+                .extracting(Fruit::getWeightInKilos)
+                .containsExactlyInAnyOrder(11, 22, 33, 44, 55);
+        assertThat(fruitRepository.findByProviderId(french.getId()))
+                .extracting(Fruit::getWeightInKilos)
+                .containsExactly(7);
+    }
+
+    @Test
+    void deleteProviders_ByCountry_DeletesProvidersWithTheirFruits() throws Exception {
+        JsonNode job = awaitFinished(submit(new JobRequestDTO(JobType.DELETE_PROVIDERS, null, "Spain", null)));
+
+        assertThat(job.get("status").asText()).isEqualTo("SUCCEEDED");
+        assertThat(job.get("succeeded").asLong()).isEqualTo(1);
+        assertThat(providerRepository.findAll()).extracting(Provider::getName).containsExactly("Vergers du Sud");
+        assertThat(fruitRepository.findAll()).extracting(Fruit::getName).containsExactly("Pear");
+    }
+
+    @Test
+    void deleteFruits_WithoutProviderId_Returns400() throws Exception {
+        mockMvc.perform(post("/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new JobRequestDTO(JobType.DELETE_FRUITS, null, null, null))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Provider ID cannot be null"));
+    }
+
+    @Test
+    void adjustFruitWeights_WithPercentAboveLimit_Returns400() throws Exception {
+        mockMvc.perform(post("/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new JobRequestDTO(JobType.ADJUST_FRUIT_WEIGHTS, null, null, 1001))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Percent must be greater than -100 and at most 1000"));
+    }
+
+    @Test
+    void importFruits_WithCsvUpload_ImportsInTheBackground() throws Exception {
+        String csv = """
+                name,weightInKilos,providerName
+                Kiwi,2,Fruits Inc
+                Plum,-1,Fruits Inc
+                Fig,1,Vergers du Sud
+                """;
+        String response = mockMvc.perform(post("/jobs").contentType("text/csv").content(csv))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode job = awaitFinished(objectMapper.readTree(response).get("id").asLong());
+
+        assertThat(job.get("status").asText()).isEqualTo("SUCCEEDED");
+        assertThat(job.get("processed").asLong()).isEqualTo(3);
+        assertThat(job.get("succeeded").asLong()).isEqualTo(2);
+        assertThat(job.get("failed").asLong()).isEqualTo(1);
+        assertThat(job.get("lastError").asText()).isEqualTo("Line 3: Weight must be positive");
+        assertThat(fruitRepository.count()).isEqualTo(8);
+    }
+
+    @Test
+    void importFruits_WithMalformedCsv_Fails() throws Exception {
+        String response = mockMvc.perform(post("/jobs").contentType("text/csv")
+                        .content("name,weightInKilos,providerName\n\"Kiwi,2,Fruits Inc\n"))
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode job = awaitFinished(objectMapper.readTree(response).get("id").asLong());
+
+        assertThat(job.get("status").asText()).isEqualTo("FAILED");
+        assertThat(job.get("lastError").asText()).isEqualTo("Line 2: Unterminated quoted field");
+    }
+
+    @Test
+    void resumeJobs_WithInterruptedJob_ContinuesAfterItsCheckpoint() throws Exception {
+        Job interrupted = new Job(JobType.ADJUST_FRUIT_WEIGHTS);
+        interrupted.setStatus(JobStatus.RUNNING);
+        interrupted.setStartedAt(Instant.now());
+        interrupted.setProviderId(spanish.getId());
+        interrupted.setPercent(100);
+        interrupted.setTotal(5L);
+        interrupted.setCheckpoint(spanishFruits.get(1).getId());
+        interrupted.setProcessed(2);
+        interrupted.setSucceeded(2);
+        interrupted = jobRepository.save(interrupted);
+
+        jobRunner.resumeJobs();
+        JsonNode job = awaitFinished(interrupted.getId());
+
+        assertThat(job.get("status").asText()).isEqualTo("SUCCEEDED");
+        assertThat(job.get("processed").asLong()).isEqualTo(5);
+        assertThat(fruitRepository.findByProviderId(spanish.getId()))
+                .extracting(Fruit::getWeightInKilos)
+                .containsExactlyInAnyOrder(10, 20, 60, 80, 100);
+    }
+
+    @Test
+    void resumeJobs_WithJobLeasedByAnotherInstance_WaitsForTheLeaseToExpire() throws Exception {
+        Job leased = new Job(JobType.ADJUST_FRUIT_WEIGHTS);
+        leased.setStatus(JobStatus.RUNNING);
+        leased.setStartedAt(Instant.now());
+        leased.setProviderId(spanish.getId());
+        leased.setPercent(100);
+        leased.setTotal(5L);
+        leased.setLeaseOwner("other-instance");
+        leased.setLeaseExpiresAt(Instant.now().plusSeconds(3600));
+        leased = jobRepository.save(leased);
+
+        jobRunner.resumeJobs();
+        Thread.sleep(200);
+
+        assertThat(jobRepository.findById(leased.getId()).orElseThrow().getProcessed()).isZero();
+        assertThat(fruitRepository.findByProviderId(spanish.getId()))
+                .extracting(Fruit::getWeightInKilos)
+                .containsExactlyInAnyOrder(10, 20, 30, 40, 50);
+
+        leased.setLeaseExpiresAt(Instant.now().minusSeconds(1));
+        jobRepository.save(leased);
+        jobRunner.resumeJobs();
+
+        assertThat(awaitFinished(leased.getId()).get("status").asText()).isEqualTo("SUCCEEDED");
+        assertThat(fruitRepository.findByProviderId(spanish.getId()))
+                .extracting(Fruit::getWeightInKilos)
+                .containsExactlyInAnyOrder(20, 40, 60, 80, 100);
+    }
+
+    @Test
+    void updateProgress_FromStaleCheckpointOrOtherOwner_UpdatesNothing() {
+        Job job = new Job(JobType.DELETE_FRUITS);
+        job.setStatus(JobStatus.RUNNING);
+        job.setProviderId(spanish.getId());
+        job.setCheckpoint(5);
+        job.setLeaseOwner("this-instance");
+        job.setLeaseExpiresAt(Instant.now().plusSeconds(60));
+        long id = jobRepository.save(job).getId();
+        Instant lease = Instant.now().plusSeconds(60);
+
+        assertThat(transactionTemplate.<Integer>execute(status ->
+                jobRepository.updateProgress(id, 4, 9, 4, 4, 0, null, "this-instance", lease))).isZero();
+        assertThat(transactionTemplate.<Integer>execute(status ->
+                jobRepository.updateProgress(id, 5, 9, 4, 4, 0, null, "other-instance", lease))).isZero();
+        assertThat(transactionTemplate.<Integer>execute(status ->
+                jobRepository.updateProgress(id, 5, 9, 4, 4, 0, null, "this-instance", lease))).isOne();
+    }
+
+    private long submit(JobRequestDTO request) throws Exception {
+        String response = mockMvc.perform(post("/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    private JsonNode awaitFinished(long id) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (true) {
+            String response = mockMvc.perform(get("/jobs/{id}", id))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode job = objectMapper.readTree(response);
+            if (JobStatus.valueOf(job.get("status").asText()).isFinished()) {
+                return job;
+            }
+            assertThat(System.currentTimeMillis()).as("job %d finished in time", id).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndex;
+import cat.itacademy.s04.t02.n02.fruit.collection.IdList;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import cat.itacademy.s04.t02.n02.fruit.monitoring.SqlStatisticsFilter;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import cat.itacademy.s04.t02.n02.fruit.service.CatalogueChangeTracker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The index only follows committed writes, so fixtures are committed and deleted afterwards.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProviderFruitIndexIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProviderFruitIndex providerFruitIndex;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private FruitRepository fruitRepository;
+
+    @Autowired
+    private CatalogueChangeTracker changeTracker;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private CatalogueFixtures fixtures;
+
+    private long providerId;
+    private long otherProviderId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fixtures = new CatalogueFixtures(mockMvc, objectMapper);
+        providerId = fixtures.createProvider("Indexed Orchards");
+        otherProviderId = fixtures.createProvider("Indexed Groves");
+        providerFruitIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fruitRepository.deleteAll();
+        providerRepository.deleteAll();
+        providerFruitIndex.rebuild();
+    }
+
+    @Test
+    void writes_AfterCommit_KeepProviderFruitIdsInSync() throws Exception {
+        long apple = fixtures.createFruit("Apple", providerId);
+        long pear = fixtures.createFruit("Pear", providerId);
+        assertThat(fruitIdsOf(providerId)).containsExactly(apple, pear);
+        assertThat(fruitIdsOf(otherProviderId)).isEmpty();
+
+        mockMvc.perform(put("/fruits/{id}", apple)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FruitRequestDTO("Apple", 12, otherProviderId))))
+                .andExpect(status().isOk());
+        assertThat(fruitIdsOf(providerId)).containsExactly(pear);
+        assertThat(fruitIdsOf(otherProviderId)).containsExactly(apple);
+
+        mockMvc.perform(delete("/fruits/{id}", pear)).andExpect(status().isNoContent());
+        mockMvc.perform(delete("/providers/{id}", providerId)).andExpect(status().isNoContent());
+        assertThat(providerFruitIndex.fruitIdsOf(providerId, changeTracker::currentVersion)).isNull();
+    }
+
+    @Test
+    void getFruits_WithOnlyIdsOfIndexedProvider_RunsOnlyVersionChecks() throws Exception {
+        long apple = fixtures.createFruit("Apple", providerId);
+        fixtures.createFruit("Carrot", otherProviderId);
+
+        mockMvc.perform(get("/fruits").param("providerId", String.valueOf(providerId)).param("fields", "id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(apple))
+                .andExpect(jsonPath("$[0].name").doesNotExist())
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENT_COUNT_HEADER, "2"));
+    }
+
+    @Test
+    void getFruits_AfterWriteFromAnotherInstance_ReadsTheDatabaseUntilRebuilt() throws Exception {
+        Provider provider = providerRepository.findById(providerId).orElseThrow();
+        long apple = fruitRepository.save(new Fruit("Apple", 10, provider)).getId();
+        // What another instance's write leaves behind: the row and the version bump, but no index update
+        jdbcTemplate.update("UPDATE table_versions SET version = version + 1 WHERE table_name = 'fruits'");
+
+        assertThat(providerFruitIndex.fruitIdsOf(providerId, changeTracker::currentVersion)).isNull();
+        mockMvc.perform(get("/fruits").param("providerId", String.valueOf(providerId)).param("fields", "id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains((int) apple)));
+
+        providerFruitIndex.rebuild();
+        assertThat(fruitIdsOf(providerId)).containsExactly(apple);
+    }
+
+    @Test
+    void reloadStale_AfterInvalidate_ReadsFruitsWrittenBehindTheIndex() {
+        Provider provider = providerRepository.findById(providerId).orElseThrow();
+        long apple = fruitRepository.save(new Fruit("Apple", 10, provider)).getId();
+        assertThat(fruitIdsOf(providerId)).isEmpty();
+
+        providerFruitIndex.invalidate(providerId);
+        assertThat(providerFruitIndex.fruitIdsOf(providerId, changeTracker::currentVersion)).isNull();
+
+        providerFruitIndex.reloadStale();
+        assertThat(fruitIdsOf(providerId)).containsExactly(apple);
+        assertThat(providerFruitIndex.memoryBytes()).isPositive();
+    }
+
+    private long[] fruitIdsOf(long providerId) {
+        IdList.View view = providerFruitIndex.fruitIdsOf(providerId, changeTracker::currentVersion);
+        assertThat(view).isNotNull();
+        return Arrays.copyOf(view.ids(), view.size());
+    }
+
+}
@@ -0,0 +1,88 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.ResponseCacheFilter;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.ratelimit.RateLimitFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "fruit.rate-limit.enabled=true",
+        "fruit.rate-limit.read.capacity=2",
+        "fruit.rate-limit.read.refill-per-second=0.01",
+        "fruit.response-cache.enabled=true"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class RateLimitIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void getAllProviders_BeyondClientLimit_Returns429WithRateLimitHeaders() throws Exception {
+        mockMvc.perform(get("/providers"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RateLimitFilter.LIMIT_HEADER, "2"))
+                .andExpect(header().string(RateLimitFilter.REMAINING_HEADER, "1"));
+        mockMvc.perform(get("/providers"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RateLimitFilter.REMAINING_HEADER, "0"))
+                .andExpect(header().string(RateLimitFilter.RESET_HEADER, "200"));
+
+        mockMvc.perform(get("/providers"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "100"))
+                .andExpect(header().string(RateLimitFilter.REMAINING_HEADER, "0"))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.message").value("Rate limit of 2 read requests exceeded, retry later"));
+    }
+
+    @Test
+    void getAllProviders_WithOtherApiKey_UsesSeparateBucket() throws Exception {
+        mockMvc.perform(get("/providers").header("X-Api-Key", "partner-1"));
+        mockMvc.perform(get("/providers").header("X-Api-Key", "partner-1"));
+
+        mockMvc.perform(get("/providers").header("X-Api-Key", "partner-2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RateLimitFilter.REMAINING_HEADER, "1"));
+    }
+
+    @Test
+    void getAllProviders_FromResponseCache_IsStillCharged() throws Exception {
+        mockMvc.perform(get("/providers").header("X-Api-Key", "partner-4"));
+        mockMvc.perform(get("/providers").header("X-Api-Key", "partner-4"))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "HIT"))
+                .andExpect(header().string(RateLimitFilter.REMAINING_HEADER, "0"));
+
+        mockMvc.perform(get("/providers").header("X-Api-Key", "partner-4"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().doesNotExist(ResponseCacheFilter.CACHE_HEADER));
+    }
+
+    @Test
+    void createProvider_WhenReadsAreThrottled_IsNotAffected() throws Exception {
+        mockMvc.perform(get("/providers").header("X-Api-Key", "partner-3"));
+        mockMvc.perform(get("/providers").header("X-Api-Key", "partner-3"));
+
+        mockMvc.perform(post("/providers").header("X-Api-Key", "partner-3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Inc", "Spain"))))
+                .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,222 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.ResponseCache;
+import cat.itacademy.s04.t02.n02.fruit.cache.ResponseCacheFilter;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.monitoring.SqlStatisticsFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "fruit.response-cache.enabled=true",
+        "fruit.response-cache.gzip-min-size=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ResponseCacheIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    private CatalogueFixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new CatalogueFixtures(mockMvc, objectMapper);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM fruits");
+        jdbcTemplate.update("DELETE FROM providers");
+        responseCache.invalidatePrefix("");
+    }
+
+    @Test
+    void getAllProviders_SecondRequest_IsServedFromCacheWithoutSql() throws Exception {
+        fixtures.createProvider("Fruits Inc");
+
+        String firstBody = mockMvc.perform(get("/providers"))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "MISS"))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get("/providers"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "HIT"))
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENT_COUNT_HEADER, "0"))
+                .andExpect(header().exists("ETag"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(firstBody));
+    }
+
+    @Test
+    void getAllProviders_WithCachedETag_Returns304FromCache() throws Exception {
+        fixtures.createProvider("Fruits Inc");
+        String eTag = mockMvc.perform(get("/providers")).andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/providers").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "HIT"))
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENT_COUNT_HEADER, "0"));
+    }
+
+    @Test
+    void createProvider_InvalidatesProviderList() throws Exception {
+        fixtures.createProvider("Fruits Inc");
+        mockMvc.perform(get("/providers"));
+
+        fixtures.createProvider("Veggies Ltd");
+
+        mockMvc.perform(get("/providers"))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "MISS"))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void updateFruit_InvalidatesOnlyListsOfAffectedProviders() throws Exception {
+        long fromProvider = fixtures.createProvider("Fruits Inc");
+        long toProvider = fixtures.createProvider("Veggies Ltd");
+        long otherProvider = fixtures.createProvider("Berries SL");
+        long fruitId = fixtures.createFruit("Apple", fromProvider);
+        for (long providerId : new long[]{fromProvider, toProvider, otherProvider}) {
+            mockMvc.perform(get("/fruits").param("providerId", String.valueOf(providerId)));
+        }
+
+        mockMvc.perform(put("/fruits/{id}", fruitId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FruitRequestDTO("Apple", 12, toProvider))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/fruits").param("providerId", String.valueOf(fromProvider)))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "MISS"))
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/fruits").param("providerId", String.valueOf(toProvider)))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "MISS"))
+                .andExpect(jsonPath("$[0].weightInKilos").value(12));
+        mockMvc.perform(get("/fruits").param("providerId", String.valueOf(otherProvider)))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "HIT"));
+    }
+
+    @Test
+    void updateProvider_InvalidatesFruitListsEmbeddingIt() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        fixtures.createFruit("Apple", providerId);
+        mockMvc.perform(get("/fruits"));
+
+        mockMvc.perform(put("/providers/{id}", providerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Inc", "France"))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/fruits"))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "MISS"))
+                .andExpect(jsonPath("$[0].provider.country").value("France"));
+    }
+
+    @Test
+    void getFruits_WithAcceptEncodingGzip_ServesPrecompressedBody() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        fixtures.createFruit("Apple", providerId);
+        String identityBody = mockMvc.perform(get("/fruits"))
+                .andReturn().getResponse().getContentAsString();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/fruits").header("Accept-Encoding", "br, gzip"))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "HIT"))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().stringValues("Vary", "Accept", "Accept-Encoding"))
+                .andReturn().getResponse();
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertThat(new String(gzip.readAllBytes(), response.getCharacterEncoding())).isEqualTo(identityBody);
+        }
+    }
+
+    @Test
+    void getFruits_WithGzipRefusedByQuality_ServesIdentityBody() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        fixtures.createFruit("Apple", providerId);
+        mockMvc.perform(get("/fruits"));
+
+        mockMvc.perform(get("/fruits").header("Accept-Encoding", "gzip;q=0, identity"))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "HIT"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("$[0].name").value("Apple"));
+    }
+
+    @Test
+    void getFruits_WithDifferentAccept_CachesEachEncodingSeparately() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        fixtures.createFruit("Apple", providerId);
+        mockMvc.perform(get("/fruits").accept(MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(get("/fruits").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "MISS"))
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+        mockMvc.perform(get("/fruits").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "HIT"))
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+
+        fixtures.createFruit("Banana", providerId);
+
+        mockMvc.perform(get("/fruits").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "MISS"));
+        mockMvc.perform(get("/fruits").accept(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "MISS"));
+    }
+
+    @Test
+    void getFruits_WithAcceptHeadersNegotiatingJson_ShareOneEntry() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        fixtures.createFruit("Apple", providerId);
+        mockMvc.perform(get("/fruits"))
+                .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "MISS"));
+
+        for (String accept : new String[]{"application/json", "*/*", "application/*, text/plain;q=0.5"}) {
+            mockMvc.perform(get("/fruits").header("Accept", accept))
+                    .andExpect(header().string(ResponseCacheFilter.CACHE_HEADER, "HIT"))
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        }
+    }
+
+    @Test
+    void getFruits_WithUnacceptableAccept_BypassesCache() throws Exception {
+        mockMvc.perform(get("/fruits").header("Accept", "text/csv"))
+                .andExpect(status().isNotAcceptable())
+                .andExpect(header().doesNotExist(ResponseCacheFilter.CACHE_HEADER));
+    }
+
+    @Test
+    void getFruits_WithUnknownParameter_IsNotCached() throws Exception {
+        mockMvc.perform(get("/fruits").param("sort", "name"))
+                .andExpect(header().doesNotExist(ResponseCacheFilter.CACHE_HEADER));
+    }
+
+}
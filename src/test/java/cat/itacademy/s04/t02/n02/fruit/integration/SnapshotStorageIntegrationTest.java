@@ -0,0 +1,133 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import cat.itacademy.s04.t02.n02.fruit.monitoring.SqlStatisticsFilter;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.CatalogueStores;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.snapshot.SnapshotCatalogueStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Fixtures are written to the database through the repositories and committed, then published to the
+ * snapshot explicitly; the refresh interval is long enough that the refresher never runs during a test.
+ */
+@SpringBootTest(properties = {"fruit.storage.engine=snapshot",
+        "fruit.storage.directory=" + SnapshotStorageIntegrationTest.DIRECTORY,
+        "fruit.storage.refresh-interval=1h"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SnapshotStorageIntegrationTest {
+
+    static final String DIRECTORY = "target/catalogue-snapshot";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CatalogueStores catalogueStores;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private FruitRepository fruitRepository;
+
+    @BeforeAll
+    static void cleanDirectory() throws IOException {
+        FileSystemUtils.deleteRecursively(Path.of(DIRECTORY));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        fruitRepository.deleteAll();
+        providerRepository.deleteAll();
+        snapshotCatalogueStore().publish();
+    }
+
+    @Test
+    void getFruits_AfterPublish_AreReadFromSnapshotWithoutSql() throws Exception {
+        Provider provider = providerRepository.save(new Provider(null, "Snapshot Orchards", "Spain"));
+        Provider other = providerRepository.save(new Provider(null, "Snapshot Groves", "Italy"));
+        Fruit apple = fruitRepository.save(new Fruit("Apple", 10, provider));
+        fruitRepository.save(new Fruit("Lemon", 4, other));
+        fruitRepository.save(new Fruit("Pear", 7, provider));
+        snapshotCatalogueStore().publish();
+
+        mockMvc.perform(get("/fruits/{id}", apple.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Apple"))
+                .andExpect(jsonPath("$.provider.name").value("Snapshot Orchards"))
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENT_COUNT_HEADER, "0"));
+        mockMvc.perform(get("/fruits").param("providerId", String.valueOf(provider.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name").value(contains("Apple", "Pear")))
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENT_COUNT_HEADER, "0"));
+        mockMvc.perform(get("/providers"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].country").value(contains("Spain", "Italy")));
+    }
+
+    @Test
+    void getFruit_AfterNewSnapshotIsPublished_ReturnsNewData() throws Exception {
+        Provider provider = providerRepository.save(new Provider(null, "Snapshot Farms", "France"));
+        Fruit plum = fruitRepository.save(new Fruit("Plum", 5, provider));
+        snapshotCatalogueStore().publish();
+        String eTag = mockMvc.perform(get("/fruits/{id}", plum.getId()))
+                .andExpect(jsonPath("$.weightInKilos").value(5))
+                .andReturn().getResponse().getHeader("ETag");
+
+        plum.setWeightInKilos(9);
+        fruitRepository.save(plum);
+        mockMvc.perform(get("/fruits/{id}", plum.getId()))
+                .andExpect(jsonPath("$.weightInKilos").value(5));
+
+        snapshotCatalogueStore().publish();
+        mockMvc.perform(get("/fruits/{id}", plum.getId()).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.weightInKilos").value(9));
+        mockMvc.perform(get("/fruits").param("fields", "name,providerId"))
+                .andExpect(jsonPath("$[*].name").value(hasItem("Plum")));
+    }
+
+    @Test
+    void createFruit_OnSnapshotInstance_Returns503() throws Exception {
+        Provider provider = providerRepository.save(new Provider(null, "Snapshot Acres", "Spain"));
+        snapshotCatalogueStore().publish();
+
+        mockMvc.perform(post("/fruits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FruitRequestDTO("Fig", 3, provider.getId()))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message").value(containsString("read-only")));
+    }
+
+    private SnapshotCatalogueStore snapshotCatalogueStore() {
+        return (SnapshotCatalogueStore) catalogueStores.engine();
+    }
+}
@@ -0,0 +1,106 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.monitoring.SqlStatisticsFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class SparseFieldsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private CatalogueFixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new CatalogueFixtures(mockMvc, objectMapper);
+    }
+
+    @Test
+    void getFruits_WithIdAndName_ReturnsOnlyThoseFields() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        fixtures.createFruit("Apple", providerId);
+        fixtures.createFruit("Banana", providerId);
+
+        mockMvc.perform(get("/fruits").param("fields", "id,name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("Apple"))
+                .andExpect(jsonPath("$[0].id").isNumber())
+                .andExpect(jsonPath("$[0].weightInKilos").doesNotExist())
+                .andExpect(jsonPath("$[0].provider").doesNotExist());
+    }
+
+    @Test
+    void getFruits_ByProviderWithProviderId_ReadsForeignKeyOnly() throws Exception {
+        long providerId = fixtures.createProvider("Fruits Inc");
+        long otherProviderId = fixtures.createProvider("Veggies Ltd");
+        fixtures.createFruit("Apple", providerId);
+        fixtures.createFruit("Carrot", otherProviderId);
+
+        mockMvc.perform(get("/fruits").param("providerId", String.valueOf(providerId)).param("fields", "name,providerId"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Apple"))
+                .andExpect(jsonPath("$[0].providerId").value(providerId))
+                // ETag version check + provider existence + projection
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENT_COUNT_HEADER, "3"));
+    }
+
+    @Test
+    void getFruitById_WithExpandProvider_EmbedsProvider() throws Exception {
+        long fruitId = fixtures.createFruit("Apple", fixtures.createProvider("Fruits Inc"));
+
+        mockMvc.perform(get("/fruits/{id}", fruitId).param("fields", "weightInKilos").param("expand", "provider"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.weightInKilos").value(10))
+                .andExpect(jsonPath("$.name").doesNotExist())
+                .andExpect(jsonPath("$.provider.name").value("Fruits Inc"))
+                .andExpect(jsonPath("$.provider.country").value("Spain"));
+    }
+
+    @Test
+    void getFruitById_WithFieldsAndMatchingETag_Returns304() throws Exception {
+        long fruitId = fixtures.createFruit("Apple", fixtures.createProvider("Fruits Inc"));
+
+        String eTag = mockMvc.perform(get("/fruits/{id}", fruitId).param("fields", "name"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/fruits/{id}", fruitId).param("fields", "name").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/fruits/{id}", fruitId).header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getFruitById_WithFieldsAndNonExistentId_Returns404NotFound() throws Exception {
+        mockMvc.perform(get("/fruits/{id}", 999L).param("fields", "name"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Fruit with id 999 not found"));
+    }
+
+    @Test
+    void getFruits_WithEmptyFields_Returns400BadRequest() throws Exception {
+        mockMvc.perform(get("/fruits").param("fields", ""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("At least one fruit field must be selected"));
+    }
+
+}
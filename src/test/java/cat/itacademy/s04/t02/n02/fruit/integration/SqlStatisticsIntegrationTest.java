@@ -0,0 +1,105 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.monitoring.SqlStatisticsFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class SqlStatisticsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void getAllProviders_ReturnsSqlStatisticsHeaders() throws Exception {
+        mockMvc.perform(post("/providers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Fruits Inc", "Spain"))));
+        mockMvc.perform(post("/providers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ProviderRequestDTO("Veggies Ltd", "France"))));
+
+        MvcResult result = mockMvc.perform(get("/providers"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlStatisticsFilter.TIME_HEADER))
+                .andReturn();
+
+        // ETag version check + provider list
+        assertThat(result.getResponse().getHeader(SqlStatisticsFilter.STATEMENT_COUNT_HEADER)).isEqualTo("2");
+        assertThat(result.getResponse().getHeader(SqlStatisticsFilter.ROWS_HEADER)).isEqualTo("3");
+    }
+
+    @Test
+    void getAllFruits_FetchesProvidersInTheSameQuery() throws Exception {
+        for (String name : new String[]{"Fruits Inc", "Veggies Ltd"}) {
+            String provider = mockMvc.perform(post("/providers")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new ProviderRequestDTO(name, "Spain"))))
+                    .andReturn().getResponse().getContentAsString();
+            long providerId = objectMapper.readTree(provider).get("id").asLong();
+            for (String fruit : new String[]{"Apple", "Banana"}) {
+                mockMvc.perform(post("/fruits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FruitRequestDTO(fruit, 10, providerId))));
+            }
+        }
+
+        MvcResult result = mockMvc.perform(get("/fruits"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[3].provider.name").value("Veggies Ltd"))
+                .andReturn();
+
+        // ETag version check + fruits joined with their providers
+        assertThat(result.getResponse().getHeader(SqlStatisticsFilter.STATEMENT_COUNT_HEADER)).isEqualTo("2");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void getAllProviders_ReleasesConnectionsBeforeWritingBody() throws Exception {
+        MvcResult result = mockMvc.perform(get("/providers"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // The header is written when the body starts, so it only counts connections already returned to the pool
+        assertThat(Double.parseDouble(result.getResponse().getHeader(SqlStatisticsFilter.CONNECTION_HOLD_HEADER)))
+                .isPositive();
+    }
+
+    @Test
+    void getFruitById_WithNonExistentId_ReturnsSqlStatisticsHeadersOnError() throws Exception {
+        MvcResult result = mockMvc.perform(get("/fruits/{id}", 999L))
+                .andExpect(status().isNotFound())
+                .andReturn();
+
+        assertThat(result.getResponse().getHeader(SqlStatisticsFilter.STATEMENT_COUNT_HEADER)).isEqualTo("1");
+        assertThat(result.getResponse().getHeader(SqlStatisticsFilter.ROWS_HEADER)).isEqualTo("0");
+    }
+
+    @Test
+    void actuatorHealth_IsNotInstrumented() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(header().doesNotExist(SqlStatisticsFilter.STATEMENT_COUNT_HEADER));
+    }
+}
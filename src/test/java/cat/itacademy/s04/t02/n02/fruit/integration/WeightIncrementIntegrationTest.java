@@ -0,0 +1,169 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.WeightIncrementDTO;
+import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import cat.itacademy.s04.t02.n02.fruit.service.WeightIncrementService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Flushes are triggered by the test, so the interval is set far beyond its run time. Increments are
+ * written in their own transactions, so fixtures are committed and deleted afterwards.
+ */
+@SpringBootTest(properties = "fruit.weight-increments.flush-interval=1h")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class WeightIncrementIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private FruitRepository fruitRepository;
+
+    @Autowired
+    private WeightIncrementService weightIncrementService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Fruit apple;
+
+    @BeforeEach
+    void setUp() {
+        Provider provider = providerRepository.save(new Provider(null, "Fruits Inc", "Spain"));
+        apple = fruitRepository.save(new Fruit(null, "Apple", 10, provider));
+    }
+
+    @AfterEach
+    void tearDown() {
+        weightIncrementService.flush();
+        fruitRepository.deleteAll();
+        providerRepository.deleteAll();
+    }
+
+    @Test
+    void incrementWeight_WithConcurrentDeltas_AppliesAllInOneUpdate() throws Exception {
+        String body = objectMapper.writeValueAsString(new WeightIncrementDTO(1));
+        List<CompletableFuture<Void>> scanners = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            scanners.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 25; i++) {
+                    try {
+                        mockMvc.perform(post("/fruits/{id}/weight:increment", apple.getId())
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(body))
+                                .andExpect(status().isAccepted());
+                    } catch (Exception ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+            }));
+        }
+        scanners.forEach(CompletableFuture::join);
+
+        assertThat(weightIncrementService.pendingFruits()).isEqualTo(1);
+        assertThat(weightIncrementService.flush()).isEqualTo(1);
+
+        assertThat(jdbcTemplate.queryForMap("SELECT weight_in_kilos, version FROM fruits WHERE id = ?", apple.getId()))
+                .containsEntry("WEIGHT_IN_KILOS", 210)
+                .containsEntry("VERSION", apple.getVersion() + 1);
+    }
+
+    @Test
+    void incrementWeight_InStrictMode_ReturnsCommittedWeightIncludingFlushedDeltas() throws Exception {
+        mockMvc.perform(post("/fruits/{id}/weight:increment", apple.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new WeightIncrementDTO(5))))
+                .andExpect(status().isAccepted());
+        weightIncrementService.flush();
+
+        mockMvc.perform(post("/fruits/{id}/weight:increment", apple.getId())
+                        .param("strict", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new WeightIncrementDTO(3))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.weightInKilos").value(18))
+                .andExpect(jsonPath("$.provider.name").value("Fruits Inc"));
+    }
+
+    @Test
+    void incrementWeight_InStrictModeWithNonExistentId_Returns404NotFound() throws Exception {
+        mockMvc.perform(post("/fruits/{id}/weight:increment", 999_999L)
+                        .param("strict", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new WeightIncrementDTO(3))))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Fruit with id 999999 not found"));
+    }
+
+    @Test
+    void incrementWeight_InStrictModeBeyondMaxWeight_Returns409Conflict() throws Exception {
+        jdbcTemplate.update("UPDATE fruits SET weight_in_kilos = ? WHERE id = ?", Integer.MAX_VALUE - 2, apple.getId());
+
+        mockMvc.perform(post("/fruits/{id}/weight:increment", apple.getId())
+                        .param("strict", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new WeightIncrementDTO(3))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message")
+                        .value("Adding 3 kg would overflow the weight of fruit with id " + apple.getId()));
+    }
+
+    @Test
+    void flush_WithSumBeyondMaxWeight_DropsOnlyThatFruit() throws Exception {
+        Fruit pear = fruitRepository.save(new Fruit(null, "Pear", Integer.MAX_VALUE - 5, apple.getProvider()));
+        String body = objectMapper.writeValueAsString(new WeightIncrementDTO(3));
+        for (Long id : List.of(apple.getId(), pear.getId(), pear.getId())) {
+            mockMvc.perform(post("/fruits/{id}/weight:increment", id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isAccepted());
+        }
+
+        assertThat(weightIncrementService.flush()).isEqualTo(1);
+        assertThat(weightIncrementService.pendingFruits()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT weight_in_kilos FROM fruits WHERE id = ?", Integer.class,
+                pear.getId())).isEqualTo(Integer.MAX_VALUE - 5);
+        assertThat(jdbcTemplate.queryForObject("SELECT weight_in_kilos FROM fruits WHERE id = ?", Integer.class,
+                apple.getId())).isEqualTo(13);
+    }
+
+    @Test
+    void flush_WithDeltaForDeletedFruit_DropsIt() throws Exception {
+        mockMvc.perform(post("/fruits/{id}/weight:increment", apple.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new WeightIncrementDTO(5))))
+                .andExpect(status().isAccepted());
+        fruitRepository.deleteById(apple.getId());
+
+        assertThat(weightIncrementService.flush()).isZero();
+        assertThat(weightIncrementService.pendingFruits()).isZero();
+    }
+}
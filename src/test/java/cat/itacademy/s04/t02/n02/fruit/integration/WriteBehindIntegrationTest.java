@@ -0,0 +1,122 @@
+package cat.itacademy.s04.t02.n02.fruit.integration;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.WriteBehindStatusDTO;
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Queued fruits are written by the writer thread in its own transactions, so fixtures are committed and
+ * deleted afterwards. Status counters accumulate over the context, so assertions compare against a baseline.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class WriteBehindIntegrationTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private FruitRepository fruitRepository;
+
+    private Provider provider;
+    private WriteBehindStatusDTO before;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        provider = providerRepository.save(new Provider(null, "Fruits Inc", "Spain"));
+        before = writeBehindStatus();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        awaitStatus(status -> status.pending() == 0);
+        fruitRepository.deleteAll();
+        providerRepository.deleteAll();
+    }
+
+    @Test
+    void createFruit_Async_Returns202AndWritesInBackground() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            mockMvc.perform(post("/fruits").param("async", "true")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new FruitRequestDTO("Fruit " + i, 10, provider.getId()))))
+                    .andExpect(status().isAccepted())
+                    .andExpect(content().string(""));
+        }
+
+        WriteBehindStatusDTO after = awaitStatus(status -> status.written() - before.written() == 25);
+
+        assertThat(after.accepted() - before.accepted()).isEqualTo(25);
+        assertThat(after.pending()).isZero();
+        assertThat(fruitRepository.findByProviderId(provider.getId())).hasSize(25);
+    }
+
+    @Test
+    void createFruit_AsyncWithUnknownProvider_IsCountedAsRejected() throws Exception {
+        mockMvc.perform(post("/fruits").param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FruitRequestDTO("Apple", 10, 999_999L))))
+                .andExpect(status().isAccepted());
+
+        awaitStatus(status -> status.rejected() - before.rejected() == 1);
+
+        assertThat(fruitRepository.count()).isZero();
+    }
+
+    @Test
+    void createFruit_AsyncWithInvalidBody_Returns400BadRequest() throws Exception {
+        mockMvc.perform(post("/fruits").param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FruitRequestDTO("", 10, provider.getId()))))
+                .andExpect(status().isBadRequest());
+
+        assertThat(writeBehindStatus().accepted()).isEqualTo(before.accepted());
+    }
+
+    private WriteBehindStatusDTO writeBehindStatus() throws Exception {
+        String response = mockMvc.perform(get("/fruits/write-behind"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, WriteBehindStatusDTO.class);
+    }
+
+    private WriteBehindStatusDTO awaitStatus(Predicate<WriteBehindStatusDTO> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (true) {
+            WriteBehindStatusDTO status = writeBehindStatus();
+            if (condition.test(status)) {
+                return status;
+            }
+            assertThat(System.currentTimeMillis()).as("write-behind status %s", status).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package cat.itacademy.s04.t02.n02.fruit.job;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdjustFruitWeightsOperationTest {
+
+    @Test
+    void adjust_RoundsAndNeverGoesBelowOneKilo() {
+        assertThat(AdjustFruitWeightsOperation.adjust(10, 15)).isEqualTo(12);
+        assertThat(AdjustFruitWeightsOperation.adjust(10, -5)).isEqualTo(10);
+        assertThat(AdjustFruitWeightsOperation.adjust(1, -99)).isEqualTo(1);
+    }
+
+    @Test
+    void adjust_LargeWeight_DoesNotOverflow() {
+        assertThat(AdjustFruitWeightsOperation.adjust(30_000_000, 0)).isEqualTo(30_000_000);
+        assertThat(AdjustFruitWeightsOperation.adjust(Integer.MAX_VALUE, -50)).isEqualTo(1_073_741_824);
+    }
+
+    @Test
+    void adjust_LargePercent_CapsAtMaximumWeight() {
+        assertThat(AdjustFruitWeightsOperation.adjust(5_000_000, 1000)).isEqualTo(55_000_000);
+        assertThat(AdjustFruitWeightsOperation.adjust(Integer.MAX_VALUE, 1000)).isEqualTo(Integer.MAX_VALUE);
+    }
+}
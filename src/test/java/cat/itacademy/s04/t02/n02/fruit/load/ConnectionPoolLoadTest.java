@@ -0,0 +1,111 @@
+package cat.itacademy.s04.t02.n02.fruit.load;
+
+import cat.itacademy.s04.t02.n02.fruit.generator.CatalogueGenerator;
+import cat.itacademy.s04.t02.n02.fruit.generator.GenerationSpec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives list reads at eight times the pool size against a small pool with a short checkout timeout;
+ * connections are only held for the service transactions, so no checkout may time out.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.hikari.maximum-pool-size=" + ConnectionPoolLoadTest.POOL_SIZE,
+        "spring.datasource.hikari.connection-timeout=2000",
+        "fruit.response-cache.enabled=false",
+        "fruit.concurrency-limit.enabled=false",
+        "fruit.sql-statistics.metrics-enabled=true"
+})
+@ActiveProfiles({"test", "load"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConnectionPoolLoadTest {
+
+    static final int POOL_SIZE = 4;
+
+    private static final String SCENARIO = "connection-pool";
+    private static final double MAX_HOLD_SHARE = 0.5;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CatalogueGenerator catalogueGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+    private final int concurrency = Integer.getInteger("load.poolConcurrency", POOL_SIZE * 8);
+
+    private long[] providerIds;
+    private long minFruitId;
+    private long maxFruitId;
+
+    @BeforeAll
+    void seedCatalogue() {
+        catalogueGenerator.generate(new GenerationSpec(settings.providers(), settings.fruits(), 7L, 1.1, 500,
+                1_000, Runtime.getRuntime().availableProcessors()));
+        providerIds = jdbcTemplate.queryForList("SELECT id FROM providers ORDER BY id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+        minFruitId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM fruits", Long.class);
+        maxFruitId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM fruits", Long.class);
+    }
+
+    @Test
+    void listReads_AtHighConcurrency_DoNotStarveThePool() throws Exception {
+        LoadGenerator generator = new LoadGenerator("http://localhost:" + port);
+
+        LoadReport report = generator.run(SCENARIO, concurrency, settings.warmup(), settings.duration(),
+                this::nextRequest);
+        Path reportFile = LoadReports.write(report);
+
+        double holdMs = meanMillis(meterRegistry.get("sql.request.connection.hold").timers());
+        double serverMs = meanMillis(meterRegistry.get("http.server.requests").tag("outcome", "SUCCESS").timers());
+        log.info("Load report ({}): {}, pool size {}, mean connection hold {} ms of {} ms server time",
+                reportFile, report, POOL_SIZE, "%.2f".formatted(holdMs), "%.2f".formatted(serverMs));
+
+        assertThat(report.errors()).as("failed requests (pool checkout timeouts)").isZero();
+        assertThat(holdMs).as("mean connection hold time").isLessThan(serverMs * MAX_HOLD_SHARE);
+    }
+
+    private HttpRequest nextRequest(SplittableRandom random, String baseUrl) {
+        if (random.nextInt(100) < 80) {
+            long providerId = providerIds[random.nextInt(providerIds.length)];
+            return HttpRequest.newBuilder(LoadGenerator.uri(baseUrl, "/fruits?providerId=" + providerId)).GET().build();
+        }
+        long fruitId = random.nextLong(minFruitId, maxFruitId + 1);
+        return HttpRequest.newBuilder(LoadGenerator.uri(baseUrl, "/fruits/" + fruitId)).GET().build();
+    }
+
+    private static double meanMillis(Iterable<Timer> timers) {
+        double totalMs = 0;
+        long count = 0;
+        for (Timer timer : timers) {
+            totalMs += timer.totalTime(TimeUnit.MILLISECONDS);
+            count += timer.count();
+        }
+        return count == 0 ? 0 : totalMs / count;
+    }
+}
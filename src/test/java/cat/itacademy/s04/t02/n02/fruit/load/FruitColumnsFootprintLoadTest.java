@@ -0,0 +1,95 @@
+package cat.itacademy.s04.t02.n02.fruit.load;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.FruitColumns;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures the heap retained by {@code load.footprintRows} fruits as {@link FruitColumns} and as the
+ * {@code List<FruitResponseDTO>} the mapper builds. Skipped unless the heap is raised, e.g. {@code -DargLine=-Xmx3g}.
+ */
+@Slf4j
+@Tag("load")
+class FruitColumnsFootprintLoadTest {
+
+    private static final int PROVIDERS = 100;
+    private static final int DISTINCT_NAMES = 500;
+    private static final long REQUIRED_BYTES_PER_ROW = 200;
+
+    private final int rows = Integer.getInteger("load.footprintRows", 10_000_000);
+
+    @Test
+    void footprint_OfColumns_IsAFractionOfTheObjectGraph() {
+        assumeTrue(Runtime.getRuntime().maxMemory() > rows * REQUIRED_BYTES_PER_ROW,
+                () -> "Needs -Xmx of at least " + (rows * REQUIRED_BYTES_PER_ROW >> 20) + " MB for " + rows + " rows");
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        long baseline = liveHeap(memory);
+        FruitColumns columns = columns();
+        long columnBytes = liveHeap(memory) - baseline;
+        int fruitCount = columns.fruitCount();
+        long estimatedBytes = columns.memoryBytes();
+        columns = null;
+
+        baseline = liveHeap(memory);
+        List<FruitResponseDTO> objects = objectGraph();
+        long objectBytes = liveHeap(memory) - baseline;
+        assertThat(objects).hasSize(rows);
+
+        log.info("Fruit footprint at {} rows: object graph {} MB ({} B/row), columns {} MB ({} B/row, "
+                        + "{} MB estimated), {}x smaller",
+                rows, objectBytes >> 20, "%.1f".formatted((double) objectBytes / rows), columnBytes >> 20,
+                "%.1f".formatted((double) columnBytes / rows), estimatedBytes >> 20,
+                "%.1f".formatted((double) objectBytes / columnBytes));
+
+        assertThat(columnBytes).as("heap retained by the columns").isLessThan(objectBytes / 4);
+        assertThat(fruitCount).isEqualTo(rows);
+        assertThat(estimatedBytes).as("estimate of the columns").isBetween(columnBytes * 3 / 4, columnBytes * 5 / 4);
+    }
+
+    private List<FruitResponseDTO> objectGraph() {
+        // Fruits of a provider share its entity, and so its strings, but each gets its own DTO
+        String[] providerNames = new String[PROVIDERS];
+        for (int provider = 0; provider < PROVIDERS; provider++) {
+            providerNames[provider] = "Provider " + provider;
+        }
+        List<FruitResponseDTO> fruits = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int provider = i % PROVIDERS;
+            fruits.add(new FruitResponseDTO((long) i + 1, new String(name(i)), i % 100,
+                    new ProviderResponseDTO((long) provider + 1, providerNames[provider], "Spain")));
+        }
+        return fruits;
+    }
+
+    private FruitColumns columns() {
+        FruitColumns.Builder builder = FruitColumns.builder(PROVIDERS, rows);
+        for (int provider = 0; provider < PROVIDERS; provider++) {
+            builder.provider(provider + 1, "Provider " + provider, "Spain");
+        }
+        for (int i = 0; i < rows; i++) {
+            builder.fruit(i + 1, new String(name(i)), i % 100, i % PROVIDERS + 1);
+        }
+        return builder.build();
+    }
+
+    private static String name(int row) {
+        return "Fruit " + row % DISTINCT_NAMES;
+    }
+
+    private static long liveHeap(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,102 @@
+package cat.itacademy.s04.t02.n02.fruit.load;
+
+import cat.itacademy.s04.t02.n02.fruit.generator.CatalogueGenerator;
+import cat.itacademy.s04.t02.n02.fruit.generator.GenerationSpec;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports {@code load.exportRows} fruits through {@code GET /fruits/export.csv} and checks that the export
+ * retains no more than {@value #MAX_RETAINED_MB} MB of heap halfway through the download.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/export-load/fruits;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles({"test", "load"})
+class FruitExportLoadTest {
+
+    private static final long MAX_RETAINED_MB = 32;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CatalogueGenerator catalogueGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final int rows = Integer.getInteger("load.exportRows", 2_000_000);
+
+    @Test
+    void exportFruits_WithMillionsOfRows_StreamsInConstantMemory() throws Exception {
+        long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fruits", Long.class);
+        if (existing < rows) {
+            catalogueGenerator.generate(new GenerationSpec(100, (int) (rows - existing), 11L, 1.1, 500,
+                    1_000, Runtime.getRuntime().availableProcessors()));
+        }
+        long expectedRows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fruits", Long.class);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baselineBytes = liveHeap(memory);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/fruits/export.csv"))
+                .header("Accept-Encoding", "gzip")
+                .timeout(Duration.ofHours(1))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response = HttpClient.newHttpClient()
+                .send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+
+        long lines = 0;
+        long retainedBytes = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(response.body()), StandardCharsets.UTF_8))) {
+            while (reader.readLine() != null) {
+                if (++lines == expectedRows / 2) {
+                    retainedBytes = liveHeap(memory) - baselineBytes;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.info("Fruit export: {} rows in {} s ({} rows/s), max heap {} MB, {} MB retained halfway through",
+                lines - 1, "%.1f".formatted(seconds), "%.0f".formatted((lines - 1) / seconds),
+                Runtime.getRuntime().maxMemory() >> 20, "%.1f".formatted(retainedBytes / (1024.0 * 1024)));
+
+        assertThat(lines - 1).isEqualTo(expectedRows);
+        assertThat(retainedBytes).as("heap retained by the export").isLessThan(MAX_RETAINED_MB << 20);
+    }
+
+    private static long liveHeap(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
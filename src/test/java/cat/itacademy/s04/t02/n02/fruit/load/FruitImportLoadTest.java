@@ -0,0 +1,116 @@
+package cat.itacademy.s04.t02.n02.fruit.load;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitImportResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Enumeration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Streams a generated CSV of {@code load.importRows} rows to {@code POST /fruits/import} and reports rows
+ * per second. Every {@value #INVALID_EVERY}th row has a negative weight and must be reported, not imported.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/import-load/fruits;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false",
+        "fruit.import.max-reported-errors=100"
+})
+@ActiveProfiles({"test", "load"})
+class FruitImportLoadTest {
+
+    private static final int INVALID_EVERY = 10_000;
+    private static final int PROVIDERS = 100;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final long rows = Long.getLong("load.importRows", 1_000_000L);
+
+    @Test
+    void importFruits_WithLargeCsv_StreamsIntoTheDatabase() throws Exception {
+        for (int i = 0; i < PROVIDERS; i++) {
+            jdbcTemplate.update("INSERT INTO providers (name, country, version) VALUES (?, 'Spain', 0)", "Import Provider " + i);
+        }
+        long firstProviderId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM providers", Long.class);
+        long fruitsBefore = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fruits", Long.class);
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/fruits/import"))
+                .header("Content-Type", "text/csv")
+                .timeout(Duration.ofHours(2))
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> csv(rows, firstProviderId)))
+                .build();
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        FruitImportResult result = objectMapper.readValue(response.body(), FruitImportResult.class);
+        log.info("Fruit import: {} rows in {} s end to end ({} rows/s), server reported {} rows/s, "
+                        + "{} imported, {} rejected",
+                result.rowsRead(), "%.1f".formatted(seconds), "%.0f".formatted(result.rowsRead() / seconds),
+                "%.0f".formatted(result.rowsPerSecond()), result.imported(), result.rejected());
+
+        long invalid = rows / INVALID_EVERY;
+        assertThat(result.completed()).isTrue();
+        assertThat(result.rowsRead()).isEqualTo(rows);
+        assertThat(result.rejected()).isEqualTo(invalid);
+        assertThat(result.imported()).isEqualTo(rows - invalid);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fruits", Long.class) - fruitsBefore)
+                .isEqualTo(rows - invalid);
+    }
+
+    private static InputStream csv(long rows, long firstProviderId) {
+        Enumeration<InputStream> chunks = new Enumeration<>() {
+            private static final int ROWS_PER_CHUNK = 1_000;
+            private long next = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next < rows;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                StringBuilder text = new StringBuilder(ROWS_PER_CHUNK * 40);
+                if (next < 0) {
+                    text.append("name,weightInKilos,providerId\n");
+                    next = 0;
+                }
+                for (long end = Math.min(rows, next + ROWS_PER_CHUNK); next < end; next++) {
+                    int weight = (next + 1) % INVALID_EVERY == 0 ? -1 : (int) (next % 500) + 1;
+                    text.append("Fruit ").append(next).append(',').append(weight).append(',')
+                            .append(firstProviderId + next % PROVIDERS).append('\n');
+                }
+                return new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        return new SequenceInputStream(chunks);
+    }
+}
@@ -0,0 +1,132 @@
+package cat.itacademy.s04.t02.n02.fruit.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * Closed-loop HTTP load driver: a fixed number of workers each send the next request as soon as
+ * the previous one completes, for a warm-up period and then a measured period.
+ */
+class LoadGenerator {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl;
+
+    LoadGenerator(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Runs the workload and returns its latency distribution. The workload function receives a
+     * per-worker random source and the base URL, and builds the next request to send.
+     */
+    LoadReport run(String scenario, int concurrency, Duration warmup, Duration duration,
+                   BiFunction<SplittableRandom, String, HttpRequest> workload) throws Exception {
+        drive(concurrency, warmup, workload, 1);
+        List<WorkerResult> results = drive(concurrency, duration, workload, 2);
+
+        long requests = 0;
+        long errors = 0;
+        long[] latencies = new long[results.stream().mapToInt(r -> r.count).sum()];
+        int offset = 0;
+        for (WorkerResult result : results) {
+            System.arraycopy(result.latencies, 0, latencies, offset, result.count);
+            offset += result.count;
+            requests += result.count;
+            errors += result.errors;
+        }
+        Arrays.sort(latencies);
+
+        return new LoadReport(
+                scenario,
+                concurrency,
+                requests,
+                errors,
+                requests / (duration.toNanos() / 1e9),
+                percentileMillis(latencies, 0.50),
+                percentileMillis(latencies, 0.99),
+                percentileMillis(latencies, 0.999)
+        );
+    }
+
+    private List<WorkerResult> drive(int concurrency, Duration duration,
+                                     BiFunction<SplittableRandom, String, HttpRequest> workload,
+                                     long seed) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrency)) {
+            List<Future<WorkerResult>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                SplittableRandom random = seeds.split();
+                futures.add(executor.submit(() -> worker(deadline, random, workload)));
+            }
+            List<WorkerResult> results = new ArrayList<>();
+            for (Future<WorkerResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+    }
+
+    private WorkerResult worker(long deadline, SplittableRandom random,
+                                BiFunction<SplittableRandom, String, HttpRequest> workload) {
+        WorkerResult result = new WorkerResult();
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = workload.apply(random, baseUrl);
+            long start = System.nanoTime();
+            boolean success;
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                success = response.statusCode() < 400;
+            } catch (Exception ex) {
+                success = false;
+            }
+            result.record(System.nanoTime() - start, success);
+        }
+        return result;
+    }
+
+    static URI uri(String baseUrl, String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static final class WorkerResult {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void record(long latencyNanos, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (!success) {
+                errors++;
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package cat.itacademy.s04.t02.n02.fruit.load;
+
+record LoadReport(
+        String scenario,
+        int concurrency,
+        long requests,
+        long errors,
+        double throughputPerSecond,
+        double p50Ms,
+        double p99Ms,
+        double p999Ms
+) {}
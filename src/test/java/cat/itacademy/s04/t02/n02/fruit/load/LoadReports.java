@@ -0,0 +1,71 @@
+package cat.itacademy.s04.t02.n02.fruit.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Writes load reports to {@code target/load-reports} and compares them with the baselines
+ * stored in {@code src/test/resources/load}.
+ */
+final class LoadReports {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final Path REPORT_DIR = Path.of("target", "load-reports");
+    private static final Path BASELINE_DIR = Path.of("src", "test", "resources", "load");
+
+    private LoadReports() {
+    }
+
+    static Path write(LoadReport report) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        Path file = REPORT_DIR.resolve(report.scenario() + ".json");
+        OBJECT_MAPPER.writeValue(file.toFile(), report);
+        return file;
+    }
+
+    static void writeBaseline(LoadReport report) throws IOException {
+        Files.createDirectories(BASELINE_DIR);
+        OBJECT_MAPPER.writeValue(baselineFile(report.scenario()).toFile(), report);
+    }
+
+    static Optional<LoadReport> baseline(String scenario) throws IOException {
+        Path file = baselineFile(scenario);
+        return Files.exists(file)
+                ? Optional.of(OBJECT_MAPPER.readValue(file.toFile(), LoadReport.class))
+                : Optional.empty();
+    }
+
+    /**
+     * Returns a description of every metric that regressed beyond the tolerance, or an empty list.
+     * Throughput may not drop, and p50/p99 may not grow, by more than {@code tolerance}; p99.9 is
+     * noisier and is checked against {@code tailTolerance}.
+     */
+    static List<String> regressions(LoadReport actual, LoadReport baseline, double tolerance, double tailTolerance) {
+        List<String> regressions = new ArrayList<>();
+        if (actual.throughputPerSecond() < baseline.throughputPerSecond() * (1 - tolerance)) {
+            regressions.add(String.format("throughput %.1f req/s < baseline %.1f req/s",
+                    actual.throughputPerSecond(), baseline.throughputPerSecond()));
+        }
+        checkLatency(regressions, "p50", actual.p50Ms(), baseline.p50Ms(), tolerance);
+        checkLatency(regressions, "p99", actual.p99Ms(), baseline.p99Ms(), tolerance);
+        checkLatency(regressions, "p99.9", actual.p999Ms(), baseline.p999Ms(), tailTolerance);
+        return regressions;
+    }
+
+    private static void checkLatency(List<String> regressions, String name, double actual, double baseline, double tolerance) {
+        if (actual > baseline * (1 + tolerance)) {
+            regressions.add(String.format("%s %.2f ms > baseline %.2f ms", name, actual, baseline));
+        }
+    }
+
+    private static Path baselineFile(String scenario) {
+        return BASELINE_DIR.resolve(scenario + "-baseline.json");
+    }
+}
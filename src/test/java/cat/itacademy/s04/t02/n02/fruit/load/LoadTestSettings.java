@@ -0,0 +1,31 @@
+package cat.itacademy.s04.t02.n02.fruit.load;
+
+import java.time.Duration;
+
+/**
+ * Load test knobs, overridable with {@code -Dload.<name>=...} on the Maven command line.
+ */
+record LoadTestSettings(
+        int providers,
+        int fruits,
+        int concurrency,
+        Duration warmup,
+        Duration duration,
+        double tolerance,
+        double tailTolerance,
+        boolean updateBaseline
+) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("load.providers", 100),
+                Integer.getInteger("load.fruits", 20_000),
+                Integer.getInteger("load.concurrency", 16),
+                Duration.parse(System.getProperty("load.warmup", "PT5S")),
+                Duration.parse(System.getProperty("load.duration", "PT20S")),
+                Double.parseDouble(System.getProperty("load.tolerance", "0.25")),
+                Double.parseDouble(System.getProperty("load.tailTolerance", "1.0")),
+                Boolean.getBoolean("load.updateBaseline")
+        );
+    }
+}
@@ -0,0 +1,120 @@
+package cat.itacademy.s04.t02.n02.fruit.load;
+
+import cat.itacademy.s04.t02.n02.fruit.generator.CatalogueGenerator;
+import cat.itacademy.s04.t02.n02.fruit.generator.GenerationSpec;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the application on H2, seeds a catalogue and drives a mixed read/write workload over
+ * HTTP at fixed concurrency. Fails when throughput or latency regress against the stored baseline;
+ * run with {@code -Dload.updateBaseline=true} to record a new baseline instead.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "load"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ThroughputRegressionTest {
+
+    private static final String SCENARIO = "mixed-workload";
+    private static final int SEED_ROWS_PER_INSERT = 1_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CatalogueGenerator catalogueGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+    private long[] providerIds;
+    private long minFruitId;
+    private long maxFruitId;
+
+    @BeforeAll
+    void seedCatalogue() {
+        catalogueGenerator.generate(new GenerationSpec(settings.providers(), settings.fruits(), 42L, 1.1, 500,
+                SEED_ROWS_PER_INSERT, Runtime.getRuntime().availableProcessors()));
+        providerIds = jdbcTemplate.queryForList("SELECT id FROM providers ORDER BY id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+        minFruitId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM fruits", Long.class);
+        maxFruitId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM fruits", Long.class);
+    }
+
+    @Test
+    void mixedWorkload_DoesNotRegressAgainstBaseline() throws Exception {
+        LoadGenerator generator = new LoadGenerator("http://localhost:" + port);
+
+        LoadReport report = generator.run(SCENARIO, settings.concurrency(), settings.warmup(), settings.duration(),
+                this::nextRequest);
+        Path reportFile = LoadReports.write(report);
+        log.info("Load report ({}): {}", reportFile, report);
+
+        assertThat(report.errors()).as("failed requests").isZero();
+
+        if (settings.updateBaseline()) {
+            LoadReports.writeBaseline(report);
+            return;
+        }
+        Optional<LoadReport> baseline = LoadReports.baseline(SCENARIO);
+        assertThat(baseline).as("baseline for %s (record one with -Dload.updateBaseline=true)", SCENARIO).isPresent();
+        assertThat(LoadReports.regressions(report, baseline.get(), settings.tolerance(), settings.tailTolerance()))
+                .as("regressions against baseline")
+                .isEmpty();
+    }
+
+    private HttpRequest nextRequest(SplittableRandom random, String baseUrl) {
+        int roll = random.nextInt(100);
+        long fruitId = random.nextLong(minFruitId, maxFruitId + 1);
+        long providerId = providerIds[random.nextInt(providerIds.length)];
+
+        if (roll < 50) {
+            return get(baseUrl, "/fruits/" + fruitId);
+        } else if (roll < 70) {
+            return get(baseUrl, "/fruits?providerId=" + providerId);
+        } else if (roll < 80) {
+            return get(baseUrl, "/providers/" + providerId);
+        } else if (roll < 85) {
+            return get(baseUrl, "/providers");
+        } else if (roll < 95) {
+            return json(baseUrl, "/fruits", "POST", fruitJson(random, providerId));
+        } else {
+            return json(baseUrl, "/fruits/" + fruitId, "PUT", fruitJson(random, providerId));
+        }
+    }
+
+    private static String fruitJson(SplittableRandom random, long providerId) {
+        return "{\"name\":\"Fruit " + random.nextInt(500) + "\",\"weightInKilos\":" + (1 + random.nextInt(100))
+                + ",\"providerId\":" + providerId + "}";
+    }
+
+    private static HttpRequest get(String baseUrl, String path) {
+        return HttpRequest.newBuilder(LoadGenerator.uri(baseUrl, path)).GET().build();
+    }
+
+    private static HttpRequest json(String baseUrl, String path, String method, String body) {
+        return HttpRequest.newBuilder(LoadGenerator.uri(baseUrl, path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package cat.itacademy.s04.t02.n02.fruit.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionPoolSizingTest {
+
+    @Test
+    void maximumPoolSize_WithAmpleDatabaseLimit_IsDerivedFromCores() {
+        ConnectionPoolProperties properties = new ConnectionPoolProperties(true, 2, 1, 151, 10, 1);
+
+        assertThat(ConnectionPoolSizing.maximumPoolSize(properties, 8)).isEqualTo(17);
+    }
+
+    @Test
+    void maximumPoolSize_WithManyInstances_IsCappedByTheirShareOfTheDatabaseLimit() {
+        ConnectionPoolProperties properties = new ConnectionPoolProperties(true, 2, 1, 151, 11, 20);
+
+        assertThat(ConnectionPoolSizing.maximumPoolSize(properties, 8)).isEqualTo(7);
+    }
+
+    @Test
+    void maximumPoolSize_WithExhaustedDatabaseLimit_KeepsMinimumPool() {
+        ConnectionPoolProperties properties = new ConnectionPoolProperties(true, 2, 1, 20, 10, 50);
+
+        assertThat(ConnectionPoolSizing.maximumPoolSize(properties, 1)).isEqualTo(ConnectionPoolSizing.MIN_POOL_SIZE);
+    }
+}
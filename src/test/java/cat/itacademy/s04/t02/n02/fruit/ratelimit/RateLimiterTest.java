@@ -0,0 +1,71 @@
+package cat.itacademy.s04.t02.n02.fruit.ratelimit;
+
+import cat.itacademy.s04.t02.n02.fruit.bulkhead.Workload;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong();
+
+    private RateLimiter limiter(int maxClients) {
+        RateLimitProperties properties = new RateLimitProperties(true, "X-Api-Key", maxClients,
+                new RateLimitProperties.Limits(3, 1),
+                new RateLimitProperties.Limits(1, 0.5),
+                new RateLimitProperties.Limits(1, 0.1));
+        return new RateLimiter(properties, now::get);
+    }
+
+    @Test
+    void tryAcquire_BeyondCapacity_RejectsUntilTokenRefills() {
+        RateLimiter limiter = limiter(10);
+
+        assertThat(limiter.tryAcquire("a", Workload.READ).remaining()).isEqualTo(2);
+        assertThat(limiter.tryAcquire("a", Workload.READ).remaining()).isEqualTo(1);
+        RateLimiter.Decision last = limiter.tryAcquire("a", Workload.READ);
+        assertThat(last.allowed()).isTrue();
+        assertThat(last.remaining()).isZero();
+        assertThat(last.resetNanos()).isEqualTo(3 * SECOND);
+
+        RateLimiter.Decision rejected = limiter.tryAcquire("a", Workload.READ);
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.retryAfter()).isEqualTo(Duration.ofSeconds(1));
+
+        now.addAndGet(SECOND);
+        assertThat(limiter.tryAcquire("a", Workload.READ).allowed()).isTrue();
+        assertThat(limiter.tryAcquire("a", Workload.READ).allowed()).isFalse();
+    }
+
+    @Test
+    void tryAcquire_KeepsSeparateBucketsPerClientAndWorkload() {
+        RateLimiter limiter = limiter(10);
+
+        assertThat(limiter.tryAcquire("a", Workload.MUTATION).allowed()).isTrue();
+        assertThat(limiter.tryAcquire("a", Workload.MUTATION).allowed()).isFalse();
+
+        assertThat(limiter.tryAcquire("a", Workload.READ).allowed()).isTrue();
+        assertThat(limiter.tryAcquire("b", Workload.MUTATION).allowed()).isTrue();
+    }
+
+    @Test
+    void tryAcquire_WithTableFull_SharesOverflowBucketUntilIdleClientsAreSwept() {
+        RateLimiter limiter = limiter(2);
+        limiter.tryAcquire("a", Workload.MUTATION);
+        limiter.tryAcquire("b", Workload.MUTATION);
+
+        assertThat(limiter.tryAcquire("c", Workload.MUTATION).allowed()).isTrue();
+        assertThat(limiter.tryAcquire("d", Workload.MUTATION).allowed()).isFalse();
+        assertThat(limiter.trackedClients()).isEqualTo(2);
+
+        // a and b refill after 2 s and no longer need tracking
+        now.addAndGet(2 * SECOND);
+        assertThat(limiter.tryAcquire("d", Workload.MUTATION).allowed()).isTrue();
+        assertThat(limiter.trackedClients()).isEqualTo(1);
+    }
+}
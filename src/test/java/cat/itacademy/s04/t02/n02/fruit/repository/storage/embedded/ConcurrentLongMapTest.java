@@ -0,0 +1,72 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage.embedded;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrentLongMapTest {
+
+    @Test
+    void putAndRemove_WithRandomKeys_MatchHashMap() {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(42);
+
+        // A small key range makes long probe runs, so removals have to shift entries back
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                assertThat(map.put(key, (long) i)).isEqualTo(expected.put(key, (long) i));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 1; key <= 5_000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.get(key));
+        }
+        List<Long> values = new ArrayList<>();
+        map.forEachValue(values::add);
+        assertThat(values).containsExactlyInAnyOrderElementsOf(expected.values());
+    }
+
+    @Test
+    void get_DuringConcurrentWrites_NeverLosesAStableKey() {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+        for (long key = 1; key <= 1_000; key++) {
+            map.put(key, key);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        // Keys above 1000 come and go, resizing segments and shifting probe runs under the readers
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int round = 0; round < 20; round++) {
+                for (long key = 1_001; key <= 20_000; key++) {
+                    map.put(key, key);
+                }
+                for (long key = 1_001; key <= 20_000; key++) {
+                    map.remove(key);
+                }
+            }
+            running.set(false);
+        });
+
+        long lookups = 0;
+        while (running.get() || lookups == 0) {
+            for (long key = 1; key <= 1_000; key++) {
+                assertThat(map.get(key)).isEqualTo(key);
+            }
+            lookups += 1_000;
+        }
+        writer.join();
+        assertThat(map.size()).isEqualTo(1_000);
+    }
+}
@@ -0,0 +1,229 @@
+package cat.itacademy.s04.t02.n02.fruit.repository.storage.embedded;
+
+import cat.itacademy.s04.t02.n02.fruit.dto.CatalogueVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitFields;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
+import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
+import cat.itacademy.s04.t02.n02.fruit.model.Provider;
+import cat.itacademy.s04.t02.n02.fruit.model.TableVersion;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.WeightUpdate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmbeddedCatalogueStoreTest {
+
+    private static final CatalogueLog.Handler IGNORE = new CatalogueLog.Handler() {
+        @Override
+        public void provider(ProviderRow row) {
+        }
+
+        @Override
+        public void providerDeleted(long id) {
+        }
+
+        @Override
+        public void fruit(FruitRow row) {
+        }
+
+        @Override
+        public void fruitDeleted(long id) {
+        }
+
+        @Override
+        public void tableVersion(String tableName, long version) {
+        }
+
+        @Override
+        public void sequences(long nextProviderId, long nextFruitId) {
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void saveFruit_MovedToAnotherProvider_UpdatesProviderIndex() throws IOException {
+        try (EmbeddedCatalogueStore store = new EmbeddedCatalogueStore(directory, 1000, false)) {
+            Provider first = store.providerStore().save(new Provider(null, "Fruits Inc", "Spain"));
+            Provider second = store.providerStore().save(new Provider(null, "Veggies Ltd", "France"));
+            Fruit apple = store.fruitStore().save(new Fruit("Apple", 10, first));
+            store.fruitStore().save(new Fruit("Banana", 20, first));
+
+            apple.setProvider(second);
+            store.fruitStore().save(apple);
+
+            assertThat(apple.getVersion()).isEqualTo(1);
+            assertThat(store.fruitStore().findByProviderId(first.getId())).extracting(Fruit::getName)
+                    .containsExactly("Banana");
+            assertThat(store.fruitStore().findByProviderId(second.getId())).extracting(Fruit::getName)
+                    .containsExactly("Apple");
+            assertThat(store.fruitStore().findFieldsByProviderId(second.getId(), FruitFields.parse("id", "provider")))
+                    .singleElement()
+                    .satisfies(fruit -> {
+                        assertThat(fruit.id()).isEqualTo(apple.getId());
+                        assertThat(fruit.provider().name()).isEqualTo("Veggies Ltd");
+                    });
+            assertThat(store.fruitStore().findVersionById(apple.getId())).contains(new FruitVersion(1, 0));
+        }
+    }
+
+    @Test
+    void saveProvider_WithNameOfAnotherProvider_ThrowsDataIntegrityViolation() throws IOException {
+        try (EmbeddedCatalogueStore store = new EmbeddedCatalogueStore(directory, 1000, false)) {
+            store.providerStore().save(new Provider(null, "Fruits Inc", "Spain"));
+            Provider other = store.providerStore().save(new Provider(null, "Veggies Ltd", "France"));
+
+            other.setName("Fruits Inc");
+
+            assertThatThrownBy(() -> store.providerStore().save(other))
+                    .isInstanceOf(DataIntegrityViolationException.class);
+            assertThat(store.providerStore().findById(other.getId())).get()
+                    .extracting(Provider::getName).isEqualTo("Veggies Ltd");
+        }
+    }
+
+    @Test
+    void saveFruit_WithStaleVersion_ThrowsOptimisticLockingFailure() throws IOException {
+        try (EmbeddedCatalogueStore store = new EmbeddedCatalogueStore(directory, 1000, false)) {
+            Provider provider = store.providerStore().save(new Provider(null, "Fruits Inc", "Spain"));
+            Fruit fruit = store.fruitStore().save(new Fruit("Apple", 10, provider));
+            Fruit stale = store.fruitStore().findById(fruit.getId()).orElseThrow();
+
+            fruit.setWeightInKilos(11);
+            store.fruitStore().save(fruit);
+            stale.setWeightInKilos(12);
+
+            assertThatThrownBy(() -> store.fruitStore().save(stale))
+                    .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+            assertThat(store.fruitStore().findById(fruit.getId())).get()
+                    .extracting(Fruit::getWeightInKilos).isEqualTo(11);
+        }
+    }
+
+    @Test
+    void deleteProvider_DeletesItsFruits() throws IOException {
+        try (EmbeddedCatalogueStore store = new EmbeddedCatalogueStore(directory, 1000, false)) {
+            Provider provider = store.providerStore().save(new Provider(null, "Fruits Inc", "Spain"));
+            Fruit fruit = store.fruitStore().save(new Fruit("Apple", 10, provider));
+
+            store.providerStore().delete(provider);
+
+            assertThat(store.providerStore().existsByName("Fruits Inc")).isFalse();
+            assertThat(store.fruitStore().findById(fruit.getId())).isEmpty();
+            assertThat(store.fruitStore().existsByProviderId(provider.getId())).isFalse();
+        }
+    }
+
+    @Test
+    void open_AfterSnapshotAndTornLogRecord_RestoresEveryCompleteWrite() throws Exception {
+        Path live = Files.createDirectory(directory.resolve("live"));
+        Path crashed = Files.createDirectory(directory.resolve("crashed"));
+        long appleId;
+        try (EmbeddedCatalogueStore store = new EmbeddedCatalogueStore(live, 3, false)) {
+            store.tableVersionStore().save(new TableVersion("fruits", 0));
+            Provider provider = store.providerStore().save(new Provider(null, "Fruits Inc", "Spain"));
+            Fruit apple = store.fruitStore().save(new Fruit("Apple", 10, provider));
+            appleId = apple.getId();
+            // The third record triggered a snapshot; these two are only in the log
+            apple.setWeightInKilos(15);
+            store.fruitStore().save(apple);
+            store.tableVersionStore().increment("fruits");
+            store.awaitSnapshot();
+
+            // What a killed process leaves behind: no snapshot on close, and half of a record it was appending
+            Files.copy(live.resolve(CatalogueLog.SNAPSHOT_FILE), crashed.resolve(CatalogueLog.SNAPSHOT_FILE));
+            Files.copy(live.resolve(CatalogueLog.LOG_FILE), crashed.resolve(CatalogueLog.LOG_FILE));
+            Files.write(crashed.resolve(CatalogueLog.LOG_FILE), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+        }
+
+        try (EmbeddedCatalogueStore reopened = new EmbeddedCatalogueStore(crashed, 3, false)) {
+            assertThat(reopened.fruitStore().findWithProviderById(appleId)).get().satisfies(fruit -> {
+                assertThat(fruit.getWeightInKilos()).isEqualTo(15);
+                assertThat(fruit.getVersion()).isEqualTo(1);
+                assertThat(fruit.getProvider().getName()).isEqualTo("Fruits Inc");
+            });
+            assertThat(reopened.tableVersionStore().findCatalogueVersion()).isEqualTo(new CatalogueVersion(1, 0));
+            Provider provider = reopened.providerStore().findAll().get(0);
+            assertThat(reopened.fruitStore().save(new Fruit("Banana", 5, provider)).getId()).isGreaterThan(appleId);
+        }
+    }
+
+    @Test
+    void open_AfterSnapshotThatLeftTheRotatedLog_KeepsChangesMadeDuringTheSnapshot() throws IOException {
+        Path rotatedCopy = directory.resolve("rotated-copy");
+        try (CatalogueLog files = CatalogueLog.open(directory, false, IGNORE)) {
+            files.appendProvider(new ProviderRow(1, "Fruits Inc", "Spain", 0));
+            files.appendFruit(new FruitRow(1, "Apple", 10, 1, 0));
+            files.appendFruit(new FruitRow(2, "Pear", 10, 1, 0));
+            files.rotate();
+            // Written while the snapshot read the maps: it saw the new weight of the apple, not the deletion
+            files.appendFruit(new FruitRow(1, "Apple", 12, 1, 1));
+            files.appendFruitDeleted(2);
+            Files.copy(directory.resolve(CatalogueLog.ROTATED_LOG_FILE), rotatedCopy);
+            files.writeSnapshot(out -> {
+                out.provider(new ProviderRow(1, "Fruits Inc", "Spain", 0));
+                out.fruit(new FruitRow(1, "Apple", 12, 1, 1));
+                out.fruit(new FruitRow(2, "Pear", 10, 1, 0));
+                out.sequences(2, 3);
+            });
+        }
+        // The process died before the rotated log was deleted
+        Files.move(rotatedCopy, directory.resolve(CatalogueLog.ROTATED_LOG_FILE));
+
+        try (EmbeddedCatalogueStore reopened = new EmbeddedCatalogueStore(directory, 1000, false)) {
+            assertThat(reopened.fruitStore().findAll()).singleElement().satisfies(fruit -> {
+                assertThat(fruit.getWeightInKilos()).isEqualTo(12);
+                assertThat(fruit.getVersion()).isEqualTo(1);
+            });
+        }
+        assertThat(directory.resolve(CatalogueLog.ROTATED_LOG_FILE)).doesNotExist();
+    }
+
+    @Test
+    void updateWeights_SetsWeightsOfExistingFruitsAndReportsMissingOnes() throws IOException {
+        try (EmbeddedCatalogueStore store = new EmbeddedCatalogueStore(directory, 1000, false)) {
+            Provider provider = store.providerStore().save(new Provider(null, "Fruits Inc", "Spain"));
+            Fruit apple = store.fruitStore().save(new Fruit("Apple", 10, provider));
+
+            WeightUpdate update = store.fruitStore().updateWeights(List.of(
+                    new FruitWeightDTO(apple.getId(), 11), new FruitWeightDTO(999L, 5),
+                    new FruitWeightDTO(apple.getId(), 12)));
+
+            assertThat(update).isEqualTo(new WeightUpdate(1, Set.of(provider.getId()),
+                    List.of(999L), List.of()));
+            assertThat(store.fruitStore().findById(apple.getId())).get().satisfies(fruit -> {
+                assertThat(fruit.getWeightInKilos()).isEqualTo(12);
+                assertThat(fruit.getVersion()).isEqualTo(1);
+            });
+        }
+    }
+
+    @Test
+    void open_AfterClose_DoesNotReuseIdsOfDeletedRows() throws IOException {
+        long deletedId;
+        try (EmbeddedCatalogueStore store = new EmbeddedCatalogueStore(directory, 1000, false)) {
+            Provider provider = store.providerStore().save(new Provider(null, "Fruits Inc", "Spain"));
+            store.providerStore().delete(provider);
+            deletedId = provider.getId();
+        }
+
+        try (EmbeddedCatalogueStore reopened = new EmbeddedCatalogueStore(directory, 1000, false)) {
+            assertThat(Files.size(directory.resolve(CatalogueLog.LOG_FILE))).isZero();
+            Provider provider = reopened.providerStore().save(new Provider(null, "Veggies Ltd", "France"));
+            assertThat(provider.getId()).isGreaterThan(deletedId);
+        }
+    }
+}
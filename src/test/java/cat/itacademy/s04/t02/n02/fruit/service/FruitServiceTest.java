@@ -1,42 +1,64 @@
 package cat.itacademy.s04.t02.n02.fruit.service;
 
+import cat.itacademy.s04.t02.n02.fruit.cache.FruitCatalogueCache;
+import cat.itacademy.s04.t02.n02.fruit.cache.FruitColumns;
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndex;
+import cat.itacademy.s04.t02.n02.fruit.collection.IdList;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitFields;
 import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
 import cat.itacademy.s04.t02.n02.fruit.dto.FruitResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitVersion;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitWeightUpdateResult;
 import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.SparseFruitDTO;
 import cat.itacademy.s04.t02.n02.fruit.exception.ResourceNotFoundException;
 import cat.itacademy.s04.t02.n02.fruit.mapper.FruitMapper;
 import cat.itacademy.s04.t02.n02.fruit.model.Fruit;
 import cat.itacademy.s04.t02.n02.fruit.model.Provider;
-import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
-import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.FruitStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ProviderStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.WeightUpdate;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.never;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class FruitServiceTest {
 
     @Mock
-    private FruitRepository fruitRepository;
+    private FruitStore fruitStore;
 
     @Mock
-    private ProviderRepository providerRepository;
+    private ProviderStore providerStore;
 
     @Mock
     private FruitMapper fruitMapper;
 
+    @Mock
+    private CatalogueChangeTracker changeTracker;
+
+    @Mock
+    private ProviderFruitIndex providerFruitIndex;
+
+    @Mock
+    private FruitCatalogueCache fruitCatalogueCache;
+
     @InjectMocks
     private FruitServiceImpl fruitService;
 
@@ -51,9 +73,9 @@ class FruitServiceTest {
         ProviderResponseDTO providerResponse = new ProviderResponseDTO(1L, "Fruits Inc", "Spain");
         FruitResponseDTO expectedResponse = new FruitResponseDTO(1L, "Apple", 10, providerResponse);
 
-        when(providerRepository.findById(1L)).thenReturn(Optional.of(provider));
+        when(providerStore.findById(1L)).thenReturn(Optional.of(provider));
         when(fruitMapper.toEntity(request, provider)).thenReturn(fruit);
-        when(fruitRepository.save(fruit)).thenReturn(savedFruit);
+        when(fruitStore.save(fruit)).thenReturn(savedFruit);
         when(fruitMapper.toResponseDTO(savedFruit)).thenReturn(expectedResponse);
 
         FruitResponseDTO result = fruitService.createFruit(request);
@@ -69,7 +91,7 @@ class FruitServiceTest {
     void createFruit_WithNonExistentProvider_ThrowsResourceNotFoundException() {
         FruitRequestDTO request = new FruitRequestDTO("Apple", 10, 999L);
 
-        when(providerRepository.findById(999L)).thenReturn(Optional.empty());
+        when(providerStore.findById(999L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> fruitService.createFruit(request))
                 .isInstanceOf(ResourceNotFoundException.class)
@@ -89,8 +111,8 @@ class FruitServiceTest {
         FruitResponseDTO fruitResponse1 = new FruitResponseDTO(1L, "Apple", 10, providerResponse);
         FruitResponseDTO fruitResponse2 = new FruitResponseDTO(2L, "Banana", 5, providerResponse);
 
-        when(providerRepository.existsById(providerId)).thenReturn(true);
-        when(fruitRepository.findByProviderId(providerId)).thenReturn(fruits);
+        when(providerStore.existsById(providerId)).thenReturn(true);
+        when(fruitStore.findByProviderId(providerId)).thenReturn(fruits);
         when(fruitMapper.toResponseDTO(fruit1)).thenReturn(fruitResponse1);
         when(fruitMapper.toResponseDTO(fruit2)).thenReturn(fruitResponse2);
 
@@ -105,7 +127,7 @@ class FruitServiceTest {
     void getFruitsByProviderId_WithNonExistentProvider_ThrowsResourceNotFoundException() {
         Long providerId = 999L;
 
-        when(providerRepository.existsById(providerId)).thenReturn(false);
+        when(providerStore.existsById(providerId)).thenReturn(false);
 
         assertThatThrownBy(() -> fruitService.getFruitsByProviderId(providerId))
                 .isInstanceOf(ResourceNotFoundException.class)
@@ -116,17 +138,94 @@ class FruitServiceTest {
     void getFruitsByProviderId_WithExistingProviderButNoFruits_ReturnsEmptyList() {
         Long providerId = 1L;
 
-        when(providerRepository.existsById(providerId)).thenReturn(true);
-        when(fruitRepository.findByProviderId(providerId)).thenReturn(List.of());
+        when(providerStore.existsById(providerId)).thenReturn(true);
+        when(fruitStore.findByProviderId(providerId)).thenReturn(List.of());
 
         List<FruitResponseDTO> result = fruitService.getFruitsByProviderId(providerId);
 
         assertThat(result).isEmpty();
     }
 
+    @Test
+    void getFruitsByProviderId_WithIndexedProviderWithoutFruits_ReturnsEmptyListWithoutQueries() {
+        when(providerFruitIndex.fruitIdsOf(eq(1L), any())).thenReturn(new IdList().view());
+
+        assertThat(fruitService.getFruitsByProviderId(1L)).isEmpty();
+        verify(providerStore, never()).existsById(any());
+        verify(fruitStore, never()).findByProviderId(any());
+    }
+
+    @Test
+    void getFruitsByProviderId_WithIndexedProvider_FetchesFruitsByPrimaryKey() {
+        Provider provider = new Provider(1L, "Fruits Inc", "Spain");
+        Fruit apple = new Fruit(3L, "Apple", 10, provider);
+        FruitResponseDTO appleResponse = new FruitResponseDTO(3L, "Apple", 10,
+                new ProviderResponseDTO(1L, "Fruits Inc", "Spain"));
+        when(providerFruitIndex.fruitIdsOf(eq(1L), any())).thenReturn(IdList.of(new long[]{3L}).view());
+        when(fruitStore.findWithProviderByIdInOrderByIdAsc(List.of(3L))).thenReturn(List.of(apple));
+        when(fruitMapper.toResponseDTO(apple)).thenReturn(appleResponse);
+
+        assertThat(fruitService.getFruitsByProviderId(1L)).containsExactly(appleResponse);
+        verify(providerStore, never()).existsById(any());
+        verify(fruitStore, never()).findByProviderId(any());
+    }
+
+    @Test
+    void getFruitsByProviderId_WithProviderMissingFromCachedCatalogue_ThrowsResourceNotFoundException() {
+        when(fruitCatalogueCache.columnsAt(any())).thenReturn(FruitColumns.builder(0, 0).build());
+
+        assertThatThrownBy(() -> fruitService.getFruitsByProviderId(999L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Provider with id 999 not found");
+        verify(providerStore, never()).existsById(any());
+    }
+
+    @Test
+    void getFruitFields_WithOnlyIdsOfIndexedProvider_AnswersFromIndex() {
+        FruitFields fields = new FruitFields(true, false, false, true, false);
+        when(providerFruitIndex.fruitIdsOf(eq(1L), any())).thenReturn(IdList.of(new long[]{3L, 8L}).view());
+
+        assertThat(fruitService.getFruitFields(1L, fields)).containsExactly(
+                new SparseFruitDTO(3L, null, null, 1L, null),
+                new SparseFruitDTO(8L, null, null, 1L, null));
+        verify(providerStore, never()).existsById(any());
+        verify(fruitStore, never()).findFieldsByProviderId(any(), any());
+    }
+
+    @Test
+    void getFruitFields_WithoutProvider_ProjectsAllFruits() {
+        FruitFields fields = new FruitFields(true, true, false, false, false);
+        List<SparseFruitDTO> fruits = List.of(new SparseFruitDTO(1L, "Apple", null, null, null));
+        when(fruitStore.findFields(fields)).thenReturn(fruits);
+
+        assertThat(fruitService.getFruitFields(null, fields)).isEqualTo(fruits);
+        verify(providerStore, never()).existsById(any());
+    }
+
+    @Test
+    void getFruitFields_WithNonExistentProvider_ThrowsResourceNotFoundException() {
+        FruitFields fields = new FruitFields(true, false, false, false, false);
+        when(providerStore.existsById(999L)).thenReturn(false);
+
+        assertThatThrownBy(() -> fruitService.getFruitFields(999L, fields))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Provider with id 999 not found");
+        verify(fruitStore, never()).findFieldsByProviderId(any(), any());
+    }
+
+    @Test
+    void getFruitFieldsById_WithNonExistentId_ThrowsResourceNotFoundException() {
+        FruitFields fields = new FruitFields(true, false, false, false, false);
+        when(fruitStore.findFieldsById(999L, fields)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> fruitService.getFruitFieldsById(999L, fields))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Fruit with id 999 not found");
+    }
+
     @Test
     void getAllFruits_WhenNoFruits_ReturnsEmptyList() {
-        when(fruitRepository.findAll()).thenReturn(List.of());
+        when(fruitStore.findAll()).thenReturn(List.of());
 
         List<FruitResponseDTO> result = fruitService.getAllFruits();
 
@@ -144,7 +243,7 @@ class FruitServiceTest {
         FruitResponseDTO fruitResponse1 = new FruitResponseDTO(1L, "Apple", 10, providerResponse);
         FruitResponseDTO fruitResponse2 = new FruitResponseDTO(2L, "Banana", 5, providerResponse);
 
-        when(fruitRepository.findAll()).thenReturn(fruits);
+        when(fruitStore.findAll()).thenReturn(fruits);
         when(fruitMapper.toResponseDTO(fruit1)).thenReturn(fruitResponse1);
         when(fruitMapper.toResponseDTO(fruit2)).thenReturn(fruitResponse2);
 
@@ -155,6 +254,29 @@ class FruitServiceTest {
         assertThat(result.get(1).name()).isEqualTo("Banana");
     }
 
+    @Test
+    void getAllFruits_WhenCatalogueIsCached_ReturnsFruitsSharingTheirProvider() {
+        FruitColumns columns = FruitColumns.builder(2, 3)
+                .provider(1L, "Fruits Inc", "Spain")
+                .provider(2L, "Tropical Co", "Spain")
+                .fruit(4L, "Apple", 10, 1L)
+                .fruit(7L, "Mango", 3, 2L)
+                .fruit(9L, "Apple", 12, 1L)
+                .build();
+        when(fruitCatalogueCache.columnsAt(any())).thenReturn(columns);
+
+        List<FruitResponseDTO> result = fruitService.getAllFruits();
+
+        ProviderResponseDTO provider = new ProviderResponseDTO(1L, "Fruits Inc", "Spain");
+        assertThat(result).containsExactly(
+                new FruitResponseDTO(4L, "Apple", 10, provider),
+                new FruitResponseDTO(7L, "Mango", 3, new ProviderResponseDTO(2L, "Tropical Co", "Spain")),
+                new FruitResponseDTO(9L, "Apple", 12, provider));
+        assertThat(result.get(0).provider()).isSameAs(result.get(2).provider());
+        assertThat(fruitService.getFruitsByProviderId(1L)).extracting(FruitResponseDTO::id).containsExactly(4L, 9L);
+        verify(fruitStore, never()).findAll();
+    }
+
     @Test
     void getFruitById_WithExistingId_ReturnsFruit() {
         Long fruitId = 1L;
@@ -164,7 +286,7 @@ class FruitServiceTest {
         ProviderResponseDTO providerResponse = new ProviderResponseDTO(1L, "Fruits Inc", "Spain");
         FruitResponseDTO expectedResponse = new FruitResponseDTO(fruitId, "Apple", 10, providerResponse);
 
-        when(fruitRepository.findById(fruitId)).thenReturn(Optional.of(fruit));
+        when(fruitStore.findWithProviderById(fruitId)).thenReturn(Optional.of(fruit));
         when(fruitMapper.toResponseDTO(fruit)).thenReturn(expectedResponse);
 
         FruitResponseDTO result = fruitService.getFruitById(fruitId);
@@ -180,7 +302,7 @@ class FruitServiceTest {
     void getFruitById_WithNonExistentId_ThrowsResourceNotFoundException() {
         Long fruitId = 999L;
 
-        when(fruitRepository.findById(fruitId)).thenReturn(Optional.empty());
+        when(fruitStore.findWithProviderById(fruitId)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> fruitService.getFruitById(fruitId))
                 .isInstanceOf(ResourceNotFoundException.class)
@@ -201,9 +323,9 @@ class FruitServiceTest {
         ProviderResponseDTO providerResponse = new ProviderResponseDTO(2L, "Veggies Ltd", "France");
         FruitResponseDTO expectedResponse = new FruitResponseDTO(fruitId, "Updated Apple", 15, providerResponse);
 
-        when(fruitRepository.findById(fruitId)).thenReturn(Optional.of(existingFruit));
-        when(providerRepository.findById(2L)).thenReturn(Optional.of(newProvider));
-        when(fruitRepository.save(any(Fruit.class))).thenReturn(updatedFruit);
+        when(fruitStore.findById(fruitId)).thenReturn(Optional.of(existingFruit));
+        when(providerStore.findById(2L)).thenReturn(Optional.of(newProvider));
+        when(fruitStore.save(any(Fruit.class))).thenReturn(updatedFruit);
         when(fruitMapper.toResponseDTO(updatedFruit)).thenReturn(expectedResponse);
 
         FruitResponseDTO result = fruitService.updateFruit(fruitId, request);
@@ -213,6 +335,8 @@ class FruitServiceTest {
         assertThat(result.name()).isEqualTo("Updated Apple");
         assertThat(result.weightInKilos()).isEqualTo(15);
         assertThat(result.provider().id()).isEqualTo(2L);
+        verify(changeTracker).fruitsChanged(1L, 2L);
+        verify(providerFruitIndex).fruitMoved(fruitId, 1L, 2L);
     }
 
     @Test
@@ -220,7 +344,7 @@ class FruitServiceTest {
         Long fruitId = 999L;
         FruitRequestDTO request = new FruitRequestDTO("Apple", 10, 1L);
 
-        when(fruitRepository.findById(fruitId)).thenReturn(Optional.empty());
+        when(fruitStore.findById(fruitId)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> fruitService.updateFruit(fruitId, request))
                 .isInstanceOf(ResourceNotFoundException.class)
@@ -235,8 +359,8 @@ class FruitServiceTest {
         Provider provider = new Provider(1L, "Fruits Inc", "Spain");
         Fruit existingFruit = new Fruit(fruitId, "Apple", 10, provider);
 
-        when(fruitRepository.findById(fruitId)).thenReturn(Optional.of(existingFruit));
-        when(providerRepository.findById(999L)).thenReturn(Optional.empty());
+        when(fruitStore.findById(fruitId)).thenReturn(Optional.of(existingFruit));
+        when(providerStore.findById(999L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> fruitService.updateFruit(fruitId, request))
                 .isInstanceOf(ResourceNotFoundException.class)
@@ -255,9 +379,9 @@ class FruitServiceTest {
         ProviderResponseDTO providerResponse = new ProviderResponseDTO(1L, "Fruits Inc", "Spain");
         FruitResponseDTO expectedResponse = new FruitResponseDTO(fruitId, "Updated Apple", 15, providerResponse);
 
-        when(fruitRepository.findById(fruitId)).thenReturn(Optional.of(existingFruit));
-        when(providerRepository.findById(1L)).thenReturn(Optional.of(provider));
-        when(fruitRepository.save(any(Fruit.class))).thenReturn(updatedFruit);
+        when(fruitStore.findById(fruitId)).thenReturn(Optional.of(existingFruit));
+        when(providerStore.findById(1L)).thenReturn(Optional.of(provider));
+        when(fruitStore.save(any(Fruit.class))).thenReturn(updatedFruit);
         when(fruitMapper.toResponseDTO(updatedFruit)).thenReturn(expectedResponse);
 
 
@@ -267,27 +391,79 @@ class FruitServiceTest {
         assertThat(result.provider().id()).isEqualTo(1L);
     }
 
+    @Test
+    void updateFruitWeights_WithExistingFruits_ReportsTheirProviders() {
+        List<FruitWeightDTO> weights = List.of(new FruitWeightDTO(1L, 12), new FruitWeightDTO(999L, 5));
+
+        when(fruitStore.updateWeights(weights))
+                .thenReturn(new WeightUpdate(1, Set.of(3L), List.of(999L), List.of()));
+
+        FruitWeightUpdateResult result = fruitService.updateFruitWeights(weights);
+
+        assertThat(result).isEqualTo(new FruitWeightUpdateResult(1, List.of(999L)));
+        verify(changeTracker).fruitsChanged(3L);
+    }
+
+    @Test
+    void updateFruitWeights_WithOnlyMissingFruits_DoesNotReportChange() {
+        List<FruitWeightDTO> weights = List.of(new FruitWeightDTO(999L, 5));
+
+        when(fruitStore.updateWeights(weights))
+                .thenReturn(new WeightUpdate(0, Set.of(), List.of(999L), List.of()));
+
+        assertThat(fruitService.updateFruitWeights(weights).notFound()).containsExactly(999L);
+        verify(changeTracker, never()).fruitsChanged(any(Long[].class));
+    }
+
     @Test
     void deleteFruit_WithValidId_DeletesSuccessfully() {
                 Long fruitId = 1L;
         Provider provider = new Provider(1L, "Fruits Inc", "Spain");
         Fruit fruit = new Fruit(fruitId, "Apple", 10, provider);
 
-        when(fruitRepository.findById(fruitId)).thenReturn(Optional.of(fruit));
+        when(fruitStore.findById(fruitId)).thenReturn(Optional.of(fruit));
 
                 fruitService.deleteFruit(fruitId);
 
-                verify(fruitRepository, times(1)).delete(fruit);
+                verify(fruitStore, times(1)).delete(fruit);
+        verify(changeTracker).fruitsChanged(1L);
     }
 
     @Test
     void deleteFruit_WithNonExistentId_ThrowsResourceNotFoundException() {
                 Long fruitId = 999L;
 
-        when(fruitRepository.findById(fruitId)).thenReturn(Optional.empty());
+        when(fruitStore.findById(fruitId)).thenReturn(Optional.empty());
 
                 assertThatThrownBy(() -> fruitService.deleteFruit(fruitId))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Fruit with id 999 not found");
     }
+
+    @Test
+    void createFruit_WithNonExistentProvider_DoesNotReportChange() {
+        FruitRequestDTO request = new FruitRequestDTO("Apple", 10, 999L);
+
+        when(providerStore.findById(999L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> fruitService.createFruit(request))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(changeTracker, never()).fruitsChanged(any(Long[].class));
+    }
+
+    @Test
+    void getFruitVersion_WithExistingId_ReturnsFruitAndProviderVersions() {
+        when(fruitStore.findVersionById(1L)).thenReturn(Optional.of(new FruitVersion(3, 1)));
+
+        assertThat(fruitService.getFruitVersion(1L)).isEqualTo(new FruitVersion(3, 1));
+    }
+
+    @Test
+    void getFruitVersion_WithNonExistentId_ThrowsResourceNotFoundException() {
+        when(fruitStore.findVersionById(999L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> fruitService.getFruitVersion(999L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Fruit with id 999 not found");
+    }
 }
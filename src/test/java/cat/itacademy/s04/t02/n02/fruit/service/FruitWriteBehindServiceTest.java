@@ -0,0 +1,113 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndex;
+import cat.itacademy.s04.t02.n02.fruit.dto.FruitRequestDTO;
+import cat.itacademy.s04.t02.n02.fruit.dto.WriteBehindStatusDTO;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitBatchRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The writer thread runs against mocks, so the tests wait for its counters rather than for the database.
+ */
+@ExtendWith(MockitoExtension.class)
+class FruitWriteBehindServiceTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Mock
+    private FruitBatchRepository fruitBatchRepository;
+
+    @Mock
+    private ProviderRepository providerRepository;
+
+    @Mock
+    private CatalogueChangeTracker changeTracker;
+
+    @Mock
+    private ProviderFruitIndex providerFruitIndex;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FruitWriteBehindServiceImpl writeBehindService;
+
+    @BeforeEach
+    void setUp() {
+        when(providerRepository.findExistingIds(anyList())).thenReturn(Set.of(1L));
+        writeBehindService = new FruitWriteBehindServiceImpl(fruitBatchRepository, providerRepository, changeTracker,
+                providerFruitIndex, new TransactionTemplate(transactionManager),
+                new WriteBehindProperties(16, 3, Duration.ofMillis(10), Duration.ofMillis(1), 3,
+                        Duration.ofSeconds(1), Duration.ofSeconds(5)));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writeBehindService.close();
+    }
+
+    @Test
+    void write_WithFruitThatCannotBeWritten_DropsOnlyThatFruit() throws InterruptedException {
+        when(fruitBatchRepository.insertAll(any())).thenAnswer(invocation -> {
+            List<FruitRequestDTO> fruits = invocation.getArgument(0);
+            if (fruits.stream().anyMatch(fruit -> fruit.name().equals("Bad"))) {
+                throw new DataIntegrityViolationException("Data truncation");
+            }
+            return fruits.size();
+        });
+        enqueue("Apple", "Bad", "Pear");
+
+        WriteBehindStatusDTO status = awaitStatus(s -> s.written() + s.failed() == 3);
+
+        assertThat(status.written()).isEqualTo(2);
+        assertThat(status.failed()).isEqualTo(1);
+    }
+
+    @Test
+    void write_WithTransientFailures_DropsBatchAfterMaxAttempts() throws InterruptedException {
+        when(fruitBatchRepository.insertAll(any())).thenThrow(new QueryTimeoutException("Lock wait timeout exceeded"));
+        enqueue("Apple", "Lemon", "Pear");
+
+        WriteBehindStatusDTO status = awaitStatus(s -> s.failed() == 3);
+
+        assertThat(status.written()).isZero();
+        verify(fruitBatchRepository, atLeast(3)).insertAll(any());
+    }
+
+    private void enqueue(String... names) {
+        for (String name : names) {
+            writeBehindService.enqueue(new FruitRequestDTO(name, 10, 1L));
+        }
+    }
+
+    private WriteBehindStatusDTO awaitStatus(Predicate<WriteBehindStatusDTO> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        WriteBehindStatusDTO status = writeBehindService.getStatus();
+        while (!condition.test(status) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            status = writeBehindService.getStatus();
+        }
+        return status;
+    }
+}
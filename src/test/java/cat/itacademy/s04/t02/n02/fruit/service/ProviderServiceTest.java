@@ -1,5 +1,6 @@
 package cat.itacademy.s04.t02.n02.fruit.service;
 
+import cat.itacademy.s04.t02.n02.fruit.cache.ProviderFruitIndex;
 import cat.itacademy.s04.t02.n02.fruit.dto.ProviderRequestDTO;
 import cat.itacademy.s04.t02.n02.fruit.dto.ProviderResponseDTO;
 import cat.itacademy.s04.t02.n02.fruit.exception.DuplicateResourceException;
@@ -7,8 +8,8 @@ import cat.itacademy.s04.t02.n02.fruit.exception.ResourceConflictException;
 import cat.itacademy.s04.t02.n02.fruit.exception.ResourceNotFoundException;
 import cat.itacademy.s04.t02.n02.fruit.mapper.ProviderMapper;
 import cat.itacademy.s04.t02.n02.fruit.model.Provider;
-import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
-import cat.itacademy.s04.t02.n02.fruit.repository.ProviderRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.FruitStore;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.ProviderStore;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -29,7 +30,7 @@ import static org.mockito.Mockito.times;
 class ProviderServiceTest {
 
     @Mock
-    private ProviderRepository providerRepository;
+    private ProviderStore providerStore;
 
     @Mock
     private ProviderMapper providerMapper;
@@ -38,7 +39,13 @@ class ProviderServiceTest {
     private ProviderServiceImpl providerService;
 
     @Mock
-    private FruitRepository fruitRepository;
+    private FruitStore fruitStore;
+
+    @Mock
+    private CatalogueChangeTracker changeTracker;
+
+    @Mock
+    private ProviderFruitIndex providerFruitIndex;
 
     @Test
     void createProvider_WithValidData_ReturnsProviderResponse() {
@@ -47,9 +54,9 @@ class ProviderServiceTest {
         Provider savedEntity = new Provider(1L, "Fruits Inc", "Spain");
         ProviderResponseDTO expectedResponse = new ProviderResponseDTO(1L, "Fruits Inc", "Spain");
 
-        when(providerRepository.existsByName("Fruits Inc")).thenReturn(false);
+        when(providerStore.existsByName("Fruits Inc")).thenReturn(false);
         when(providerMapper.toEntity(request)).thenReturn(entity);
-        when(providerRepository.save(entity)).thenReturn(savedEntity);
+        when(providerStore.save(entity)).thenReturn(savedEntity);
         when(providerMapper.toResponseDTO(savedEntity)).thenReturn(expectedResponse);
 
         ProviderResponseDTO result = providerService.createProvider(request);
@@ -64,7 +71,7 @@ class ProviderServiceTest {
     void createProvider_WithDuplicateName_ThrowsDuplicateResourceException() {
         ProviderRequestDTO request = new ProviderRequestDTO("Fruits Inc", "Spain");
 
-        when(providerRepository.existsByName("Fruits Inc")).thenReturn(true);
+        when(providerStore.existsByName("Fruits Inc")).thenReturn(true);
 
         assertThatThrownBy(() -> providerService.createProvider(request))
                 .isInstanceOf(DuplicateResourceException.class)
@@ -73,7 +80,7 @@ class ProviderServiceTest {
 
     @Test
     void getAllProviders_WhenNoProviders_ReturnsEmptyList() {
-        when(providerRepository.findAll()).thenReturn(List.of());
+        when(providerStore.findAll()).thenReturn(List.of());
 
         List<ProviderResponseDTO> result = providerService.getAllProviders();
 
@@ -89,7 +96,7 @@ class ProviderServiceTest {
         ProviderResponseDTO response1 = new ProviderResponseDTO(1L, "Fruits Inc", "Spain");
         ProviderResponseDTO response2 = new ProviderResponseDTO(2L, "Veggies Ltd", "France");
 
-        when(providerRepository.findAll()).thenReturn(providers);
+        when(providerStore.findAll()).thenReturn(providers);
         when(providerMapper.toResponseDTO(provider1)).thenReturn(response1);
         when(providerMapper.toResponseDTO(provider2)).thenReturn(response2);
 
@@ -109,9 +116,9 @@ class ProviderServiceTest {
         Provider updatedProvider = new Provider(providerId, "Updated Fruits Inc", "Italy");
         ProviderResponseDTO expectedResponse = new ProviderResponseDTO(providerId, "Updated Fruits Inc", "Italy");
 
-        when(providerRepository.findById(providerId)).thenReturn(Optional.of(existingProvider));
-        when(providerRepository.existsByName("Updated Fruits Inc")).thenReturn(false);
-        when(providerRepository.save(any(Provider.class))).thenReturn(updatedProvider);
+        when(providerStore.findById(providerId)).thenReturn(Optional.of(existingProvider));
+        when(providerStore.existsByName("Updated Fruits Inc")).thenReturn(false);
+        when(providerStore.save(any(Provider.class))).thenReturn(updatedProvider);
         when(providerMapper.toResponseDTO(updatedProvider)).thenReturn(expectedResponse);
 
         ProviderResponseDTO result = providerService.updateProvider(providerId, request);
@@ -127,7 +134,7 @@ class ProviderServiceTest {
         Long providerId = 999L;
         ProviderRequestDTO request = new ProviderRequestDTO("Fruits Inc", "Spain");
 
-        when(providerRepository.findById(providerId)).thenReturn(Optional.empty());
+        when(providerStore.findById(providerId)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> providerService.updateProvider(providerId, request))
                 .isInstanceOf(ResourceNotFoundException.class)
@@ -141,8 +148,8 @@ class ProviderServiceTest {
 
         Provider existingProvider = new Provider(providerId, "Fruits Inc", "Spain");
 
-        when(providerRepository.findById(providerId)).thenReturn(Optional.of(existingProvider));
-        when(providerRepository.existsByName("Existing Provider")).thenReturn(true);
+        when(providerStore.findById(providerId)).thenReturn(Optional.of(existingProvider));
+        when(providerStore.existsByName("Existing Provider")).thenReturn(true);
 
         assertThatThrownBy(() -> providerService.updateProvider(providerId, request))
                 .isInstanceOf(DuplicateResourceException.class)
@@ -158,8 +165,8 @@ class ProviderServiceTest {
         Provider updatedProvider = new Provider(providerId, "Fruits Inc", "Italy");
         ProviderResponseDTO expectedResponse = new ProviderResponseDTO(providerId, "Fruits Inc", "Italy");
 
-        when(providerRepository.findById(providerId)).thenReturn(Optional.of(existingProvider));
-        when(providerRepository.save(any(Provider.class))).thenReturn(updatedProvider);
+        when(providerStore.findById(providerId)).thenReturn(Optional.of(existingProvider));
+        when(providerStore.save(any(Provider.class))).thenReturn(updatedProvider);
         when(providerMapper.toResponseDTO(updatedProvider)).thenReturn(expectedResponse);
 
         ProviderResponseDTO result = providerService.updateProvider(providerId, request);
@@ -173,19 +180,21 @@ class ProviderServiceTest {
                 Long providerId = 1L;
         Provider provider = new Provider(providerId, "Fruits Inc", "Spain");
 
-        when(providerRepository.findById(providerId)).thenReturn(Optional.of(provider));
-        when(fruitRepository.existsByProviderId(providerId)).thenReturn(false);
+        when(providerStore.findById(providerId)).thenReturn(Optional.of(provider));
+        when(fruitStore.existsByProviderId(providerId)).thenReturn(false);
 
                 providerService.deleteProvider(providerId);
 
-                verify(providerRepository, times(1)).delete(provider);
+                verify(providerStore, times(1)).delete(provider);
+        verify(changeTracker).providersChanged(providerId);
+        verify(providerFruitIndex).providerRemoved(providerId);
     }
 
     @Test
     void deleteProvider_WithNonExistentId_ThrowsResourceNotFoundException() {
                 Long providerId = 999L;
 
-        when(providerRepository.findById(providerId)).thenReturn(Optional.empty());
+        when(providerStore.findById(providerId)).thenReturn(Optional.empty());
 
                 assertThatThrownBy(() -> providerService.deleteProvider(providerId))
                 .isInstanceOf(ResourceNotFoundException.class)
@@ -197,11 +206,20 @@ class ProviderServiceTest {
                 Long providerId = 1L;
         Provider provider = new Provider(providerId, "Fruits Inc", "Spain");
 
-        when(providerRepository.findById(providerId)).thenReturn(Optional.of(provider));
-        when(fruitRepository.existsByProviderId(providerId)).thenReturn(true);
+        when(providerStore.findById(providerId)).thenReturn(Optional.of(provider));
+        when(fruitStore.existsByProviderId(providerId)).thenReturn(true);
 
                 assertThatThrownBy(() -> providerService.deleteProvider(providerId))
                 .isInstanceOf(ResourceConflictException.class)
                 .hasMessage("Cannot delete provider with id 1 because it has associated fruits");
     }
+
+    @Test
+    void getProviderVersion_WithNonExistentId_ThrowsResourceNotFoundException() {
+        when(providerStore.findVersionById(999L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> providerService.getProviderVersion(999L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Provider with id 999 not found");
+    }
 }
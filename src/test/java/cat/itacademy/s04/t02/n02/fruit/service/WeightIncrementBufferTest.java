@@ -0,0 +1,61 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeightIncrementBufferTest {
+
+    @Test
+    void add_SameFruitTwice_SumsDeltasIntoOnePendingFruit() {
+        WeightIncrementBuffer buffer = new WeightIncrementBuffer(4);
+
+        assertThat(buffer.add(7, 3)).isEqualTo(1);
+        assertThat(buffer.add(7, 2)).isEqualTo(1);
+        assertThat(buffer.add(2, 1)).isEqualTo(2);
+
+        assertThat(buffer.drain()).containsExactly(Map.entry(2L, 1L), Map.entry(7L, 5L));
+        assertThat(buffer.pendingFruits()).isZero();
+        assertThat(buffer.drain()).isEmpty();
+    }
+
+    @Test
+    void drain_WhileOtherThreadsAdd_HandsOutEveryDeltaExactlyOnce() {
+        WeightIncrementBuffer buffer = new WeightIncrementBuffer(8);
+        int threads = 8;
+        int addsPerThread = 20_000;
+        AtomicBoolean adding = new AtomicBoolean(true);
+
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < addsPerThread; i++) {
+                    buffer.add(i % 100, 1);
+                }
+            }));
+        }
+        CompletableFuture<Long> drainer = CompletableFuture.supplyAsync(() -> {
+            long drained = 0;
+            while (adding.get()) {
+                drained += sum(buffer.drain());
+            }
+            return drained;
+        });
+        writers.forEach(CompletableFuture::join);
+        adding.set(false);
+
+        assertThat(drainer.join() + sum(buffer.drain())).isEqualTo((long) threads * addsPerThread);
+        assertThat(buffer.pendingFruits()).isZero();
+    }
+
+    private static long sum(SortedMap<Long, Long> deltas) {
+        return deltas.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
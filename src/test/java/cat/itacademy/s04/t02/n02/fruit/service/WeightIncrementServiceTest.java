@@ -0,0 +1,90 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import cat.itacademy.s04.t02.n02.fruit.mapper.FruitMapper;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitBatchRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.FruitRepository;
+import cat.itacademy.s04.t02.n02.fruit.repository.storage.WeightUpdate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WeightIncrementServiceTest {
+
+    @Mock
+    private FruitBatchRepository fruitBatchRepository;
+
+    @Mock
+    private FruitRepository fruitRepository;
+
+    @Mock
+    private FruitMapper fruitMapper;
+
+    @Mock
+    private CatalogueChangeTracker changeTracker;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private WeightIncrementServiceImpl weightIncrementService;
+
+    @BeforeEach
+    void setUp() {
+        weightIncrementService = new WeightIncrementServiceImpl(fruitBatchRepository, fruitRepository, fruitMapper,
+                changeTracker, new TransactionTemplate(transactionManager),
+                new WeightIncrementProperties(Duration.ofHours(1), 10_000, 4));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        weightIncrementService.close();
+    }
+
+    @Test
+    void flush_WithRowThatCannotBeWritten_DropsOnlyThatFruit() {
+        when(fruitBatchRepository.incrementWeights(any())).thenAnswer(invocation -> {
+            SortedMap<Long, Long> deltas = invocation.getArgument(0);
+            if (deltas.containsKey(2L)) {
+                throw new DataIntegrityViolationException("Check constraint violated");
+            }
+            return new WeightUpdate(deltas.size(), Set.of(1L), List.of(), List.of());
+        });
+        weightIncrementService.increment(1L, 3);
+        weightIncrementService.increment(2L, 3);
+        weightIncrementService.increment(3L, 3);
+
+        assertThat(weightIncrementService.flush()).isEqualTo(2);
+        assertThat(weightIncrementService.pendingFruits()).isZero();
+        assertThat(weightIncrementService.flush()).isZero();
+    }
+
+    @Test
+    void flush_WithTransientFailure_KeepsDeltasForNextFlush() {
+        when(fruitBatchRepository.incrementWeights(any()))
+                .thenThrow(new QueryTimeoutException("Lock wait timeout exceeded"))
+                .thenReturn(new WeightUpdate(2, Set.of(1L), List.of(), List.of()));
+        weightIncrementService.increment(1L, 3);
+        weightIncrementService.increment(2L, 3);
+
+        assertThatThrownBy(() -> weightIncrementService.flush()).isInstanceOf(QueryTimeoutException.class);
+        assertThat(weightIncrementService.pendingFruits()).isEqualTo(2);
+        assertThat(weightIncrementService.flush()).isEqualTo(2);
+    }
+}
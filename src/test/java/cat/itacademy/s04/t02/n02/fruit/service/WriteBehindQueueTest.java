@@ -0,0 +1,71 @@
+package cat.itacademy.s04.t02.n02.fruit.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteBehindQueueTest {
+
+    @Test
+    void offer_WhenFull_ReturnsFalseUntilAnItemIsTaken() {
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>(3);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(queue.offer(i)).isTrue();
+        }
+        assertThat(queue.capacity()).isEqualTo(4);
+        assertThat(queue.offer(4)).isFalse();
+
+        assertThat(queue.poll()).isEqualTo(0);
+        assertThat(queue.offer(4)).isTrue();
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(queue.drainTo(drained, 10)).isEqualTo(4);
+        assertThat(drained).containsExactly(1, 2, 3, 4);
+        assertThat(queue.poll()).isNull();
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void drainTo_WithConcurrentProducers_TakesEveryItemExactlyOnce() {
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>(1024);
+        int producers = 4;
+        int itemsPerProducer = 50_000;
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int first = p * itemsPerProducer;
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int i = first; i < first + itemsPerProducer; i++) {
+                    while (!queue.offer(i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        BitSet seen = new BitSet();
+        List<Integer> batch = new ArrayList<>();
+        int taken = 0;
+        while (taken < producers * itemsPerProducer) {
+            int drained = queue.drainTo(batch, 100);
+            if (drained == 0) {
+                Thread.yield();
+            }
+            taken += drained;
+            for (Integer item : batch) {
+                assertThat(seen.get(item)).as("item %d taken twice", item).isFalse();
+                seen.set(item);
+            }
+            batch.clear();
+        }
+        futures.forEach(CompletableFuture::join);
+
+        assertThat(seen.cardinality()).isEqualTo(producers * itemsPerProducer);
+        assertThat(queue.poll()).isNull();
+    }
+}